@@ -0,0 +1,167 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.lockable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests LockableComponent
+ */
+public class LockableComponentTest extends TestCase {
+
+	private LockableComponent lock;
+
+	private final Object first = new Object();
+
+	private final Object second = new Object();
+
+	@Override
+	protected void setUp() {
+		lock = new LockableComponent();
+	}
+
+	/**
+	 * Tests only the owner can unlock and that a second locker is refused until it does
+	 */
+	public void testUnlockByOtherLocker() {
+		assertTrue(lock.lock(first));
+		assertTrue(lock.lockedFor(first));
+
+		assertFalse(lock.lock(second));
+		assertFalse(lock.unLock(second));
+		assertTrue(lock.lockedFor(first));
+		assertFalse(lock.lockedFor(second));
+
+		assertTrue(lock.unLock(first));
+		assertFalse(lock.lockedFor(first));
+		assertFalse(lock.unLock(first));
+
+		assertTrue(lock.lock(second));
+		assertTrue(lock.lockedFor(second));
+	}
+
+	/**
+	 * Tests locking again by the owner succeeds without counting another acquisition
+	 */
+	public void testRelockByOwner() {
+		assertTrue(lock.lock(first));
+		assertTrue(lock.lock(first));
+		LockStatistics statistics = lock.getStatistics();
+		assertEquals(1, statistics.getAcquisitions());
+		assertEquals(0, statistics.getFailures());
+		assertTrue(statistics.isLocked());
+	}
+
+	/**
+	 * Tests the counters and the hold time add up over several lockers
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void testStatistics() throws InterruptedException {
+		LockStatistics statistics = lock.getStatistics();
+		assertEquals(0, statistics.getAcquisitions());
+		assertEquals(0, statistics.getFailures());
+		assertEquals(0, statistics.getHoldTime());
+		assertFalse(statistics.isLocked());
+
+		lock.lock(first);
+		Thread.sleep(50);
+		assertFalse(lock.lock(second));
+		assertFalse(lock.unLock(second));
+		lock.unLock(first);
+
+		lock.lock(second);
+		Thread.sleep(50);
+		assertFalse(lock.lock(first));
+		assertFalse(lock.lock(first));
+		lock.unLock(second);
+
+		statistics = lock.getStatistics();
+		assertEquals(2, statistics.getAcquisitions());
+		assertEquals(3, statistics.getFailures());
+		assertTrue(statistics.getHoldTime() >= 100);
+		assertTrue(statistics.getHoldTime() < 5000);
+		assertFalse(statistics.isLocked());
+
+		// time spent unlocked is not counted
+		Thread.sleep(50);
+		assertEquals(statistics.getHoldTime(), lock.getStatistics().getHoldTime());
+	}
+
+	/**
+	 * Tests that when many threads contend for the lock exactly one holds it at a time and every attempt is counted
+	 * as an acquisition or a failure
+	 * 
+	 * @throws Exception
+	 */
+	public void testContended() throws Exception {
+		final int threads = 8;
+		final int attempts = 2000;
+		final AtomicInteger holders = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+		final AtomicInteger acquired = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Future<?>[] futures = new Future<?>[threads];
+			for (int t = 0; t < threads; t++) {
+				futures[t] = executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						Object me = new Object();
+						start.await();
+						for (int i = 0; i < attempts; i++) {
+							if (lock.lock(me)) {
+								acquired.incrementAndGet();
+								if (holders.incrementAndGet() != 1) {
+									overlaps.incrementAndGet();
+								}
+								holders.decrementAndGet();
+								assertTrue(lock.unLock(me));
+							}
+						}
+						return null;
+					}
+				});
+			}
+			start.countDown();
+			for (Future<?> f : futures) {
+				f.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(0, overlaps.get());
+		LockStatistics statistics = lock.getStatistics();
+		assertEquals(acquired.get(), statistics.getAcquisitions());
+		assertEquals(threads * attempts, statistics.getAcquisitions() + statistics.getFailures());
+		assertFalse(statistics.isLocked());
+	}
+}
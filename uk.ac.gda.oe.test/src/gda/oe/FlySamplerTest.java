@@ -0,0 +1,85 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+
+/**
+ * Tests FlySampler
+ */
+public class FlySamplerTest extends TestCase {
+
+	private final List<Integer> indices = Collections.synchronizedList(new ArrayList<Integer>());
+
+	private final FlySampler.Listener listener = new FlySampler.Listener() {
+		@Override
+		public void sampled(int index, long time, Quantity position) {
+			indices.add(index);
+		}
+	};
+
+	/**
+	 * Tests readings are taken until the DOF has stopped, the last one after it stopped
+	 * 
+	 * @throws Exception
+	 */
+	public void testSamplesUntilStopped() throws Exception {
+		OE oe = mock(OE.class);
+		when(oe.isMoving("x")).thenReturn(true, true, true, false);
+		FlySampler sampler = new FlySampler(oe, "x", listener);
+		sampler.start(5);
+		sampler.waitUntilFinished();
+		assertTrue(sampler.isFinished());
+		assertEquals(4, sampler.getCount());
+		assertEquals(4, indices.size());
+		for (int i = 0; i < indices.size(); i++) {
+			assertEquals(i, indices.get(i).intValue());
+		}
+	}
+
+	/**
+	 * Tests a failed reading ends sampling and is reported
+	 * 
+	 * @throws Exception
+	 */
+	public void testFailure() throws Exception {
+		OE oe = mock(OE.class);
+		when(oe.isMoving("x")).thenReturn(true);
+		when(oe.getPosition("x")).thenThrow(new MoveableException(new MoveableStatus(MoveableStatus.ERROR, "x"), "failed"));
+		FlySampler sampler = new FlySampler(oe, "x", listener);
+		sampler.start(5);
+		try {
+			sampler.waitUntilFinished();
+			fail("expected MoveableException");
+		} catch (MoveableException e) {
+			// expected
+		}
+		assertEquals(0, indices.size());
+	}
+}
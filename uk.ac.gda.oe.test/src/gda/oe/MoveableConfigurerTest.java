@@ -0,0 +1,124 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import gda.configuration.properties.LocalProperties;
+import gda.factory.FactoryException;
+import gda.oe.dofs.DOF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests MoveableConfigurer
+ */
+public class MoveableConfigurerTest extends TestCase {
+
+	private final List<String> configured = Collections.synchronizedList(new ArrayList<String>());
+
+	@Override
+	protected void setUp() {
+		LocalProperties.set(MoveableConfigurer.THREADS_PROPERTY, "4");
+	}
+
+	@Override
+	protected void tearDown() {
+		LocalProperties.clearProperty(MoveableConfigurer.THREADS_PROPERTY);
+	}
+
+	private <T extends Moveable> T moveable(Class<T> type, final String name) throws FactoryException {
+		T moveable = mock(type);
+		when(moveable.getName()).thenReturn(name);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws InterruptedException {
+				Thread.sleep(50);
+				configured.add(name);
+				return null;
+			}
+		}).when(moveable).configure();
+		return moveable;
+	}
+
+	private DOF dof(String name, String... children) throws FactoryException {
+		DOF dof = moveable(DOF.class, name);
+		when(dof.getMoveableNames()).thenReturn(new ArrayList<String>(Arrays.asList(children)));
+		return dof;
+	}
+
+	/**
+	 * Tests each DOF is configured after the Moveables it uses, whatever the order of the list
+	 * 
+	 * @throws FactoryException
+	 */
+	public void testDependencyOrder() throws FactoryException {
+		List<Moveable> moveables = new ArrayList<Moveable>();
+		moveables.add(dof("top", "x", "middle"));
+		moveables.add(dof("middle", "y", "z"));
+		moveables.add(moveable(Moveable.class, "x"));
+		moveables.add(moveable(Moveable.class, "y"));
+		moveables.add(moveable(Moveable.class, "z"));
+
+		Map<String, Long> times = new MoveableConfigurer("oe", moveables).configure();
+
+		assertEquals(5, configured.size());
+		assertTrue(configured.indexOf("middle") > configured.indexOf("y"));
+		assertTrue(configured.indexOf("middle") > configured.indexOf("z"));
+		assertTrue(configured.indexOf("top") > configured.indexOf("x"));
+		assertTrue(configured.indexOf("top") > configured.indexOf("middle"));
+		assertEquals(Arrays.asList("top", "middle", "x", "y", "z"), new ArrayList<String>(times.keySet()));
+		assertTrue(times.get("x") >= 40);
+	}
+
+	/**
+	 * Tests a failure is passed on and the DOFs using the failed Moveable are not configured
+	 * 
+	 * @throws FactoryException
+	 */
+	public void testFailure() throws FactoryException {
+		Moveable broken = mock(Moveable.class);
+		when(broken.getName()).thenReturn("broken");
+		doThrow(new FactoryException("no motor")).when(broken).configure();
+		List<Moveable> moveables = new ArrayList<Moveable>();
+		moveables.add(dof("dof", "broken"));
+		moveables.add(broken);
+
+		try {
+			new MoveableConfigurer("oe", moveables).configure();
+			fail("failure not passed on");
+		} catch (FactoryException e) {
+			assertEquals("no motor", e.getMessage());
+		}
+		assertFalse(configured.contains("dof"));
+	}
+}
@@ -0,0 +1,93 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import junit.framework.TestCase;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests StopService
+ */
+public class StopServiceTest extends TestCase {
+
+	private OE oe(String name, String... dofNames) {
+		OE oe = mock(OE.class);
+		when(oe.getName()).thenReturn(name);
+		when(oe.getDOFNames()).thenReturn(dofNames);
+		return oe;
+	}
+
+	/**
+	 * Tests the DOFs are stopped at the same time and that failures and DOFs still stopping at the deadline are
+	 * reported
+	 * 
+	 * @throws Exception
+	 */
+	public void testStopsInParallelWithinDeadline() throws Exception {
+		Answer<Void> slowStop = new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(150);
+				return null;
+			}
+		};
+		OE first = oe("first", "a", "b");
+		doAnswer(slowStop).when(first).stop("a");
+		doAnswer(slowStop).when(first).stop("b");
+		OE second = oe("second", "c", "d");
+		doAnswer(slowStop).when(second).stop("c");
+		doThrow(new MoveableException(new MoveableStatus(MoveableStatus.ERROR, "d"), "motor not responding"))
+				.when(second).stop("d");
+		OE third = oe("third", "e");
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(2000);
+				return null;
+			}
+		}).when(third).stop("e");
+
+		long start = System.currentTimeMillis();
+		StopResult[] results = StopService.stop(new OE[] { first, second, third }, 500);
+		long time = System.currentTimeMillis() - start;
+
+		assertTrue("took " + time + " mS", time < 1000);
+		assertEquals(5, results.length);
+		assertEquals("first", results[0].getOeName());
+		assertEquals("a", results[0].getDofName());
+		assertTrue(results[0].isStopped());
+		assertTrue(results[1].isStopped());
+		assertTrue(results[2].isStopped());
+		assertTrue(results[0].getTime() >= 150);
+		assertTrue(results[3].isFinished());
+		assertFalse(results[3].isStopped());
+		assertEquals("motor not responding", results[3].getFailure());
+		assertEquals("e", results[4].getDofName());
+		assertFalse(results[4].isFinished());
+		assertEquals(500.0, results[4].getTime(), 1.0);
+	}
+}
@@ -0,0 +1,137 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.benchmark;
+
+import gda.factory.FactoryException;
+import gda.oe.GenericOE;
+import gda.oe.Moveable;
+import gda.oe.MoveableException;
+import gda.oe.dofs.DOF;
+import gda.oe.dofs.SingleAxisLinearDOF;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the by-name operations of an OE with many DOFs. The DOFs have no positioners so only the OE's own
+ * work (finding the DOF and its lock state) is measured. Each operation uses the next DOF in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OEBaseLookupBenchmark {
+
+	private static class BenchmarkDOF extends SingleAxisLinearDOF {
+		BenchmarkDOF() {
+			setMoveables(new Moveable[0]);
+		}
+
+		@Override
+		public void configure() throws FactoryException {
+			// no positioners to find
+		}
+	}
+
+	/**
+	 * The number of DOFs in the OE
+	 */
+	@Param("100")
+	public int dofs;
+
+	private GenericOE oe;
+
+	private String[] names;
+
+	private int next;
+
+	/**
+	 * Builds and configures the OE
+	 * 
+	 * @throws FactoryException
+	 */
+	@Setup
+	public void setUp() throws FactoryException {
+		oe = new GenericOE();
+		oe.setName("BenchmarkOE");
+		names = new String[dofs];
+		for (int i = 0; i < dofs; i++) {
+			names[i] = "BenchmarkDOF" + i;
+			DOF dof = new BenchmarkDOF();
+			dof.setName(names[i]);
+			oe.addMoveable(dof);
+		}
+		oe.configure();
+	}
+
+	private String nextName() {
+		String name = names[next];
+		next = (next + 1) % names.length;
+		return name;
+	}
+
+	/**
+	 * @return the lock id
+	 * @throws MoveableException
+	 */
+	@Benchmark
+	public int lockUnlock() throws MoveableException {
+		String name = nextName();
+		int lockId = oe.lock(name);
+		oe.unlock(name, lockId);
+		return lockId;
+	}
+
+	/**
+	 * @return the type of the DOF
+	 * @throws MoveableException
+	 */
+	@Benchmark
+	public String getDOFType() throws MoveableException {
+		return oe.getDOFType(nextName());
+	}
+
+	/**
+	 * Runs the benchmark; JMH's own command line (org.openjdk.jmh.Main) can be used instead to change its settings.
+	 * 
+	 * @param args
+	 *            not used
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(OEBaseLookupBenchmark.class.getName()).build()).run();
+	}
+}
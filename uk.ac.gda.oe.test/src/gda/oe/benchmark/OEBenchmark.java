@@ -0,0 +1,348 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.benchmark;
+
+import gda.factory.FactoryException;
+import gda.observable.IObserver;
+import gda.oe.AbstractMoveable;
+import gda.oe.GenericOE;
+import gda.oe.MoveableException;
+import gda.oe.MoveableStatus;
+import gda.oe.OE;
+import gda.oe.StopResult;
+import gda.oe.StopService;
+import gda.oe.dofs.SingleAxisLinearDOF;
+import gda.oe.positioners.LinearPositioner;
+import gda.oe.util.LatencyHistogram;
+import gda.oe.util.MotionLatency;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JMH benchmark which drives a GenericOE with many SingleAxisLinearDOFs, each with a LinearPositioner and a
+ * SimulatedMotor, through three loads:
+ * <ul>
+ * <li>moveStorm - every DOF is moved again as soon as it stops; one operation is one move finished</li>
+ * <li>scan - one DOF is stepped and read back; one operation is one point</li>
+ * <li>stopStorm - every DOF is started and then all are stopped together by the StopService; one operation is one
+ * round</li>
+ * </ul>
+ * JMH reports the rates (and with -prof gc the allocation rate and garbage collections). At the end of each iteration
+ * the time from a motor stopping to its OE's observers being told (notification), the mean READY_PROPAGATION time of
+ * the DOFs, the peak number of threads, the number of failed moves and the stop times are logged. The number of DOFs,
+ * the controller latency in mS, the chance of a move failing and the poll time in mS are parameters; a long running
+ * test is made by giving JMH long iterations (e.g. -r 600s).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class OEBenchmark implements IObserver {
+	private static final Logger logger = LoggerFactory.getLogger(OEBenchmark.class);
+
+	private static final double AMPLITUDE = 0.5;
+
+	private static final double STEPS_PER_MM = 1000.0;
+
+	/**
+	 * The number of DOFs
+	 */
+	@Param("200")
+	public int dofs;
+
+	/**
+	 * The controller latency in mS
+	 */
+	@Param("2")
+	public long latency;
+
+	/**
+	 * The chance of a move failing
+	 */
+	@Param("0")
+	public double faultProbability;
+
+	/**
+	 * The positioners' poll time in mS
+	 */
+	@Param("20")
+	public long pollTime;
+
+	private GenericOE oe;
+
+	private String[] names;
+
+	private SimulatedMotor[] motors;
+
+	private final HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+
+	private int[] moveCounts;
+
+	private final Random random = new Random();
+
+	private final LatencyHistogram notification = new LatencyHistogram();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	private final LatencyHistogram stopTimes = new LatencyHistogram();
+
+	private final AtomicLong notStopped = new AtomicLong();
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private int next;
+
+	private long scanPoints;
+
+	/**
+	 * Builds and configures the OE
+	 * 
+	 * @throws FactoryException
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws FactoryException {
+		names = new String[dofs];
+		motors = new SimulatedMotor[dofs];
+		moveCounts = new int[dofs];
+		oe = new GenericOE();
+		oe.setName("BenchmarkOE");
+		for (int i = 0; i < dofs; i++) {
+			SimulatedMotor motor = new SimulatedMotor();
+			motor.setName("SimulatedMotor" + i);
+			motor.setSpeed(10.0 * STEPS_PER_MM);
+			motor.setAcceleration(100.0 * STEPS_PER_MM);
+			motor.setLatency(latency);
+			motor.setLatencyJitter(latency / 2);
+			motor.setFaultProbability(faultProbability);
+			motors[i] = motor;
+
+			LinearPositioner positioner = new LinearPositioner();
+			positioner.setName("SimulatedPositioner" + i);
+			positioner.setMotor(motor);
+			positioner.setPollTime(pollTime);
+			positioner.setStepsPerUnit(STEPS_PER_MM);
+			positioner.setSoftLimitHighValue(100.0);
+			positioner.setSoftLimitLowValue(-100.0);
+			oe.addMoveable(positioner);
+
+			names[i] = "SimulatedDOF" + i;
+			indexes.put(names[i], i);
+			SingleAxisLinearDOF dof = new SingleAxisLinearDOF();
+			dof.setName(names[i]);
+			dof.addAcceptableUnit("mm");
+			dof.addMoveableName(positioner.getName());
+			oe.addMoveable(dof);
+		}
+		oe.configure();
+		oe.addIObserver(this);
+	}
+
+	/**
+	 * Stops everything so that the next trial starts from rest
+	 * 
+	 * @throws MoveableException
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws MoveableException {
+		StopService.stop(new OE[] { oe }, StopService.getDeadline());
+		waitForAll();
+	}
+
+	@Override
+	public void update(Object source, Object arg) {
+		if (arg instanceof MoveableStatus) {
+			MoveableStatus status = (MoveableStatus) arg;
+			Integer index = indexes.get(status.getMoveableName());
+			if (index != null && status.value() != MoveableStatus.BUSY) {
+				long arrival = motors[index].takeArrivalTime();
+				if (arrival != 0) {
+					notification.record(System.nanoTime() - arrival);
+				}
+				if (status.value() != MoveableStatus.READY && status.value() != MoveableStatus.SUCCESS) {
+					errors.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the next DOF which has stopped again, waiting for one to stop if none has.
+	 * 
+	 * @return the index of the DOF moved
+	 * @throws MoveableException
+	 */
+	@Benchmark
+	public int moveStorm() throws MoveableException {
+		while (true) {
+			for (int n = 0; n < names.length; n++) {
+				int i = next;
+				next = (next + 1) % names.length;
+				if (!oe.isMoving(names[i])) {
+					move(i);
+					return i;
+				}
+			}
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+	}
+
+	/**
+	 * Steps the first DOF to its next point back and forth and reads the position there.
+	 * 
+	 * @return the position
+	 * @throws MoveableException
+	 */
+	@Benchmark
+	public Quantity scan() throws MoveableException {
+		int steps = 20;
+		int step = (int) (scanPoints++ % (2 * steps));
+		double position = -AMPLITUDE + 2.0 * AMPLITUDE * ((step < steps) ? step : 2 * steps - step) / steps;
+		oe.moveTo(names[0], Quantity.valueOf(position, SI.MILLI(SI.METER)));
+		waitFor(0);
+		return oe.getPosition(names[0]);
+	}
+
+	/**
+	 * Starts every DOF on a long move and stops them all together.
+	 * 
+	 * @throws MoveableException
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void stopStorm() throws MoveableException {
+		for (int i = 0; i < names.length; i++) {
+			double target = (moveCounts[i]++ % 2 == 0) ? 50.0 : -50.0;
+			try {
+				oe.moveTo(names[i], Quantity.valueOf(target, SI.MILLI(SI.METER)));
+			} catch (MoveableException e) {
+				errors.incrementAndGet();
+			}
+		}
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+		long start = System.nanoTime();
+		for (StopResult result : StopService.stop(new OE[] { oe }, StopService.getDeadline())) {
+			if (!result.isStopped()) {
+				notStopped.incrementAndGet();
+			}
+		}
+		stopTimes.record(System.nanoTime() - start);
+		waitForAll();
+	}
+
+	private void move(int i) {
+		double size = AMPLITUDE * (0.5 + 0.5 * random.nextDouble());
+		double target = (moveCounts[i]++ % 2 == 0) ? size : -size;
+		try {
+			oe.moveTo(names[i], Quantity.valueOf(target, SI.MILLI(SI.METER)));
+		} catch (MoveableException e) {
+			errors.incrementAndGet();
+		}
+	}
+
+	private void waitFor(int i) throws MoveableException {
+		while (oe.isMoving(names[i])) {
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+		}
+	}
+
+	private void waitForAll() throws MoveableException {
+		for (int i = 0; i < names.length; i++) {
+			waitFor(i);
+		}
+	}
+
+	/**
+	 * Clears what was measured by the last iteration
+	 */
+	@Setup(Level.Iteration)
+	public void startMeasuring() {
+		notification.reset();
+		errors.set(0);
+		stopTimes.reset();
+		notStopped.set(0);
+		for (String name : names) {
+			((AbstractMoveable) oe.findMoveable(name)).getMotionLatency().reset();
+		}
+		threads.resetPeakThreadCount();
+	}
+
+	/**
+	 * Logs what JMH does not measure itself
+	 */
+	@TearDown(Level.Iteration)
+	public void report() {
+		long propagations = 0;
+		double propagationTotal = 0.0;
+		for (String name : names) {
+			LatencyHistogram histogram = ((AbstractMoveable) oe.findMoveable(name)).getMotionLatency().histogram(
+					MotionLatency.Phase.READY_PROPAGATION);
+			propagations += histogram.getCount();
+			propagationTotal += histogram.getMean() * histogram.getCount();
+		}
+		logger.info(String.format("notification mean %.2f mS, 99%% %.2f mS, max %.2f mS; "
+				+ "ready propagation mean %.3f mS; threads %d (peak %d); %d errors", notification.getMean(),
+				notification.getPercentile(99.0), notification.getMax(), (propagations > 0) ? propagationTotal
+						/ propagations : 0.0, threads.getThreadCount(), threads.getPeakThreadCount(), errors.get()));
+		if (stopTimes.getCount() > 0) {
+			logger.info(String.format("stop all %d DOFs: mean %.2f mS, max %.2f mS, %d not stopped", names.length,
+					stopTimes.getMean(), stopTimes.getMax(), notStopped.get()));
+		}
+	}
+
+	/**
+	 * Runs the benchmark; JMH's own command line (org.openjdk.jmh.Main) can be used instead to change its settings.
+	 * 
+	 * @param args
+	 *            not used
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(OEBenchmark.class.getName()).build()).run();
+	}
+}
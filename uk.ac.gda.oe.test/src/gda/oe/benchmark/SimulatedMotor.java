@@ -0,0 +1,438 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.benchmark;
+
+import gda.device.MotorException;
+import gda.device.MotorStatus;
+import gda.device.motor.MotorBase;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Motor which moves with a trapezoidal velocity profile and behaves like a slow controller. Every call which would
+ * go to the controller waits for the latency plus a random jitter, and a move can be made to fail part of the way with
+ * a FAULT status. No thread is used to move it; the position is worked out from the time since the move started, so
+ * hundreds of them can be run at once. Speed, acceleration and positions are in steps.
+ */
+public class SimulatedMotor extends MotorBase {
+
+	private double speed = 1000.0;
+
+	private double acceleration = 5000.0;
+
+	private long latency = 0;
+
+	private long latencyJitter = 0;
+
+	private double faultProbability = 0.0;
+
+	private double backlashSteps = 0.0;
+
+	private double minPosition = -Double.MAX_VALUE;
+
+	private double maxPosition = Double.MAX_VALUE;
+
+	private final Random random = new Random();
+
+	// The current move. It starts at startPosition with startSpeed at time
+	// startTime, accelerates to peakSpeed, cruises and then decelerates to
+	// rest. When not moving startTime is 0.
+	private double startPosition;
+
+	private double startSpeed;
+
+	private double peakSpeed;
+
+	private double direction;
+
+	private double accelerateTime;
+
+	private double cruiseTime;
+
+	private double decelerateTime;
+
+	private long startTime;
+
+	// the time (System.nanoTime) at which a faulty move gives up or 0 if the
+	// move is not going to fail
+	private long faultTime;
+
+	private MotorStatus status = MotorStatus.READY;
+
+	// the time at which the last move finished, until it is taken
+	private long arrivalTime;
+
+	@Override
+	public void moveTo(double steps) throws MotorException {
+		controllerDelay();
+		if (steps < minPosition || steps > maxPosition) {
+			throw new MotorException(MotorStatus.SOFT_LIMIT_VIOLATION, getName() + " cannot move to " + steps);
+		}
+		synchronized (this) {
+			start(steps);
+		}
+	}
+
+	@Override
+	public void moveBy(double steps) throws MotorException {
+		controllerDelay();
+		synchronized (this) {
+			double target = position(System.nanoTime()) + steps;
+			if (target < minPosition || target > maxPosition) {
+				throw new MotorException(MotorStatus.SOFT_LIMIT_VIOLATION, getName() + " cannot move to " + target);
+			}
+			start(target);
+		}
+	}
+
+	@Override
+	public void moveContinuously(int direction) throws MotorException {
+		moveTo((direction > 0) ? maxPosition : minPosition);
+	}
+
+	@Override
+	public void setPosition(double steps) throws MotorException {
+		controllerDelay();
+		synchronized (this) {
+			if (isMovingAt(System.nanoTime())) {
+				throw new MotorException(MotorStatus.BUSY, getName() + " cannot set position while moving");
+			}
+			startPosition = steps;
+		}
+	}
+
+	@Override
+	public double getPosition() throws MotorException {
+		controllerDelay();
+		synchronized (this) {
+			return position(System.nanoTime());
+		}
+	}
+
+	@Override
+	public void setSpeed(double speed) throws MotorException {
+		if (speed <= 0.0) {
+			throw new MotorException(MotorStatus.FAULT, getName() + " speed must be positive");
+		}
+		this.speed = speed;
+	}
+
+	@Override
+	public double getSpeed() throws MotorException {
+		return speed;
+	}
+
+	@Override
+	public void stop() throws MotorException {
+		controllerDelay();
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (isMovingAt(now)) {
+				// decelerate to rest from where the motor is now
+				double v = velocity(now);
+				startPosition = position(now);
+				startSpeed = v;
+				peakSpeed = v;
+				accelerateTime = 0.0;
+				cruiseTime = 0.0;
+				decelerateTime = (acceleration > 0.0) ? v / acceleration : 0.0;
+				startTime = now;
+				faultTime = 0;
+				arrivalTime = now + seconds(decelerateTime);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void panicStop() throws MotorException {
+		long now = System.nanoTime();
+		startPosition = position(now);
+		startTime = 0;
+		faultTime = 0;
+		status = MotorStatus.READY;
+	}
+
+	@Override
+	public MotorStatus getStatus() throws MotorException {
+		controllerDelay();
+		synchronized (this) {
+			long now = System.nanoTime();
+			return isMovingAt(now) ? MotorStatus.BUSY : status;
+		}
+	}
+
+	@Override
+	public synchronized boolean isMoving() throws MotorException {
+		return isMovingAt(System.nanoTime());
+	}
+
+	@Override
+	public void setSpeedLevel(int level) throws MotorException {
+		// there is only one speed
+	}
+
+	@Override
+	public boolean isHomeable() throws MotorException {
+		return true;
+	}
+
+	@Override
+	public void home() throws MotorException {
+		moveTo(0.0);
+	}
+
+	@Override
+	public void correctBacklash() throws MotorException {
+		moveBy(backlashSteps);
+	}
+
+	@Override
+	public void setSoftLimits(double minPosition, double maxPosition) throws MotorException {
+		this.minPosition = minPosition;
+		this.maxPosition = maxPosition;
+	}
+
+	@Override
+	public double getMinPosition() throws MotorException {
+		return minPosition;
+	}
+
+	@Override
+	public double getMaxPosition() throws MotorException {
+		return maxPosition;
+	}
+
+	@Override
+	public boolean isLimitsSettable() throws MotorException {
+		return true;
+	}
+
+	@Override
+	public boolean isInitialised() throws MotorException {
+		return true;
+	}
+
+	@Override
+	public double getTimeToVelocity() throws MotorException {
+		return (acceleration > 0.0) ? speed / acceleration : 0.0;
+	}
+
+	/**
+	 * @param acceleration
+	 *            the acceleration in steps/S/S, 0 for none
+	 */
+	public void setAcceleration(double acceleration) {
+		this.acceleration = acceleration;
+	}
+
+	/**
+	 * @return the acceleration in steps/S/S
+	 */
+	public double getAcceleration() {
+		return acceleration;
+	}
+
+	/**
+	 * @param latency
+	 *            the time in mS every call to the controller takes
+	 */
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * @return the time in mS every call to the controller takes
+	 */
+	public long getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @param latencyJitter
+	 *            the largest time in mS added at random to the latency
+	 */
+	public void setLatencyJitter(long latencyJitter) {
+		this.latencyJitter = latencyJitter;
+	}
+
+	/**
+	 * @return the largest time in mS added at random to the latency
+	 */
+	public long getLatencyJitter() {
+		return latencyJitter;
+	}
+
+	/**
+	 * @param faultProbability
+	 *            the chance (0 to 1) that a move fails part of the way
+	 */
+	public void setFaultProbability(double faultProbability) {
+		this.faultProbability = faultProbability;
+	}
+
+	/**
+	 * @return the chance that a move fails part of the way
+	 */
+	public double getFaultProbability() {
+		return faultProbability;
+	}
+
+	/**
+	 * @param backlashSteps
+	 *            the size of the move made by correctBacklash
+	 */
+	public void setBacklashSteps(double backlashSteps) {
+		this.backlashSteps = backlashSteps;
+	}
+
+	/**
+	 * Returns the time at which the last move finished, once only, so that the time until the move is seen to have
+	 * finished can be measured.
+	 * 
+	 * @return the System.nanoTime at which the last move finished or 0 if it has not finished or has been taken
+	 */
+	public synchronized long takeArrivalTime() {
+		long now = System.nanoTime();
+		if (arrivalTime == 0 || now < arrivalTime) {
+			return 0;
+		}
+		long time = arrivalTime;
+		arrivalTime = 0;
+		return time;
+	}
+
+	private void start(double target) {
+		long now = System.nanoTime();
+		double from = position(now);
+		double distance = Math.abs(target - from);
+		startPosition = from;
+		startSpeed = 0.0;
+		direction = Math.signum(target - from);
+		if (acceleration <= 0.0) {
+			peakSpeed = speed;
+			accelerateTime = 0.0;
+			decelerateTime = 0.0;
+			cruiseTime = distance / speed;
+		} else if (distance >= speed * speed / acceleration) {
+			peakSpeed = speed;
+			accelerateTime = speed / acceleration;
+			decelerateTime = accelerateTime;
+			cruiseTime = (distance - speed * speed / acceleration) / speed;
+		} else {
+			// never reaches full speed
+			peakSpeed = Math.sqrt(distance * acceleration);
+			accelerateTime = peakSpeed / acceleration;
+			decelerateTime = accelerateTime;
+			cruiseTime = 0.0;
+		}
+		startTime = now;
+		status = MotorStatus.READY;
+		long duration = seconds(accelerateTime + cruiseTime + decelerateTime);
+		arrivalTime = now + duration;
+		faultTime = (faultProbability > 0.0 && random.nextDouble() < faultProbability) ? now
+				+ (long) (random.nextDouble() * duration) : 0;
+	}
+
+	/**
+	 * Works out the position at a time and, if the move has finished or failed by then, makes the motor stop there.
+	 */
+	private double position(long now) {
+		if (startTime == 0) {
+			return startPosition;
+		}
+		if (faultTime != 0 && now >= faultTime) {
+			startPosition += direction * travelled(faultTime - startTime);
+			startTime = 0;
+			faultTime = 0;
+			arrivalTime = 0;
+			status = MotorStatus.FAULT;
+			return startPosition;
+		}
+		long elapsed = now - startTime;
+		long duration = seconds(accelerateTime + cruiseTime + decelerateTime);
+		if (elapsed >= duration) {
+			startPosition += direction * travelled(duration);
+			startTime = 0;
+			return startPosition;
+		}
+		return startPosition + direction * travelled(elapsed);
+	}
+
+	/**
+	 * @return the distance travelled in the current move after a time in nS
+	 */
+	private double travelled(long elapsed) {
+		double t = elapsed / 1.0e9;
+		double distance;
+		if (t <= accelerateTime) {
+			distance = startSpeed * t + 0.5 * acceleration * t * t;
+		} else {
+			distance = (startSpeed + peakSpeed) / 2.0 * accelerateTime;
+			t -= accelerateTime;
+			if (t <= cruiseTime) {
+				distance += peakSpeed * t;
+			} else {
+				distance += peakSpeed * cruiseTime;
+				if (decelerateTime > 0.0) {
+					t = Math.min(t - cruiseTime, decelerateTime);
+					distance += peakSpeed * t - 0.5 * peakSpeed / decelerateTime * t * t;
+				}
+			}
+		}
+		return distance;
+	}
+
+	private double velocity(long now) {
+		double t = (now - startTime) / 1.0e9;
+		if (t <= accelerateTime) {
+			return startSpeed + acceleration * t;
+		}
+		t -= accelerateTime + cruiseTime;
+		if (t <= 0.0 || decelerateTime <= 0.0) {
+			return peakSpeed;
+		}
+		return Math.max(0.0, peakSpeed - peakSpeed / decelerateTime * t);
+	}
+
+	private boolean isMovingAt(long now) {
+		position(now);
+		return startTime != 0;
+	}
+
+	private void controllerDelay() throws MotorException {
+		long delay = latency;
+		if (latencyJitter > 0) {
+			delay += (long) (random.nextDouble() * latencyJitter);
+		}
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MotorException(MotorStatus.FAULT, getName() + " interrupted talking to the controller");
+			}
+		}
+	}
+
+	private static long seconds(double seconds) {
+		return (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+	}
+}
@@ -0,0 +1,325 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.commands;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import gda.oe.Moveable;
+import gda.oe.MoveableException;
+import gda.oe.MoveableStatus;
+import gda.oe.dofs.DOF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests MultipleMove with mocked Moveables. Legs are started on an executor which runs them when the test says so, so
+ * each test decides what happens between one leg finishing and the next starting.
+ */
+public class MultipleMoveTest extends TestCase {
+
+	/**
+	 * Runs tasks straight away or, if held, when run is called
+	 */
+	private static class TestExecutor extends AbstractExecutorService {
+		boolean hold = false;
+
+		final List<Runnable> held = new ArrayList<Runnable>();
+
+		@Override
+		public void execute(Runnable command) {
+			if (hold)
+				held.add(command);
+			else
+				command.run();
+		}
+
+		void run() {
+			List<Runnable> tasks = new ArrayList<Runnable>(held);
+			held.clear();
+			for (Runnable task : tasks)
+				task.run();
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return new ArrayList<Runnable>();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return false;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+
+	private DOF dof;
+
+	private Moveable[] moveables;
+
+	private List<Quantity[]> legs;
+
+	private TestExecutor executor;
+
+	private MultipleMove move;
+
+	private final List<MoveableException> informed = new ArrayList<MoveableException>();
+
+	private static Quantity mm(double value) {
+		return Quantity.valueOf(value, SI.MILLI(SI.METER));
+	}
+
+	@Override
+	protected void setUp() {
+		dof = mock(DOF.class);
+		when(dof.getName()).thenReturn("dof");
+		when(dof.unLock(any())).thenReturn(true);
+		moveables = new Moveable[3];
+		for (int i = 0; i < moveables.length; i++) {
+			moveables[i] = mock(Moveable.class);
+			when(moveables[i].getName()).thenReturn("m" + i);
+			when(moveables[i].checkMoveTo(any(Quantity.class), any())).thenReturn(MoveableStatus.SUCCESS);
+		}
+		legs = new ArrayList<Quantity[]>();
+		for (int leg = 0; leg < 3; leg++)
+			legs.add(new Quantity[] { mm(leg), mm(10 + leg), mm(20 + leg) });
+		executor = new TestExecutor();
+		move = new MultipleMove(dof, moveables, legs, executor);
+		move.addWatcher(new MultipleMoveWatcher() {
+			@Override
+			public void inform(MultipleMove visitor, MoveableException me) {
+				assertSame(move, visitor);
+				informed.add(me);
+			}
+		});
+	}
+
+	/**
+	 * @return the id with which a Moveable was last told to move
+	 */
+	private int lastId(Moveable moveable) throws MoveableException {
+		ArgumentCaptor<Integer> id = ArgumentCaptor.forClass(Integer.class);
+		verify(moveable, atLeastOnce()).doMove(same(move), id.capture());
+		return id.getValue();
+	}
+
+	private void report(int index, int value) throws MoveableException {
+		move.update(moveables[index], new MoveableStatus(value, "m" + index, lastId(moveables[index])));
+	}
+
+	private void finishLeg() throws MoveableException {
+		for (int i = 0; i < moveables.length; i++)
+			report(i, MoveableStatus.READY);
+	}
+
+	private void verifyLegStarted(int leg) throws MoveableException {
+		for (int i = 0; i < moveables.length; i++)
+			verify(moveables[i]).checkMoveTo(legs.get(leg)[i], move);
+	}
+
+	private void verifyLegNotStarted(int leg) {
+		for (int i = 0; i < moveables.length; i++)
+			verify(moveables[i], never()).checkMoveTo(eq(legs.get(leg)[i]), any());
+	}
+
+	private void verifyUnlocked() {
+		for (Moveable moveable : moveables) {
+			verify(moveable).unLock(move);
+			verify(moveable).deleteIObserver(move);
+		}
+		verify(dof).unLock(move);
+	}
+
+	/**
+	 * Tests that every leg is started once all the Moveables have finished the one before and that the move then
+	 * finishes
+	 * 
+	 * @throws Exception
+	 */
+	public void testLegs() throws Exception {
+		move.execute();
+		verify(dof).lock(move);
+		verifyLegStarted(0);
+		int first = lastId(moveables[0]);
+		for (Moveable moveable : moveables)
+			assertEquals(first, lastId(moveable));
+
+		report(0, MoveableStatus.READY);
+		report(1, MoveableStatus.AWAY_FROM_LIMIT);
+		verifyLegNotStarted(1);
+		assertFalse(move.waitForCompletion(10));
+		report(2, MoveableStatus.READY);
+		verifyLegStarted(1);
+		assertTrue(lastId(moveables[0]) != first);
+
+		finishLeg();
+		verifyLegStarted(2);
+		finishLeg();
+
+		assertTrue(move.waitForCompletion(0));
+		assertTrue(informed.isEmpty());
+		verifyUnlocked();
+		long[] times = move.getLegTimes();
+		assertEquals(3, times.length);
+		for (long time : times)
+			assertTrue(time >= 0);
+	}
+
+	/**
+	 * Tests that statuses with the id of another move, BUSY statuses and further statuses from a Moveable which has
+	 * already finished the leg do not end it
+	 * 
+	 * @throws Exception
+	 */
+	public void testStaleStatusesIgnored() throws Exception {
+		move.execute();
+		int id = lastId(moveables[0]);
+		for (int i = 0; i < moveables.length; i++)
+			move.update(moveables[i], new MoveableStatus(MoveableStatus.READY, "m" + i, id - 1));
+		for (int i = 0; i < moveables.length; i++)
+			move.update(moveables[i], new MoveableStatus(MoveableStatus.BUSY, "m" + i, id));
+		report(0, MoveableStatus.READY);
+		report(0, MoveableStatus.READY);
+		report(1, MoveableStatus.READY);
+		move.update(new Object(), new MoveableStatus(MoveableStatus.READY, "m2", id));
+		verifyLegNotStarted(1);
+
+		report(2, MoveableStatus.READY);
+		verifyLegStarted(1);
+		// a late status from the first leg does not count towards the second
+		move.update(moveables[0], new MoveableStatus(MoveableStatus.READY, "m0", id));
+		report(1, MoveableStatus.READY);
+		report(2, MoveableStatus.READY);
+		verifyLegNotStarted(2);
+	}
+
+	/**
+	 * Tests that a Moveable which fails ends the move once the others have stopped and the watcher is told
+	 * 
+	 * @throws Exception
+	 */
+	public void testFailingLeg() throws Exception {
+		move.execute();
+		report(1, MoveableStatus.ERROR);
+		report(0, MoveableStatus.READY);
+		assertFalse(move.waitForCompletion(10));
+		report(2, MoveableStatus.READY);
+
+		assertTrue(move.waitForCompletion(0));
+		verifyLegNotStarted(1);
+		assertEquals(1, informed.size());
+		assertEquals(MoveableStatus.ERROR, informed.get(0).getMoveableStatus().value());
+		assertTrue(informed.get(0).getMessage().contains("m1"));
+		verifyUnlocked();
+	}
+
+	/**
+	 * Tests that a leg which cannot be started ends the move
+	 * 
+	 * @throws Exception
+	 */
+	public void testLegNotPossible() throws Exception {
+		when(moveables[2].checkMoveTo(legs.get(1)[2], move)).thenReturn(MoveableStatus.SOFT_LIMIT);
+		move.execute();
+		finishLeg();
+
+		assertTrue(move.waitForCompletion(0));
+		assertEquals(1, informed.size());
+		assertEquals(MoveableStatus.SOFT_LIMIT, informed.get(0).getMoveableStatus().value());
+		for (Moveable moveable : moveables)
+			verify(moveable).doMove(same(move), anyInt());
+		verifyUnlocked();
+	}
+
+	/**
+	 * Tests that cancelling during a leg stops the Moveables and ends the move once they have stopped
+	 * 
+	 * @throws Exception
+	 */
+	public void testCancelDuringLeg() throws Exception {
+		move.execute();
+		move.cancel();
+		for (Moveable moveable : moveables)
+			verify(moveable).stop();
+		assertFalse(move.waitForCompletion(10));
+
+		finishLeg();
+		assertTrue(move.waitForCompletion(0));
+		verifyLegNotStarted(1);
+		assertEquals(1, informed.size());
+		assertTrue(informed.get(0).getMessage().contains("cancelled"));
+		verifyUnlocked();
+	}
+
+	/**
+	 * Tests that cancelling between legs stops the next leg being started and does not stop Moveables which are not
+	 * moving
+	 * 
+	 * @throws Exception
+	 */
+	public void testCancelBetweenLegs() throws Exception {
+		move.execute();
+		executor.hold = true;
+		finishLeg();
+		assertEquals(1, executor.held.size());
+
+		move.cancel();
+		for (Moveable moveable : moveables)
+			verify(moveable, never()).stop();
+		executor.run();
+
+		assertTrue(move.waitForCompletion(0));
+		verifyLegNotStarted(1);
+		for (Moveable moveable : moveables)
+			verify(moveable).doMove(same(move), anyInt());
+		assertEquals(1, informed.size());
+		assertTrue(informed.get(0).getMessage().contains("cancelled"));
+		verifyUnlocked();
+	}
+}
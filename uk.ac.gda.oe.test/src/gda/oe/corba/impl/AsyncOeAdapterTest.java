@@ -0,0 +1,209 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.corba.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import gda.configuration.properties.LocalProperties;
+import gda.oe.AsyncOE;
+import gda.oe.MoveableException;
+import gda.oe.MoveableStatus;
+import gda.oe.OE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests AsyncOeAdapter and CircuitBreaker
+ */
+public class AsyncOeAdapterTest extends TestCase {
+
+	private OE oe;
+
+	@Override
+	protected void setUp() throws Exception {
+		oe = mock(OE.class);
+		when(oe.getName()).thenReturn("oe");
+	}
+
+	/**
+	 * Tests calls for one DOF are carried out in the order they were made
+	 * 
+	 * @throws Exception
+	 */
+	public void testOrderForOneDof() throws Exception {
+		AsyncOE async = new AsyncOeAdapter(oe, null);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for (int i = 0; i < 10; i++) {
+			final int call = i;
+			futures.add(async.submit("a", new AsyncOE.Call<Integer>() {
+				@Override
+				public Integer call(OE o) throws MoveableException {
+					try {
+						Thread.sleep(10 - call);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					order.add(call);
+					return call;
+				}
+			}));
+		}
+		for (int i = 0; i < 10; i++)
+			assertEquals(i, futures.get(i).get(1, TimeUnit.SECONDS).intValue());
+		for (int i = 0; i < 10; i++)
+			assertEquals(i, order.get(i).intValue());
+	}
+
+	/**
+	 * Tests results and failures are passed back through the futures
+	 * 
+	 * @throws Exception
+	 */
+	public void testResults() throws Exception {
+		when(oe.isMoving("a")).thenReturn(true);
+		when(oe.getStatus("b")).thenThrow(
+				new MoveableException(new MoveableStatus(MoveableStatus.ERROR, "b"), "no such DOF"));
+		AsyncOE async = new AsyncOeAdapter(oe, null);
+		assertTrue(async.isMoving("a").get(1, TimeUnit.SECONDS));
+		try {
+			async.getStatus("b").get(1, TimeUnit.SECONDS);
+			fail("the failure was not passed back");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof MoveableException);
+		}
+		async.stop("a").get(1, TimeUnit.SECONDS);
+		verify(oe).stop("a");
+	}
+
+	/**
+	 * Tests the server is not called while the breaker is open and that a trial call which works closes it
+	 * 
+	 * @throws Exception
+	 */
+	public void testCircuitBreaker() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("oe", 2, 200);
+		MoveableException failure = new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+				"Communication failure: retry failed");
+		when(oe.isMoving("a")).thenThrow(failure, failure).thenReturn(false);
+		AsyncOE async = new AsyncOeAdapter(oe, breaker);
+		for (int i = 0; i < 3; i++) {
+			try {
+				async.isMoving("a").get(1, TimeUnit.SECONDS);
+				fail("the call should have failed");
+			} catch (ExecutionException e) {
+				assertEquals(MoveableStatus.COMMUNICATION_FAILURE, ((MoveableException) e.getCause())
+						.getMoveableStatus().value());
+			}
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		verify(oe, times(2)).isMoving("a");
+
+		Thread.sleep(250);
+		assertFalse(async.isMoving("a").get(1, TimeUnit.SECONDS));
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		verify(oe, times(3)).isMoving("a");
+	}
+
+	/**
+	 * Tests a stop is made while a call for the same DOF is blocked and while the breaker is open
+	 * 
+	 * @throws Exception
+	 */
+	public void testStopNotHeldUp() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("oe", 1, 60000);
+		AsyncOE async = new AsyncOeAdapter(oe, breaker);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Future<Void> slow = async.submit("a", new AsyncOE.Call<Void>() {
+			@Override
+			public Void call(OE o) throws MoveableException {
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+						"Communication failure: server not responding");
+			}
+		});
+		assertTrue(blocked.await(1, TimeUnit.SECONDS));
+		async.stop("a").get(1, TimeUnit.SECONDS);
+		verify(oe).stop("a");
+
+		release.countDown();
+		try {
+			slow.get(1, TimeUnit.SECONDS);
+			fail("the call should have failed");
+		} catch (ExecutionException e) {
+			// expected
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		async.stop("a").get(1, TimeUnit.SECONDS);
+		verify(oe, times(2)).stop("a");
+	}
+
+	/**
+	 * Tests a call blocked in one adapter does not hold up the calls of another adapter, even with one lane each
+	 * 
+	 * @throws Exception
+	 */
+	public void testAdaptersDoNotShareLanes() throws Exception {
+		LocalProperties.set(AsyncOeAdapter.IO_THREADS_PROPERTY, "1");
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			AsyncOE hung = new AsyncOeAdapter(oe, null);
+			OE other = mock(OE.class);
+			when(other.getName()).thenReturn("other");
+			when(other.isMoving("a")).thenReturn(true);
+			AsyncOE async = new AsyncOeAdapter(other, null);
+
+			hung.submit("a", new AsyncOE.Call<Void>() {
+				@Override
+				public Void call(OE o) throws MoveableException {
+					blocked.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return null;
+				}
+			});
+			assertTrue(blocked.await(1, TimeUnit.SECONDS));
+			assertTrue(async.isMoving("a").get(1, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			LocalProperties.clearProperty(AsyncOeAdapter.IO_THREADS_PROPERTY);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.corba.impl;
+
+import gda.oe.MoveableStatus;
+import junit.framework.TestCase;
+
+/**
+ * Tests MoveableStatusCache
+ */
+public class MoveableStatusCacheTest extends TestCase {
+
+	private MoveableStatusCache cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		cache = new MoveableStatusCache(10000);
+	}
+
+	/**
+	 * Tests a READY event which arrives after a command is ignored until the DOF has been seen BUSY
+	 */
+	public void testEventBeforeMoveIgnored() {
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "a"));
+		assertEquals(MoveableStatus.READY, cache.getStatus("a").value());
+
+		cache.invalidate("a");
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "a"));
+		assertNull(cache.getStatus("a"));
+
+		cache.putStatus(new MoveableStatus(MoveableStatus.BUSY, "a"));
+		assertEquals(MoveableStatus.BUSY, cache.getStatus("a").value());
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "a"));
+		assertEquals(MoveableStatus.READY, cache.getStatus("a").value());
+	}
+
+	/**
+	 * Tests a status read from the server is not kept if a command was sent while it was being read
+	 */
+	public void testReadOverlappingCommandIgnored() {
+		int generation = cache.getGeneration("a");
+		cache.invalidate("a");
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "a"), generation);
+		assertNull(cache.getStatus("a"));
+
+		generation = cache.getGeneration("a");
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "a"), generation);
+		assertEquals(MoveableStatus.READY, cache.getStatus("a").value());
+	}
+
+	/**
+	 * Tests a status read from the server after a command lets later events through again
+	 */
+	public void testReadAfterCommandAcceptsEvents() {
+		cache.invalidate("a");
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "a"), cache.getGeneration("a"));
+		cache.putStatus(new MoveableStatus(MoveableStatus.ERROR, "a"));
+		assertEquals(MoveableStatus.ERROR, cache.getStatus("a").value());
+	}
+
+	/**
+	 * Tests invalidating one DOF leaves the others alone
+	 */
+	public void testOtherDofsKept() {
+		cache.putStatus(new MoveableStatus(MoveableStatus.READY, "b"));
+		cache.invalidate("a");
+		cache.putStatus(new MoveableStatus(MoveableStatus.BUSY, "b"));
+		assertEquals(MoveableStatus.BUSY, cache.getStatus("b").value());
+		assertEquals(0, cache.getGeneration("b"));
+		assertEquals(1, cache.getGeneration("a"));
+	}
+}
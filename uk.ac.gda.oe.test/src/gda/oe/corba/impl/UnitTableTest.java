@@ -0,0 +1,84 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.corba.impl;
+
+import gda.oe.corba.CorbaQuantityValue;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.NonSI;
+import org.jscience.physics.units.SI;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests UnitTable
+ */
+public class UnitTableTest extends TestCase {
+
+	/**
+	 * Tests a quantity survives encoding and decoding
+	 */
+	public void testEncodeDecode() {
+		UnitTable table = new UnitTable(3);
+		Quantity position = Quantity.valueOf(1.5, SI.MILLI(SI.METER));
+		CorbaQuantityValue value = table.encode(position);
+		assertEquals(1.5, value.amount, 0.0);
+		assertEquals(UnitTable.toId(3, 0), value.unitId);
+		Quantity decoded = table.decode(value);
+		assertEquals(1.5, decoded.getAmount(), 0.0);
+		assertEquals(position.getUnit(), decoded.getUnit());
+
+		assertNull(table.decode(table.encode(null)));
+	}
+
+	/**
+	 * Tests each unit is added once
+	 */
+	public void testIds() {
+		UnitTable table = new UnitTable(3);
+		int mm = table.getId(SI.MILLI(SI.METER));
+		int deg = table.getId(NonSI.DEGREE_ANGLE);
+		assertEquals(mm, table.getId(SI.MILLI(SI.METER)));
+		assertFalse(mm == deg);
+		assertEquals(2, table.getUnitStrings().length);
+		assertEquals(UnitTable.NO_UNIT, table.getId((org.jscience.physics.units.Unit<?>) null));
+	}
+
+	/**
+	 * Tests ids from another table are refused
+	 */
+	public void testOtherEpoch() {
+		UnitTable table = new UnitTable(3);
+		table.getId(SI.MILLI(SI.METER));
+		try {
+			table.getUnit(UnitTable.toId(4, 0));
+			fail("id from another table accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			table.getUnit(UnitTable.toId(3, 1));
+			fail("id not in the table accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import gda.observable.IObserver;
+import gda.oe.Moveable;
+import gda.oe.MoveableStatus;
+import gda.util.converters.IQuantitiesConverter;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.jscience.physics.units.Unit;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests CombinedDOF with a mocked converter and Moveable
+ */
+public class CombinedDOFTest extends TestCase {
+
+	private static final Unit<? extends Quantity> MM = SI.MILLI(SI.METER);
+
+	private Moveable moveable;
+
+	private IQuantitiesConverter converter;
+
+	private CombinedDOF dof;
+
+	private IObserver mover;
+
+	private static Matcher<Object> status(final int value) {
+		return new BaseMatcher<Object>() {
+			@Override
+			public boolean matches(Object item) {
+				return item instanceof MoveableStatus && ((MoveableStatus) item).value() == value;
+			}
+
+			@Override
+			public void describeTo(Description description) {
+				description.appendText("MoveableStatus " + value);
+			}
+		};
+	}
+
+	private static ArrayList<ArrayList<Unit<? extends Quantity>>> units() {
+		ArrayList<Unit<? extends Quantity>> units = new ArrayList<Unit<? extends Quantity>>();
+		units.add(MM);
+		ArrayList<ArrayList<Unit<? extends Quantity>>> all = new ArrayList<ArrayList<Unit<? extends Quantity>>>();
+		all.add(units);
+		return all;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		Quantity position = Quantity.valueOf(1.0, MM);
+		moveable = mock(Moveable.class);
+		when(moveable.getName()).thenReturn("motor");
+		when(moveable.getPosition()).thenReturn(position);
+		when(moveable.getStatus()).thenReturn(new MoveableStatus(MoveableStatus.READY, "motor", position));
+		when(moveable.checkMoveTo(any(Quantity.class), any())).thenReturn(MoveableStatus.SUCCESS);
+
+		// the Moveable's position is twice the DOF's
+		converter = mock(IQuantitiesConverter.class);
+		when(converter.getAcceptableUnits()).thenReturn(units());
+		when(converter.getAcceptableMoveableUnits()).thenReturn(units());
+		when(converter.calculateMoveables(any(Quantity[].class), any(Object[].class))).thenAnswer(
+				new Answer<Quantity[]>() {
+					@Override
+					public Quantity[] answer(InvocationOnMock invocation) {
+						Quantity[] sources = (Quantity[]) invocation.getArguments()[0];
+						Quantity[] targets = new Quantity[sources.length];
+						for (int i = 0; i < sources.length; i++) {
+							targets[i] = Quantity.valueOf(sources[i].getAmount() * 2.0, MM);
+						}
+						return targets;
+					}
+				});
+		when(converter.toSource(any(Quantity[].class), any(Object[].class))).thenAnswer(new Answer<Quantity[]>() {
+			@Override
+			public Quantity[] answer(InvocationOnMock invocation) {
+				Quantity[] targets = (Quantity[]) invocation.getArguments()[0];
+				Quantity[] sources = new Quantity[targets.length];
+				for (int i = 0; i < targets.length; i++) {
+					sources[i] = Quantity.valueOf(targets[i].getAmount() / 2.0, MM);
+				}
+				return sources;
+			}
+		});
+
+		dof = new CombinedDOF();
+		dof.setName("combined");
+		dof.setMoveables(new Moveable[] { moveable });
+		dof.setQuantitiesConverter(converter);
+		dof.setNotificationWindow(-1);
+		dof.configure();
+		dof.update(moveable, new MoveableStatus(MoveableStatus.READY, "motor", position));
+
+		mover = mock(IObserver.class);
+	}
+
+	private Quantity[] reverse(double moveablePosition) throws Exception {
+		return converter.toSource(new Quantity[] { Quantity.valueOf(moveablePosition, MM) }, new Object[] { moveable });
+	}
+
+	private void moveableAt(double position) {
+		Quantity q = Quantity.valueOf(position, MM);
+		when(moveable.getPosition()).thenReturn(q);
+		dof.update(moveable, new MoveableStatus(MoveableStatus.READY, "motor", q));
+	}
+
+	/**
+	 * Tests the position of the DOF is what the converter gives for the position of its Moveable, the forward
+	 * conversion of a target is what the converter gives for it, and the reverse conversion is not repeated while the
+	 * Moveable stays where it is.
+	 */
+	public void testConversionsMatchConverter() throws Exception {
+		assertEquals(reverse(1.0)[0], dof.getPosition());
+		moveableAt(1.0);
+		moveableAt(1.0);
+		assertEquals(reverse(1.0)[0], dof.getPosition());
+		// twice by this test and once by the DOF
+		verify(converter, times(3)).toSource(any(Quantity[].class), any(Object[].class));
+
+		Quantity target = Quantity.valueOf(3.0, MM);
+		Quantity[] expected = converter.calculateMoveables(new Quantity[] { target }, new Object[] { moveable });
+		assertEquals(expected[0], dof.calculateMoveables(target)[0]);
+	}
+
+	/**
+	 * Tests the last reverse conversion is thrown away once the position of the Moveable changes.
+	 */
+	public void testConversionDiscardedWhenMoveableMoves() throws Exception {
+		assertEquals(reverse(1.0)[0], dof.getPosition());
+		moveableAt(4.0);
+		assertEquals(reverse(4.0)[0], dof.getPosition());
+		moveableAt(1.0);
+		assertEquals(reverse(1.0)[0], dof.getPosition());
+	}
+
+	/**
+	 * Tests the limits of the DOF are worked out again once the limits of the Moveable change.
+	 */
+	public void testLimitConversionDiscardedWhenLimitsChange() throws Exception {
+		dof.setEvalLowerLimit(true);
+		dof.setEvalUpperLimit(true);
+		dof.setSoftLimitLow(-1000.0);
+		dof.setSoftLimitHigh(1000.0);
+		when(moveable.getSoftLimitLower()).thenReturn(Quantity.valueOf(-10.0, MM));
+		when(moveable.getSoftLimitUpper()).thenReturn(Quantity.valueOf(10.0, MM));
+		assertEquals(reverse(-10.0)[0], dof.getSoftLimitLower());
+		assertEquals(reverse(10.0)[0], dof.getSoftLimitUpper());
+
+		when(moveable.getSoftLimitLower()).thenReturn(Quantity.valueOf(-6.0, MM));
+		when(moveable.getSoftLimitUpper()).thenReturn(Quantity.valueOf(8.0, MM));
+		assertEquals(reverse(-6.0)[0], dof.getSoftLimitLower());
+		assertEquals(reverse(8.0)[0], dof.getSoftLimitUpper());
+	}
+
+	/**
+	 * Tests recompile throws away the last reverse conversion, so a reloaded converter is used even though the
+	 * Moveable has not moved.
+	 */
+	public void testRecompileUsesReloadedConverter() throws Exception {
+		assertEquals(reverse(1.0)[0], dof.getPosition());
+		doReturn(new Quantity[] { Quantity.valueOf(0.25, MM) }).when(converter).toSource(any(Quantity[].class),
+				any(Object[].class));
+
+		dof.recompile();
+		moveableAt(1.0);
+		assertEquals(Quantity.valueOf(0.25, MM), dof.getPosition());
+	}
+
+	/**
+	 * Tests that a fly move of a CombinedDOF whose moves are disabled completes without driving its Moveable.
+	 */
+	public void testFlyIgnoredWhenMoveDisabled() throws Exception {
+		dof.setMoveEnabled(false);
+		assertEquals(MoveableStatus.SUCCESS, dof.checkMoveTo(Quantity.valueOf(3.0, MM), mover));
+		dof.doFly(mover, 11);
+
+		verify(moveable, never()).doFly(any(), anyInt());
+		verify(moveable, never()).doMove(any(), anyInt());
+		verify(mover).update(same(dof), argThat(status(MoveableStatus.READY)));
+	}
+
+	/**
+	 * Tests that a fly move of a CombinedDOF whose moves are enabled sweeps its Moveable to the converted target.
+	 */
+	public void testFlyDrivesMoveableWhenEnabled() throws Exception {
+		assertEquals(MoveableStatus.SUCCESS, dof.checkMoveTo(Quantity.valueOf(3.0, MM), mover));
+		verify(moveable).checkMoveTo(Quantity.valueOf(6.0, MM), dof);
+		dof.doFly(mover, 12);
+
+		verify(moveable).doFly(dof, 12);
+		verify(moveable, never()).doMove(any(), anyInt());
+	}
+
+	/**
+	 * Tests that a CombinedDOF does not remember its Moveable positions even when given a plan cache size, because
+	 * calculateMoveables records the target it was last given.
+	 */
+	public void testPlanCacheNotUsed() throws Exception {
+		dof.setPlanCacheSize(10);
+		assertNull(dof.getPlanCache());
+		for (int i = 0; i < 2; i++) {
+			assertEquals(MoveableStatus.SUCCESS, dof.checkMoveTo(Quantity.valueOf(3.0, MM), mover));
+			dof.unLock(mover);
+		}
+		verify(converter, times(2)).calculateMoveables(any(Quantity[].class), any(Object[].class));
+	}
+
+	/**
+	 * Tests that checking a list of moves leaves the DOF and its Moveable unlocked.
+	 */
+	public void testCheckMovesLeavesNothingLocked() throws Exception {
+		int[] statuses = dof.checkMoves(new Quantity[] { Quantity.valueOf(3.0, MM), Quantity.valueOf(4.0, MM) });
+		assertEquals(MoveableStatus.SUCCESS, statuses[0]);
+		assertEquals(MoveableStatus.SUCCESS, statuses[1]);
+		verify(moveable).checkMoveTo(Quantity.valueOf(8.0, MM), dof);
+		verify(moveable, times(2)).unLock(dof);
+		assertTrue(dof.lock(mover));
+	}
+
+	/**
+	 * Tests that moves are not checked (or their Moveable positions calculated) while the DOF is locked for a move.
+	 */
+	public void testCheckMovesWhileLocked() throws Exception {
+		assertTrue(dof.lock(mover));
+		int[] statuses = dof.checkMoves(new Quantity[] { Quantity.valueOf(3.0, MM) });
+		assertEquals(MoveableStatus.ALREADY_LOCKED, statuses[0]);
+		verify(converter, never()).calculateMoveables(any(Quantity[].class), any(Object[].class));
+		assertTrue(dof.lockedFor(mover));
+	}
+}
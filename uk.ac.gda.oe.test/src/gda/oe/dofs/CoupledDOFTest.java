@@ -0,0 +1,122 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import gda.function.Function;
+import gda.function.IdentityFunction;
+import gda.oe.Moveable;
+import gda.oe.MoveableStatus;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.jscience.physics.units.Unit;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the Moveable positions CoupledDOF works out from its Functions
+ */
+public class CoupledDOFTest extends TestCase {
+
+	private static final Unit<? extends Quantity> MM = SI.MILLI(SI.METER);
+
+	/**
+	 * An IdentityFunction in name only, which must still be evaluated
+	 */
+	private static final class TripleFunction extends IdentityFunction {
+		@Override
+		public Quantity evaluate(Quantity x) {
+			return Quantity.valueOf(x.getAmount() * 3.0, MM);
+		}
+	}
+
+	private CoupledDOF dof;
+
+	private Moveable moveable(String name) {
+		Quantity position = Quantity.valueOf(1.0, MM);
+		Moveable moveable = mock(Moveable.class);
+		when(moveable.getName()).thenReturn(name);
+		when(moveable.getPosition()).thenReturn(position);
+		when(moveable.getStatus()).thenReturn(new MoveableStatus(MoveableStatus.READY, name, position));
+		return moveable;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		Moveable[] moveables = { moveable("first"), moveable("second"), moveable("third"), moveable("fourth") };
+		ArrayList<Unit<? extends Quantity>> units = new ArrayList<Unit<? extends Quantity>>();
+		units.add(MM);
+		when(moveables[0].getAcceptableUnits()).thenReturn(units);
+
+		Function doubling = mock(Function.class);
+		when(doubling.evaluate(any(Quantity.class))).thenAnswer(new Answer<Quantity>() {
+			@Override
+			public Quantity answer(InvocationOnMock invocation) {
+				return Quantity.valueOf(((Quantity) invocation.getArguments()[0]).getAmount() * 2.0, MM);
+			}
+		});
+
+		dof = new CoupledDOF();
+		dof.setName("coupled");
+		dof.setMoveables(moveables);
+		// the first is replaced by an IdentityFunction whatever it is
+		dof.addFunction(doubling);
+		dof.addFunction(doubling);
+		dof.addFunction(new IdentityFunction());
+		dof.addFunction(new TripleFunction());
+		dof.configure();
+	}
+
+	/**
+	 * Tests the positions worked out for a target are those given by calling each Function in turn
+	 */
+	public void testMatchesFunctions() {
+		for (double target : new double[] { -2.5, 0.0, 1.0, 7.25 }) {
+			Quantity q = Quantity.valueOf(target, MM);
+			Quantity[] positions = dof.calculateMoveables(q);
+			Function[] functions = dof.getFunctions();
+			assertEquals(functions.length, positions.length);
+			for (int i = 0; i < functions.length; i++) {
+				assertEquals(functions[i].evaluate(q), positions[i]);
+			}
+		}
+	}
+
+	/**
+	 * Tests the first Moveable and the plain IdentityFunction follow the target while the others are converted,
+	 * including by a subclass of IdentityFunction
+	 */
+	public void testIdentitiesSkipped() {
+		Quantity q = Quantity.valueOf(1.5, MM);
+		Quantity[] positions = dof.calculateMoveables(q);
+		assertSame(q, positions[0]);
+		assertEquals(Quantity.valueOf(3.0, MM), positions[1]);
+		assertSame(q, positions[2]);
+		assertEquals(Quantity.valueOf(4.5, MM), positions[3]);
+	}
+}
@@ -0,0 +1,155 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import gda.observable.IObserver;
+import gda.oe.Moveable;
+import gda.oe.MoveableStatus;
+
+import junit.framework.TestCase;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+
+/**
+ * Tests the settle stage of DOF (see setSettlingTime) with a mocked Moveable
+ */
+public class DOFSettleTest extends TestCase {
+
+	private static final int SETTLE = 300;
+
+	private static final int ID = 7;
+
+	private Moveable moveable;
+
+	private DOF dof;
+
+	private IObserver mover;
+
+	private static Matcher<Object> status(final int value) {
+		return new BaseMatcher<Object>() {
+			@Override
+			public boolean matches(Object item) {
+				return item instanceof MoveableStatus && ((MoveableStatus) item).value() == value;
+			}
+
+			@Override
+			public void describeTo(Description description) {
+				description.appendText("MoveableStatus " + value);
+			}
+		};
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		Quantity position = Quantity.valueOf(1.0, SI.MILLI(SI.METER));
+		moveable = mock(Moveable.class);
+		when(moveable.getName()).thenReturn("motor");
+		when(moveable.getPosition()).thenReturn(position);
+		when(moveable.getStatus()).thenReturn(new MoveableStatus(MoveableStatus.READY, "motor", position));
+		dof = new SingleAxisLinearDOF();
+		dof.setName("dof");
+		dof.setMoveables(new Moveable[] { moveable });
+		// notify on the calling thread so that only the settle timer is asynchronous
+		dof.setNotificationWindow(-1);
+		dof.setSettlingTime(SETTLE);
+		dof.configure();
+
+		mover = mock(IObserver.class);
+		assertTrue(dof.lock(mover));
+		dof.doMove(mover, ID);
+		verify(moveable).doMove(dof, ID);
+		dof.update(moveable, new MoveableStatus(MoveableStatus.BUSY, "motor", position, ID));
+	}
+
+	/**
+	 * Tests the DOF stays BUSY after its Moveable is READY until the settle time has elapsed and then reports READY
+	 * 
+	 * @throws Exception
+	 */
+	public void testBusyUntilSettled() throws Exception {
+		long start = System.nanoTime();
+		dof.update(moveable, new MoveableStatus(MoveableStatus.READY, "motor", moveable.getPosition(), ID));
+		assertTrue(dof.isSettling());
+		assertEquals(MoveableStatus.BUSY, dof.getStatus().value());
+		assertTrue(dof.isMoving());
+		verify(mover, never()).update(same(dof), argThat(status(MoveableStatus.READY)));
+
+		verify(mover, timeout(SETTLE * 5)).update(same(dof), argThat(status(MoveableStatus.READY)));
+		assertTrue((System.nanoTime() - start) / 1000000 >= SETTLE);
+		assertFalse(dof.isSettling());
+		assertEquals(MoveableStatus.READY, dof.getStatus().value());
+	}
+
+	/**
+	 * Tests stop ends the settle stage at once and that the timer then reports nothing more
+	 * 
+	 * @throws Exception
+	 */
+	public void testStopCancelsSettle() throws Exception {
+		dof.update(moveable, new MoveableStatus(MoveableStatus.READY, "motor", moveable.getPosition(), ID));
+		assertTrue(dof.isSettling());
+
+		dof.stop();
+		verify(moveable).stop();
+		assertFalse(dof.isSettling());
+		assertEquals(MoveableStatus.READY, dof.getStatus().value());
+		verify(mover).update(same(dof), argThat(status(MoveableStatus.READY)));
+
+		Thread.sleep(SETTLE * 2);
+		verify(mover).update(same(dof), argThat(status(MoveableStatus.READY)));
+	}
+
+	/**
+	 * Tests a new move during the settle stage cancels it, so the READY of the earlier move is never reported
+	 * 
+	 * @throws Exception
+	 */
+	public void testNewMoveCancelsSettle() throws Exception {
+		dof.update(moveable, new MoveableStatus(MoveableStatus.READY, "motor", moveable.getPosition(), ID));
+		assertTrue(dof.isSettling());
+
+		dof.doMove(mover, ID + 1);
+		assertFalse(dof.isSettling());
+		Thread.sleep(SETTLE * 2);
+		verify(mover, never()).update(same(dof), argThat(status(MoveableStatus.READY)));
+	}
+
+	/**
+	 * Tests the settle time of MonoWithSettleTimeDOF is given in seconds
+	 */
+	public void testMonoSettleTimeInSeconds() {
+		MonoWithSettleTimeDOF mono = new MonoWithSettleTimeDOF();
+		mono.setSettleTime(0.25);
+		assertEquals(250, mono.getSettlingTime());
+		assertEquals(0.25, mono.getSettleTime(), 1e-9);
+	}
+}
@@ -0,0 +1,147 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import gda.configuration.properties.LocalProperties;
+import gda.oe.Moveable;
+import gda.oe.MoveableStatus;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.jscience.physics.units.Unit;
+import org.nfunk.jep.JEP;
+
+/**
+ * Tests that the functions LookupDOF compiles at configure give the same positions as parsing them afresh for each
+ * move (which is what LookupDOF used to do).
+ */
+public class LookupDOFTest extends TestCase {
+
+	private static final String TARGET_FUNCTION = "(2*x+sin(x))";
+
+	private static final String OTHER_FUNCTION = "(y^2-sqrt(y)+1)";
+
+	private static final double OTHER_POSITION = 4.5;
+
+	private static final Unit<? extends Quantity> MM = SI.MILLI(SI.METER);
+
+	private File dir;
+
+	private LookupDOF dof;
+
+	private String oldLookupDir;
+
+	private Moveable moveable(String name, double position) {
+		Quantity quantity = Quantity.valueOf(position, MM);
+		ArrayList<Unit<? extends Quantity>> units = new ArrayList<Unit<? extends Quantity>>();
+		units.add(MM);
+		Moveable moveable = mock(Moveable.class);
+		when(moveable.getName()).thenReturn(name);
+		when(moveable.getPosition()).thenReturn(quantity);
+		when(moveable.getAcceptableUnits()).thenReturn(units);
+		when(moveable.getStatus()).thenReturn(new MoveableStatus(MoveableStatus.READY, name, quantity));
+		return moveable;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		dir = File.createTempFile("LookupDOFTest", "");
+		dir.delete();
+		dir.mkdir();
+		FileWriter writer = new FileWriter(new File(dir, "lookup"));
+		try {
+			writer.write("lookup main target other\nmm mm mm mm\n0 0 0 0\n10 10 10 10\n");
+		} finally {
+			writer.close();
+		}
+		oldLookupDir = LocalProperties.get("gda.lookup.directory");
+		LocalProperties.set("gda.lookup.directory", dir.getPath());
+
+		// main's index is x so target's function is of the position being
+		// moved to, other's function is of the current position of target
+		dof = new LookupDOF();
+		dof.setName("lookup");
+		dof.setMoveables(new Moveable[] { moveable("main", 1.0), moveable("target", OTHER_POSITION),
+				moveable("other", 2.0) });
+		dof.setLookupIndices("1 2 3");
+		dof.addFunctionIndex("lookup.main.x");
+		dof.addFunctionIndex("lookup.target.y");
+		dof.addFunctionIndex("lookup.other.z");
+		dof.addFunctionDesc("lookup.main (x)");
+		dof.addFunctionDesc("lookup.target " + TARGET_FUNCTION);
+		dof.addFunctionDesc("lookup.other " + OTHER_FUNCTION);
+		dof.setNotificationWindow(-1);
+		dof.configure();
+	}
+
+	@Override
+	protected void tearDown() {
+		if (oldLookupDir == null) {
+			LocalProperties.clearProperty("gda.lookup.directory");
+		} else {
+			LocalProperties.set("gda.lookup.directory", oldLookupDir);
+		}
+		new File(dir, "lookup").delete();
+		dir.delete();
+	}
+
+	// parses the function as LookupDOF did before it compiled them
+	private static double parse(String function, String variable, double value) {
+		JEP parser = new JEP();
+		parser.addStandardFunctions();
+		parser.addStandardConstants();
+		parser.addVariable(variable, value);
+		parser.parseExpression(function.substring(1, function.length() - 1));
+		return parser.getValue();
+	}
+
+	/**
+	 * Tests a function whose variable is the main DOF's index, so its value is the position being moved to.
+	 */
+	public void testVariableFromTarget() {
+		for (double target = -3.0; target <= 7.0; target += 0.7) {
+			Quantity[] positions = dof.calculateMoveables(Quantity.valueOf(target, MM));
+			assertEquals(target, positions[0].getAmount(), 0.0);
+			assertEquals(parse(TARGET_FUNCTION, "x", target), positions[1].getAmount(), 0.0);
+		}
+	}
+
+	/**
+	 * Tests a function whose variable is another moveable's index, so its value is that moveable's current position
+	 * whatever the target.
+	 */
+	public void testVariableFromOtherMoveable() {
+		double expected = parse(OTHER_FUNCTION, "y", OTHER_POSITION);
+		for (double target = -3.0; target <= 7.0; target += 0.7) {
+			Quantity[] positions = dof.calculateMoveables(Quantity.valueOf(target, MM));
+			assertEquals(expected, positions[2].getAmount(), 0.0);
+		}
+	}
+}
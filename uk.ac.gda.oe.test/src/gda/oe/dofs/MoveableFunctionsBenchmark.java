@@ -0,0 +1,110 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nfunk.jep.JEP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of working out a LookupDOF function position by parsing the function for each move (as LookupDOF used
+ * to) and by evaluating the function MoveableFunctions compiled once. The functions are of the kind found in LookupDOF
+ * configurations, with the variable x.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveableFunctionsBenchmark {
+
+	/**
+	 * The function, including its enclosing brackets
+	 */
+	@Param({ "(2*x+sin(x))", "(x^2-3*x+sqrt(x+10))", "(0.5*x+0.25*cos(x/2)-1.5)" })
+	public String function;
+
+	private MoveableFunctions compiled;
+
+	private double value;
+
+	/**
+	 * Compiles the function as LookupDOF.configure does
+	 */
+	@Setup
+	public void setUp() {
+		compiled = new MoveableFunctions();
+		compiled.setMoveableName("BenchmarkMoveable");
+		compiled.setFunction(function);
+		compiled.compile("x");
+	}
+
+	private double nextValue() {
+		value = (value < 10.0) ? value + 0.001 : 0.0;
+		return value;
+	}
+
+	/**
+	 * @return the function's value, parsed afresh
+	 */
+	@Benchmark
+	public double parsePerMove() {
+		JEP parser = new JEP();
+		parser.addStandardFunctions();
+		parser.addStandardConstants();
+		parser.addVariable("x", nextValue());
+		parser.parseExpression(function.substring(1, function.length() - 1));
+		return parser.getValue();
+	}
+
+	/**
+	 * @return the function's value, from the compiled function
+	 */
+	@Benchmark
+	public double compiled() {
+		return compiled.evaluate(nextValue());
+	}
+
+	/**
+	 * Runs the benchmark; JMH's own command line (org.openjdk.jmh.Main) can be used instead to change its settings.
+	 * 
+	 * @param args
+	 *            not used
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(MoveableFunctionsBenchmark.class.getName()).build()).run();
+	}
+}
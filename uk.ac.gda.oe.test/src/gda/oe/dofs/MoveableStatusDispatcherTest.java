@@ -0,0 +1,247 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import gda.observable.IObserver;
+import gda.oe.MoveableStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests MoveableStatusDispatcher. The executor is a mock which keeps the drain and flush tasks so that each test
+ * decides when they run.
+ */
+public class MoveableStatusDispatcherTest extends TestCase {
+
+	private final Object source = new Object();
+
+	private IObserver observer;
+
+	private MoveableStatusDispatcher dispatcher;
+
+	private final List<Runnable> drains = new ArrayList<Runnable>();
+
+	private final List<Runnable> flushes = new ArrayList<Runnable>();
+
+	/**
+	 * A position update which, like DOF's, delivers nothing once the move has ended
+	 */
+	private static class Deferred implements MoveableStatusDispatcher.DeferredStatus {
+		volatile int value = MoveableStatus.BUSY;
+
+		int calls;
+
+		@Override
+		public MoveableStatus get() {
+			calls++;
+			return (value == MoveableStatus.BUSY) ? new MoveableStatus(MoveableStatus.BUSY, "dof") : null;
+		}
+	}
+
+	@Override
+	protected void setUp() {
+		ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				drains.add((Runnable) invocation.getArguments()[0]);
+				return null;
+			}
+		}).when(executor).execute(any(Runnable.class));
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				flushes.add((Runnable) invocation.getArguments()[0]);
+				return null;
+			}
+		}).when(executor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+		observer = mock(IObserver.class);
+		dispatcher = new MoveableStatusDispatcher(observer, executor);
+		dispatcher.setWindow(100);
+	}
+
+	private static void run(List<Runnable> tasks) {
+		List<Runnable> copy = new ArrayList<Runnable>(tasks);
+		tasks.clear();
+		for (Runnable task : copy) {
+			task.run();
+		}
+	}
+
+	private List<Object> delivered() {
+		ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+		verify(observer, atLeast(0)).update(same(source), captor.capture());
+		return captor.getAllValues();
+	}
+
+	private static int value(Object status) {
+		return ((MoveableStatus) status).value();
+	}
+
+	/**
+	 * Tests that a position update which was flushed into the queue but has not been delivered when the move ends
+	 * does not reach the observers, so they see the end of the move only once
+	 */
+	public void testFlushedUpdateAfterMoveEndsIsNotDelivered() {
+		Deferred position = new Deferred();
+		dispatcher.dispatch(source, new MoveableStatus(MoveableStatus.BUSY, "dof"));
+		run(drains);
+		dispatcher.dispatch(source, position);
+		run(flushes);
+		assertEquals(0, position.calls);
+
+		position.value = MoveableStatus.READY;
+		dispatcher.dispatch(source, new MoveableStatus(MoveableStatus.READY, "dof"));
+		run(drains);
+
+		assertEquals(1, position.calls);
+		List<Object> statuses = delivered();
+		assertEquals(2, statuses.size());
+		assertEquals(MoveableStatus.BUSY, value(statuses.get(0)));
+		assertEquals(MoveableStatus.READY, value(statuses.get(1)));
+	}
+
+	private MoveableStatus busy(int id) {
+		return new MoveableStatus(MoveableStatus.BUSY, "dof", id);
+	}
+
+	/**
+	 * Tests that notifications are delivered in order and only when the drain task runs
+	 */
+	public void testDeliveredInOrder() {
+		dispatcher.dispatch(source, busy(1));
+		dispatcher.dispatch(source, new MoveableStatus(MoveableStatus.READY, "dof", 1));
+		dispatcher.dispatch(source, "not a status");
+		assertTrue(delivered().isEmpty());
+		assertEquals(1, drains.size());
+
+		run(drains);
+		List<Object> notifications = delivered();
+		assertEquals(3, notifications.size());
+		assertEquals(MoveableStatus.BUSY, value(notifications.get(0)));
+		assertEquals(MoveableStatus.READY, value(notifications.get(1)));
+		assertEquals("not a status", notifications.get(2));
+		assertEquals(3, dispatcher.getDeliveredCount());
+		assertEquals(0, dispatcher.getCoalescedCount());
+		assertTrue(flushes.isEmpty());
+	}
+
+	/**
+	 * Tests that BUSY statuses after the first are held back and only the latest is delivered when the window ends
+	 */
+	public void testBusyCoalescedWithinWindow() {
+		dispatcher.dispatch(source, busy(1));
+		run(drains);
+		dispatcher.dispatch(source, busy(2));
+		dispatcher.dispatch(source, busy(3));
+		Deferred position = new Deferred();
+		dispatcher.dispatch(source, position);
+		dispatcher.dispatch(source, busy(4));
+		assertEquals(1, flushes.size());
+		assertTrue(drains.isEmpty());
+		assertEquals(1, delivered().size());
+
+		run(flushes);
+		run(drains);
+		List<Object> statuses = delivered();
+		assertEquals(2, statuses.size());
+		assertEquals(4, ((MoveableStatus) statuses.get(1)).id());
+		assertEquals(3, dispatcher.getCoalescedCount());
+		// a DeferredStatus which was replaced is never worked out
+		assertEquals(0, position.calls);
+
+		// the next window starts with the next BUSY
+		dispatcher.dispatch(source, busy(5));
+		assertEquals(1, flushes.size());
+	}
+
+	/**
+	 * Tests that a status which is not BUSY replaces a BUSY still held back and is delivered at once
+	 */
+	public void testNotBusyDropsPendingBusy() {
+		dispatcher.dispatch(source, busy(1));
+		run(drains);
+		dispatcher.dispatch(source, busy(2));
+		dispatcher.dispatch(source, new MoveableStatus(MoveableStatus.READY, "dof", 2));
+		assertEquals(1, drains.size());
+		run(drains);
+		// the window ends with nothing to send
+		run(flushes);
+		assertTrue(drains.isEmpty());
+
+		List<Object> statuses = delivered();
+		assertEquals(2, statuses.size());
+		assertEquals(MoveableStatus.READY, value(statuses.get(1)));
+		assertEquals(1, dispatcher.getCoalescedCount());
+
+		// a BUSY after a READY starts a move and is not held back
+		dispatcher.dispatch(source, busy(3));
+		assertEquals(1, drains.size());
+	}
+
+	/**
+	 * Tests that nothing is coalesced with a window of zero
+	 */
+	public void testNoWindow() {
+		dispatcher.setWindow(0);
+		for (int i = 0; i < 5; i++)
+			dispatcher.dispatch(source, busy(i));
+		run(drains);
+		assertEquals(5, delivered().size());
+		assertTrue(flushes.isEmpty());
+		assertEquals(0, dispatcher.getCoalescedCount());
+	}
+
+	/**
+	 * Tests that an observer which throws does not stop the notifications after it being delivered
+	 */
+	public void testObserverException() {
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				if (invocation.getArguments()[1] instanceof String)
+					throw new IllegalStateException("observer failed");
+				return null;
+			}
+		}).when(observer).update(same(source), any());
+		dispatcher.dispatch(source, "first");
+		dispatcher.dispatch(source, new MoveableStatus(MoveableStatus.READY, "dof"));
+		run(drains);
+		assertEquals(2, delivered().size());
+		assertEquals(2, dispatcher.getDeliveredCount());
+	}
+}
@@ -0,0 +1,173 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.dofs;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import gda.oe.Moveable;
+import gda.oe.MoveableStatus;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests Trajectory with mocked Moveables. The segments are long enough that the timer never fires during a test, each
+ * test sends the segments which fall due itself.
+ */
+public class TrajectoryTest extends TestCase {
+
+	private DOF dof;
+
+	private Moveable first;
+
+	private Moveable second;
+
+	private Trajectory trajectory;
+
+	private static Quantity mm(double value) {
+		return Quantity.valueOf(value, SI.MILLI(SI.METER));
+	}
+
+	private Moveable moveable(String name) throws Exception {
+		Moveable moveable = mock(Moveable.class);
+		when(moveable.getName()).thenReturn(name);
+		when(moveable.getSpeed()).thenReturn(Quantity.valueOf(0.001, SI.MILLI(SI.METER).divide(SI.SECOND)));
+		when(moveable.checkMoveTo(any(Quantity.class), any())).thenReturn(MoveableStatus.SUCCESS);
+		return moveable;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		dof = mock(DOF.class);
+		when(dof.getName()).thenReturn("dof");
+		when(dof.calculateMoveables(any(Quantity.class))).thenAnswer(new Answer<Quantity[]>() {
+			@Override
+			public Quantity[] answer(InvocationOnMock invocation) {
+				Quantity q = (Quantity) invocation.getArguments()[0];
+				return new Quantity[] { q, q };
+			}
+		});
+		first = moveable("first");
+		second = moveable("second");
+		// 3 mm at 0.001 mm/S in 3 segments of 1000 S
+		trajectory = Trajectory.plan(dof, new Moveable[] { first, second }, mm(0), mm(3), 1000000);
+		assertNotNull(trajectory);
+	}
+
+	@Override
+	protected void tearDown() {
+		trajectory.end();
+	}
+
+	private void ready(Moveable moveable, int index) throws Exception {
+		trajectory.moveableUpdated(index, new MoveableStatus(MoveableStatus.READY, moveable.getName(), trajectory
+				.getSentId(index)));
+	}
+
+	/**
+	 * Tests that every segment but the last is flown and the last is moved to with correction
+	 * 
+	 * @throws Exception
+	 */
+	public void testOnlyLastSegmentIsCorrected() throws Exception {
+		trajectory.begin();
+		int id = trajectory.getSentId(0);
+		verify(first).doFly(dof, id);
+		verify(second).doFly(dof, id);
+		ready(first, 0);
+		ready(second, 1);
+
+		trajectory.sendSegment();
+		ready(first, 0);
+		ready(second, 1);
+		assertFalse(trajectory.isComplete());
+
+		trajectory.sendSegment();
+		int last = trajectory.getSentId(0);
+		verify(first, times(2)).doFly(same(dof), anyInt());
+		verify(first).doMove(dof, last);
+		verify(second).doMove(dof, last);
+		verify(first).checkMoveTo(eq(mm(3)), same(dof));
+		assertTrue(trajectory.isComplete());
+	}
+
+	/**
+	 * Tests that a segment which falls due is sent at once to a Moveable which has finished the previous one and to
+	 * one which has not as soon as it reports READY
+	 * 
+	 * @throws Exception
+	 */
+	public void testSegmentsAreSentOnTimeToMoveablesWhichAreReady() throws Exception {
+		trajectory.begin();
+		int firstSegment = trajectory.getSentId(1);
+		ready(first, 0);
+
+		trajectory.sendSegment();
+		int secondSegment = trajectory.getSentId(0);
+		assertTrue(secondSegment != firstSegment);
+		verify(first).doFly(dof, secondSegment);
+		verify(second, never()).doFly(dof, secondSegment);
+		assertEquals(firstSegment, trajectory.getSentId(1));
+
+		// a status from before the segment the Moveable was last sent is ignored
+		trajectory.moveableUpdated(1, new MoveableStatus(MoveableStatus.READY, "second", firstSegment - 1));
+		verify(second, never()).doFly(dof, secondSegment);
+
+		ready(second, 1);
+		verify(second).doFly(dof, secondSegment);
+		assertEquals(secondSegment, trajectory.getSentId(1));
+	}
+
+	/**
+	 * Tests that a Moveable which is more than one segment behind goes straight to the latest and the move is not
+	 * complete until it has been sent the last one
+	 * 
+	 * @throws Exception
+	 */
+	public void testMoveableFarBehindGoesToLatestSegment() throws Exception {
+		trajectory.begin();
+		trajectory.sendSegment();
+		ready(first, 0);
+		trajectory.sendSegment();
+		assertFalse(trajectory.isComplete());
+
+		ready(second, 1);
+		verify(second, times(1)).doFly(same(dof), anyInt());
+		verify(second).checkMoveTo(eq(mm(3)), same(dof));
+		verify(second).doMove(dof, trajectory.getSentId(1));
+		assertFalse(trajectory.isComplete());
+
+		ready(first, 0);
+		verify(first).doMove(dof, trajectory.getSentId(0));
+		assertTrue(trajectory.isComplete());
+	}
+}
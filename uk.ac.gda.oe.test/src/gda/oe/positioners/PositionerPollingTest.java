@@ -0,0 +1,199 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.positioners;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import gda.device.MotorStatus;
+import gda.device.motor.MotorBase;
+import gda.oe.MoveableStatus;
+import gda.observable.IObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+
+/**
+ * Tests the polling of a Positioner's motor. The polls are run by the test rather than by a PositionerPoller, which
+ * is only used to check what is scheduled.
+ */
+public class PositionerPollingTest extends TestCase implements IObserver {
+
+	private static final long POLL_TIME = 50;
+
+	private MotorBase motor;
+
+	private PositionerPoller poller;
+
+	private LinearPositioner positioner;
+
+	private final List<MoveableStatus> statuses = new ArrayList<MoveableStatus>();
+
+	// a move to make as soon as the Positioner reports READY, or NaN
+	private double nextMove = Double.NaN;
+
+	@Override
+	protected void setUp() throws Exception {
+		motor = mock(MotorBase.class);
+		when(motor.getName()).thenReturn("motor");
+		when(motor.getStatus()).thenReturn(MotorStatus.READY);
+		when(motor.getPosition()).thenReturn(0.0);
+		poller = mock(PositionerPoller.class);
+
+		positioner = new LinearPositioner();
+		positioner.setName("positioner");
+		positioner.setMotor(motor);
+		positioner.setPoller(poller);
+		positioner.setPollTime(POLL_TIME);
+		positioner.setStepsPerUnit(1.0);
+		positioner.setSoftLimitLowValue(-100.0);
+		positioner.setSoftLimitHighValue(100.0);
+		positioner.configure();
+		positioner.addIObserver(this);
+	}
+
+	@Override
+	public void update(Object source, Object arg) {
+		if (arg instanceof MoveableStatus) {
+			MoveableStatus status = (MoveableStatus) arg;
+			statuses.add(status);
+			if (status.value() == MoveableStatus.READY && !Double.isNaN(nextMove)) {
+				double mm = nextMove;
+				nextMove = Double.NaN;
+				try {
+					move(mm);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+	}
+
+	private void move(double mm) throws Exception {
+		assertEquals(MoveableStatus.SUCCESS, positioner.checkMoveTo(Quantity.valueOf(mm, SI.MILLI(SI.METER)), this));
+		positioner.doMove(this, 1);
+	}
+
+	private void poll(MotorStatus status, boolean moving, double position) throws Exception {
+		when(motor.getStatus()).thenReturn(status);
+		when(motor.isMoving()).thenReturn(moving);
+		when(motor.getPosition()).thenReturn(position);
+		positioner.run();
+	}
+
+	private void assertScheduled(int polls) {
+		verify(poller, times(polls)).schedule(positioner, POLL_TIME);
+	}
+
+	private void assertFinished() throws Exception {
+		assertFalse(positioner.isMoving());
+		assertEquals(MoveableStatus.READY, statuses.get(statuses.size() - 1).value());
+	}
+
+	/**
+	 * Tests polling goes on while the backlash is still to be done, even if the motor no longer says it is moving
+	 * 
+	 * @throws Exception
+	 */
+	public void testPollingWhileBacklashPending() throws Exception {
+		move(1.0);
+		assertScheduled(1);
+
+		poll(MotorStatus.BUSY, false, 0.5);
+		assertScheduled(2);
+		assertTrue(positioner.isMoving());
+
+		poll(MotorStatus.READY, true, 1.0);
+		verify(motor).correctBacklash();
+		assertScheduled(3);
+		assertTrue(positioner.isMoving());
+
+		poll(MotorStatus.READY, false, 1.0);
+		assertScheduled(3);
+		assertFinished();
+	}
+
+	/**
+	 * Tests polling goes on while a position correction is still to be done and that the move the correction makes
+	 * does not start another cycle once this one has finished
+	 * 
+	 * @throws Exception
+	 */
+	public void testPollingWhileCorrectionPending() throws Exception {
+		positioner.setPositionCorrection(true);
+		positioner.setIterationMaxValue(2);
+		positioner.setIterationDeadBand(0.01);
+		move(1.0);
+
+		// backlash first
+		poll(MotorStatus.READY, true, 0.0);
+		assertScheduled(2);
+
+		// then the correction, which moves on by the shortfall
+		poll(MotorStatus.READY, false, 0.0);
+		verify(motor).moveTo(2.0);
+		assertScheduled(3);
+
+		// the correction's own backlash, the correction is still pending
+		poll(MotorStatus.READY, false, 1.0);
+		verify(motor, times(2)).correctBacklash();
+		assertScheduled(4);
+		assertTrue(positioner.isMoving());
+
+		// close enough
+		poll(MotorStatus.READY, false, 1.0);
+		assertScheduled(4);
+		assertFinished();
+	}
+
+	/**
+	 * Tests a move started by an observer told that the previous one is over, before its polling cycle has quite
+	 * finished, is followed by a new cycle
+	 * 
+	 * @throws Exception
+	 */
+	public void testRestartMonitoringAfterFinish() throws Exception {
+		move(1.0);
+		poll(MotorStatus.READY, true, 1.0);
+		assertScheduled(2);
+
+		// the motor stops between reading its status and asking if it is moving
+		nextMove = 2.0;
+		when(motor.getStatus()).thenReturn(MotorStatus.BUSY, MotorStatus.READY);
+		when(motor.isMoving()).thenReturn(false);
+		positioner.run();
+		verify(motor).moveTo(2.0);
+		assertScheduled(3);
+		assertTrue(positioner.isMoving());
+
+		poll(MotorStatus.READY, true, 2.0);
+		assertScheduled(4);
+		poll(MotorStatus.READY, false, 2.0);
+		assertScheduled(4);
+		assertFinished();
+	}
+}
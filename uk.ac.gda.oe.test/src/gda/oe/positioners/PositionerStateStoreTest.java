@@ -0,0 +1,146 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.positioners;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests PositionerStateStore
+ */
+public class PositionerStateStoreTest extends TestCase {
+
+	private static final double DELTA = 1e-12;
+
+	private File file;
+
+	private File journal;
+
+	@Override
+	protected void setUp() throws IOException {
+		file = File.createTempFile("positioners", ".map");
+		file.delete();
+		journal = new File(file.getPath() + ".journal");
+	}
+
+	@Override
+	protected void tearDown() {
+		file.delete();
+		journal.delete();
+	}
+
+	private static PositionalValues values(double lower, double upper, double home, double offset) {
+		PositionalValues values = new PositionalValues();
+		values.setLowerLimit(lower);
+		values.setUpperLimit(upper);
+		values.setHomeOffset(home);
+		values.setPositionOffset(offset);
+		return values;
+	}
+
+	/**
+	 * Tests values survive closing and reopening the store
+	 * 
+	 * @throws IOException
+	 */
+	public void testReopen() throws IOException {
+		PositionerStateStore store = new PositionerStateStore(file);
+		store.setFlushInterval(60000);
+		assertNull(store.getLimitsAndOffsets("m1"));
+		assertTrue(Double.isNaN(store.getPosition("m1")));
+		store.putLimitsAndOffsets("m1", values(-1.0, 1.0, 0.5, 0.25));
+		store.putPosition("m1", 0.125);
+		store.putPosition("m2", 7.0);
+		store.close();
+
+		store = new PositionerStateStore(file);
+		assertEquals(2, store.size());
+		PositionalValues m1 = store.getLimitsAndOffsets("m1");
+		assertEquals(-1.0, m1.getLowerLimit(), DELTA);
+		assertEquals(1.0, m1.getUpperLimit(), DELTA);
+		assertEquals(0.5, m1.getHomeOffset(), DELTA);
+		assertEquals(0.25, m1.getPositionOffset(), DELTA);
+		assertEquals(0.125, store.getPosition("m1"), DELTA);
+		assertEquals(7.0, store.getPosition("m2"), DELTA);
+		assertTrue(Double.isNaN(store.getLimitsAndOffsets("m2").getLowerLimit()));
+		store.close();
+	}
+
+	/**
+	 * Tests the store grows past its initial size
+	 * 
+	 * @throws IOException
+	 */
+	public void testGrow() throws IOException {
+		PositionerStateStore store = new PositionerStateStore(file);
+		store.setFlushInterval(60000);
+		for (int i = 0; i < 1000; i++) {
+			store.putPosition("motor" + i, i);
+		}
+		store.close();
+
+		store = new PositionerStateStore(file);
+		assertEquals(1000, store.size());
+		assertEquals(999.0, store.getPosition("motor999"), DELTA);
+		store.close();
+	}
+
+	/**
+	 * Tests a corrupt record is repaired from the journal
+	 * 
+	 * @throws IOException
+	 */
+	public void testRecoverFromJournal() throws IOException {
+		PositionerStateStore store = new PositionerStateStore(file);
+		store.setFlushInterval(60000);
+		store.putPosition("m1", 3.0);
+		store.close();
+
+		// a journal left by a flush which did not finish, followed by a
+		// torn write to the record in the map
+		store = new PositionerStateStore(file);
+		store.setFlushInterval(60000);
+		store.putPosition("m1", 4.0);
+		RandomAccessFile map = new RandomAccessFile(file, "r");
+		byte[] record = new byte[PositionerStateStore.RECORD_SIZE];
+		map.seek(32);
+		map.readFully(record);
+		map.close();
+		store.close();
+
+		RandomAccessFile out = new RandomAccessFile(journal, "rw");
+		out.writeInt(0);
+		out.write(record);
+		out.close();
+		out = new RandomAccessFile(file, "rw");
+		out.seek(32 + 100);
+		out.writeLong(-1L);
+		out.close();
+
+		store = new PositionerStateStore(file);
+		assertEquals(4.0, store.getPosition("m1"), DELTA);
+		assertEquals(0, journal.length());
+		store.close();
+	}
+}
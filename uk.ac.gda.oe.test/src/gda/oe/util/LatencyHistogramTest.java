@@ -0,0 +1,58 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests LatencyHistogram
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	/**
+	 * Tests the percentiles are within the precision of the buckets
+	 */
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++)
+			histogram.record(i * 1000000L);
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500.5, histogram.getMean(), 1e-9);
+		assertEquals(1000.0, histogram.getMax(), 1e-9);
+		assertEquals(500.0, histogram.getPercentile(50), 500.0 * 0.04);
+		assertEquals(990.0, histogram.getPercentile(99), 990.0 * 0.04);
+		assertEquals(1000.0, histogram.getPercentile(100), 1e-9);
+	}
+
+	/**
+	 * Tests short times are counted exactly and reset forgets everything
+	 */
+	public void testShortTimesAndReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(3000);
+		histogram.record(5000);
+		assertEquals(0.003, histogram.getPercentile(50), 1e-9);
+		assertEquals(0.005, histogram.getPercentile(100), 1e-9);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0.0, histogram.getPercentile(50), 0.0);
+	}
+}
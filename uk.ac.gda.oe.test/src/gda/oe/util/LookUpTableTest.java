@@ -0,0 +1,118 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import gda.jscience.physics.units.NonSIext;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Angle;
+import org.jscience.physics.quantities.Quantity;
+
+/**
+ * Tests LookUpTable reading and interpolation
+ */
+public class LookUpTableTest extends TestCase {
+
+	private static final double DELTA = 1e-9;
+
+	private static final String TABLE = "# Undulator lookup table\n" //
+			+ "LinearHorizontal\n" //
+			+ "Energy Gap MutualPhase\n" //
+			+ "eV mm mm\n" //
+			+ "300.0 20.0 0.0\n" //
+			+ "100.0 10.0 0.0\n" //
+			+ "200.0 15.0 0.0\n" //
+			+ "#\n" //
+			+ "\n" //
+			+ "LinearVertical\n" //
+			+ "Energy Gap OpposingPhase\n" //
+			+ "eV mm mm\n" //
+			+ "100.0 12.0 30.0\n" //
+			+ "200.0 18.0 30.0\n" //
+			+ "#\n" //
+			+ "Variable\n" //
+			+ "Energy Gap MutualPhase\n" //
+			+ "eV mm mm\n" //
+			+ "90.0\n" //
+			+ "100.0 10.0 10.0\n" //
+			+ "200.0 20.0 10.0\n" //
+			+ "# next angle\n" //
+			+ "0.0\n" //
+			+ "100.0 10.0 0.0\n" //
+			+ "200.0 10.0 0.0\n" //
+			+ "#\n" //
+			+ "45.0\n" //
+			+ "100.0 10.0 5.0\n" //
+			+ "200.0 15.0 5.0\n";
+
+	private LookUpTable table;
+
+	@Override
+	protected void setUp() throws IOException {
+		table = new LookUpTable(new StringReader(TABLE));
+	}
+
+	private Angle polarization(double degrees) {
+		return (Angle) Quantity.valueOf(degrees, NonSIext.DEG_ANGLE);
+	}
+
+	/**
+	 * Tests interpolation and extrapolation for a fixed polarization
+	 */
+	public void testCalculateValues() {
+		Angle horizontal = polarization(360.0);
+		assertEquals("Gap", table.getDofNames(horizontal)[0]);
+		assertEquals("MutualPhase", table.getDofNames(horizontal)[1]);
+		assertEquals(12.5, table.calculateValues(150.0, horizontal)[0], DELTA);
+		assertEquals(15.0, table.calculateValues(200.0, horizontal)[0], DELTA);
+		assertEquals(25.0, table.calculateValues(400.0, horizontal)[0], DELTA);
+		assertEquals(5.0, table.calculateValues(0.0, horizontal)[0], DELTA);
+
+		Angle vertical = polarization(540.0);
+		assertEquals("OpposingPhase", table.getDofNames(vertical)[1]);
+		assertEquals(30.0, table.calculateValues(150.0, vertical)[1], DELTA);
+	}
+
+	/**
+	 * Tests the reverse calculation of energy from gap
+	 */
+	public void testReverseCalculateValues() {
+		double[] values = table.reverseCalculateValues(17.5, polarization(360.0));
+		assertEquals(250.0, values[0], DELTA);
+		assertEquals(0.0, values[1], DELTA);
+	}
+
+	/**
+	 * Tests interpolation between the angles of the variable polarization
+	 */
+	public void testVariablePolarization() {
+		double[] values = table.calculateValues(200.0, polarization(67.5));
+		assertEquals(17.5, values[0], DELTA);
+		assertEquals(7.5, values[1], DELTA);
+
+		values = table.reverseCalculateValues(15.0, polarization(90.0));
+		assertEquals(150.0, values[0], DELTA);
+		assertEquals(10.0, values[1], DELTA);
+	}
+}
@@ -0,0 +1,254 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import gda.observable.IObserver;
+import gda.oe.MoveableStatus;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+
+/**
+ * Tests MotionJournal
+ */
+public class MotionJournalTest extends TestCase {
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("MotionJournalTest", "");
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files)
+				file.delete();
+		}
+		directory.delete();
+	}
+
+	private static Quantity mm(double value) {
+		return Quantity.valueOf(value, SI.MILLI(SI.METER));
+	}
+
+	private static MoveableStatus status(int value, String name, int id) {
+		return new MoveableStatus(value, name, mm(id / 10.0), id);
+	}
+
+	/**
+	 * Tests that only the ring is kept when there is no directory and that events can be found by Moveable
+	 * 
+	 * @throws Exception
+	 */
+	public void testRing() throws Exception {
+		MotionJournal journal = new MotionJournal(16, null, 100, 0, 16);
+		for (int i = 0; i < 20; i++)
+			journal.record("oe", status(MoveableStatus.BUSY, (i % 2 == 0) ? "a" : "b", i));
+		assertEquals(20, journal.getRecorded());
+		assertEquals(0, journal.getLost());
+
+		List<MotionJournalEvent> all = journal.query(null, null, 0, Long.MAX_VALUE);
+		assertEquals(16, all.size());
+		assertEquals(4, all.get(0).getId());
+		assertEquals(0.4, all.get(0).getAmount(), 1e-12);
+
+		List<MotionJournalEvent> b = journal.query(null, "b", 0, Long.MAX_VALUE);
+		assertEquals(8, b.size());
+		for (MotionJournalEvent event : b) {
+			assertEquals("b", event.getMoveableName());
+			assertEquals(MoveableStatus.BUSY, event.getStatus());
+		}
+		assertTrue(journal.query(null, "c", 0, Long.MAX_VALUE).isEmpty());
+		assertTrue(journal.query(null, null, 0, System.currentTimeMillis() - 60000).isEmpty());
+	}
+
+	/**
+	 * Tests events are spilled to segments and read back after the journal is opened again
+	 * 
+	 * @throws Exception
+	 */
+	public void testSegments() throws Exception {
+		MotionJournal journal = new MotionJournal(8, directory, 5, 0, 16);
+		for (int i = 0; i < 6; i++)
+			journal.record("oe", status(MoveableStatus.BUSY, "a", i));
+		journal.flush();
+		for (int i = 6; i < 12; i++)
+			journal.record("oe", status(MoveableStatus.READY, "b", i));
+		assertEquals(12, journal.query(null, null, 0, Long.MAX_VALUE).size());
+		journal.close();
+		assertEquals(4, directory.list().length);
+
+		journal = new MotionJournal(8, directory, 5, 0, 16);
+		journal.record("oe", status(MoveableStatus.ERROR, "c", 12));
+		journal.record("oe", status(MoveableStatus.ERROR, "a", 13));
+		List<MotionJournalEvent> events = journal.query(null, null, 0, Long.MAX_VALUE);
+		assertEquals(14, events.size());
+		for (int i = 0; i < events.size(); i++)
+			assertEquals(i, events.get(i).getId());
+		assertEquals("b", events.get(11).getMoveableName());
+		assertEquals("c", events.get(12).getMoveableName());
+		assertEquals(7, journal.query(null, "a", 0, Long.MAX_VALUE).size());
+		journal.close();
+	}
+
+	/**
+	 * Tests the oldest events are lost if the ring is not flushed in time
+	 * 
+	 * @throws Exception
+	 */
+	public void testLost() throws Exception {
+		MotionJournal journal = new MotionJournal(4, directory, 100, 0, 16);
+		for (int i = 0; i < 10; i++)
+			journal.record("oe", status(MoveableStatus.BUSY, "a", i));
+		assertEquals(6, journal.getLost());
+		journal.flush();
+		List<MotionJournalEvent> events = journal.query(null, "a", 0, Long.MAX_VALUE);
+		assertEquals(4, events.size());
+		assertEquals(6, events.get(0).getId());
+		journal.close();
+	}
+
+	/**
+	 * Tests events are replayed as MoveableStatus notifications
+	 * 
+	 * @throws Exception
+	 */
+	public void testReplay() throws Exception {
+		MotionJournal journal = new MotionJournal(16, null, 100, 0, 16);
+		journal.record("oe", status(MoveableStatus.BUSY, "a", 1));
+		journal.record("oe", status(MoveableStatus.READY, "a", 1));
+		final List<MoveableStatus> received = new ArrayList<MoveableStatus>();
+		final Object source = new Object();
+		MotionJournal.replay(journal.query(null, "a", 0, Long.MAX_VALUE), source, new IObserver() {
+			@Override
+			public void update(Object theObserved, Object changeCode) {
+				assertSame(source, theObserved);
+				received.add((MoveableStatus) changeCode);
+			}
+		}, 0.0);
+		assertEquals(2, received.size());
+		assertEquals(MoveableStatus.BUSY, received.get(0).value());
+		assertEquals(MoveableStatus.READY, received.get(1).value());
+		assertEquals("a", received.get(1).getMoveableName());
+	}
+
+	/**
+	 * Tests that Moveables with the same name in different OEs are told apart
+	 * 
+	 * @throws Exception
+	 */
+	public void testSameNameInTwoOEs() throws Exception {
+		MotionJournal journal = new MotionJournal(16, directory, 100, 0, 16);
+		journal.record("s1", status(MoveableStatus.BUSY, "XGap", 1));
+		journal.record("s2", status(MoveableStatus.BUSY, "XGap", 2));
+		journal.flush();
+		journal.record("s2", status(MoveableStatus.READY, "XGap", 3));
+
+		List<MotionJournalEvent> s2 = journal.query("s2", "XGap", 0, Long.MAX_VALUE);
+		assertEquals(2, s2.size());
+		assertEquals(2, s2.get(0).getId());
+		assertEquals(3, s2.get(1).getId());
+		assertEquals("s2", s2.get(1).getOeName());
+		assertEquals(3, journal.query(null, "XGap", 0, Long.MAX_VALUE).size());
+		assertEquals(1, journal.query("s1", null, 0, Long.MAX_VALUE).size());
+		assertTrue(journal.query("s3", "XGap", 0, Long.MAX_VALUE).isEmpty());
+		journal.close();
+	}
+
+	/**
+	 * Tests that messages are kept only for errors and that no more than the given number are numbered
+	 * 
+	 * @throws Exception
+	 */
+	public void testMessagesBounded() throws Exception {
+		MotionJournal journal = new MotionJournal(64, directory, 100, 0, 2);
+		journal.record("oe", new MoveableStatus(MoveableStatus.BUSY, "a", mm(1), 1, "moving to 1"));
+		for (int i = 0; i < 4; i++)
+			journal.record("oe", new MoveableStatus(MoveableStatus.ERROR, "a", mm(i), i, "failed at " + i));
+		journal.record("oe", new MoveableStatus(MoveableStatus.ERROR, "a", mm(0), 5, "failed at 0"));
+		journal.close();
+
+		journal = new MotionJournal(64, directory, 100, 0, 2);
+		List<MotionJournalEvent> events = journal.query(null, "a", 0, Long.MAX_VALUE);
+		journal.close();
+		assertEquals(6, events.size());
+		assertNull(events.get(0).getMessage());
+		assertEquals("failed at 0", events.get(1).getMessage());
+		assertEquals("failed at 1", events.get(2).getMessage());
+		assertNull(events.get(3).getMessage());
+		assertNull(events.get(4).getMessage());
+		assertEquals("failed at 0", events.get(5).getMessage());
+	}
+
+	/**
+	 * Tests that statuses recorded by several threads at once are each kept once
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrentRecord() throws Exception {
+		final int threads = 4;
+		final int each = 2000;
+		final MotionJournal journal = new MotionJournal(threads * each, null, 100, 0, 16);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] recorders = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int first = t * each;
+			recorders[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = first; i < first + each; i++)
+						journal.record("oe", status(MoveableStatus.BUSY, "m" + (i % 3), i));
+				}
+			};
+			recorders[t].start();
+		}
+		start.countDown();
+		for (Thread recorder : recorders)
+			recorder.join();
+
+		assertEquals(threads * each, journal.getRecorded());
+		List<MotionJournalEvent> events = journal.query(null, null, 0, Long.MAX_VALUE);
+		assertEquals(threads * each, events.size());
+		BitSet seen = new BitSet();
+		for (MotionJournalEvent event : events) {
+			assertFalse(seen.get(event.getId()));
+			seen.set(event.getId());
+			assertEquals("m" + (event.getId() % 3), event.getMoveableName());
+			assertEquals(event.getId() / 10.0, event.getAmount(), 1e-12);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests MovePlanCache
+ */
+public class MovePlanCacheTest extends TestCase {
+
+	/**
+	 * Tests a plan is found again and the hits and misses are counted
+	 */
+	public void testHitsAndMisses() {
+		MovePlanCache<String> cache = new MovePlanCache<String>("testHitsAndMisses", 4);
+		assertNull(cache.get("a"));
+		cache.put("a", "plan", MovePlanCache.getConfigurationVersion());
+		assertEquals("plan", cache.get("a"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 1e-9);
+	}
+
+	/**
+	 * Tests plans are forgotten when the configuration changes, including one worked out while it changed
+	 */
+	public void testConfigurationChanged() {
+		MovePlanCache<String> cache = new MovePlanCache<String>("testConfigurationChanged", 4);
+		long version = MovePlanCache.getConfigurationVersion();
+		cache.put("a", "plan", version);
+		MovePlanCache.configurationChanged();
+		assertNull(cache.get("a"));
+		cache.put("b", "plan", version);
+		assertNull(cache.get("b"));
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Tests the least recently used plan is forgotten when the cache is full
+	 */
+	public void testLeastRecentlyUsedForgotten() {
+		MovePlanCache<String> cache = new MovePlanCache<String>("testLeastRecentlyUsedForgotten", 2);
+		long version = MovePlanCache.getConfigurationVersion();
+		cache.put("a", "A", version);
+		cache.put("b", "B", version);
+		cache.get("a");
+		cache.put("c", "C", version);
+		assertEquals("A", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals("C", cache.get("c"));
+	}
+}
@@ -0,0 +1,87 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import java.awt.Shape;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests RoutePlanner
+ */
+public class RoutePlannerTest extends TestCase {
+
+	private static final double DELTA = 1e-9;
+
+	private RoutePlanner planner;
+
+	@Override
+	protected void setUp() throws IOException {
+		List<Shape> zones = RoutePlanner.readZones(new StringReader("# power map\n" //
+				+ "10,20,10,20\n" //
+				+ "\n" //
+				+ "30,10 40,10 35,20\n"));
+		planner = new RoutePlanner(zones, 1.0, 1.0, 1.0);
+	}
+
+	/**
+	 * Tests the zones are read and checked
+	 */
+	public void testForbidden() {
+		assertEquals(2, planner.getNumberOfZones());
+		assertTrue(planner.isForbidden(15.0, 15.0));
+		assertTrue(planner.isForbidden(35.0, 12.0));
+		assertFalse(planner.isForbidden(31.0, 19.0));
+		assertFalse(planner.isForbidden(0.0, 0.0));
+	}
+
+	/**
+	 * Tests that a clear move is a single leg and a move into a zone is refused
+	 */
+	public void testDirect() {
+		double[][] route = planner.planRoute(0.0, 0.0, 5.0, 30.0);
+		assertEquals(1, route.length);
+		assertEquals(5.0, route[0][0], DELTA);
+		assertEquals(30.0, route[0][1], DELTA);
+
+		assertNull(planner.planRoute(0.0, 0.0, 15.0, 15.0));
+	}
+
+	/**
+	 * Tests that a move across a zone goes round it and every leg is legal
+	 */
+	public void testRoute() {
+		double[][] route = planner.planRoute(0.0, 15.0, 25.0, 15.0);
+		assertNotNull(route);
+		assertTrue(route.length > 1);
+		double x = 0.0;
+		double y = 15.0;
+		for (double[] leg : route) {
+			assertTrue(planner.isClear(x, y, leg[0], leg[1]));
+			x = leg[0];
+			y = leg[1];
+		}
+		assertEquals(25.0, x, DELTA);
+		assertEquals(15.0, y, DELTA);
+	}
+}
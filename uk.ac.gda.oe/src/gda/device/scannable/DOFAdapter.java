@@ -22,11 +22,15 @@ package gda.device.scannable;
 import gda.device.DeviceException;
 import gda.device.scannable.ScannableUtils.ScannableValidationException;
 import gda.jython.accesscontrol.AccessDeniedException;
+import gda.oe.FlySampler;
 import gda.oe.MoveableException;
+import gda.oe.MoveableReading;
 import gda.oe.OE;
 import gda.util.QuantityFactory;
 import gda.util.exceptionUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.eclipse.dawnsci.analysis.api.tree.GroupNode;
@@ -34,6 +38,7 @@ import org.eclipse.dawnsci.nexus.NexusException;
 import org.eclipse.dawnsci.nexus.NexusFile;
 import org.eclipse.dawnsci.nexus.NexusUtils;
 import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
 import org.jscience.physics.units.Unit;
 import org.python.core.Py;
 import org.python.core.PyException;
@@ -80,6 +85,12 @@ public class DOFAdapter extends ScannableMotionBase {
 
 	OE oe = null;
 
+	private volatile FlySampler flySampler;
+
+	private final List<Double> flyPositions = new ArrayList<Double>();
+
+	private final List<Double> flyTimes = new ArrayList<Double>();
+
 	/**
 	 * Simple helper function to convert a double[] to a Double[]
 	 * @param array
@@ -148,7 +159,134 @@ public class DOFAdapter extends ScannableMotionBase {
 	 */
 	@Override
 	public void asynchronousMoveTo(Object position) throws DeviceException {
-		Quantity newPosition = null;
+		try {
+			Quantity newPosition = toQuantity(position);
+
+			// * Check the position is valid (limits and so on)
+			String reply = this.checkPositionValid(newPosition);
+			if (reply != null) {
+				throw new DeviceException(getName() + ": invalid asynchMoveTo() position; problem is: " + reply);
+			}
+
+			// * Do the move
+			oe.moveTo(dofname, newPosition);
+
+		} catch (MoveableException e) {
+			throw new DeviceException(getName() + ": error during asynchronousMoveTo: " + e.getMessage()
+					+ (e.getCause() != null ? (" " + e.getCause().getMessage()) : "") + ". MoveableStatus =  "
+					+ e.getMoveableStatus().getMessage(), e);
+		} catch (AccessDeniedException e) {
+			throw new AccessDeniedException(getName() + ": error during asynchronousMoveTo: " + e.getMessage()
+					+ (e.getCause() != null ? (" " + e.getCause().getMessage()) : "") + ".");
+		} catch (Exception e) {
+			throw new DeviceException(getName() + ": error during asynchronousMoveTo: " + e.getMessage()
+					+ (e.getCause() != null ? (" " + e.getCause().getMessage()) : ""), e);
+		}
+	}
+
+	/**
+	 * Sweeps the DOF from where it is to a position at a given speed in one continuous move and reads its position
+	 * every sampleInterval mS until it stops. Returns as soon as the sweep has started, isBusy is true until the last
+	 * reading has been taken. The readings so far are returned by getFlyPositions and getFlyTimes. For example in
+	 * Jython:
+	 * <p>
+	 * myMono.flyTo(20.0, 0.5, 50)
+	 * </p>
+	 * 
+	 * @param position
+	 *            the end of the sweep, as for asynchronousMoveTo
+	 * @param speed
+	 *            a number (in reporting units per second) or a String giving the speed with its units
+	 * @param sampleInterval
+	 *            the time between readings in mS
+	 * @throws DeviceException
+	 */
+	public void flyTo(Object position, Object speed, long sampleInterval) throws DeviceException {
+		synchronized (flyPositions) {
+			flyPositions.clear();
+			flyTimes.clear();
+		}
+		flyTo(position, speed, sampleInterval, new FlySampler.Listener() {
+			@Override
+			public void sampled(int index, long time, Quantity pos) {
+				synchronized (flyPositions) {
+					flyPositions.add(pos.getAmount());
+					flyTimes.add((double) time);
+				}
+			}
+		});
+	}
+
+	/**
+	 * As flyTo(position, speed, sampleInterval) but the readings go to the given listener.
+	 * 
+	 * @param position
+	 *            the end of the sweep, as for asynchronousMoveTo
+	 * @param speed
+	 *            a number (in reporting units per second) or a String giving the speed with its units
+	 * @param sampleInterval
+	 *            the time between readings in mS
+	 * @param listener
+	 *            receives the readings
+	 * @throws DeviceException
+	 */
+	public void flyTo(Object position, Object speed, long sampleInterval, FlySampler.Listener listener)
+			throws DeviceException {
+		try {
+			Quantity newPosition = toQuantity(position);
+			String reply = this.checkPositionValid(newPosition);
+			if (reply != null) {
+				throw new DeviceException(getName() + ": invalid flyTo() position; problem is: " + reply);
+			}
+			Quantity newSpeed;
+			if (speed instanceof Number) {
+				newSpeed = Quantity.valueOf(((Number) speed).doubleValue(), oe.getReportingUnits(dofname).divide(
+						SI.SECOND));
+			} else {
+				newSpeed = QuantityFactory.createFromString(speed.toString());
+			}
+
+			oe.flyTo(dofname, newPosition, newSpeed);
+			FlySampler sampler = new FlySampler(oe, dofname, listener);
+			flySampler = sampler;
+			sampler.start(sampleInterval);
+		} catch (MoveableException e) {
+			throw new DeviceException(getName() + ": error during flyTo: " + e.getMessage() + ". MoveableStatus =  "
+					+ e.getMoveableStatus().getMessage(), e);
+		} catch (DeviceException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new DeviceException(getName() + ": error during flyTo: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the positions read during the last flyTo, in reporting units
+	 */
+	public double[] getFlyPositions() {
+		synchronized (flyPositions) {
+			return toArray(flyPositions);
+		}
+	}
+
+	/**
+	 * @return the times of the readings taken during the last flyTo, in mS after the sweep started
+	 */
+	public double[] getFlyTimes() {
+		synchronized (flyPositions) {
+			return toArray(flyTimes);
+		}
+	}
+
+	private static double[] toArray(List<Double> values) {
+		double[] array = new double[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	private Quantity toQuantity(Object position) throws MoveableException {
 		String s = position.toString();
 
 		//FIXME Somebody should look at this!
@@ -171,37 +309,14 @@ public class DOFAdapter extends ScannableMotionBase {
 			s = new String(superKludge);
 		}
 
-		try {
-			// check if position pure number or a mixture of letters and
-			// numbers
-			CharSequence temp = s.subSequence(0, s.length());
-
-			if (Pattern.matches("\\-?\\d+\\.?\\d*[eE\\-]*\\d*\\D+", temp)) {
-				newPosition = QuantityFactory.createFromString(s);
-			} else {
-				newPosition = QuantityFactory.createFromTwoStrings(s, oe.getReportingUnits(dofname).toString());
-			}
+		// check if position pure number or a mixture of letters and
+		// numbers
+		CharSequence temp = s.subSequence(0, s.length());
 
-			// * Check the position is valid (limits and so on)
-			String reply = this.checkPositionValid(newPosition);
-			if (reply != null) {
-				throw new DeviceException(getName() + ": invalid asynchMoveTo() position; problem is: " + reply);
-			}
-
-			// * Do the move
-			oe.moveTo(dofname, newPosition);
-
-		} catch (MoveableException e) {
-			throw new DeviceException(getName() + ": error during asynchronousMoveTo: " + e.getMessage()
-					+ (e.getCause() != null ? (" " + e.getCause().getMessage()) : "") + ". MoveableStatus =  "
-					+ e.getMoveableStatus().getMessage(), e);
-		} catch (AccessDeniedException e) {
-			throw new AccessDeniedException(getName() + ": error during asynchronousMoveTo: " + e.getMessage()
-					+ (e.getCause() != null ? (" " + e.getCause().getMessage()) : "") + ".");
-		} catch (Exception e) {
-			throw new DeviceException(getName() + ": error during asynchronousMoveTo: " + e.getMessage()
-					+ (e.getCause() != null ? (" " + e.getCause().getMessage()) : ""), e);
+		if (Pattern.matches("\\-?\\d+\\.?\\d*[eE\\-]*\\d*\\D+", temp)) {
+			return QuantityFactory.createFromString(s);
 		}
+		return QuantityFactory.createFromTwoStrings(s, oe.getReportingUnits(dofname).toString());
 	}
 
 	@Override
@@ -223,9 +338,7 @@ public class DOFAdapter extends ScannableMotionBase {
 	public Object getPosition() {
 		try {
 			// bug #964 refresh to ensure reported position upto date.
-			oe.refresh(dofname);
-			Unit<? extends Quantity> unit = oe.getReportingUnits(dofname);
-			return oe.getPosition(dofname, unit).to(unit).getAmount();
+			return readPosition(true);
 		} catch (Exception ex) {
 			logger.error("DOFAdapter: getPosition " + ex.getMessage());
 			return null;
@@ -235,6 +348,9 @@ public class DOFAdapter extends ScannableMotionBase {
 	@Override
 	public boolean isBusy() throws DeviceException {
 		try {
+			FlySampler sampler = flySampler;
+			if (sampler != null && !sampler.isFinished())
+				return true;
 			return oe.isMoving(this.dofname);
 		} catch (MoveableException e) {
 			throw new DeviceException("Error in isBusy for " + getName(),e);
@@ -413,10 +529,18 @@ public class DOFAdapter extends ScannableMotionBase {
 		}
 	}
 
+	/*
+	 * Reads the position in reporting units with a single call to the OE rather than separate refresh,
+	 * getReportingUnits and getPosition calls.
+	 */
+	private double readPosition(boolean refresh) throws MoveableException {
+		MoveableReading reading = oe.getReadings(new String[] { dofname }, refresh)[0];
+		return reading.getPosition().to(reading.getReportingUnits()).getAmount();
+	}
+
 	private PyFloat getJythonPosition() {
 		try {
-			Unit<? extends Quantity> unit = oe.getReportingUnits(dofname);
-			return new PyFloat(oe.getPosition(dofname, unit).to(unit).getAmount());
+			return new PyFloat(readPosition(false));
 		} catch (Exception ex) {
 			logger.error("DOFAdapter: getPosition " + ex.getMessage());
 			PyException pyEx = new PyException();
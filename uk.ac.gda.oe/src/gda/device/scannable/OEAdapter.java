@@ -23,9 +23,13 @@ import gda.device.DeviceException;
 import gda.device.Scannable;
 import gda.lockable.Locker;
 import gda.observable.IObserver;
+import gda.oe.MovePlan;
 import gda.oe.MoveableException;
+import gda.oe.MoveableReading;
 import gda.oe.MoveableStatus;
 import gda.oe.OE;
+import gda.oe.StopResult;
+import gda.oe.util.MotionLatencySnapshot;
 import gda.util.QuantityFactory;
 
 import java.util.ArrayList;
@@ -85,11 +89,13 @@ public class OEAdapter extends ScannableBase implements Scannable, OE {
 	@Override
 	public Object getPosition() throws DeviceException {
 
-		double[] positions = new double[this.getDOFNames().length];
+		String[] names = this.getDOFNames();
+		double[] positions = new double[names.length];
 
 		try {
-			for (int i = 0; i < this.getDOFNames().length; i++) {
-				positions[i] = this.getPosition(this.getDOFNames()[i]).getAmount();
+			Quantity[] quantities = this.getPositions(names);
+			for (int i = 0; i < names.length; i++) {
+				positions[i] = quantities[i].getAmount();
 			}
 		} catch (MoveableException e) {
 			throw new DeviceException(this.getName() + ": getPositions: " + e.getMessage());
@@ -135,11 +141,13 @@ public class OEAdapter extends ScannableBase implements Scannable, OE {
 			}
 			String output = getName() + ":\n";
 
-			for (String name : theOE.getDOFNames()) {
-				output += name + " : " + this.formatPosition(name, this.getPosition(name, getReportingUnits(name)).to(getReportingUnits(name)).getAmount());
+			for (MoveableReading reading : getReadings(theOE.getDOFNames(), false)) {
+				String name = reading.getMoveableName();
+				Unit<? extends Quantity> units = reading.getReportingUnits();
+				output += name + " : " + this.formatPosition(name, reading.getPosition().to(units).getAmount());
 
-				if (getReportingUnits(name) != null) {
-					output += " " + getReportingUnits(name).toText();
+				if (units != null) {
+					output += " " + units.toText();
 				}
 
 				if (getSoftLimitLower(name) != null && getSoftLimitUpper(name) != null) {
@@ -195,6 +203,11 @@ public class OEAdapter extends ScannableBase implements Scannable, OE {
 		theOE.moveTo(dofname, position);
 	}
 
+	@Override
+	public void flyTo(String dofname, Quantity position, Quantity speed) throws MoveableException {
+		theOE.flyTo(dofname, position, speed);
+	}
+
 	@Override
 	public int moveLockedTo(String dofname, Quantity position, int lockId) throws MoveableException {
 		return theOE.moveLockedTo(dofname, position, lockId);
@@ -291,6 +304,21 @@ public class OEAdapter extends ScannableBase implements Scannable, OE {
 		return theOE.getStatus(dofname);
 	}
 
+	@Override
+	public Quantity[] getPositions(String[] dofnames) throws MoveableException {
+		return theOE.getPositions(dofnames);
+	}
+
+	@Override
+	public MoveableStatus[] getStatuses(String[] dofnames) throws MoveableException {
+		return theOE.getStatuses(dofnames);
+	}
+
+	@Override
+	public MoveableReading[] getReadings(String[] dofnames, boolean refresh) throws MoveableException {
+		return theOE.getReadings(dofnames, refresh);
+	}
+
 	@Override
 	public void setSpeed(String dofname, Quantity speed) throws MoveableException {
 		theOE.setSpeed(dofname, speed);
@@ -366,6 +394,21 @@ public class OEAdapter extends ScannableBase implements Scannable, OE {
 		return theOE.moveCheck(dofname, position);
 	}
 
+	@Override
+	public MovePlan planMoves(String dofname, Quantity[] positions) throws MoveableException {
+		return theOE.planMoves(dofname, positions);
+	}
+
+	@Override
+	public StopResult[] emergencyStop(long deadline) throws MoveableException {
+		return theOE.emergencyStop(deadline);
+	}
+
+	@Override
+	public MotionLatencySnapshot getMotionLatency(String moveableName) throws MoveableException {
+		return theOE.getMotionLatency(moveableName);
+	}
+
 	@Override
 	public boolean isScannable(String dofname) throws MoveableException {
 		return theOE.isScannable(dofname);
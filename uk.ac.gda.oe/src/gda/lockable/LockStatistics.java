@@ -0,0 +1,88 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.lockable;
+
+import java.io.Serializable;
+
+/**
+ * The counters kept by a LockableComponent at a moment in time.
+ * 
+ * @see gda.lockable.LockableComponent#getStatistics()
+ */
+public final class LockStatistics implements Serializable {
+	private final long acquisitions;
+
+	private final long failures;
+
+	private final long holdTime;
+
+	private final boolean locked;
+
+	/**
+	 * @param acquisitions
+	 *            the number of times the lock has been taken
+	 * @param failures
+	 *            the number of attempts to take the lock which failed because it was held by another locker
+	 * @param holdTime
+	 *            the total time in mS for which the lock has been held (not including the current hold)
+	 * @param locked
+	 *            true if the lock is currently held
+	 */
+	public LockStatistics(long acquisitions, long failures, long holdTime, boolean locked) {
+		this.acquisitions = acquisitions;
+		this.failures = failures;
+		this.holdTime = holdTime;
+		this.locked = locked;
+	}
+
+	/**
+	 * @return the number of times the lock has been taken
+	 */
+	public long getAcquisitions() {
+		return acquisitions;
+	}
+
+	/**
+	 * @return the number of attempts to take the lock which failed because it was held by another locker
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return the total time in mS for which the lock has been held, not including the current hold
+	 */
+	public long getHoldTime() {
+		return holdTime;
+	}
+
+	/**
+	 * @return true if the lock was held
+	 */
+	public boolean isLocked() {
+		return locked;
+	}
+
+	@Override
+	public String toString() {
+		return "acquisitions=" + acquisitions + " failures=" + failures + " holdTime=" + holdTime + "mS locked="
+				+ locked;
+	}
+}
@@ -19,42 +19,75 @@
 
 package gda.lockable;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Carries out proper locking for an object using the Lockable interface.
+ * Carries out proper locking for an object using the Lockable interface. The lock is taken and released by
+ * compare-and-set so two lockers can never both succeed. Counts of acquisitions, failed attempts and the total time
+ * the lock has been held are kept and are available from getStatistics.
  * 
  * @see gda.lockable.Lockable
  */
 public class LockableComponent implements Lockable {
 	private static final Logger logger = LoggerFactory.getLogger(LockableComponent.class);
 
-	volatile private Object locker = null;
+	private final AtomicReference<Object> locker = new AtomicReference<Object>();
+
+	// time at which the current locker took the lock, from System.nanoTime
+	private volatile long lockedAt;
+
+	private final AtomicLong acquisitions = new AtomicLong();
+
+	private final AtomicLong failures = new AtomicLong();
+
+	private final AtomicLong holdTime = new AtomicLong();
 
 	@Override
 	public boolean lockedFor(Object locker) {
-		return (this.locker == locker);
+		return (this.locker.get() == locker);
 	}
 
 	@Override
 	public boolean lock(Object locker) {
-		logger.debug("{} is currently locked for {}", this, this.locker);
-
-		if (lockedFor((Object) null) || lockedFor(locker)) {
-			logger.debug("{} is now locked for {}", this, locker);
-			this.locker = locker;
-			return (true);
+		if (this.locker.compareAndSet(null, locker)) {
+			if (locker != null) {
+				lockedAt = System.nanoTime();
+				acquisitions.incrementAndGet();
+				logger.debug("{} is now locked for {}", this, locker);
+			}
+			return true;
+		}
+		if (lockedFor(locker)) {
+			return true;
 		}
+		failures.incrementAndGet();
+		logger.debug("{} is currently locked for {}", this, this.locker.get());
 		return false;
 	}
 
 	@Override
 	public boolean unLock(Object unLocker) {
-		if (lockedFor(unLocker)) {
-			this.locker = null;
+		// lockedAt must be read while unLocker still holds the lock
+		long start = lockedAt;
+		if (locker.compareAndSet(unLocker, null)) {
+			if (unLocker != null) {
+				holdTime.addAndGet(System.nanoTime() - start);
+			}
 			return true;
 		}
 		return false;
 	}
+
+	/**
+	 * @return the current values of the lock's counters
+	 */
+	public LockStatistics getStatistics() {
+		return new LockStatistics(acquisitions.get(), failures.get(), TimeUnit.NANOSECONDS.toMillis(holdTime.get()),
+				locker.get() != null);
+	}
 }
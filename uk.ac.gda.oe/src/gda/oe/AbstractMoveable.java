@@ -19,9 +19,11 @@
 
 package gda.oe;
 
+import gda.lockable.LockStatistics;
 import gda.lockable.LockableComponent;
 import gda.observable.IObserver;
 import gda.observable.ObservableComponent;
+import gda.oe.util.MotionLatency;
 
 import java.util.ArrayList;
 import java.util.Stack;
@@ -41,6 +43,8 @@ public abstract class AbstractMoveable implements Moveable {
 
 	private volatile LockableComponent moveLock = new LockableComponent();
 
+	private volatile MotionLatency motionLatency;
+
 	private ObservableComponent observableComponent = new ObservableComponent();
 
 	private Stack<Quantity> speedStack = new Stack<Quantity>();
@@ -120,6 +124,30 @@ public abstract class AbstractMoveable implements Moveable {
 		return (moveLock.unLock(unLocker));
 	}
 
+	/**
+	 * @return the counters kept by the lock on this Moveable
+	 */
+	public LockStatistics getLockStatistics() {
+		return moveLock.getStatistics();
+	}
+
+	/**
+	 * @return the timings of the phases of the moves of this Moveable
+	 */
+	public MotionLatency getMotionLatency() {
+		MotionLatency latency = motionLatency;
+		if (latency == null) {
+			synchronized (this) {
+				latency = motionLatency;
+				if (latency == null) {
+					latency = new MotionLatency(getName());
+					motionLatency = latency;
+				}
+			}
+		}
+		return latency;
+	}
+
 	@Override
 	public void addIObserver(IObserver anIObserver) {
 		observableComponent.addIObserver(anIObserver);
@@ -0,0 +1,112 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe;
+
+import java.util.concurrent.Future;
+
+import org.jscience.physics.quantities.Quantity;
+
+/**
+ * The OE operations which are used most, made asynchronous. Each returns at once with a Future for its result, so a
+ * slow server does not hold up the caller. Requests for one DOF are carried out in the order they were made; those
+ * for different DOFs may overlap. Any other OE operation can be made asynchronous with submit.
+ */
+public interface AsyncOE {
+
+	/**
+	 * A blocking call on an OE, for submit.
+	 * 
+	 * @param <T>
+	 *            the type of the result
+	 */
+	public interface Call<T> {
+		/**
+		 * @param oe
+		 *            the OE
+		 * @return the result
+		 * @throws MoveableException
+		 */
+		public T call(OE oe) throws MoveableException;
+	}
+
+	/**
+	 * @return the OE the calls are made on
+	 */
+	public OE getOE();
+
+	/**
+	 * Makes any call on the OE asynchronously.
+	 * 
+	 * @param <T>
+	 *            the type of the result
+	 * @param dofname
+	 *            the DOF the call is for, which keeps it in order with other calls for that DOF, or null
+	 * @param call
+	 *            the call
+	 * @return the result of the call
+	 */
+	public <T> Future<T> submit(String dofname, Call<T> call);
+
+	/**
+	 * @see OE#moveTo(String, Quantity)
+	 * @param dofname
+	 * @param position
+	 * @return completes when the move has been started
+	 */
+	public Future<Void> moveTo(String dofname, Quantity position);
+
+	/**
+	 * @see OE#moveBy(String, Quantity)
+	 * @param dofname
+	 * @param increment
+	 * @return completes when the move has been started
+	 */
+	public Future<Void> moveBy(String dofname, Quantity increment);
+
+	/**
+	 * Stops a DOF without waiting for the calls already made for it.
+	 * 
+	 * @see OE#stop(String)
+	 * @param dofname
+	 * @return completes when the DOF has been told to stop
+	 */
+	public Future<Void> stop(String dofname);
+
+	/**
+	 * @see OE#getPosition(String)
+	 * @param dofname
+	 * @return the position
+	 */
+	public Future<Quantity> getPosition(String dofname);
+
+	/**
+	 * @see OE#getStatus(String)
+	 * @param dofname
+	 * @return the status
+	 */
+	public Future<MoveableStatus> getStatus(String dofname);
+
+	/**
+	 * @see OE#isMoving(String)
+	 * @param dofname
+	 * @return true if the DOF is moving
+	 */
+	public Future<Boolean> isMoving(String dofname);
+}
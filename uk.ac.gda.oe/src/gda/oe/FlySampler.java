@@ -0,0 +1,208 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe;
+
+import gda.configuration.properties.LocalProperties;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jscience.physics.quantities.Quantity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the position of a DOF at a fixed interval while it moves, normally during a sweep started with OE.flyTo, and
+ * passes each reading to a Listener. The last reading is taken after the DOF has stopped. Only the OE interface is
+ * used so a remote OE can be sampled as well as a local one.
+ * <p>
+ * The readings for all samplers are taken on a pool of threads whose size is set by the property
+ * {@value #THREADS_PROPERTY} (default 1).
+ */
+public class FlySampler {
+
+	private static final Logger logger = LoggerFactory.getLogger(FlySampler.class);
+
+	/**
+	 * Property giving the number of threads used to sample positions
+	 */
+	public static final String THREADS_PROPERTY = "gda.oe.flySamplerThreads";
+
+	/**
+	 * Receives the readings taken by a FlySampler.
+	 */
+	public interface Listener {
+		/**
+		 * Called from the sampling thread for each reading in turn.
+		 * 
+		 * @param index
+		 *            the number of the reading, starting at 0
+		 * @param time
+		 *            the time of the reading in mS after sampling started
+		 * @param position
+		 *            the position
+		 */
+		public void sampled(int index, long time, Quantity position);
+	}
+
+	private static ScheduledExecutorService sharedExecutor;
+
+	private final OE oe;
+
+	private final String dofname;
+
+	private final Listener listener;
+
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	private volatile ScheduledFuture<?> task;
+
+	private volatile MoveableException failure;
+
+	private long startTime;
+
+	private int count = 0;
+
+	private static synchronized ScheduledExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			int threads = LocalProperties.getInt(THREADS_PROPERTY, 1);
+			sharedExecutor = new ScheduledThreadPoolExecutor(Math.max(1, threads), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = uk.ac.gda.util.ThreadManager.getThread(r, "FlySampler-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return sharedExecutor;
+	}
+
+	/**
+	 * @param oe
+	 *            the OE
+	 * @param dofname
+	 *            the DOF to sample
+	 * @param listener
+	 *            receives the readings
+	 */
+	public FlySampler(OE oe, String dofname, Listener listener) {
+		this.oe = oe;
+		this.dofname = dofname;
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts sampling. The first reading is taken straight away.
+	 * 
+	 * @param interval
+	 *            the time between readings in mS
+	 */
+	public synchronized void start(long interval) {
+		if (task != null)
+			throw new IllegalStateException("FlySampler for " + dofname + " already started");
+		startTime = System.nanoTime();
+		task = getSharedExecutor().scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				sample();
+			}
+		}, 0, Math.max(1, interval), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops sampling without waiting for the DOF to stop.
+	 */
+	public void cancel() {
+		finish();
+	}
+
+	/**
+	 * @return true once the last reading has been taken (or sampling failed or was cancelled)
+	 */
+	public boolean isFinished() {
+		return finished.getCount() == 0;
+	}
+
+	/**
+	 * @return the number of readings taken so far
+	 */
+	public synchronized int getCount() {
+		return count;
+	}
+
+	/**
+	 * Waits for the last reading.
+	 * 
+	 * @throws MoveableException
+	 *             if a reading failed
+	 * @throws InterruptedException
+	 */
+	public void waitUntilFinished() throws MoveableException, InterruptedException {
+		finished.await();
+		if (failure != null)
+			throw failure;
+	}
+
+	private void sample() {
+		if (isFinished()) {
+			// finished before start had recorded the task
+			finish();
+			return;
+		}
+		try {
+			// checked before reading so that the last reading is taken after the DOF has stopped
+			boolean moving = oe.isMoving(dofname);
+			Quantity position = oe.getPosition(dofname);
+			int index;
+			long time;
+			synchronized (this) {
+				index = count++;
+				time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			}
+			listener.sampled(index, time, position);
+			if (!moving)
+				finish();
+		} catch (MoveableException e) {
+			logger.error("FlySampler could not read " + dofname, e);
+			failure = e;
+			finish();
+		} catch (RuntimeException e) {
+			// otherwise the executor would silently stop running this task
+			logger.error("FlySampler for " + dofname + " failed", e);
+			failure = new MoveableException(new MoveableStatus(MoveableStatus.ERROR, dofname), e.getMessage(), e);
+			finish();
+		}
+	}
+
+	private void finish() {
+		ScheduledFuture<?> t = task;
+		if (t != null)
+			t.cancel(false);
+		finished.countDown();
+	}
+}
@@ -0,0 +1,130 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.jscience.physics.quantities.Quantity;
+
+/**
+ * The positions a DOF is to visit, e.g. all the points of a scan, with the result of checking each move. Returned by
+ * OE.planMoves so that a client can check a whole scan in one call and keep the result for as long as the scan does
+ * not change, however often it is repeated.
+ */
+final public class MovePlan implements Serializable {
+	private final String dofName;
+
+	private final Quantity[] positions;
+
+	private final int[] statuses;
+
+	/**
+	 * @param dofName
+	 *            the name of the DOF
+	 * @param positions
+	 *            the positions in the order they are to be visited
+	 * @param statuses
+	 *            the MoveableStatus code of the check of each move
+	 */
+	public MovePlan(String dofName, Quantity[] positions, int[] statuses) {
+		if (positions.length != statuses.length)
+			throw new IllegalArgumentException("MovePlan for " + dofName + " has " + positions.length
+					+ " positions but " + statuses.length + " statuses");
+		this.dofName = dofName;
+		this.positions = positions.clone();
+		this.statuses = statuses.clone();
+	}
+
+	/**
+	 * @return the name of the DOF
+	 */
+	public String getDofName() {
+		return dofName;
+	}
+
+	/**
+	 * @return the number of positions
+	 */
+	public int size() {
+		return positions.length;
+	}
+
+	/**
+	 * @param index
+	 *            the index of the position
+	 * @return the position
+	 */
+	public Quantity getPosition(int index) {
+		return positions[index];
+	}
+
+	/**
+	 * @return the positions in the order they are to be visited
+	 */
+	public Quantity[] getPositions() {
+		return positions.clone();
+	}
+
+	/**
+	 * @param index
+	 *            the index of the position
+	 * @return the MoveableStatus code of the check of the move to the position
+	 */
+	public int getStatus(int index) {
+		return statuses[index];
+	}
+
+	/**
+	 * @return the index of the first position which cannot be moved to, -1 if there is none
+	 */
+	public int getFirstInvalid() {
+		for (int i = 0; i < statuses.length; i++)
+			if (statuses[i] != MoveableStatus.SUCCESS)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @return true if every position can be moved to
+	 */
+	public boolean isValid() {
+		return getFirstInvalid() < 0;
+	}
+
+	/**
+	 * @param dofName
+	 *            the name of a DOF
+	 * @param positions
+	 *            positions to visit
+	 * @return true if this is the plan for visiting these positions with the DOF
+	 */
+	public boolean isPlanFor(String dofName, Quantity[] positions) {
+		return this.dofName.equals(dofName) && Arrays.equals(this.positions, positions);
+	}
+
+	@Override
+	public String toString() {
+		int invalid = getFirstInvalid();
+		return dofName + " " + positions.length + " positions, "
+				+ (invalid < 0 ? "all valid" : "first invalid " + positions[invalid]);
+	}
+}
@@ -102,6 +102,20 @@ public interface Moveable extends IObservable, Lockable, Configurable {
 	 */
 	public void doMove(Object mover, int id) throws MoveableException;
 
+	/**
+	 * Starts a move which has been previously checked and locked (by checkMoveTo) as a single continuous sweep. Unlike
+	 * doMove there is no backlash or position correction at the end, so positions read during the move all lie on one
+	 * pass from the start to the target. The speed should already have been set (normally with setSpeed(start, end,
+	 * time)).
+	 * 
+	 * @param mover
+	 *            The locking object.
+	 * @param id
+	 *            The unique integer identifying the command requesting this move.
+	 * @throws MoveableException
+	 */
+	public void doFly(Object mover, int id) throws MoveableException;
+
 	/**
 	 * Actually starts a position setting which has been previously checked and locked (by checkSet). Should throw
 	 * exception if setter is not the object which did the checking and locking. Failure of the setting should also
@@ -314,6 +328,20 @@ public interface Moveable extends IObservable, Lockable, Configurable {
 	 */
 	public MoveableCommandExecutor createAbsoluteMover(Quantity position) throws MoveableException;
 
+	/**
+	 * Creates a MoveableCommandExecutor which will sweep to the specified position at the specified speed in one
+	 * continuous move (see doFly).
+	 * 
+	 * @param position
+	 *            the end of the sweep
+	 * @param speed
+	 *            the speed during the sweep
+	 * @return the created MoveableCommandExecutor
+	 * @throws MoveableException
+	 *             if the MoveableCommandExecutor cannot be created, for example because the Moveable cannot fly
+	 */
+	public MoveableCommandExecutor createFlyMover(Quantity position, Quantity speed) throws MoveableException;
+
 	/**
 	 * Creates a MoveableCommandExecutor which will carry out a relative move by the specified increment.
 	 * 
@@ -0,0 +1,254 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe;
+
+import gda.configuration.properties.LocalProperties;
+import gda.factory.FactoryException;
+import gda.oe.dofs.DOF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configures the Moveables of an OE in dependency order. A DOF depends on the Moveables named in its moveableNames, so
+ * the Positioners (which depend on nothing) are configured at the same time and each DOF is configured as soon as all
+ * of its Moveables are. The time taken grows with the depth of the DOF graph rather than with the number of
+ * Moveables.
+ * <p>
+ * The number of threads shared by all OEs is set by the property {@value #THREADS_PROPERTY} (default the number of
+ * processors). If it is 1 the Moveables are configured one at a time in the order of the list, as they always used to
+ * be. Moveables which depend on each other in a cycle are also configured in list order once nothing else can be.
+ */
+class MoveableConfigurer {
+
+	private static final Logger logger = LoggerFactory.getLogger(MoveableConfigurer.class);
+
+	/**
+	 * Property giving the number of threads used to configure Moveables
+	 */
+	public static final String THREADS_PROPERTY = "gda.oe.configureThreads";
+
+	private static ExecutorService sharedExecutor;
+
+	private final String oeName;
+
+	private final List<Moveable> moveables;
+
+	private final long[] times;
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			int threads = getThreads();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = uk.ac.gda.util.ThreadManager.getThread(r, "MoveableConfigurer-"
+									+ count.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			pool.allowCoreThreadTimeOut(true);
+			sharedExecutor = pool;
+		}
+		return sharedExecutor;
+	}
+
+	private static int getThreads() {
+		return LocalProperties.getInt(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param oeName
+	 *            the name of the OE, for logging
+	 * @param moveables
+	 *            all the Moveables of the OE
+	 */
+	MoveableConfigurer(String oeName, List<Moveable> moveables) {
+		this.oeName = oeName;
+		this.moveables = moveables;
+		this.times = new long[moveables.size()];
+	}
+
+	/**
+	 * Configures all the Moveables.
+	 * 
+	 * @return the time in mS taken to configure each Moveable, by name in list order
+	 * @throws FactoryException
+	 *             the first exception thrown by a Moveable, after those already started have finished
+	 */
+	Map<String, Long> configure() throws FactoryException {
+		long start = System.nanoTime();
+		if (getThreads() <= 1) {
+			for (int i = 0; i < moveables.size(); i++) {
+				configure(i);
+			}
+		} else {
+			configureGraph();
+		}
+
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		String slowest = null;
+		long slowestTime = -1;
+		for (int i = 0; i < moveables.size(); i++) {
+			String name = moveables.get(i).getName();
+			long time = TimeUnit.NANOSECONDS.toMillis(times[i]);
+			logger.debug("{} configured {} in {} mS", new Object[] { oeName, name, time });
+			if (!result.containsKey(name)) {
+				result.put(name, time);
+			}
+			if (time > slowestTime) {
+				slowest = name;
+				slowestTime = time;
+			}
+		}
+		logger.info("{} configured {} moveables in {} mS, slowest {} ({} mS)", new Object[] { oeName,
+				moveables.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), slowest, slowestTime });
+		return Collections.unmodifiableMap(result);
+	}
+
+	private void configure(int i) throws FactoryException {
+		long start = System.nanoTime();
+		try {
+			moveables.get(i).configure();
+		} finally {
+			times[i] = System.nanoTime() - start;
+		}
+	}
+
+	private void configureGraph() throws FactoryException {
+		int n = moveables.size();
+
+		// the first of any Moveables with the same name is the one a DOF finds
+		HashMap<String, Integer> index = new HashMap<String, Integer>();
+		for (int i = 0; i < n; i++) {
+			if (!index.containsKey(moveables.get(i).getName())) {
+				index.put(moveables.get(i).getName(), i);
+			}
+		}
+
+		final int[] waitingFor = new int[n];
+		List<List<Integer>> dependents = new ArrayList<List<Integer>>(n);
+		for (int i = 0; i < n; i++) {
+			dependents.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < n; i++) {
+			if (moveables.get(i) instanceof DOF) {
+				List<String> names = ((DOF) moveables.get(i)).getMoveableNames();
+				for (String name : (names != null) ? names : Collections.<String> emptyList()) {
+					Integer child = index.get(name);
+					if (child != null && child != i && !dependents.get(child).contains(i)) {
+						dependents.get(child).add(i);
+						waitingFor[i]++;
+					}
+				}
+			}
+		}
+
+		ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<Integer>(getSharedExecutor());
+		boolean[] started = new boolean[n];
+		int running = 0;
+		int done = 0;
+		Throwable failure = null;
+		for (int i = 0; i < n; i++) {
+			if (waitingFor[i] == 0) {
+				submit(completion, i);
+				started[i] = true;
+				running++;
+			}
+		}
+
+		while (done < n && (running > 0 || failure == null)) {
+			if (running == 0) {
+				// what is left depends on itself, do it in list order
+				logger.warn("{}: circular dependency between moveables, configuring the rest in order", oeName);
+				for (int i = 0; i < n; i++) {
+					if (!started[i]) {
+						configure(i);
+					}
+				}
+				return;
+			}
+			try {
+				int finished = completion.take().get();
+				running--;
+				done++;
+				if (failure == null) {
+					for (int parent : dependents.get(finished)) {
+						if (--waitingFor[parent] == 0) {
+							submit(completion, parent);
+							started[parent] = true;
+							running++;
+						}
+					}
+				}
+			} catch (ExecutionException e) {
+				running--;
+				done++;
+				if (failure == null) {
+					failure = e.getCause();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new FactoryException(oeName + ": interrupted while configuring moveables", e);
+			}
+		}
+
+		if (failure instanceof FactoryException) {
+			throw (FactoryException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new FactoryException(oeName + ": could not configure moveables", failure);
+		}
+	}
+
+	private void submit(ExecutorCompletionService<Integer> completion, final int i) {
+		completion.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws FactoryException {
+				configure(i);
+				return i;
+			}
+		});
+	}
+}
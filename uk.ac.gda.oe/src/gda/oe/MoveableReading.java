@@ -0,0 +1,110 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.Unit;
+
+/**
+ * The position, reporting units and status of a Moveable read at the same time. Returned by OE.getReadings so that a
+ * client can read many DOFs in one call.
+ */
+final public class MoveableReading {
+	private final String moveableName;
+
+	private final Quantity position;
+
+	private final Unit<? extends Quantity> reportingUnits;
+
+	private final MoveableStatus status;
+
+	/**
+	 * @param moveableName
+	 *            the name of the Moveable
+	 * @param position
+	 *            the position in reporting units (may be null)
+	 * @param reportingUnits
+	 *            the reporting units (may be null)
+	 * @param status
+	 *            the status
+	 */
+	public MoveableReading(String moveableName, Quantity position, Unit<? extends Quantity> reportingUnits,
+			MoveableStatus status) {
+		this.moveableName = moveableName;
+		this.position = position;
+		this.reportingUnits = reportingUnits;
+		this.status = status;
+	}
+
+	/**
+	 * Reads a Moveable.
+	 *
+	 * @param moveableName
+	 *            the name to report
+	 * @param moveable
+	 *            the Moveable to read
+	 * @param refresh
+	 *            true to refresh the Moveable before reading it
+	 * @return the reading
+	 * @throws MoveableException
+	 */
+	public static MoveableReading read(String moveableName, Moveable moveable, boolean refresh)
+			throws MoveableException {
+		if (refresh) {
+			moveable.refresh();
+		}
+		Unit<? extends Quantity> units = moveable.getReportingUnits();
+		Quantity position = (units != null) ? moveable.getPosition(units) : moveable.getPosition();
+		return new MoveableReading(moveableName, position, units, moveable.getStatus());
+	}
+
+	/**
+	 * @return the name of the Moveable
+	 */
+	public String getMoveableName() {
+		return moveableName;
+	}
+
+	/**
+	 * @return the position in reporting units, or null if it is not known
+	 */
+	public Quantity getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the reporting units, or null if there are none
+	 */
+	public Unit<? extends Quantity> getReportingUnits() {
+		return reportingUnits;
+	}
+
+	/**
+	 * @return the status
+	 */
+	public MoveableStatus getStatus() {
+		return status;
+	}
+
+	@Override
+	public String toString() {
+		return moveableName + " " + position + " " + status;
+	}
+}
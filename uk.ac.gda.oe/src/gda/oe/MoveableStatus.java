@@ -237,6 +237,9 @@ final public class MoveableStatus implements Serializable {
 
 	private String position = "0.0";
 
+	// the position as given, so that it need not be parsed again in this JVM
+	private transient Quantity quantity = null;
+
 	// Constructors.
 
 	/**
@@ -370,6 +373,7 @@ final public class MoveableStatus implements Serializable {
 
 	private void setPosition(Quantity position) {
 		this.position = position.toString();
+		this.quantity = position;
 	}
 
 	private void setID(int id) {
@@ -403,7 +407,7 @@ final public class MoveableStatus implements Serializable {
 	 * @return position as Quantity
 	 */
 	public Quantity getPosition() {
-		return Quantity.valueOf(position);
+		return (quantity != null) ? quantity : Quantity.valueOf(position);
 	}
 
 	/**
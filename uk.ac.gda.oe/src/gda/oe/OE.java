@@ -23,6 +23,7 @@ import gda.factory.Findable;
 import gda.jython.accesscontrol.MethodAccessProtected;
 import gda.lockable.Locker;
 import gda.observable.IObservable;
+import gda.oe.util.MotionLatencySnapshot;
 
 import java.util.ArrayList;
 
@@ -95,6 +96,22 @@ public interface OE extends Findable, IObservable {
 	@MethodAccessProtected(isProtected=true)
 	public int moveLockedTo(String dofname, Quantity position, int lockId) throws MoveableException;
 
+	/**
+	 * Sweep a named DOF from its current position to a position at a given speed in one continuous move, without the
+	 * backlash and position correction of moveTo. Positions read while the DOF is moving lie on the sweep, which is
+	 * what an on-the-fly scan needs. The speeds are restored when the sweep ends.
+	 * 
+	 * @param dofname
+	 *            The DOF to be moved.
+	 * @param position
+	 *            The end of the sweep, units specified in the Quantity itself.
+	 * @param speed
+	 *            The speed of the DOF during the sweep.
+	 * @throws MoveableException
+	 */
+	@MethodAccessProtected(isProtected=true)
+	public void flyTo(String dofname, Quantity position, Quantity speed) throws MoveableException;
+
 	/**
 	 * Move a named DOF continuously. The sign of the direction parameter specifies which direction the continuous move
 	 * will be in. Positive values equate to positive user units. Negative values equate to negative user units. The
@@ -121,12 +138,25 @@ public interface OE extends Findable, IObservable {
 	public void stop(String dofname) throws MoveableException;
 
 	/**
-	 * Stop all existing DOF moves as soon as possible.
+	 * Stop all existing DOF moves as soon as possible. The DOFs are stopped at the same time and a DOF which is slow
+	 * to stop does not hold up the others.
 	 * 
 	 * @throws MoveableException
+	 *             if any DOF fails to stop, after all of them have been told to
 	 */
 	public void stop() throws MoveableException;
 
+	/**
+	 * Stop every DOF of every OE in the server of this OE at the same time, waiting no longer than a deadline.
+	 * 
+	 * @param deadline
+	 *            The time in mS to wait for the DOFs to stop.
+	 * @return The outcome for each DOF, including how long it took to stop.
+	 * @throws MoveableException
+	 * @see gda.oe.StopService
+	 */
+	public StopResult[] emergencyStop(long deadline) throws MoveableException;
+
 	/**
 	 * Checks whether any DOFs of this OE are moving.
 	 * 
@@ -272,6 +302,44 @@ public interface OE extends Findable, IObservable {
 	 */
 	public MoveableStatus getStatus(String dofname) throws MoveableException;
 
+	/**
+	 * Gets the positions of several DOFs in their default reporting units in one call.
+	 *
+	 * @param dofnames
+	 *            The DOFs the positions are required for.
+	 * @return The positions in the same order as the names.
+	 * @throws MoveableException
+	 *             if any of the DOFs cannot be read.
+	 */
+	public Quantity[] getPositions(String[] dofnames) throws MoveableException;
+
+	/**
+	 * Gets the statuses of several DOFs in one call.
+	 *
+	 * @param dofnames
+	 *            The DOFs the statuses are required for.
+	 * @return The statuses in the same order as the names.
+	 * @throws MoveableException
+	 *             if any of the DOFs cannot be read.
+	 */
+	public MoveableStatus[] getStatuses(String[] dofnames) throws MoveableException;
+
+	/**
+	 * Gets the position, reporting units and status of several DOFs in one call, optionally refreshing each DOF
+	 * first. For a remote OE this replaces a refresh, getReportingUnits, getPosition and getStatus call per DOF
+	 * with a single round trip.
+	 *
+	 * @param dofnames
+	 *            The DOFs to be read.
+	 * @param refresh
+	 *            true to refresh each DOF before reading it.
+	 * @return The readings in the same order as the names.
+	 * @throws MoveableException
+	 *             if any of the DOFs cannot be read.
+	 * @see gda.oe.MoveableReading
+	 */
+	public MoveableReading[] getReadings(String[] dofnames, boolean refresh) throws MoveableException;
+
 	/**
 	 * Set the speed of the named DOF
 	 * 
@@ -420,6 +488,34 @@ public interface OE extends Findable, IObservable {
 	 */
 	public int moveCheck(String dofname, Quantity position) throws MoveableException;
 
+	/**
+	 * Checks the moves of a DOF to a list of positions, e.g. all the points of a scan, in one call. Each move is
+	 * checked as moveCheck does but nothing is moved or left locked and the DOF's target is not changed. The moves are
+	 * still checked again when they are made; DOFs which remember their plans (see DOF.setPlanCacheSize) remember
+	 * those worked out here, so that the moves do not have to work them out again when the scan runs.
+	 * 
+	 * @param dofname
+	 *            The DOF to check.
+	 * @param positions
+	 *            The positions in the order they are to be visited.
+	 * @return The plan, with the MoveableStatus code of each check.
+	 * @throws MoveableException
+	 * @see gda.oe.MovePlan
+	 */
+	public MovePlan planMoves(String dofname, Quantity[] positions) throws MoveableException;
+
+	/**
+	 * Gets the timings of the phases of the moves of a DOF or of any of the Moveables below it (see getMoveableNames),
+	 * e.g. how long the checks, motor starts, backlash corrections and settling have taken.
+	 * 
+	 * @param moveableName
+	 *            The name of the DOF or Moveable.
+	 * @return The timings as they are now.
+	 * @throws MoveableException
+	 * @see gda.oe.util.MotionLatency
+	 */
+	public MotionLatencySnapshot getMotionLatency(String moveableName) throws MoveableException;
+
 	/**
 	 * Determines if the named DOF is scannable. The criterion for validity will be defined within individual DOFs.
 	 * 
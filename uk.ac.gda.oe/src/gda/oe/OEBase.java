@@ -22,15 +22,21 @@ package gda.oe;
 import gda.factory.Configurable;
 import gda.factory.FactoryException;
 import gda.factory.Localizable;
+import gda.lockable.LockStatistics;
 import gda.lockable.Locker;
 import gda.observable.IObserver;
 import gda.observable.ObservableComponent;
 import gda.oe.commands.AbsoluteMove;
 import gda.oe.dofs.DOF;
+import gda.oe.util.MotionJournal;
+import gda.oe.util.MotionLatencySnapshot;
 import gda.util.LoggingConstants;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.jscience.physics.quantities.Quantity;
 import org.jscience.physics.units.Unit;
@@ -57,9 +63,15 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 
 	private String[] useableMoveableNames;
 
-	private int[] lockIds;
+	// name to position in useableMoveables (and lockEntries), and name to
+	// Moveable for all the Moveables, both built by configure
+	private Map<String, Integer> useableMoveableIndex = Collections.emptyMap();
 
-	private Locker[] lockers;
+	private Map<String, Moveable> moveablesByName = null;
+
+	private Map<String, Long> configureTimes = Collections.emptyMap();
+
+	private LockEntry[] lockEntries;
 
 	private boolean configured = false;
 
@@ -98,26 +110,41 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 
 		useableMoveableNames = new String[numberOfUseableMoveables];
 		useableMoveables = new DOF[numberOfUseableMoveables];
-		lockIds = new int[numberOfUseableMoveables];
-		lockers = new Locker[numberOfUseableMoveables];
+		lockEntries = new LockEntry[numberOfUseableMoveables];
 		int i = 0;
 
 		// Go through the list of Moveables. Give each one the
-		// list of Moveables and configure it. If the Moveable
-		// is one of the useable ones then add it to the relevant
-		// lists.
+		// list of Moveables and configure them, a DOF after the
+		// Moveables it uses. If the Moveable is one of the useable
+		// ones then add it to the relevant lists.
 		for (Moveable moveable : moveableList) {
 			moveable.setMoveableList(moveableList);
 		}
+		configureTimes = new MoveableConfigurer(name, moveableList).configure();
+
+		HashMap<String, Integer> index = new HashMap<String, Integer>();
+		HashMap<String, Moveable> byName = new HashMap<String, Moveable>();
 		for (Moveable moveable : moveableList) {
-			moveable.configure();
+			// the first of any Moveables with the same name is the one found
+			if (!byName.containsKey(moveable.getName())) {
+				byName.put(moveable.getName(), moveable);
+				if (moveable instanceof AbstractMoveable) {
+					((AbstractMoveable) moveable).getMotionLatency().register(name);
+				}
+			}
 			if (moveable.isDirectlyUseable()) {
 				useableMoveables[i] = moveable;
 				useableMoveableNames[i] = moveable.getName();
+				lockEntries[i] = new LockEntry();
+				if (!index.containsKey(moveable.getName())) {
+					index.put(moveable.getName(), i);
+				}
 				moveable.addIObserver(this);
 				i++;
 			}
 		}
+		useableMoveableIndex = Collections.unmodifiableMap(index);
+		moveablesByName = Collections.unmodifiableMap(byName);
 
 		configured = true;
 	}
@@ -240,28 +267,42 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 
 	@Override
 	public String[] getMoveableNames(String name) {
-		logger.debug("inside oebase the list is  +" + moveableNameList.size());
+		Moveable moveable = findMoveable(name);
+		if (moveable instanceof DOF) {
+			ArrayList<String> list = ((DOF) moveable).getMoveableNames();
+			logger.debug("the list is  +{}", list);
+			return list.toArray(new String[list.size()]);
+		}
+		return null;
+	}
+
+	/**
+	 * Finds any of the Moveables known to the OE, whether or not it is available via the OE interface.
+	 * 
+	 * @param name
+	 *            the name to look for
+	 * @return the Moveable or null if there is none with that name
+	 */
+	public Moveable findMoveable(String name) {
+		if (moveablesByName != null) {
+			return moveablesByName.get(name);
+		}
+		// not configured yet
 		for (Moveable moveable : moveableList) {
-			logger.debug("the list value is  +" + moveable);
 			if (moveable.getName().equals(name)) {
-				if (moveable instanceof DOF) {
-					ArrayList<String> list = ((DOF) moveable).getMoveableNames();
-					logger.debug("the list is  +" + list);
-					String[] array = new String[list.size()];
-					int j = 0;
-					for (String n : list) {
-						array[j++] = n;
-						logger.debug(" " + n);
-					}
-
-					return array;
-				}
-
+				return moveable;
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * @return the time in mS taken to configure each of the Moveables, by name
+	 */
+	public Map<String, Long> getConfigureTimes() {
+		return configureTimes;
+	}
+
 	/**
 	 * Finds one of the useableMoveables given its name.
 	 * 
@@ -271,14 +312,24 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 	 * @throws MoveableException
 	 */
 	private Moveable findUseableMoveable(String moveableName) throws MoveableException {
-		for (int i = 0; i < useableMoveableNames.length; i++) {
-			if (useableMoveableNames[i].equals(moveableName)) {
-				return useableMoveables[i];
-			}
-		}
-		throw new MoveableException(new MoveableStatus(MoveableStatus.MOVEABLENAME_INVALID),
-				"OEBase.findUseableMoveable - unable to find a useable moveable");
+		return useableMoveables[findUseableIndex(moveableName)];
+	}
 
+	/**
+	 * Finds the position of one of the useableMoveables given its name.
+	 * 
+	 * @param moveableName
+	 *            the name to look for
+	 * @return the index into useableMoveables
+	 * @throws MoveableException
+	 */
+	private int findUseableIndex(String moveableName) throws MoveableException {
+		Integer index = useableMoveableIndex.get(moveableName);
+		if (index == null) {
+			throw new MoveableException(new MoveableStatus(MoveableStatus.MOVEABLENAME_INVALID),
+					"OEBase.findUseableMoveable - unable to find a useable moveable");
+		}
+		return index;
 	}
 
 	@Override
@@ -323,6 +374,15 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 			am.execute();
 	}
 
+	@Override
+	public void flyTo(String moveableName, Quantity position, Quantity speed) throws MoveableException {
+		ensureIsConfigured("flyTo");
+		// as for moveTo the Moveable constructs the command (and may refuse)
+		MoveableCommandExecutor fm = findUseableMoveable(moveableName).createFlyMover(position, speed);
+		if (fm != null)
+			fm.execute();
+	}
+
 	@Override
 	public void home(String moveableName) throws MoveableException {
 		ensureIsConfigured("home");
@@ -357,8 +417,16 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 	@Override
 	public void stop() throws MoveableException {
 		ensureIsConfigured("stop");
-		for (int i = 0; i < useableMoveables.length; i++)
-			useableMoveables[i].stop();
+		for (StopResult result : StopService.stop(new OE[] { this }, StopService.getDeadline())) {
+			if (!result.isStopped())
+				throw new MoveableException(new MoveableStatus(MoveableStatus.ERROR, result.getDofName()),
+						"OEBase.stop: " + result);
+		}
+	}
+
+	@Override
+	public StopResult[] emergencyStop(long deadline) {
+		return StopService.stopAll(deadline);
 	}
 
 	@Override
@@ -440,6 +508,33 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 		return findUseableMoveable(moveableName).getStatus();
 	}
 
+	@Override
+	public Quantity[] getPositions(String[] moveableNames) throws MoveableException {
+		Quantity[] positions = new Quantity[moveableNames.length];
+		for (int i = 0; i < moveableNames.length; i++) {
+			positions[i] = findUseableMoveable(moveableNames[i]).getPosition();
+		}
+		return positions;
+	}
+
+	@Override
+	public MoveableStatus[] getStatuses(String[] moveableNames) throws MoveableException {
+		MoveableStatus[] statuses = new MoveableStatus[moveableNames.length];
+		for (int i = 0; i < moveableNames.length; i++) {
+			statuses[i] = findUseableMoveable(moveableNames[i]).getStatus();
+		}
+		return statuses;
+	}
+
+	@Override
+	public MoveableReading[] getReadings(String[] moveableNames, boolean refresh) throws MoveableException {
+		MoveableReading[] readings = new MoveableReading[moveableNames.length];
+		for (int i = 0; i < moveableNames.length; i++) {
+			readings[i] = MoveableReading.read(moveableNames[i], findUseableMoveable(moveableNames[i]), refresh);
+		}
+		return readings;
+	}
+
 	@Override
 	public boolean isFinished() {
 		return false;
@@ -447,6 +542,7 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 
 	@Override
 	public void update(Object o, Object arg) {
+		MotionJournal.log(name, arg);
 		notifyIObservers(this, arg);
 	}
 
@@ -470,66 +566,24 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 		findUseableMoveable(moveableName).setPositionOffset(offset);
 	}
 
-	private int getLockId(String moveableName) throws MoveableException {
-		for (int i = 0; i < useableMoveableNames.length; i++) {
-			if (useableMoveableNames[i].equals(moveableName)) {
-				return lockIds[i];
-			}
-		}
-		throw new MoveableException(new MoveableStatus(MoveableStatus.MOVEABLENAME_INVALID),
-				"OEBase.getLockId: unable to find useable moveable that matches the name " + moveableName);
-	}
-
-	private void setLockId(String moveableName, int lockId) throws MoveableException {
-		for (int i = 0; i < useableMoveableNames.length; i++) {
-			if (useableMoveableNames[i].equals(moveableName)) {
-				lockIds[i] = lockId;
-				// return added 6/10/04 but how did it ever work without it??
-				return;
-			}
-		}
-		throw new MoveableException(new MoveableStatus(MoveableStatus.MOVEABLENAME_INVALID),
-				"OEBase.setLockId: unable to find useable moveable that matches the name " + moveableName);
-	}
+	/**
+	 * The lock held through this OE on one useable Moveable. Lock and unlock operations on a Moveable synchronize on
+	 * its entry so that they do not hold up those on the other Moveables of the OE.
+	 */
+	private static final class LockEntry {
+		private Locker locker;
 
-	private Locker getLocker(String moveableName) throws MoveableException {
-		for (int i = 0; i < useableMoveableNames.length; i++) {
-			if (useableMoveableNames[i].equals(moveableName)) {
-				return lockers[i];
-			}
-		}
-		throw new MoveableException(new MoveableStatus(MoveableStatus.MOVEABLENAME_INVALID),
-				"OEBase.getLocker: unable to find useable moveable that matches the name " + moveableName);
-	}
-
-	private void setLocker(String moveableName, Locker locker) throws MoveableException {
-		for (int i = 0; i < useableMoveableNames.length; i++) {
-			if (useableMoveableNames[i].equals(moveableName)) {
-				lockers[i] = locker;
-				// return added 6/10/04 but how did it ever work without it??
-				return;
-			}
-		}
-		throw new MoveableException(new MoveableStatus(MoveableStatus.MOVEABLENAME_INVALID),
-				"OEBase.setLocker: unable to find useable moveable that matches the name " + moveableName);
+		private int lockId;
 	}
 
 	@Override
-	public synchronized int lock(String moveableName) throws MoveableException {
-		int lockId = Locker.LOCK_FAILED;
-
-		Locker locker = new Locker();
-		if (findUseableMoveable(moveableName).lock(locker)) {
-			setLocker(moveableName, locker);
-			lockId = locker.getId();
-			setLockId(moveableName, lockId);
-		}
-
-		return lockId;
+	public int lock(String moveableName) throws MoveableException {
+		return lock(moveableName, new Locker());
 	}
 
 	/**
-	 * Synchronized because it is used in monitoring threads see e.g. UndulatorMoveMediator
+	 * Synchronized on the Moveable's lock entry because it is used in monitoring threads see e.g.
+	 * UndulatorMoveMediator
 	 * 
 	 * @param moveableName
 	 *            the name of the moveable
@@ -539,22 +593,28 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 	 * @throws MoveableException
 	 */
 	@Override
-	public synchronized int lock(String moveableName, Locker locker) throws MoveableException {
+	public int lock(String moveableName, Locker locker) throws MoveableException {
 		int lockId = Locker.LOCK_FAILED;
-
-		if (findUseableMoveable(moveableName).lock(locker)) {
-			setLocker(moveableName, locker);
-			lockId = locker.getId();
-			setLockId(moveableName, lockId);
-		} else {
-			logger.debug(moveableName + " " + locker.getId());
+		int index = findUseableIndex(moveableName);
+		Moveable moveable = useableMoveables[index];
+		LockEntry entry = lockEntries[index];
+
+		synchronized (entry) {
+			if (moveable.lock(locker)) {
+				entry.locker = locker;
+				entry.lockId = locker.getId();
+				lockId = entry.lockId;
+			} else {
+				logger.debug(moveableName + " " + locker.getId());
+			}
 		}
 
 		return lockId;
 	}
 
 	/**
-	 * Synchronized because it is used in monitoring threads see e.g. UndulatorMoveMediator
+	 * Synchronized on the Moveable's lock entry because it is used in monitoring threads see e.g.
+	 * UndulatorMoveMediator
 	 * 
 	 * @param moveableName
 	 *            the name of the moveable
@@ -563,18 +623,25 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 	 * @throws MoveableException
 	 */
 	@Override
-	public synchronized void unlock(String moveableName, int lockId) throws MoveableException {
+	public void unlock(String moveableName, int lockId) throws MoveableException {
 		if (lockId == Locker.UNKNOWN) {
 			this.overideLock(moveableName);
-		} else if (lockId == getLockId(moveableName)) {
-			findUseableMoveable(moveableName).unLock(getLocker(moveableName));
-			setLockId(moveableName, Locker.NOT_LOCKED);
-		} else {
+			return;
+		}
+		int index = findUseableIndex(moveableName);
+		Moveable moveable = useableMoveables[index];
+		LockEntry entry = lockEntries[index];
+
+		synchronized (entry) {
+			if (lockId == entry.lockId) {
+				moveable.unLock(entry.locker);
+				entry.lockId = Locker.NOT_LOCKED;
+				return;
+			}
 			logger.debug("Invalid lock ID " + lockId + " for unLocking " + moveableName + "(required lockId is "
-					+ getLockId(moveableName) + ")");
-			throw new MoveableException(new MoveableStatus(MoveableStatus.ERROR), "Cannot unLock for id " + lockId,
-					null);
+					+ entry.lockId + ")");
 		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.ERROR), "Cannot unLock for id " + lockId, null);
 	}
 
 	/**
@@ -582,28 +649,65 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 	 * @param locker
 	 * @throws MoveableException
 	 */
-	public synchronized void unlock(String moveableName, Object locker) throws MoveableException {
+	public void unlock(String moveableName, Object locker) throws MoveableException {
 		findUseableMoveable(moveableName).unLock(locker);
 	}
 
 	@Override
-	public synchronized int moveLockedTo(String moveableName, Quantity position, int lockId) throws MoveableException {
+	public int moveLockedTo(String moveableName, Quantity position, int lockId) throws MoveableException {
 		Locker locker = new Locker();
 		int newLockId = Locker.LOCK_FAILED;
-
-		if (lockId == getLockId(moveableName)) {
-			unlock(moveableName, lockId);
-			AbsoluteMove am = new AbsoluteMove(findUseableMoveable(moveableName), position);
-			logger.debug("" + this + "DOF " + moveableName + " about to call am.execute()");
-			am.execute();
-			newLockId = locker.getId();
-		} else {
-			logger.debug("Attempting to move DOF " + moveableName + " but don't have " + "a lock on it");
+		int index = findUseableIndex(moveableName);
+		Moveable moveable = useableMoveables[index];
+		LockEntry entry = lockEntries[index];
+
+		synchronized (entry) {
+			if (lockId == entry.lockId) {
+				moveable.unLock(entry.locker);
+				entry.lockId = Locker.NOT_LOCKED;
+			} else {
+				logger.debug("Attempting to move DOF " + moveableName + " but don't have " + "a lock on it");
+				return newLockId;
+			}
 		}
 
+		AbsoluteMove am = new AbsoluteMove(moveable, position);
+		logger.debug("" + this + "DOF " + moveableName + " about to call am.execute()");
+		am.execute();
+		newLockId = locker.getId();
+
 		return newLockId;
 	}
 
+	/**
+	 * Returns the counters kept by the lock on a Moveable: the number of times it has been locked, the number of
+	 * attempts to lock it which failed and the total time it has been locked for.
+	 * 
+	 * @param moveableName
+	 *            the name of the moveable
+	 * @return the lock counters
+	 * @throws MoveableException
+	 */
+	public LockStatistics getLockStatistics(String moveableName) throws MoveableException {
+		Moveable moveable = findUseableMoveable(moveableName);
+		if (moveable instanceof AbstractMoveable) {
+			return ((AbstractMoveable) moveable).getLockStatistics();
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.ERROR, moveableName),
+				"OEBase.getLockStatistics: " + moveableName + " does not keep lock counters");
+	}
+
+	@Override
+	public MotionLatencySnapshot getMotionLatency(String moveableName) throws MoveableException {
+		Moveable moveable = findMoveable(moveableName);
+		if (moveable instanceof AbstractMoveable) {
+			return ((AbstractMoveable) moveable).getMotionLatency().snapshot();
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.ERROR, moveableName),
+				"OEBase.getMotionLatency: " + moveableName + " is not a Moveable of " + getName()
+						+ " which keeps timings");
+	}
+
 	/**
 	 * @param moveableName
 	 * @param position
@@ -621,6 +725,27 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 		return code;
 	}
 
+	@Override
+	public MovePlan planMoves(String moveableName, Quantity[] positions) throws MoveableException {
+		Moveable moveable = findUseableMoveable(moveableName);
+		int[] statuses;
+		if (moveable instanceof DOF) {
+			// checks without changing the DOF's target
+			statuses = ((DOF) moveable).checkMoves(positions);
+		} else {
+			Locker locker = new Locker();
+			statuses = new int[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				statuses[i] = moveable.checkMoveTo(positions[i], locker);
+				if (statuses[i] == MoveableStatus.SUCCESS)
+					moveable.unLock(locker);
+			}
+		}
+		MovePlan plan = new MovePlan(moveableName, positions, statuses);
+		logger.debug("OEBase planMoves() returning {}", plan);
+		return plan;
+	}
+
 	@Override
 	public boolean isScannable(String moveableName) throws MoveableException {
 		return findUseableMoveable(moveableName).isScannable();
@@ -710,17 +835,22 @@ public abstract class OEBase implements IObserver, Finisher, OE, Configurable, L
 
 	/**
 	 * Unlocks a motor without knowing the lock number. Use instead of restarting gda if lock is not given up, due
-	 * perhaps to underlying problem communicating with hardware. Synchronized because it is used in monitoring threads
-	 * see e.g. UndulatorMoveMediator
+	 * perhaps to underlying problem communicating with hardware. Synchronized on the Moveable's lock entry because it is
+	 * used in monitoring threads see e.g. UndulatorMoveMediator
 	 * 
 	 * @param moveableName
 	 *            the name of the moveable
 	 * @throws MoveableException
 	 */
-	public synchronized void overideLock(String moveableName) throws MoveableException {
+	public void overideLock(String moveableName) throws MoveableException {
+		int index = findUseableIndex(moveableName);
+		Moveable moveable = useableMoveables[index];
+		LockEntry entry = lockEntries[index];
 
-		findUseableMoveable(moveableName).unLock(getLocker(moveableName));
-		setLockId(moveableName, Locker.NOT_LOCKED);
+		synchronized (entry) {
+			moveable.unLock(entry.locker);
+			entry.lockId = Locker.NOT_LOCKED;
+		}
 	}
 
 	// Methods for propogating beamline configuration manager methods
@@ -0,0 +1,107 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of stopping one DOF as part of a stop of several DOFs at once, see StopService.
+ */
+final public class StopResult implements Serializable {
+	private final String oeName;
+
+	private final String dofName;
+
+	private final double time;
+
+	private final boolean finished;
+
+	private final String failure;
+
+	/**
+	 * @param oeName
+	 *            the name of the OE
+	 * @param dofName
+	 *            the name of the DOF
+	 * @param time
+	 *            the time in mS from the start of the stop until the DOF's stop returned, or until the deadline if it
+	 *            did not
+	 * @param finished
+	 *            true if the DOF's stop returned before the deadline
+	 * @param failure
+	 *            why the DOF may not have stopped, null if it stopped
+	 */
+	public StopResult(String oeName, String dofName, double time, boolean finished, String failure) {
+		this.oeName = oeName;
+		this.dofName = dofName;
+		this.time = time;
+		this.finished = finished;
+		this.failure = failure;
+	}
+
+	/**
+	 * @return the name of the OE
+	 */
+	public String getOeName() {
+		return oeName;
+	}
+
+	/**
+	 * @return the name of the DOF
+	 */
+	public String getDofName() {
+		return dofName;
+	}
+
+	/**
+	 * @return the time in mS from the start of the stop until the DOF's stop returned, or until the deadline if it did
+	 *         not
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * @return true if the DOF's stop returned before the deadline, whether or not it threw an exception
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return true if the DOF's stop returned before the deadline without throwing an exception
+	 */
+	public boolean isStopped() {
+		return finished && failure == null;
+	}
+
+	/**
+	 * @return why the DOF may not have stopped, null if it stopped
+	 */
+	public String getFailure() {
+		return failure;
+	}
+
+	@Override
+	public String toString() {
+		return oeName + "." + dofName + " " + (isStopped() ? "stopped" : failure) + " in " + time + " mS";
+	}
+}
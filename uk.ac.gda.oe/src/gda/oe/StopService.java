@@ -0,0 +1,200 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe;
+
+import gda.configuration.properties.LocalProperties;
+import gda.factory.Findable;
+import gda.factory.Finder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops all the DOFs of one or more OEs at the same time, so that a DOF whose motor controller is slow to respond
+ * does not hold up the stopping of the others. Each DOF is stopped in a thread of its own, so the time taken is that
+ * of the slowest DOF rather than the sum of them all, and the caller waits no longer than a deadline. A DOF still
+ * stopping at the deadline is reported as such and left to finish.
+ * <p>
+ * The default deadline in mS is set by the property {@value #DEADLINE_PROPERTY} (default 5000).
+ */
+public final class StopService {
+
+	private static final Logger logger = LoggerFactory.getLogger(StopService.class);
+
+	/**
+	 * Property giving the default time in mS to wait for the DOFs to stop
+	 */
+	public static final String DEADLINE_PROPERTY = "gda.oe.stopDeadline";
+
+	private static ExecutorService sharedExecutor;
+
+	private StopService() {
+	}
+
+	// Not limited in size: a thread which is stuck in a DOF's stop must not
+	// hold up the stopping of any other DOF.
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			sharedExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+					new SynchronousQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = uk.ac.gda.util.ThreadManager.getThread(r, "StopService-"
+									+ count.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+		return sharedExecutor;
+	}
+
+	/**
+	 * @return the default time in mS to wait for the DOFs to stop
+	 */
+	public static long getDeadline() {
+		return LocalProperties.getInt(DEADLINE_PROPERTY, 5000);
+	}
+
+	/**
+	 * Stops one DOF in a thread of its own, so the stop is not held up by any other call to the OE.
+	 * 
+	 * @param oe
+	 *            the OE
+	 * @param dofName
+	 *            the DOF
+	 * @return completes when the DOF has been told to stop
+	 */
+	public static Future<Void> submit(final OE oe, final String dofName) {
+		return getSharedExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				oe.stop(dofName);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Stops every DOF of every OE in this server (not those reached through an adapter from another server).
+	 * 
+	 * @param deadline
+	 *            the time in mS to wait for the DOFs to stop
+	 * @return the outcome for each DOF
+	 */
+	public static StopResult[] stopAll(long deadline) {
+		List<OE> oes = new ArrayList<OE>();
+		for (Findable findable : Finder.getInstance().listAllObjects("OE")) {
+			if (findable instanceof OEBase) {
+				oes.add((OE) findable);
+			}
+		}
+		return stop(oes.toArray(new OE[oes.size()]), deadline);
+	}
+
+	/**
+	 * Stops every DOF of the given OEs.
+	 * 
+	 * @param oes
+	 *            the OEs
+	 * @param deadline
+	 *            the time in mS to wait for the DOFs to stop
+	 * @return the outcome for each DOF, OE by OE in the order of the DOF names of each
+	 */
+	public static StopResult[] stop(OE[] oes, long deadline) {
+		final long start = System.nanoTime();
+		long end = start + TimeUnit.MILLISECONDS.toNanos(deadline);
+
+		List<OE> owners = new ArrayList<OE>();
+		List<String> dofNames = new ArrayList<String>();
+		for (OE oe : oes) {
+			for (String dofName : oe.getDOFNames()) {
+				owners.add(oe);
+				dofNames.add(dofName);
+			}
+		}
+
+		// when each stop returned, read once its future is done
+		final long[] stopped = new long[dofNames.size()];
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int i = 0; i < stopped.length; i++) {
+			final OE oe = owners.get(i);
+			final String dofName = dofNames.get(i);
+			final int index = i;
+			futures.add(getSharedExecutor().submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try {
+						oe.stop(dofName);
+					} finally {
+						stopped[index] = System.nanoTime();
+					}
+					return null;
+				}
+			}));
+		}
+
+		StopResult[] results = new StopResult[futures.size()];
+		int failures = 0;
+		double slowest = 0.0;
+		for (int i = 0; i < results.length; i++) {
+			String failure = null;
+			boolean finished = false;
+			try {
+				futures.get(i).get(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+				finished = true;
+			} catch (TimeoutException e) {
+				failure = "not stopped within " + deadline + " mS";
+			} catch (ExecutionException e) {
+				finished = true;
+				failure = String.valueOf(e.getCause().getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = "interrupted while waiting for the stop";
+			}
+			long time = (finished ? stopped[i] : Math.min(end, System.nanoTime())) - start;
+			results[i] = new StopResult(owners.get(i).getName(), dofNames.get(i), time / 1.0e6, finished, failure);
+			if (failure != null) {
+				failures++;
+				logger.error("StopService {}", results[i]);
+			}
+			slowest = Math.max(slowest, results[i].getTime());
+		}
+		logger.info("StopService stopped {} DOFs of {} OEs, {} failed, slowest {} mS", new Object[] {
+				results.length, oes.length, failures, slowest });
+		return results;
+	}
+}
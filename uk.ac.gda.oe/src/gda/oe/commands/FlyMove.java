@@ -0,0 +1,100 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.commands;
+
+import gda.oe.Moveable;
+import gda.oe.MoveableException;
+import gda.oe.MoveableStatus;
+import gda.util.CommandId;
+
+import org.jscience.physics.quantities.Quantity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sweeps a DOF from where it is to a position at a given speed in one continuous move (see Moveable.doFly). The speeds
+ * of the DOF and its Moveables are saved before the sweep and restored when it ends.
+ */
+public class FlyMove extends DOFCommand {
+	private static final Logger logger = LoggerFactory.getLogger(FlyMove.class);
+
+	private final Quantity speed;
+
+	private volatile boolean speedPushed = false;
+
+	/**
+	 * @param dof
+	 *            the DOF to sweep
+	 * @param quantity
+	 *            the end of the sweep
+	 * @param speed
+	 *            the speed of the DOF during the sweep
+	 */
+	public FlyMove(Moveable dof, Quantity quantity, Quantity speed) {
+		super(dof, quantity);
+		this.speed = speed;
+	}
+
+	@Override
+	public void execute() throws MoveableException {
+		int check = MoveableStatus.SUCCESS;
+		int id = CommandId.next();
+		Quantity start = getDof().getPosition();
+
+		logger.debug("FlyMove.execute() id = {} for {} from {} to {} at {}", new Object[] { id, getDof().getName(),
+				start, getQuantity(), speed });
+
+		if ((check = getDof().checkMoveTo(getQuantity(), this)) == MoveableStatus.SUCCESS) {
+			boolean moveStarted = false;
+			try {
+				getDof().pushSpeed();
+				speedPushed = true;
+				Quantity time = getQuantity().minus(start).divide(speed).abs();
+				if (time.getAmount() > 0.0)
+					getDof().setSpeed(start, getQuantity(), time);
+				executing = true;
+				getDof().doFly(this, id);
+				moveStarted = true;
+			} finally {
+				// unlock (and restore the speeds) if the sweep could not be started
+				if (!moveStarted) {
+					update(getDof(), new MoveableStatus(MoveableStatus.ERROR, getDof().getName(), getQuantity()));
+				}
+			}
+		} else {
+			executing = false;
+			String errorMessage = MoveableStatus.mapIntToMessage(check);
+			throw new MoveableException(new MoveableStatus(check, getDof().getName(), getQuantity()), "Fly move of DOF "
+					+ getDof().getName() + " not allowed: " + errorMessage);
+		}
+	}
+
+	@Override
+	public void update(Object o, Object arg) {
+		if (arg instanceof MoveableStatus && speedPushed) {
+			int value = ((MoveableStatus) arg).value();
+			if (value != MoveableStatus.BUSY && value != MoveableStatus.AWAY_FROM_LIMIT) {
+				speedPushed = false;
+				getDof().popSpeed();
+			}
+		}
+		super.update(o, arg);
+	}
+}
@@ -19,6 +19,7 @@
 
 package gda.oe.commands;
 
+import gda.configuration.properties.LocalProperties;
 import gda.oe.Moveable;
 import gda.oe.MoveableException;
 import gda.oe.MoveableStatus;
@@ -26,44 +27,92 @@ import gda.oe.util.UndulatorMoveCalculator.Move;
 import gda.util.CommandId;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jscience.physics.quantities.Quantity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Does a multiple move for the specified DOF with checking and locking
+ * Does a multiple move for the specified DOF with checking and locking. The move is a sequence of legs, in each of
+ * which every one of a set of Moveables is moved to a position; a leg starts when all the Moveables have finished the
+ * previous one.
+ * <p>
+ * No thread waits for the move. Each leg is started on a shared executor and the next leg is started when the
+ * MoveableStatus updates for the current one show that all its Moveables have stopped. The number of threads shared
+ * by all MultipleMoves is set by the property {@value #THREADS_PROPERTY} (default 2); they are only busy while
+ * starting legs.
  */
-public class MultipleMove extends DOFCommand implements Runnable {
+public class MultipleMove extends DOFCommand {
 	private static final Logger logger = LoggerFactory.getLogger(MultipleMove.class);
 
-	private volatile boolean doingALeg;
+	/**
+	 * Property which sets the number of threads used to start the legs of MultipleMoves
+	 */
+	public static final String THREADS_PROPERTY = "gda.oe.commands.multipleMoveThreads";
 
-	private Moveable[] toBeMoved;
+	private static ExecutorService sharedExecutor;
 
-	private ArrayList<Move> moves;
+	private final Moveable[] toBeMoved;
 
-	private volatile boolean flagOne;
+	private final List<Quantity[]> legs;
 
-	private volatile boolean flagTwo;
+	private final ExecutorService executor;
 
-	private volatile boolean multipleMovesInProgress;
+	private MultipleMoveWatcher watcher;
 
-	private int counter = 0;
+	private final CountDownLatch done = new CountDownLatch(1);
 
-	private Thread runner;
+	// all fields below are guarded by this
+	private int leg = -1;
 
 	private int commandID;
 
-	private MultipleMoveWatcher watcher;
+	private boolean[] moving;
+
+	private int stillMoving;
+
+	private long legStart;
+
+	private final long[] legTimes;
 
-	private volatile boolean legSucceeded = true;
+	private MoveableException failure;
 
-	private MoveableException toBeThrownAsSoonAsPossible;
+	private boolean cancelled = false;
+
+	private boolean finished = false;
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			int threads = Math.max(1, LocalProperties.getInt(THREADS_PROPERTY, 2));
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = uk.ac.gda.util.ThreadManager.getThread(r, "MultipleMove-"
+									+ count.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			pool.allowCoreThreadTimeOut(true);
+			sharedExecutor = pool;
+		}
+		return sharedExecutor;
+	}
 
 	/**
-	 * Creates a move command for multiple moves for a single DOF. Only works at present for Undulator moves. At present
-	 * it only works for two moveables.
+	 * Creates a move command for multiple moves for a single DOF, e.g. an undulator move.
 	 * 
 	 * @param dof
 	 *            is the DOF that appears to move.
@@ -74,140 +123,301 @@ public class MultipleMove extends DOFCommand implements Runnable {
 	 *            an arrayList containing the positions of the Moves (an inner class of the UndulatorMoveMediator)
 	 */
 	public MultipleMove(Moveable dof, Moveable[] toBeMoved, ArrayList<Move> moves) {
+		this(dof, toBeMoved, positionsOf(moves));
+	}
+
+	/**
+	 * Creates a move command which moves any number of Moveables through a sequence of legs.
+	 * 
+	 * @param dof
+	 *            is the DOF that appears to move.
+	 * @param toBeMoved
+	 *            contains the moveables that will actually move.
+	 * @param legs
+	 *            the positions for each leg, each containing one position for each of toBeMoved
+	 */
+	public MultipleMove(Moveable dof, Moveable[] toBeMoved, List<Quantity[]> legs) {
+		this(dof, toBeMoved, legs, getSharedExecutor());
+	}
+
+	/**
+	 * Creates a move command which starts its legs on the given executor.
+	 * 
+	 * @param dof
+	 *            is the DOF that appears to move.
+	 * @param toBeMoved
+	 *            contains the moveables that will actually move.
+	 * @param legs
+	 *            the positions for each leg, each containing one position for each of toBeMoved
+	 * @param executor
+	 *            starts the legs
+	 */
+	public MultipleMove(Moveable dof, Moveable[] toBeMoved, List<Quantity[]> legs, ExecutorService executor) {
 		super(dof, null);
-		this.toBeMoved = toBeMoved;
-		for (int i = 0; i < toBeMoved.length; i++)
-			toBeMoved[i].addIObserver(this); //FIXME: potential race condition
-		this.moves = moves;
+		for (Quantity[] positions : legs) {
+			if (positions.length != toBeMoved.length) {
+				throw new IllegalArgumentException("MultipleMove: a leg has " + positions.length
+						+ " positions for " + toBeMoved.length + " moveables");
+			}
+		}
+		this.toBeMoved = toBeMoved.clone();
+		this.legs = new ArrayList<Quantity[]>(legs);
+		this.executor = executor;
+		this.legTimes = new long[legs.size()];
+	}
+
+	private static List<Quantity[]> positionsOf(ArrayList<Move> moves) {
+		List<Quantity[]> positions = new ArrayList<Quantity[]>(moves.size());
+		for (Move move : moves) {
+			positions.add(move.getPositions());
+		}
+		return positions;
 	}
 
 	@Override
 	public void execute() throws MoveableException {
-		// Locking the DOF here is essential as creating the thread takes a
-		// substantial time allowing a gap where polling thread might find that
+		// Locking the DOF here is essential as there is a gap before the
+		// first leg starts in which the polling thread might find that
 		// the dof is not moving @see gda.oe.OEBase.isMoving().
 		getDof().lock(this);
-		runner = uk.ac.gda.util.ThreadManager.getThread(this, getClass().getName());
-		runner.start();
+		executing = true;
+		for (Moveable moveable : toBeMoved) {
+			moveable.addIObserver(this);
+		}
+		submitLeg(0);
 	}
 
-	@Override
-	public synchronized void run() {
-		int check;
-		try {
-			executing = true;
-			legSucceeded = true;
-			for (int i = 0; i < moves.size(); i++) {
+	private void submitLeg(final int next) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				startLeg(next);
+			}
+		});
+	}
+
+	private void startLeg(int next) {
+		Quantity[] positions;
+		synchronized (this) {
+			if (finished) {
+				return;
+			}
+			if (cancelled || next >= legs.size()) {
+				positions = null;
+			} else {
+				leg = next;
 				commandID = CommandId.next();
-				Quantity[] qs = moves.get(i).getPositions();
-
-				// NB All moves have already been checked during their
-				// creation but checkMoveTo is the only way to get
-				// a move set and the dof locked.
-				check = toBeMoved[0].checkMoveTo(qs[0], this);
-				if (check == MoveableStatus.SUCCESS)
-					check = toBeMoved[1].checkMoveTo(qs[1], this);
-				if (check == MoveableStatus.SUCCESS) {
-					doingALeg = true;
-					multipleMovesInProgress = true;
-					flagOne = true;
-					flagTwo = true;
-					toBeMoved[0].doMove(this, commandID);
-					toBeMoved[1].doMove(this, commandID);
-
-					// The doingALeg flag is set false in the method
-					// legDone() which
-					// is called from the update method() only when both
-					// moves are
-					// completed.
-					while (doingALeg) {
-						wait();
-					}
+				positions = legs.get(leg);
+			}
+		}
+		if (positions == null) {
+			finish(failure());
+			return;
+		}
 
-					// If the leg failed then throw an exception (caught
-					// below)
-					if (legSucceeded == false) {
-						logger.error("!!!! leg failed about to throw " + toBeThrownAsSoonAsPossible);
-						executing = false;
-						throw toBeThrownAsSoonAsPossible;
-					}
-				} else {
-					// If move cannot be started throw an exception (caught
-					// below)
-					executing = false;
-					throw new MoveableException(new MoveableStatus(check, getDof().getName()),
-							"MultipleMove.run: checkMoveTo != SUCCESS");
+		// NB All moves have already been checked during their creation but
+		// checkMoveTo is the only way to get a move set and the moveable
+		// locked. The monitor is not held while calling the moveables as
+		// they may be notifying this at the same time.
+		for (int k = 0; k < toBeMoved.length; k++) {
+			int check = toBeMoved[k].checkMoveTo(positions[k], this);
+			if (check != MoveableStatus.SUCCESS) {
+				finish(new MoveableException(new MoveableStatus(check, getDof().getName()),
+						"MultipleMove: checkMoveTo != SUCCESS for " + toBeMoved[k].getName() + " in leg " + next));
+				return;
+			}
+		}
+
+		int id;
+		synchronized (this) {
+			if (finished) {
+				return;
+			}
+			if (cancelled) {
+				positions = null;
+			} else {
+				moving = new boolean[toBeMoved.length];
+				stillMoving = toBeMoved.length;
+				for (int k = 0; k < toBeMoved.length; k++) {
+					moving[k] = true;
 				}
-			}// End of for loop
-		} catch (InterruptedException ie) {
-			logger.error("MultipleMove wait loop interrupted " + ie.getMessage());
-		} catch (MoveableException e) {
-			logger.error("MultipleMove caught MoveableException " + e.getMessage() + " " + e.getMoveableStatus());
-			if (watcher != null)
-				watcher.inform(this, e);
-		} finally {
-			unlock();
-			for (int i = 0; i < toBeMoved.length; i++)
-				toBeMoved[i].deleteIObserver(this);
-			executing = false;
-			logger.debug("MultipleMove: run thread move over");
+				legStart = System.nanoTime();
+			}
+			id = commandID;
+		}
+		if (positions == null) {
+			finish(failure());
+			return;
 		}
+
+		logger.debug("MultipleMove starting leg {} of {}", next, legs.size());
+		try {
+			for (int k = 0; k < toBeMoved.length; k++) {
+				toBeMoved[k].doMove(this, id);
+			}
+		} catch (MoveableException me) {
+			finish(me);
+		}
+	}
+
+	private synchronized MoveableException failure() {
+		return failure;
 	}
 
 	@Override
 	public void update(Object theObserved, Object changeCode) {
-		if (theObserved instanceof Moveable) {
-			Moveable m = (Moveable) theObserved;
-			MoveableStatus d = (MoveableStatus) changeCode;
-			logger.debug("MultipleMove.update() called with m " + m + " d " + d + " d.value " + d.value());
-			if (m == toBeMoved[0] && d.value() != MoveableStatus.BUSY && d.id() == commandID) {
-				flagOne = false;
-				// NB that AWAY_FROM_LIMIT is not an error
-				if (d.value() != MoveableStatus.READY && d.value() != MoveableStatus.AWAY_FROM_LIMIT) {
-					legSucceeded = false;
-					toBeThrownAsSoonAsPossible = new MoveableException(d, "Error while moving "
-							+ toBeMoved[0].getName() + "\n" + d.getMessage(), null);
-				}
+		if (!(theObserved instanceof Moveable) || !(changeCode instanceof MoveableStatus)) {
+			return;
+		}
+		MoveableStatus d = (MoveableStatus) changeCode;
+		if (d.value() == MoveableStatus.BUSY) {
+			return;
+		}
+
+		boolean legDone = false;
+		MoveableException e = null;
+		int next = 0;
+		synchronized (this) {
+			if (finished || moving == null || d.id() != commandID) {
+				return;
 			}
-			if (m == toBeMoved[1] && d.value() != MoveableStatus.BUSY && d.id() == commandID) {
-				flagTwo = false;
-				// NB that AWAY_FROM_LIMIT is not an error
-				if (d.value() != MoveableStatus.READY && d.value() != MoveableStatus.AWAY_FROM_LIMIT) {
-					legSucceeded = false;
-					toBeThrownAsSoonAsPossible = new MoveableException(d, "Error while moving "
-							+ toBeMoved[1].getName() + "\n" + d.getMessage());
+			for (int k = 0; k < toBeMoved.length; k++) {
+				if (theObserved == toBeMoved[k] && moving[k]) {
+					moving[k] = false;
+					stillMoving--;
+					// NB that AWAY_FROM_LIMIT is not an error
+					if (d.value() != MoveableStatus.READY && d.value() != MoveableStatus.AWAY_FROM_LIMIT
+							&& failure == null) {
+						failure = new MoveableException(d, "Error while moving " + toBeMoved[k].getName() + "\n"
+								+ d.getMessage(), null);
+					}
 				}
 			}
+			// Several non BUSY statuses may be sent for one move, only the
+			// first for each moveable counts.
+			if (stillMoving == 0) {
+				moving = null;
+				legTimes[leg] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - legStart);
+				logger.debug("leg {} done in {} mS", leg, legTimes[leg]);
+				legDone = true;
+				e = failure;
+				next = leg + 1;
+			}
+		}
 
-			// multipleMovesInProgress flag is used to prevent legDone()
-			// being
-			// called twice as there is every possibility that there is more
-			// than
-			// one MoveableStatus.READY sent.
-			if (flagOne == false && flagTwo == false && multipleMovesInProgress == true) {
-				multipleMovesInProgress = false;
-				legDone();
+		if (legDone) {
+			if (e != null) {
+				logger.error("!!!! leg failed " + e);
+				finish(e);
+			} else {
+				// Start the next leg (or finish) away from the thread
+				// delivering the status.
+				submitLeg(next);
+			}
+		}
+	}
+
+	/**
+	 * Stops the move. The Moveables in the current leg are stopped and no more legs are started. Watchers are informed
+	 * with a MoveableException once the Moveables have stopped.
+	 */
+	public void cancel() {
+		boolean stopNow;
+		synchronized (this) {
+			if (finished || cancelled) {
+				return;
+			}
+			cancelled = true;
+			if (failure == null) {
+				failure = cancelledException();
+			}
+			stopNow = moving != null;
+		}
+		if (stopNow) {
+			for (Moveable moveable : toBeMoved) {
+				try {
+					moveable.stop();
+				} catch (MoveableException me) {
+					logger.error("MultipleMove.cancel unable to stop " + moveable.getName() + " " + me.getMessage());
+				}
 			}
 		}
 	}
 
-	private synchronized void legDone() {
-		doingALeg = false;
-		counter++;
-		logger.debug("legDone called doingALeg is now " + doingALeg + " " + counter);
-		notifyAll();
+	private MoveableException cancelledException() {
+		return new MoveableException(new MoveableStatus(MoveableStatus.ERROR, getDof().getName()),
+				"MultipleMove of " + getDof().getName() + " cancelled");
+	}
+
+	private void finish(MoveableException e) {
+		synchronized (this) {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			moving = null;
+		}
+		try {
+			if (e != null) {
+				logger.error("MultipleMove caught MoveableException " + e.getMessage() + " " + e.getMoveableStatus());
+				if (watcher != null)
+					watcher.inform(this, e);
+			}
+		} finally {
+			unlock();
+			for (int i = 0; i < toBeMoved.length; i++)
+				toBeMoved[i].deleteIObserver(this);
+			executing = false;
+			done.countDown();
+			logger.debug("MultipleMove: move over, leg times {} mS", Arrays.toString(getLegTimes()));
+		}
 	}
 
 	private void unlock() {
-		toBeMoved[0].unLock(this);
-		toBeMoved[1].unLock(this);
-		logger.debug("" + this + " both locks now removed");
+		for (int i = 0; i < toBeMoved.length; i++)
+			toBeMoved[i].unLock(this);
+		logger.debug("" + this + " all locks now removed");
 		if (getDof().unLock(this))
 			logger.debug("" + this + " lock on " + getDof() + " now removed");
 		else
 			logger.debug("" + this + " lock on " + getDof() + " NOT removed !!!!!");
 	}
 
+	@Override
+	public String toString() {
+		// DOFCommand.toString needs a Quantity which this does not have
+		return "MultipleMove for DOF " + getDof().getName() + " of " + legs.size() + " legs";
+	}
+
+	/**
+	 * Waits for the move to finish, successfully or not.
+	 * 
+	 * @param timeout
+	 *            the longest time to wait in mS
+	 * @return true if the move has finished
+	 * @throws InterruptedException
+	 */
+	public boolean waitForCompletion(long timeout) throws InterruptedException {
+		return done.await(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the number of legs in the move
+	 */
+	public int getNumberOfLegs() {
+		return legs.size();
+	}
+
+	/**
+	 * Returns how long each leg took from starting the Moveables to the last of them stopping. Legs which have not
+	 * finished have a time of zero.
+	 * 
+	 * @return the time of each leg in mS
+	 */
+	public synchronized long[] getLegTimes() {
+		return legTimes.clone();
+	}
+
 	/**
 	 * Since MultipleMoves do their actual moving in a separate thread exceptions do not get through to the Moveable
 	 * which started the move. This method allows things which want to be informed to do so. This could have been done
@@ -220,4 +430,4 @@ public class MultipleMove extends DOFCommand implements Runnable {
 	public void addWatcher(MultipleMoveWatcher watcher) {
 		this.watcher = watcher;
 	}
-}
\ No newline at end of file
+}
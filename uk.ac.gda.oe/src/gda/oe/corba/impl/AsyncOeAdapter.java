@@ -0,0 +1,207 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.corba.impl;
+
+import gda.configuration.properties.LocalProperties;
+import gda.oe.AsyncOE;
+import gda.oe.MoveableException;
+import gda.oe.MoveableStatus;
+import gda.oe.OE;
+import gda.oe.StopService;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jscience.physics.quantities.Quantity;
+import org.omg.CORBA.SystemException;
+
+/**
+ * Makes the calls of an AsyncOE on a small set of I/O threads belonging to this adapter. Each thread is a lane with its
+ * own queue and the calls for a DOF always go to the same lane, so they are carried out in order while calls for other
+ * DOFs go ahead on the other lanes. The lanes are not shared with other adapters, so a server which is slow or hung
+ * only holds up the calls made to it. The number of lanes is given by the property {@value #IO_THREADS_PROPERTY}; a
+ * lane's thread ends after a minute without calls and is started again when needed.
+ * <p>
+ * If there is a CircuitBreaker each call asks it first and is refused with COMMUNICATION_FAILURE while it is open, so
+ * the lanes are not tied up waiting for a server which is not there. Calls which fail with COMMUNICATION_FAILURE or a
+ * CORBA system exception are reported to it as failures.
+ * <p>
+ * A stop goes through neither the lanes nor the breaker: it is made straight away on a StopService thread, so it is
+ * never queued behind a slow call for the same DOF and is always tried.
+ */
+public class AsyncOeAdapter implements AsyncOE {
+
+	/**
+	 * Property giving the number of I/O threads of each adapter, default 4
+	 */
+	public static final String IO_THREADS_PROPERTY = "gda.oe.corba.ioThreads";
+
+	private static final long LANE_IDLE_SECONDS = 60;
+
+	private ExecutorService[] lanes;
+
+	private final AtomicInteger nextLane = new AtomicInteger();
+
+	private final OE oe;
+
+	private final CircuitBreaker breaker;
+
+	/**
+	 * @param oe
+	 *            the OE to make the calls on, normally an OeAdapter
+	 * @param breaker
+	 *            the breaker for the OE's server or null for none
+	 */
+	public AsyncOeAdapter(OE oe, CircuitBreaker breaker) {
+		this.oe = oe;
+		this.breaker = breaker;
+	}
+
+	private synchronized ExecutorService[] getLanes() {
+		if (lanes == null) {
+			ExecutorService[] created = new ExecutorService[Math.max(1, LocalProperties.getInt(IO_THREADS_PROPERTY, 4))];
+			for (int i = 0; i < created.length; i++) {
+				final String threadName = "AsyncOeAdapter-" + oe.getName() + "-" + (i + 1);
+				ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, LANE_IDLE_SECONDS, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+							@Override
+							public Thread newThread(Runnable r) {
+								Thread t = uk.ac.gda.util.ThreadManager.getThread(r, threadName);
+								t.setDaemon(true);
+								return t;
+							}
+						});
+				lane.allowCoreThreadTimeOut(true);
+				created[i] = lane;
+			}
+			lanes = created;
+		}
+		return lanes;
+	}
+
+	private ExecutorService lane(String dofname) {
+		ExecutorService[] all = getLanes();
+		int hash = (dofname != null) ? dofname.hashCode() : nextLane.getAndIncrement();
+		return all[(hash & Integer.MAX_VALUE) % all.length];
+	}
+
+	@Override
+	public OE getOE() {
+		return oe;
+	}
+
+	@Override
+	public <T> Future<T> submit(String dofname, final Call<T> call) {
+		return lane(dofname).submit(new Callable<T>() {
+			@Override
+			public T call() throws MoveableException {
+				if (breaker != null && !breaker.allow()) {
+					throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+							"Communication failure: " + oe.getName() + " is not being called after repeated failures");
+				}
+				try {
+					T result = call.call(oe);
+					if (breaker != null) {
+						breaker.succeeded();
+					}
+					return result;
+				} catch (MoveableException e) {
+					if (breaker != null) {
+						if (e.getMoveableStatus() != null
+								&& e.getMoveableStatus().value() == MoveableStatus.COMMUNICATION_FAILURE) {
+							breaker.failed();
+						} else {
+							breaker.succeeded();
+						}
+					}
+					throw e;
+				} catch (SystemException e) {
+					if (breaker != null) {
+						breaker.failed();
+					}
+					throw e;
+				}
+			}
+		});
+	}
+
+	@Override
+	public Future<Void> moveTo(final String dofname, final Quantity position) {
+		return submit(dofname, new Call<Void>() {
+			@Override
+			public Void call(OE oe) throws MoveableException {
+				oe.moveTo(dofname, position);
+				return null;
+			}
+		});
+	}
+
+	@Override
+	public Future<Void> moveBy(final String dofname, final Quantity increment) {
+		return submit(dofname, new Call<Void>() {
+			@Override
+			public Void call(OE oe) throws MoveableException {
+				oe.moveBy(dofname, increment);
+				return null;
+			}
+		});
+	}
+
+	@Override
+	public Future<Void> stop(String dofname) {
+		return StopService.submit(oe, dofname);
+	}
+
+	@Override
+	public Future<Quantity> getPosition(final String dofname) {
+		return submit(dofname, new Call<Quantity>() {
+			@Override
+			public Quantity call(OE oe) throws MoveableException {
+				return oe.getPosition(dofname);
+			}
+		});
+	}
+
+	@Override
+	public Future<MoveableStatus> getStatus(final String dofname) {
+		return submit(dofname, new Call<MoveableStatus>() {
+			@Override
+			public MoveableStatus call(OE oe) throws MoveableException {
+				return oe.getStatus(dofname);
+			}
+		});
+	}
+
+	@Override
+	public Future<Boolean> isMoving(final String dofname) {
+		return submit(dofname, new Call<Boolean>() {
+			@Override
+			public Boolean call(OE oe) throws MoveableException {
+				return oe.isMoving(dofname);
+			}
+		});
+	}
+}
@@ -0,0 +1,133 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.corba.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops calls going to a server which keeps failing. After a number of failures in a row the breaker opens and calls
+ * are refused at once for the open time. Then one call is let through as a trial: if it succeeds the breaker closes,
+ * if it fails the breaker opens again.
+ */
+public class CircuitBreaker {
+
+	private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	/**
+	 * The states of a breaker
+	 */
+	public enum State {
+		/** calls are allowed */
+		CLOSED,
+		/** calls are refused */
+		OPEN,
+		/** one trial call is allowed */
+		HALF_OPEN
+	}
+
+	private final String name;
+
+	private final int threshold;
+
+	private final long openNanos;
+
+	private State state = State.CLOSED;
+
+	private int failures = 0;
+
+	private long openedAt;
+
+	private boolean trialInFlight = false;
+
+	/**
+	 * @param name
+	 *            the name used in log messages, normally that of the server object
+	 * @param threshold
+	 *            the number of failures in a row which open the breaker
+	 * @param openTime
+	 *            the time in mS for which calls are refused
+	 */
+	public CircuitBreaker(String name, int threshold, long openTime) {
+		this.name = name;
+		this.threshold = threshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openTime);
+	}
+
+	/**
+	 * Asks whether a call may be made. A caller given true must report the outcome with succeeded or failed.
+	 * 
+	 * @return true if the call may be made
+	 */
+	public synchronized boolean allow() {
+		switch (state) {
+		case CLOSED:
+			return true;
+		case OPEN:
+			if (System.nanoTime() - openedAt < openNanos) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+			trialInFlight = true;
+			return true;
+		default:
+			if (trialInFlight) {
+				return false;
+			}
+			trialInFlight = true;
+			return true;
+		}
+	}
+
+	/**
+	 * Reports a call which worked.
+	 */
+	public synchronized void succeeded() {
+		if (state != State.CLOSED) {
+			logger.info("CircuitBreaker: {} closed", name);
+		}
+		state = State.CLOSED;
+		failures = 0;
+		trialInFlight = false;
+	}
+
+	/**
+	 * Reports a call which failed to reach the server.
+	 */
+	public synchronized void failed() {
+		trialInFlight = false;
+		if (state == State.HALF_OPEN || ++failures >= threshold) {
+			if (state != State.OPEN) {
+				logger.warn("CircuitBreaker: {} opened after {} failures", name, failures);
+			}
+			state = State.OPEN;
+			openedAt = System.nanoTime();
+		}
+	}
+
+	/**
+	 * @return the state
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+}
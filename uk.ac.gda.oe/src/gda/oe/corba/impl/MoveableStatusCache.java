@@ -0,0 +1,220 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.corba.impl;
+
+import gda.oe.MoveableStatus;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.Unit;
+
+/**
+ * Client side cache of the last known status (which includes the position) and reporting units of each DOF of a
+ * remote OE. OeAdapter fills it from the MoveableStatus events it already receives and from the results of remote
+ * calls. An entry older than the staleness bound is treated as missing so the caller goes back to the server.
+ * <p>
+ * Each DOF has a generation which invalidate increments. A status read from the server is only kept if no command
+ * was sent to the DOF while it was being read. Events carry no move id, so after invalidate an event is only kept once
+ * it shows the DOF BUSY: until then a READY event may still be on its way from before the command.
+ */
+public class MoveableStatusCache {
+
+	private static final class Entry<T> {
+		final T value;
+
+		final long time;
+
+		Entry(T value) {
+			this.value = value;
+			this.time = System.nanoTime();
+		}
+	}
+
+	private static final class Generation {
+		int count;
+
+		boolean awaitingBusy;
+	}
+
+	private final long stalenessNanos;
+
+	// guarded by this, as are the puts and removals of statuses
+	private final HashMap<String, Generation> generations = new HashMap<String, Generation>();
+
+	private final ConcurrentHashMap<String, Entry<MoveableStatus>> statuses = new ConcurrentHashMap<String, Entry<MoveableStatus>>();
+
+	private final ConcurrentHashMap<String, Entry<Unit<? extends Quantity>>> units = new ConcurrentHashMap<String, Entry<Unit<? extends Quantity>>>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param staleness
+	 *            the time in mS for which an entry may be used
+	 */
+	public MoveableStatusCache(long staleness) {
+		this.stalenessNanos = TimeUnit.MILLISECONDS.toNanos(staleness);
+	}
+
+	/**
+	 * Records a status event. After invalidate it is ignored unless the DOF is BUSY.
+	 *
+	 * @param status
+	 *            the status, which must carry the DOF name
+	 */
+	public synchronized void putStatus(MoveableStatus status) {
+		String dofname = status.getMoveableName();
+		if (dofname != null) {
+			Generation g = generations.get(dofname);
+			if (g != null && g.awaitingBusy) {
+				if (status.value() != MoveableStatus.BUSY) {
+					return;
+				}
+				g.awaitingBusy = false;
+			}
+			statuses.put(dofname, new Entry<MoveableStatus>(status));
+		}
+	}
+
+	/**
+	 * Records a status read from the server, unless the DOF has been invalidated since the read began.
+	 *
+	 * @param status
+	 *            the status, which must carry the DOF name
+	 * @param generation
+	 *            the generation of the DOF, from getGeneration, before the read began
+	 */
+	public synchronized void putStatus(MoveableStatus status, int generation) {
+		String dofname = status.getMoveableName();
+		if (dofname != null && generation == getGeneration(dofname)) {
+			Generation g = generations.get(dofname);
+			if (g != null) {
+				g.awaitingBusy = false;
+			}
+			statuses.put(dofname, new Entry<MoveableStatus>(status));
+		}
+	}
+
+	/**
+	 * @param dofname
+	 *            the DOF
+	 * @return the number of times the DOF has been invalidated
+	 */
+	public synchronized int getGeneration(String dofname) {
+		Generation g = generations.get(dofname);
+		return (g == null) ? 0 : g.count;
+	}
+
+	/**
+	 * Records the reporting units of a DOF.
+	 *
+	 * @param dofname
+	 *            the DOF
+	 * @param unit
+	 *            the reporting units
+	 */
+	public void putReportingUnits(String dofname, Unit<? extends Quantity> unit) {
+		if (unit != null) {
+			units.put(dofname, new Entry<Unit<? extends Quantity>>(unit));
+		}
+	}
+
+	/**
+	 * @param dofname
+	 *            the DOF
+	 * @return the last status of the DOF or null if there is none or it is stale
+	 */
+	public MoveableStatus getStatus(String dofname) {
+		return fresh(statuses.get(dofname));
+	}
+
+	/**
+	 * @param dofname
+	 *            the DOF
+	 * @return the reporting units of the DOF or null if they are not known or are stale
+	 */
+	public Unit<? extends Quantity> getReportingUnits(String dofname) {
+		return fresh(units.get(dofname));
+	}
+
+	/**
+	 * Forgets the status of a DOF. Used when a command sent to the DOF makes the cached status out of date before
+	 * the resulting event arrives.
+	 *
+	 * @param dofname
+	 *            the DOF
+	 */
+	public synchronized void invalidate(String dofname) {
+		Generation g = generations.get(dofname);
+		if (g == null) {
+			g = new Generation();
+			generations.put(dofname, g);
+		}
+		g.count++;
+		g.awaitingBusy = true;
+		statuses.remove(dofname);
+	}
+
+	/**
+	 * Forgets the reporting units of a DOF.
+	 *
+	 * @param dofname
+	 *            the DOF
+	 */
+	public void invalidateReportingUnits(String dofname) {
+		units.remove(dofname);
+	}
+
+	/**
+	 * Forgets everything, e.g. after reconnecting to the server.
+	 */
+	public synchronized void clear() {
+		statuses.clear();
+		units.clear();
+	}
+
+	/**
+	 * @return the number of reads served from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of reads which had to go to the server
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private <T> T fresh(Entry<T> entry) {
+		if (entry != null && System.nanoTime() - entry.time <= stalenessNanos) {
+			hits.incrementAndGet();
+			return entry.value;
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+}
@@ -19,6 +19,7 @@
 
 package gda.oe.corba.impl;
 
+import gda.configuration.properties.LocalProperties;
 import gda.factory.Findable;
 import gda.factory.corba.util.EventService;
 import gda.factory.corba.util.EventSubscriber;
@@ -26,33 +27,94 @@ import gda.factory.corba.util.NameFilter;
 import gda.factory.corba.util.NetService;
 import gda.factory.corba.util.RbacEnabledAdapter;
 import gda.lockable.Locker;
+import gda.oe.AsyncOE;
 import gda.observable.IObserver;
 import gda.observable.ObservableComponent;
+import gda.oe.MovePlan;
 import gda.oe.MoveableException;
+import gda.oe.MoveableReading;
 import gda.oe.MoveableStatus;
 import gda.oe.OE;
+import gda.oe.StopResult;
 import gda.oe.corba.CorbaLocker;
 import gda.oe.corba.CorbaOE;
 import gda.oe.corba.CorbaOEHelper;
+import gda.oe.corba.CorbaOEPackage.CorbaMotionLatency;
+import gda.oe.corba.CorbaOEPackage.CorbaMoveableReading;
+import gda.oe.corba.CorbaOEPackage.CorbaReadingValue;
+import gda.oe.corba.CorbaOEPackage.CorbaStatusValue;
+import gda.oe.corba.CorbaOEPackage.CorbaStopResult;
 import gda.oe.corba.CorbaQuantity;
+import gda.oe.corba.CorbaQuantityValue;
 import gda.oe.corba.CorbaUnit;
 import gda.oe.dofs.corba.CorbaMoveableException;
 import gda.oe.dofs.corba.CorbaMoveableStatus;
+import gda.oe.util.MotionLatencySnapshot;
 import gda.util.QuantityFactory;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 import org.jscience.physics.quantities.Quantity;
 import org.jscience.physics.units.Unit;
+import org.omg.CORBA.BAD_OPERATION;
 import org.omg.CORBA.COMM_FAILURE;
 import org.omg.CORBA.TRANSIENT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * A client side implementation of the adapter pattern for the OE class
+ * A client side implementation of the adapter pattern for the OE class.
+ * <p>
+ * If the property {@value #CACHE_STALENESS_PROPERTY} is set to a positive number of mS the adapter keeps the last
+ * status, position and reporting units of each DOF from the events it receives and from the results of remote calls.
+ * getStatus, getPosition, getReportingUnits and isMoving are then answered locally while the entry is younger than that
+ * and only go to the server when it is stale or missing. Commands which move or change a DOF discard its entry, and
+ * statuses which may have been sent before the command are not kept (see MoveableStatusCache).
+ * <p>
+ * Positions, moves, statuses, readings and units are sent in the compact form (an amount and a unit id, see UnitTable)
+ * when the server supports it, which is found out once per connection. Older servers are sent strings. Status events
+ * come through the event service as MoveableStatus objects and are not affected. In the same way getPositions,
+ * getStatuses and getReadings ask for each DOF in turn when the server has no batched queries.
+ * <p>
+ * Callers which lose the connection at the same time share one reconnection, and after repeated failures the name
+ * service is left alone for a while (see CircuitBreaker). async gives the same operations returning futures, carried
+ * out on shared I/O threads.
  */
 public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdapter {
-	
-	private CorbaOE corbaOE;
+
+	private static final Logger logger = LoggerFactory.getLogger(OeAdapter.class);
+
+	/**
+	 * Property giving the time in mS for which cached DOF statuses may be used. Zero (the default) disables the cache.
+	 */
+	public static final String CACHE_STALENESS_PROPERTY = "gda.oe.corba.cacheStaleness";
+
+	/**
+	 * Property giving the number of failures in a row after which the server is not called for a while, default 5
+	 */
+	public static final String BREAKER_FAILURES_PROPERTY = "gda.oe.corba.breakerFailures";
+
+	/**
+	 * Property giving the time in mS for which the server is not called after repeated failures, default 5000
+	 */
+	public static final String BREAKER_OPEN_TIME_PROPERTY = "gda.oe.corba.breakerOpenTime";
+
+	// a caller failing this soon after a reconnection uses the new reference
+	// rather than reconnecting again
+	private static final long RECONNECT_HOLDOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+	private volatile CorbaOE corbaOE;
+
+	private final Object reconnectLock = new Object();
+
+	private volatile int connection = 0;
+
+	private long reconnected = System.nanoTime() - RECONNECT_HOLDOFF_NANOS;
+
+	private final CircuitBreaker breaker;
+
+	private AsyncOeAdapter async;
 
 	private NetService netService;
 
@@ -60,6 +122,13 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	private ObservableComponent observableComponent = new ObservableComponent();
 
+	private volatile MoveableStatusCache cache;
+
+	private final QuantityCodec codec = new QuantityCodec();
+
+	// false once the server has turned down a batched query, until the next reconnection
+	private volatile boolean batchSupported = true;
+
 	/**
 	 * Create client side interface to the CORBA package.
 	 * 
@@ -74,9 +143,100 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 		corbaOE = CorbaOEHelper.narrow(obj);
 		this.netService = netService;
 		this.name = name;
+		setCacheStaleness(LocalProperties.getInt(CACHE_STALENESS_PROPERTY, 0));
+		breaker = new CircuitBreaker(name, LocalProperties.getInt(BREAKER_FAILURES_PROPERTY, 5), LocalProperties
+				.getInt(BREAKER_OPEN_TIME_PROPERTY, 5000));
 
 		EventService.getInstance().subscribe(this, new NameFilter(name, observableComponent));
 	}
+
+	/**
+	 * Turns the client side cache on or off.
+	 * 
+	 * @param staleness
+	 *            the time in mS for which a cached status may be used, zero or less to switch the cache off
+	 */
+	public void setCacheStaleness(long staleness) {
+		cache = (staleness > 0) ? new MoveableStatusCache(staleness) : null;
+	}
+
+	/**
+	 * @return the client side cache or null if it is switched off
+	 */
+	public MoveableStatusCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * @return the asynchronous form of this adapter, whose calls share the circuit breaker of this adapter
+	 */
+	public synchronized AsyncOE async() {
+		if (async == null) {
+			async = new AsyncOeAdapter(this, breaker);
+		}
+		return async;
+	}
+
+	/**
+	 * @return the circuit breaker for the server
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return breaker;
+	}
+
+	/**
+	 * Gets a new reference to the server object from the name service. Callers which fail together share one
+	 * reconnection: one which has waited for another's reconnection, or which comes within the hold-off time after
+	 * it, just uses the new reference. The name service is not asked while the circuit breaker is open.
+	 */
+	private void reconnect() {
+		int seen = connection;
+		synchronized (reconnectLock) {
+			if (connection != seen || System.nanoTime() - reconnected < RECONNECT_HOLDOFF_NANOS || !breaker.allow()) {
+				return;
+			}
+			CorbaOE reconnectedOE = null;
+			try {
+				org.omg.CORBA.Object obj = netService.reconnect(name);
+				if (obj != null) {
+					reconnectedOE = CorbaOEHelper.narrow(obj);
+				}
+			} catch (RuntimeException e) {
+				// counted as a failure below
+			}
+			if (reconnectedOE == null) {
+				breaker.failed();
+				return;
+			}
+			corbaOE = reconnectedOE;
+			codec.reset();
+			batchSupported = true;
+			reconnected = System.nanoTime();
+			connection++;
+			breaker.succeeded();
+		}
+	}
+
+	/**
+	 * @return the codec for compact quantities or null if the server only understands strings
+	 */
+	private QuantityCodec codec() {
+		return codec.isSupported(corbaOE) ? codec : null;
+	}
+
+	private void batchUnsupported() {
+		if (batchSupported) {
+			logger.info("OE server {} does not support batched queries, asking for each DOF", name);
+			batchSupported = false;
+		}
+	}
+
+	private void invalidate(String dofname) {
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			c.invalidate(dofname);
+		}
+	}
 	
 	@Override
 	public org.omg.CORBA.Object getCorbaObject() {
@@ -90,6 +250,10 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 	
 	@Override
 	public void inform(Object obj) {
+		MoveableStatusCache c = cache;
+		if (c != null && obj instanceof MoveableStatus) {
+			c.putStatus((MoveableStatus) obj);
+		}
 		notifyIObservers(this, obj);
 	}
 
@@ -109,9 +273,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getDOFType(dofName);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -127,14 +291,20 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void moveBy(String dofname, Quantity increment) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
-				corbaOE.moveBy(dofname, new CorbaQuantity(increment.toString()));
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					corbaOE.moveByValue(dofname, qc.encode(corbaOE, increment));
+				} else {
+					corbaOE.moveBy(dofname, new CorbaQuantity(increment.toString()));
+				}
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -145,14 +315,40 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void moveTo(String dofname, Quantity position) throws MoveableException {
+		invalidate(dofname);
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					corbaOE.moveToValue(dofname, qc.encode(corbaOE, position));
+				} else {
+					corbaOE.moveTo(dofname, new CorbaQuantity(position.toString()));
+				}
+				return;
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE, dofname),
+				"Communication failure: retry failed");
+	}
+
+	@Override
+	public void flyTo(String dofname, Quantity position, Quantity speed) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
-				corbaOE.moveTo(dofname, new CorbaQuantity(position.toString()));
+				// called once per sweep so the string form is good enough
+				corbaOE.flyTo(dofname, new CorbaQuantity(position.toString()), new CorbaQuantity(speed.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -163,13 +359,18 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public int moveLockedTo(String dofname, Quantity position, int lockId) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					return corbaOE.moveLockedToValue(dofname, qc.encode(corbaOE, position), lockId);
+				}
 				return corbaOE.moveLockedTo(dofname, new CorbaQuantity(position.toString()), lockId);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -180,14 +381,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void moveContinuously(String dofname, int direction) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.moveContinuously(dofname, direction);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -198,14 +400,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void stop(String dofname) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.stop(dofname);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -216,14 +419,46 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void stop() throws MoveableException {
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			c.clear();
+		}
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.stop2();
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+				"Communication failure: retry failed");
+	}
+
+	@Override
+	public StopResult[] emergencyStop(long deadline) throws MoveableException {
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			c.clear();
+		}
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				CorbaStopResult[] corbaResults = corbaOE.emergencyStop(deadline);
+				StopResult[] results = new StopResult[corbaResults.length];
+				for (int j = 0; j < corbaResults.length; j++) {
+					CorbaStopResult r = corbaResults[j];
+					results[j] = new StopResult(r.oeName, r.dofName, r.time, r.finished,
+							r.failure.length() == 0 ? null : r.failure);
+				}
+				return results;
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -238,9 +473,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.isMoving();
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -251,13 +486,22 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public boolean isMoving(String dofname) throws MoveableException {
+		// Only a BUSY status is trusted: answering false from an event which
+		// has not yet caught up with a new move could end a scan point early.
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			MoveableStatus ms = c.getStatus(dofname);
+			if (ms != null && ms.value() == MoveableStatus.BUSY) {
+				return true;
+			}
+		}
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				return corbaOE.isMoving2(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -268,14 +512,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void setPosition(String dofname, Quantity position) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.setPosition(dofname, new CorbaQuantity(position.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -286,13 +531,24 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public Quantity getPosition(String dofname) throws MoveableException {
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			MoveableStatus ms = c.getStatus(dofname);
+			if (ms != null && ms.getPosition() != null) {
+				return ms.getPosition();
+			}
+		}
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					return qc.decode(corbaOE, corbaOE.getPositionValue(dofname, UnitTable.NO_UNIT));
+				}
 				return Quantity.valueOf(corbaOE.getPosition(dofname).valueString);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -303,18 +559,30 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public Quantity getPosition(String dofname, Unit<? extends Quantity> units) throws MoveableException {
+		// As in DOF.getPosition(Unit) the position is returned unconverted
+		// if it is of the same kind as the units requested
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			MoveableStatus ms = c.getStatus(dofname);
+			if (ms != null && ms.getPosition() != null
+					&& units.getBaseUnits().equals(ms.getPosition().getUnit().getBaseUnits())) {
+				return ms.getPosition();
+			}
+		}
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					return qc.decode(corbaOE, corbaOE.getPositionValue(dofname, qc.getId(corbaOE, units)));
+				}
 				String s = units.toString();
 				CorbaQuantity cq = corbaOE.getPosition2(dofname, new CorbaUnit(s));
 				Quantity q = Quantity.valueOf(cq.valueString);
 				return q;
-				// return Quantity.valueOf(corbaOE.getPosition2(
-				// dofname, new CorbaUnit(units.toString())).valueString);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -331,9 +599,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				return rtrn;
 				// return corbaOE.formatPosition(dofname, position);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -348,9 +616,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.isPositionValid(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -365,9 +633,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.isSpeedLevelSettable(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -382,17 +650,24 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				// FIXME this does not seem to work for µRad the UTF-8ness might get lost in
 				// the CORBA transition (µ transforms to 1/4)
-				CorbaUnit[] ua = corbaOE.getAcceptableUnits(dofname);
 				ArrayList<Unit<? extends Quantity>> units = new ArrayList<Unit<? extends Quantity>>();
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					for (int id : corbaOE.getAcceptableUnitIds(dofname)) {
+						units.add(qc.getUnit(corbaOE, id));
+					}
+					return units;
+				}
+				CorbaUnit[] ua = corbaOE.getAcceptableUnits(dofname);
 				for (i = 0; i < ua.length; i++) {
 					units.add(QuantityFactory.createUnitFromString(ua[i].unitString));
 				}
 
 				return units;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -403,14 +678,19 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void setReportingUnits(String dofname, Unit<? extends Quantity> units) throws MoveableException {
+		invalidate(dofname);
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			c.invalidateReportingUnits(dofname);
+		}
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.setReportingUnits(dofname, new CorbaUnit(units.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -421,13 +701,27 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public Unit<? extends Quantity> getReportingUnits(String dofname) throws MoveableException {
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			Unit<? extends Quantity> units = c.getReportingUnits(dofname);
+			if (units != null) {
+				return units;
+			}
+		}
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
-				return QuantityFactory.createUnitFromString(corbaOE.getReportingUnits(dofname).unitString);
+				QuantityCodec qc = codec();
+				Unit<? extends Quantity> units = (qc != null) ? qc.getUnit(corbaOE, corbaOE
+						.getReportingUnitsId(dofname)) : QuantityFactory.createUnitFromString(corbaOE
+						.getReportingUnits(dofname).unitString);
+				if (c != null) {
+					c.putReportingUnits(dofname, units);
+				}
+				return units;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -442,9 +736,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getProtectionLevel(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -455,13 +749,27 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public MoveableStatus getStatus(String dofname) throws MoveableException {
+		MoveableStatusCache c = cache;
+		if (c != null) {
+			MoveableStatus ms = c.getStatus(dofname);
+			if (ms != null) {
+				return ms;
+			}
+		}
+		int generation = (c != null) ? c.getGeneration(dofname) : 0;
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
-				return corbaMoveableStatusConvert(corbaOE.getStatus(dofname));
+				QuantityCodec qc = codec();
+				MoveableStatus ms = (qc != null) ? statusValueConvert(qc, corbaOE.getStatusValue(dofname))
+						: corbaMoveableStatusConvert(corbaOE.getStatus(dofname));
+				if (c != null) {
+					c.putStatus(ms, generation);
+				}
+				return ms;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -470,6 +778,178 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				"Communication failure: retry failed");
 	}
 
+	@Override
+	public Quantity[] getPositions(String[] dofnames) throws MoveableException {
+		if (!batchSupported) {
+			return getPositionsSeparately(dofnames);
+		}
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					CorbaQuantityValue[] values = corbaOE.getPositionValues(dofnames);
+					Quantity[] positions = new Quantity[values.length];
+					for (int j = 0; j < values.length; j++) {
+						positions[j] = qc.decode(corbaOE, values[j]);
+					}
+					return positions;
+				}
+				CorbaQuantity[] cqs = corbaOE.getPositions(dofnames);
+				Quantity[] positions = new Quantity[cqs.length];
+				for (int j = 0; j < cqs.length; j++) {
+					positions[j] = corbaQuantityConvert(cqs[j]);
+				}
+				return positions;
+			} catch (BAD_OPERATION bo) {
+				batchUnsupported();
+				return getPositionsSeparately(dofnames);
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+				"Communication failure: retry failed");
+	}
+
+	@Override
+	public MoveableStatus[] getStatuses(String[] dofnames) throws MoveableException {
+		if (!batchSupported) {
+			return getStatusesSeparately(dofnames);
+		}
+		MoveableStatusCache c = cache;
+		int[] generations = generations(c, dofnames);
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				MoveableStatus[] statuses;
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					CorbaStatusValue[] values = corbaOE.getStatusValues(dofnames);
+					statuses = new MoveableStatus[values.length];
+					for (int j = 0; j < values.length; j++) {
+						statuses[j] = statusValueConvert(qc, values[j]);
+					}
+				} else {
+					CorbaMoveableStatus[] cmss = corbaOE.getStatuses(dofnames);
+					statuses = new MoveableStatus[cmss.length];
+					for (int j = 0; j < cmss.length; j++) {
+						statuses[j] = corbaMoveableStatusConvert(cmss[j]);
+					}
+				}
+				if (c != null) {
+					for (int j = 0; j < statuses.length; j++) {
+						c.putStatus(statuses[j], generations[j]);
+					}
+				}
+				return statuses;
+			} catch (BAD_OPERATION bo) {
+				batchUnsupported();
+				return getStatusesSeparately(dofnames);
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+				"Communication failure: retry failed");
+	}
+
+	@Override
+	public MoveableReading[] getReadings(String[] dofnames, boolean refresh) throws MoveableException {
+		if (!batchSupported) {
+			return getReadingsSeparately(dofnames, refresh);
+		}
+		MoveableStatusCache c = cache;
+		int[] generations = generations(c, dofnames);
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				MoveableReading[] readings;
+				QuantityCodec qc = codec();
+				if (qc != null) {
+					CorbaReadingValue[] values = corbaOE.getReadingValues(dofnames, refresh);
+					readings = new MoveableReading[values.length];
+					for (int j = 0; j < values.length; j++) {
+						CorbaReadingValue value = values[j];
+						readings[j] = new MoveableReading(value.moveableName, qc.decode(corbaOE, value.position), qc
+								.getUnit(corbaOE, value.unitsId), statusValueConvert(qc, value.status));
+					}
+				} else {
+					CorbaMoveableReading[] cmrs = corbaOE.getReadings(dofnames, refresh);
+					readings = new MoveableReading[cmrs.length];
+					for (int j = 0; j < cmrs.length; j++) {
+						CorbaMoveableReading cmr = cmrs[j];
+						Unit<? extends Quantity> units = cmr.units.unitString.equals("") ? null : QuantityFactory
+								.createUnitFromString(cmr.units.unitString);
+						readings[j] = new MoveableReading(cmr.moveableName, corbaQuantityConvert(cmr.position), units,
+								corbaMoveableStatusConvert(cmr.status));
+					}
+				}
+				if (c != null) {
+					for (int j = 0; j < readings.length; j++) {
+						c.putStatus(readings[j].getStatus(), generations[j]);
+						c.putReportingUnits(readings[j].getMoveableName(), readings[j].getReportingUnits());
+					}
+				}
+				return readings;
+			} catch (BAD_OPERATION bo) {
+				batchUnsupported();
+				return getReadingsSeparately(dofnames, refresh);
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
+				"Communication failure: retry failed");
+	}
+
+	private int[] generations(MoveableStatusCache c, String[] dofnames) {
+		int[] generations = new int[dofnames.length];
+		if (c != null) {
+			for (int j = 0; j < dofnames.length; j++) {
+				generations[j] = c.getGeneration(dofnames[j]);
+			}
+		}
+		return generations;
+	}
+
+	private Quantity[] getPositionsSeparately(String[] dofnames) throws MoveableException {
+		Quantity[] positions = new Quantity[dofnames.length];
+		for (int j = 0; j < dofnames.length; j++) {
+			positions[j] = getPosition(dofnames[j]);
+		}
+		return positions;
+	}
+
+	private MoveableStatus[] getStatusesSeparately(String[] dofnames) throws MoveableException {
+		MoveableStatus[] statuses = new MoveableStatus[dofnames.length];
+		for (int j = 0; j < dofnames.length; j++) {
+			statuses[j] = getStatus(dofnames[j]);
+		}
+		return statuses;
+	}
+
+	private MoveableReading[] getReadingsSeparately(String[] dofnames, boolean refresh) throws MoveableException {
+		MoveableReading[] readings = new MoveableReading[dofnames.length];
+		for (int j = 0; j < dofnames.length; j++) {
+			if (refresh) {
+				refresh(dofnames[j]);
+			}
+			readings[j] = new MoveableReading(dofnames[j], getPosition(dofnames[j]), getReportingUnits(dofnames[j]),
+					getStatus(dofnames[j]));
+		}
+		return readings;
+	}
+
 	@Override
 	public void setSpeed(String dofname, Quantity speed) throws MoveableException {
 		for (int i = 0; i < NetService.RETRY; i++) {
@@ -477,9 +957,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setSpeed(dofname, new CorbaQuantity(speed.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -494,9 +974,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return Quantity.valueOf(corbaOE.getSpeed(dofname).valueString);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -512,9 +992,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setSpeedLevel(dofname, speedLevel);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -525,14 +1005,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void home(String dofname) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.home(dofname);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -548,9 +1029,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				return Quantity.valueOf(corbaOE.getHomeOffset(dofname).valueString);
 
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -561,14 +1042,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void setPositionOffset(String dofname, Quantity offset) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.setPositionOffset(dofname, new CorbaQuantity(offset.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -583,9 +1065,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return Quantity.valueOf(corbaOE.getPositionOffset(dofname).valueString);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -596,14 +1078,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void setHomeOffset(String dofname, Quantity offset) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.setHomeOffset(dofname, new CorbaQuantity(offset.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -618,9 +1101,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.lock(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -635,9 +1118,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.lock2(dofname, lockerConvert(locker));
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -653,9 +1136,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.unlock(dofname, lockId);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -670,9 +1153,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.moveCheck(dofname, new CorbaQuantity(position.toString()));
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -681,15 +1164,57 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				"Communication failure: retry failed");
 	}
 
+	@Override
+	public MovePlan planMoves(String dofname, Quantity[] positions) throws MoveableException {
+		CorbaQuantity[] corbaPositions = new CorbaQuantity[positions.length];
+		for (int i = 0; i < positions.length; i++)
+			corbaPositions[i] = new CorbaQuantity(positions[i].toString());
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				return new MovePlan(dofname, positions, corbaOE.planMoves(dofname, corbaPositions));
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE, dofname),
+				"Communication failure: retry failed");
+	}
+
+	@Override
+	public MotionLatencySnapshot getMotionLatency(String moveableName) throws MoveableException {
+		for (int i = 0; i < NetService.RETRY; i++) {
+			try {
+				CorbaMotionLatency c = corbaOE.getMotionLatency(moveableName);
+				long[] counts = new long[c.counts.length];
+				for (int j = 0; j < counts.length; j++)
+					counts[j] = c.counts[j];
+				return new MotionLatencySnapshot(c.name, c.phases, counts, c.means, c.medians, c.percentiles90,
+						c.percentiles99, c.maxima);
+			} catch (COMM_FAILURE cf) {
+				reconnect();
+			} catch (TRANSIENT ct) {
+				reconnect();
+			} catch (CorbaMoveableException cme) {
+				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
+			}
+		}
+		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE, moveableName),
+				"Communication failure: retry failed");
+	}
+
 	@Override
 	public boolean isScannable(String dofname) throws MoveableException {
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				return corbaOE.isScannable(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -700,14 +1225,15 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 
 	@Override
 	public void refresh(String dofname) throws MoveableException {
+		invalidate(dofname);
 		for (int i = 0; i < NetService.RETRY; i++) {
 			try {
 				corbaOE.refresh(dofname);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -721,13 +1247,22 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 	}
 
 	private MoveableStatus corbaMoveableStatusConvert(CorbaMoveableStatus ods) {
-		String positionString = ods.position.valueString;
+		return new MoveableStatus(ods.value.value(), ods.moveableName, corbaQuantityConvert(ods.position), ods.id,
+				ods.message);
+	}
 
-		if (positionString.equals(""))
-			return new MoveableStatus(ods.value.value(), ods.moveableName, null, ods.id, ods.message);
+	private MoveableStatus statusValueConvert(QuantityCodec qc, CorbaStatusValue value) {
+		return new MoveableStatus(value.value.value(), value.moveableName, qc.decode(corbaOE, value.position), value.id,
+				value.message);
+	}
 
-		Quantity q = Quantity.valueOf(positionString);
-		return new MoveableStatus(ods.value.value(), ods.moveableName, q, ods.id, ods.message);
+	/*
+	 * An unknown position is sent as an empty string
+	 */
+	private Quantity corbaQuantityConvert(CorbaQuantity cq) {
+		if (cq.valueString.equals(""))
+			return null;
+		return Quantity.valueOf(cq.valueString);
 	}
 
 	@Override
@@ -763,9 +1298,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return Quantity.valueOf(corbaOE.getSoftLimitLower(dofname).valueString);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -780,9 +1315,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return Quantity.valueOf(corbaOE.getSoftLimitUpper(dofname).valueString);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -799,9 +1334,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 						new CorbaQuantity(time.toString()));
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -815,9 +1350,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.pushSpeed(dofname);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -831,9 +1366,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.popSpeed(dofname);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -846,9 +1381,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getMoveableNames(name);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -867,9 +1402,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			}
 		}
 		throw new MoveableException(new MoveableStatus(MoveableStatus.COMMUNICATION_FAILURE),
@@ -881,9 +1416,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 		try {
 			corbaOE.setDeviceAttribute(dofname, name, (org.omg.CORBA.Object) value);
 		} catch (COMM_FAILURE cf) {
-			corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+			reconnect();
 		} catch (TRANSIENT ct) {
-			corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+			reconnect();
 		} catch (CorbaMoveableException cme) {
 			throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 		}
@@ -896,9 +1431,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getDocString(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -913,9 +1448,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 		try {
 			corbaOE.setDocString(dofname, docString);
 		} catch (COMM_FAILURE cf) {
-			corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+			reconnect();
 		} catch (TRANSIENT ct) {
-			corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+			reconnect();
 		} catch (CorbaMoveableException cme) {
 			throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 		}
@@ -927,9 +1462,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getLowerGdaLimits(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -944,9 +1479,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getTolerance(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -961,9 +1496,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 			try {
 				return corbaOE.getUpperGdaLimits(dofname);
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -980,9 +1515,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setLowerGdaLimits(dofname,lowerLim);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -999,9 +1534,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setLowerGdaLimits2(dofname,lowerLim);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -1020,9 +1555,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setTolerance(dofname,tolerance);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -1039,9 +1574,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setTolerance2(dofname,tolerance);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -1058,9 +1593,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setUpperGdaLimits(dofname,upperLim);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -1077,9 +1612,9 @@ public class OeAdapter implements OE, EventSubscriber, Findable, RbacEnabledAdap
 				corbaOE.setUpperGdaLimits2(dofname,upperLim);
 				return;
 			} catch (COMM_FAILURE cf) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (TRANSIENT ct) {
-				corbaOE = CorbaOEHelper.narrow(netService.reconnect(name));
+				reconnect();
 			} catch (CorbaMoveableException cme) {
 				throw new MoveableException(corbaMoveableStatusConvert(cme.status), cme.message);
 			}
@@ -23,17 +23,27 @@ import gda.factory.corba.util.EventDispatcher;
 import gda.factory.corba.util.EventService;
 import gda.lockable.Locker;
 import gda.observable.IObserver;
+import gda.oe.MovePlan;
 import gda.oe.MoveableException;
+import gda.oe.MoveableReading;
 import gda.oe.MoveableStatus;
 import gda.oe.OE;
 import gda.oe.OEBase;
+import gda.oe.StopResult;
 import gda.oe.corba.CorbaLocker;
 import gda.oe.corba.CorbaOEPOA;
+import gda.oe.corba.CorbaOEPackage.CorbaMotionLatency;
+import gda.oe.corba.CorbaOEPackage.CorbaMoveableReading;
+import gda.oe.corba.CorbaOEPackage.CorbaReadingValue;
+import gda.oe.corba.CorbaOEPackage.CorbaStatusValue;
+import gda.oe.corba.CorbaOEPackage.CorbaStopResult;
 import gda.oe.corba.CorbaQuantity;
+import gda.oe.corba.CorbaQuantityValue;
 import gda.oe.corba.CorbaUnit;
 import gda.oe.dofs.corba.CorbaMoveableException;
 import gda.oe.dofs.corba.CorbaMoveableStatus;
 import gda.oe.dofs.corba.CorbaMoveableStatusValue;
+import gda.oe.util.MotionLatencySnapshot;
 import gda.util.QuantityFactory;
 
 import java.io.Serializable;
@@ -41,6 +51,7 @@ import java.util.ArrayList;
 
 import org.jscience.physics.quantities.Quantity;
 import org.jscience.physics.units.Unit;
+import org.omg.CORBA.IntHolder;
 
 /**
  * A server side implementation for a distributed OE class
@@ -61,6 +72,8 @@ public class OeImpl extends CorbaOEPOA implements IObserver {
 
 	private String name;
 
+	private final UnitTable unitTable = new UnitTable();
+
 	/**
 	 * Create server side implementation to the CORBA package.
 	 * 
@@ -139,6 +152,15 @@ public class OeImpl extends CorbaOEPOA implements IObserver {
 		}
 	}
 
+	@Override
+	public void flyTo(String dofname, CorbaQuantity position, CorbaQuantity speed) throws CorbaMoveableException {
+		try {
+			oe.flyTo(dofname, Quantity.valueOf(position.valueString), Quantity.valueOf(speed.valueString));
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
 	@Override
 	public int moveLockedTo(String dofname, CorbaQuantity position, int lockId) throws CorbaMoveableException {
 		try {
@@ -166,6 +188,22 @@ public class OeImpl extends CorbaOEPOA implements IObserver {
 		}
 	}
 
+	@Override
+	public CorbaStopResult[] emergencyStop(long deadline) throws CorbaMoveableException {
+		try {
+			StopResult[] results = oe.emergencyStop(deadline);
+			CorbaStopResult[] corbaResults = new CorbaStopResult[results.length];
+			for (int i = 0; i < results.length; i++) {
+				StopResult r = results[i];
+				corbaResults[i] = new CorbaStopResult(r.getOeName(), r.getDofName(), r.getTime(), r.isFinished(),
+						r.getFailure() == null ? "" : r.getFailure());
+			}
+			return corbaResults;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
 	@Override
 	public void stop2() throws CorbaMoveableException {
 		try {
@@ -299,6 +337,193 @@ public class OeImpl extends CorbaOEPOA implements IObserver {
 		}
 	}
 
+	@Override
+	public CorbaQuantity[] getPositions(String[] dofnames) throws CorbaMoveableException {
+		try {
+			Quantity[] positions = oe.getPositions(dofnames);
+			CorbaQuantity[] corbaPositions = new CorbaQuantity[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				corbaPositions[i] = quantityConvert(positions[i]);
+			}
+			return corbaPositions;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaMoveableStatus[] getStatuses(String[] dofnames) throws CorbaMoveableException {
+		try {
+			MoveableStatus[] statuses = oe.getStatuses(dofnames);
+			CorbaMoveableStatus[] corbaStatuses = new CorbaMoveableStatus[statuses.length];
+			for (int i = 0; i < statuses.length; i++) {
+				corbaStatuses[i] = dofStatusConvert(statuses[i]);
+			}
+			return corbaStatuses;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaMoveableReading[] getReadings(String[] dofnames, boolean refresh) throws CorbaMoveableException {
+		try {
+			MoveableReading[] readings = oe.getReadings(dofnames, refresh);
+			CorbaMoveableReading[] corbaReadings = new CorbaMoveableReading[readings.length];
+			for (int i = 0; i < readings.length; i++) {
+				MoveableReading r = readings[i];
+				String units = (r.getReportingUnits() != null) ? r.getReportingUnits().toString() : "";
+				corbaReadings[i] = new CorbaMoveableReading(r.getMoveableName(), quantityConvert(r.getPosition()),
+						new CorbaUnit(units), dofStatusConvert(r.getStatus()));
+			}
+			return corbaReadings;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public String[] getUnitTable(IntHolder epoch) {
+		epoch.value = unitTable.getEpoch();
+		return unitTable.getUnitStrings();
+	}
+
+	@Override
+	public int internUnit(String unitString) throws CorbaMoveableException {
+		try {
+			return unitTable.getId(unitString);
+		} catch (IllegalArgumentException e) {
+			throw unitError(name, e);
+		}
+	}
+
+	@Override
+	public void moveByValue(String dofname, CorbaQuantityValue increment) throws CorbaMoveableException {
+		try {
+			oe.moveBy(dofname, unitTable.decode(increment));
+		} catch (IllegalArgumentException e) {
+			throw unitError(dofname, e);
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public void moveToValue(String dofname, CorbaQuantityValue position) throws CorbaMoveableException {
+		try {
+			oe.moveTo(dofname, unitTable.decode(position));
+		} catch (IllegalArgumentException e) {
+			throw unitError(dofname, e);
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public int moveLockedToValue(String dofname, CorbaQuantityValue position, int lockId)
+			throws CorbaMoveableException {
+		try {
+			return oe.moveLockedTo(dofname, unitTable.decode(position), lockId);
+		} catch (IllegalArgumentException e) {
+			throw unitError(dofname, e);
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaQuantityValue getPositionValue(String dofname, int unitId) throws CorbaMoveableException {
+		try {
+			Unit<? extends Quantity> unit = unitTable.getUnit(unitId);
+			return unitTable.encode(unit == null ? oe.getPosition(dofname) : oe.getPosition(dofname, unit));
+		} catch (IllegalArgumentException e) {
+			throw unitError(dofname, e);
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaQuantityValue[] getPositionValues(String[] dofnames) throws CorbaMoveableException {
+		try {
+			Quantity[] positions = oe.getPositions(dofnames);
+			CorbaQuantityValue[] values = new CorbaQuantityValue[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				values[i] = unitTable.encode(positions[i]);
+			}
+			return values;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaStatusValue getStatusValue(String dofname) throws CorbaMoveableException {
+		try {
+			return statusValueConvert(oe.getStatus(dofname));
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaStatusValue[] getStatusValues(String[] dofnames) throws CorbaMoveableException {
+		try {
+			MoveableStatus[] statuses = oe.getStatuses(dofnames);
+			CorbaStatusValue[] values = new CorbaStatusValue[statuses.length];
+			for (int i = 0; i < statuses.length; i++) {
+				values[i] = statusValueConvert(statuses[i]);
+			}
+			return values;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public CorbaReadingValue[] getReadingValues(String[] dofnames, boolean refresh) throws CorbaMoveableException {
+		try {
+			MoveableReading[] readings = oe.getReadings(dofnames, refresh);
+			CorbaReadingValue[] values = new CorbaReadingValue[readings.length];
+			for (int i = 0; i < readings.length; i++) {
+				MoveableReading r = readings[i];
+				values[i] = new CorbaReadingValue(r.getMoveableName(), unitTable.encode(r.getPosition()), unitTable
+						.getId(r.getReportingUnits()), statusValueConvert(r.getStatus()));
+			}
+			return values;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public int getReportingUnitsId(String dofname) throws CorbaMoveableException {
+		try {
+			return unitTable.getId(oe.getReportingUnits(dofname));
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public int[] getAcceptableUnitIds(String dofname) throws CorbaMoveableException {
+		try {
+			ArrayList<Unit<? extends Quantity>> units = oe.getAcceptableUnits(dofname);
+			int[] unitIds = new int[units.size()];
+			for (int i = 0; i < unitIds.length; i++) {
+				unitIds[i] = unitTable.getId(units.get(i));
+			}
+			return unitIds;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	private CorbaMoveableException unitError(String dofname, IllegalArgumentException e) {
+		return new CorbaMoveableException(dofStatusConvert(new MoveableStatus(MoveableStatus.INCORRECT_QUANTITY,
+				dofname)), e.getMessage());
+	}
+
 	@Override
 	public void setSpeed(String dofname, CorbaQuantity speed) throws CorbaMoveableException {
 		try {
@@ -416,6 +641,37 @@ public class OeImpl extends CorbaOEPOA implements IObserver {
 		}
 	}
 
+	@Override
+	public CorbaMotionLatency getMotionLatency(String moveableName) throws CorbaMoveableException {
+		try {
+			MotionLatencySnapshot s = oe.getMotionLatency(moveableName);
+			long[] counts = s.getCounts();
+			int[] corbaCounts = new int[counts.length];
+			for (int i = 0; i < counts.length; i++)
+				corbaCounts[i] = (int) Math.min(Integer.MAX_VALUE, counts[i]);
+			return new CorbaMotionLatency(s.getName(), s.getPhases(), corbaCounts, s.getMeans(), s.getMedians(),
+					s.getPercentiles90(), s.getPercentiles99(), s.getMaxima());
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
+	@Override
+	public int[] planMoves(String dofname, CorbaQuantity[] positions) throws CorbaMoveableException {
+		Quantity[] quantities = new Quantity[positions.length];
+		for (int i = 0; i < positions.length; i++)
+			quantities[i] = Quantity.valueOf(positions[i].valueString);
+		try {
+			MovePlan plan = oe.planMoves(dofname, quantities);
+			int[] statuses = new int[plan.size()];
+			for (int i = 0; i < statuses.length; i++)
+				statuses[i] = plan.getStatus(i);
+			return statuses;
+		} catch (MoveableException me) {
+			throw new CorbaMoveableException(dofStatusConvert(me.getMoveableStatus()), me.getMessage());
+		}
+	}
+
 	@Override
 	public boolean isScannable(String dofname) throws CorbaMoveableException {
 		try {
@@ -430,15 +686,20 @@ public class OeImpl extends CorbaOEPOA implements IObserver {
 	}
 
 	private CorbaMoveableStatus dofStatusConvert(MoveableStatus ms) {
-		CorbaQuantity oq = null;
-		Quantity q = ms.getPosition();
-		if (q != null)
-			oq = new CorbaQuantity(q.toString());
-		else
-			oq = new CorbaQuantity("");
-
-		return new CorbaMoveableStatus(CorbaMoveableStatusValue.from_int(ms.value()), ms.getMoveableName(), oq,
-				ms.id(), ms.getMessage());
+		return new CorbaMoveableStatus(CorbaMoveableStatusValue.from_int(ms.value()), ms.getMoveableName(),
+				quantityConvert(ms.getPosition()), ms.id(), ms.getMessage());
+	}
+
+	private CorbaStatusValue statusValueConvert(MoveableStatus ms) {
+		return new CorbaStatusValue(CorbaMoveableStatusValue.from_int(ms.value()), ms.getMoveableName(), unitTable
+				.encode(ms.getPosition()), ms.id(), ms.getMessage());
+	}
+
+	/*
+	 * An unknown position is sent as an empty string
+	 */
+	private CorbaQuantity quantityConvert(Quantity q) {
+		return new CorbaQuantity(q != null ? q.toString() : "");
 	}
 
 	@Override
@@ -0,0 +1,174 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.corba.impl;
+
+import gda.oe.corba.CorbaOE;
+import gda.oe.corba.CorbaQuantityValue;
+import gda.oe.dofs.corba.CorbaMoveableException;
+import gda.util.QuantityFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.Unit;
+import org.omg.CORBA.BAD_OPERATION;
+import org.omg.CORBA.IntHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The client side of the compact quantity form used between OeAdapter and OeImpl. The first use after connecting reads
+ * the unit table of the server; if the server is too old to have one the codec reports that the compact form is not
+ * supported and the adapter keeps sending strings. Units are parsed once per id rather than once per quantity.
+ * 
+ * @see UnitTable
+ */
+public class QuantityCodec {
+
+	private static final Logger logger = LoggerFactory.getLogger(QuantityCodec.class);
+
+	private Boolean supported;
+
+	private volatile int epoch;
+
+	private volatile Unit<?>[] units = new Unit<?>[0];
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * Reads the unit table from the server the first time it is called after creation or reset.
+	 * 
+	 * @param oe
+	 *            the server
+	 * @return true if the server supports the compact form
+	 */
+	public synchronized boolean isSupported(CorbaOE oe) {
+		if (supported == null) {
+			try {
+				readTable(oe);
+				supported = Boolean.TRUE;
+			} catch (BAD_OPERATION e) {
+				logger.info("OE server does not support compact quantities, using strings");
+				supported = Boolean.FALSE;
+			}
+		}
+		return supported;
+	}
+
+	/**
+	 * Forgets the unit table, to be called when the adapter reconnects since the new server may have a different one.
+	 */
+	public synchronized void reset() {
+		supported = null;
+		epoch = 0;
+		units = new Unit<?>[0];
+		ids.clear();
+	}
+
+	private synchronized void readTable(CorbaOE oe) {
+		IntHolder tableEpoch = new IntHolder();
+		String[] unitStrings = oe.getUnitTable(tableEpoch);
+		Unit<?>[] newUnits = new Unit<?>[unitStrings.length];
+		for (int i = 0; i < unitStrings.length; i++) {
+			newUnits[i] = QuantityFactory.createUnitFromString(unitStrings[i]);
+		}
+		if (tableEpoch.value != epoch) {
+			ids.clear();
+		}
+		for (int i = 0; i < unitStrings.length; i++) {
+			ids.put(unitStrings[i], UnitTable.toId(tableEpoch.value, i));
+		}
+		epoch = tableEpoch.value;
+		units = newUnits;
+	}
+
+	/**
+	 * @param oe
+	 *            the server
+	 * @param id
+	 *            the id of a unit on the server
+	 * @return the unit or null if the id is UnitTable.NO_UNIT
+	 */
+	public Unit<? extends Quantity> getUnit(CorbaOE oe, int id) {
+		if (id == UnitTable.NO_UNIT) {
+			return null;
+		}
+		int index = UnitTable.indexOf(id);
+		Unit<?>[] u = units;
+		if (UnitTable.epochOf(id) != epoch || index >= u.length) {
+			// a unit added since the table was read
+			readTable(oe);
+			u = units;
+			if (UnitTable.epochOf(id) != epoch || index >= u.length) {
+				throw new IllegalArgumentException("unknown unit id " + id);
+			}
+		}
+		return UnitTable.cast(u[index]);
+	}
+
+	/**
+	 * @param oe
+	 *            the server
+	 * @param unit
+	 *            a unit
+	 * @return the id of the unit on the server
+	 * @throws CorbaMoveableException
+	 */
+	public int getId(CorbaOE oe, Unit<?> unit) throws CorbaMoveableException {
+		if (unit == null) {
+			return UnitTable.NO_UNIT;
+		}
+		String unitString = unit.toString();
+		Integer id = ids.get(unitString);
+		if (id == null) {
+			id = oe.internUnit(unitString);
+			ids.put(unitString, id);
+		}
+		return id;
+	}
+
+	/**
+	 * @param oe
+	 *            the server
+	 * @param value
+	 *            the compact form of a quantity
+	 * @return the quantity or null if there is none
+	 */
+	public Quantity decode(CorbaOE oe, CorbaQuantityValue value) {
+		Unit<? extends Quantity> unit = getUnit(oe, value.unitId);
+		return (unit == null) ? null : Quantity.valueOf(value.amount, unit);
+	}
+
+	/**
+	 * @param oe
+	 *            the server
+	 * @param quantity
+	 *            a quantity
+	 * @return the compact form of the quantity
+	 * @throws CorbaMoveableException
+	 */
+	public CorbaQuantityValue encode(CorbaOE oe, Quantity quantity) throws CorbaMoveableException {
+		if (quantity == null) {
+			return new CorbaQuantityValue(0.0, UnitTable.NO_UNIT);
+		}
+		return new CorbaQuantityValue(quantity.getAmount(), getId(oe, quantity.getUnit()));
+	}
+}
@@ -0,0 +1,215 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.corba.impl;
+
+import gda.oe.corba.CorbaQuantityValue;
+import gda.util.QuantityFactory;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.Unit;
+
+/**
+ * The server side table of units used by the compact form of the OE CORBA calls. Each unit is given an id the first
+ * time it is seen and a quantity is then sent as its amount and that id rather than as a string to be parsed.
+ * <p>
+ * Ids are never reused. The top half of each id is a random epoch chosen when the table is created so that an id held
+ * by a client from before a server restart is refused rather than taken for a different unit.
+ */
+public class UnitTable {
+
+	/**
+	 * The id sent for a missing quantity or unit
+	 */
+	public static final int NO_UNIT = -1;
+
+	private final int epoch;
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	private volatile Unit<?>[] units = new Unit<?>[0];
+
+	private final ArrayList<String> unitStrings = new ArrayList<String>();
+
+	/**
+	 * Creates an empty table with a random epoch.
+	 */
+	public UnitTable() {
+		this(new Random().nextInt(0x7fff) + 1);
+	}
+
+	/**
+	 * @param epoch
+	 *            the epoch, between 1 and 0x7fff
+	 */
+	UnitTable(int epoch) {
+		this.epoch = epoch;
+	}
+
+	/**
+	 * @return the epoch of this table
+	 */
+	public int getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * @param epoch
+	 *            the epoch of a table
+	 * @param index
+	 *            the index of a unit in the table
+	 * @return the id of the unit
+	 */
+	public static int toId(int epoch, int index) {
+		return (epoch << 16) | index;
+	}
+
+	/**
+	 * @param id
+	 *            an id
+	 * @return the epoch of the table the id came from
+	 */
+	public static int epochOf(int id) {
+		return id >>> 16;
+	}
+
+	/**
+	 * @param id
+	 *            an id
+	 * @return the index of the unit in its table
+	 */
+	public static int indexOf(int id) {
+		return id & 0xffff;
+	}
+
+	/**
+	 * @return the units in the table as strings, indexed by their position in the table
+	 */
+	public synchronized String[] getUnitStrings() {
+		return unitStrings.toArray(new String[unitStrings.size()]);
+	}
+
+	/**
+	 * Returns the id of a unit, adding it to the table if necessary.
+	 * 
+	 * @param unit
+	 *            the unit
+	 * @return the id of the unit or NO_UNIT if it is null
+	 */
+	public int getId(Unit<?> unit) {
+		if (unit == null) {
+			return NO_UNIT;
+		}
+		String unitString = unit.toString();
+		Integer id = ids.get(unitString);
+		return (id != null) ? id : add(unitString, unit);
+	}
+
+	/**
+	 * Returns the id of a unit, adding it to the table if necessary.
+	 * 
+	 * @param unitString
+	 *            the unit as a string
+	 * @return the id of the unit
+	 * @throws IllegalArgumentException
+	 *             if the string is not a unit
+	 */
+	public int getId(String unitString) {
+		Integer id = ids.get(unitString);
+		if (id != null) {
+			return id;
+		}
+		Unit<? extends Quantity> unit = QuantityFactory.createUnitFromString(unitString);
+		if (unit == null) {
+			throw new IllegalArgumentException("\"" + unitString + "\" is not a unit");
+		}
+		return add(unitString, unit);
+	}
+
+	private synchronized int add(String unitString, Unit<?> unit) {
+		Integer id = ids.get(unitString);
+		if (id != null) {
+			return id;
+		}
+		if (units.length > 0xffff) {
+			throw new IllegalStateException("UnitTable is full");
+		}
+		Unit<?>[] grown = new Unit<?>[units.length + 1];
+		System.arraycopy(units, 0, grown, 0, units.length);
+		grown[units.length] = unit;
+		id = toId(epoch, units.length);
+		unitStrings.add(unitString);
+		units = grown;
+		ids.put(unitString, id);
+		return id;
+	}
+
+	/**
+	 * @param id
+	 *            the id of a unit
+	 * @return the unit or null if the id is NO_UNIT
+	 * @throws IllegalArgumentException
+	 *             if the id is not from this table
+	 */
+	public Unit<? extends Quantity> getUnit(int id) {
+		if (id == NO_UNIT) {
+			return null;
+		}
+		Unit<?>[] u = units;
+		int index = indexOf(id);
+		if (epochOf(id) != epoch || index >= u.length) {
+			throw new IllegalArgumentException("unknown unit id " + id);
+		}
+		return cast(u[index]);
+	}
+
+	/**
+	 * @param quantity
+	 *            a quantity or null
+	 * @return the compact form of the quantity
+	 */
+	public CorbaQuantityValue encode(Quantity quantity) {
+		if (quantity == null) {
+			return new CorbaQuantityValue(0.0, NO_UNIT);
+		}
+		return new CorbaQuantityValue(quantity.getAmount(), getId(quantity.getUnit()));
+	}
+
+	/**
+	 * @param value
+	 *            the compact form of a quantity
+	 * @return the quantity or null if there is none
+	 * @throws IllegalArgumentException
+	 *             if the unit id is not from this table
+	 */
+	public Quantity decode(CorbaQuantityValue value) {
+		Unit<? extends Quantity> unit = getUnit(value.unitId);
+		return (unit == null) ? null : Quantity.valueOf(value.amount, unit);
+	}
+
+	@SuppressWarnings("unchecked")
+	static Unit<? extends Quantity> cast(Unit<?> unit) {
+		return (Unit<? extends Quantity>) unit;
+	}
+}
@@ -123,6 +123,64 @@ public final class CombinedDOF extends DOF {
 	// possible.
 	private Quantity lastPositionUsedToCalcMoveables = null, lastMovedToPosition = null;
 
+	private volatile Plan plan;
+
+	/**
+	 * What configure works out once about the conversion, so that updating the position and evaluating the limits do
+	 * not repeat it. The converter works on Quantities and so is still called for each conversion, but the result of
+	 * each reverse conversion is kept and reused while the positions (or limits) of the Moveables are unchanged, which
+	 * is most of the time for a DOF at the top of a hierarchy.
+	 */
+	private static final class Plan {
+		final boolean sourceMinIsTargetMax;
+
+		final Quantity invalidPosition;
+
+		final Conversion position = new Conversion();
+
+		final Conversion lowerLimits = new Conversion();
+
+		final Conversion upperLimits = new Conversion();
+
+		Plan(IQuantitiesConverter converter) {
+			sourceMinIsTargetMax = converter.sourceMinIsTargetMax();
+			invalidPosition = Quantity.valueOf(0.0, converter.getAcceptableUnits().get(0).get(0));
+		}
+	}
+
+	/**
+	 * The last reverse conversion of one kind.
+	 */
+	private static final class Conversion {
+		private Quantity[] targets;
+
+		private Quantity[] sources;
+
+		synchronized Quantity[] get(Quantity[] newTargets) {
+			if (targets == null || targets.length != newTargets.length) {
+				return null;
+			}
+			for (int i = 0; i < targets.length; i++) {
+				if (!same(targets[i], newTargets[i])) {
+					return null;
+				}
+			}
+			return sources;
+		}
+
+		synchronized void put(Quantity[] newTargets, Quantity[] newSources) {
+			targets = newTargets;
+			sources = newSources;
+		}
+
+		private static boolean same(Quantity a, Quantity b) {
+			if (a == b) {
+				return true;
+			}
+			return a != null && b != null && a.getAmount() == b.getAmount() && a.getUnit().equals(b.getUnit());
+		}
+	}
+
 	/**
 	 * Sets the quantities converter used by this DOF.
 	 * 
@@ -311,6 +369,7 @@ public final class CombinedDOF extends DOF {
 
 		// TODO need to respond to when the values returned by
 		// getConverter().ToSource are different
+		Plan p = plan;
 		int numMoveables = conversionOrderedMoveables.length;
 		Quantity targets[] = new Quantity[numMoveables];
 		for (int i = 0; i < numMoveables; i++) {
@@ -318,16 +377,16 @@ public final class CombinedDOF extends DOF {
 		}
 		Quantity newPosition = null;
 		try {
-			newPosition = getConverter().toSource(targets, conversionOrderedMoveables)[moveableToReport];
+			newPosition = toSource(p.position, targets)[moveableToReport];
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 		}
 		if (newPosition == null) {
-			setCurrentQuantity(Quantity.valueOf(0.0, getConverter().getAcceptableUnits().get(0).get(0)));
+			setCurrentQuantity(p.invalidPosition);
 			setPositionValid(false);
 		} else if (Double.isInfinite(newPosition.doubleValue())) {
-			logger.debug("CombinedDOF.UpdatePosition. NewValue for " + getName() + " is infinite. ");
-			setCurrentQuantity(Quantity.valueOf(0.0, getConverter().getAcceptableUnits().get(0).get(0)));
+			logger.debug("CombinedDOF.UpdatePosition. NewValue for {} is infinite. ", getName());
+			setCurrentQuantity(p.invalidPosition);
 			setPositionValid(false);
 		} else {
 			setCurrentQuantity(newPosition);
@@ -335,6 +394,28 @@ public final class CombinedDOF extends DOF {
 		}
 	}
 
+	/**
+	 * Converts positions or limits of the Moveables to this DOF, reusing the last result if they are unchanged.
+	 */
+	private Quantity[] toSource(Conversion conversion, Quantity[] targets) throws Exception {
+		Quantity[] sources = conversion.get(targets);
+		if (sources == null) {
+			sources = getConverter().toSource(targets, conversionOrderedMoveables);
+			conversion.put(targets, sources);
+		}
+		return sources;
+	}
+
+	/**
+	 * Rebuilds what configure worked out about the conversion and forgets the last conversions. This should be called
+	 * if the converter is changed or reloaded after configure.
+	 */
+	public void recompile() {
+		if (configuredCombinedDOF) {
+			plan = new Plan(getConverter());
+		}
+	}
+
 	private String getMoveableNames(Moveable[] moveablesToList) {
 		StringBuffer buffer = new StringBuffer();
 		for (Moveable moveable : moveablesToList) {
@@ -423,6 +504,7 @@ public final class CombinedDOF extends DOF {
 							"CombinedDOF.configure() : updatePositionFromMoveables is false but evalLowerLimit or evalUpperLimit is true ");
 				}
 			}
+			plan = new Plan(getConverter());
 			configuredCombinedDOF = true;
 		}
 	}
@@ -431,16 +513,17 @@ public final class CombinedDOF extends DOF {
 	public Quantity getSoftLimitLower() {
 		Quantity highest = getSoftLimitLowQuantity();
 		if (evalLowerLimit) {
+			Plan p = plan;
 			int numMoveables = conversionOrderedMoveables.length;
 			Quantity targets[] = new Quantity[numMoveables];
 			for (int i = 0; i < numMoveables; i++) {
-				targets[i] = getConverter().sourceMinIsTargetMax() ? conversionOrderedMoveables[i].getSoftLimitUpper()
+				targets[i] = p.sourceMinIsTargetMax ? conversionOrderedMoveables[i].getSoftLimitUpper()
 						: conversionOrderedMoveables[i].getSoftLimitLower();
 			}
 			// return the highest of the low limits of the moveables and
 			// this objects low limit
 			try {
-				Quantity[] SoftLimitLowers = getConverter().toSource(targets, conversionOrderedMoveables);
+				Quantity[] SoftLimitLowers = toSource(p.lowerLimits, targets);
 				for (Quantity q : SoftLimitLowers) {
 					if (q.compareTo(highest) > 0) {
 						highest = q;
@@ -457,17 +540,18 @@ public final class CombinedDOF extends DOF {
 	public Quantity getSoftLimitUpper() {
 		Quantity lowest = getSoftLimitHighQuantity();
 		if (evalUpperLimit) {
+			Plan p = plan;
 			int numMoveables = conversionOrderedMoveables.length;
 			Quantity targets[] = new Quantity[numMoveables];
 			for (int i = 0; i < numMoveables; i++) {
-				targets[i] = getConverter().sourceMinIsTargetMax() ? conversionOrderedMoveables[i].getSoftLimitLower()
+				targets[i] = p.sourceMinIsTargetMax ? conversionOrderedMoveables[i].getSoftLimitLower()
 						: conversionOrderedMoveables[i].getSoftLimitUpper();
 			}
 
 			// return the lowest of the high limits of the moveables and
 			// this objects high limit
 			try {
-				Quantity[] SoftLimitUppers = getConverter().toSource(targets, conversionOrderedMoveables);
+				Quantity[] SoftLimitUppers = toSource(p.upperLimits, targets);
 				for (Quantity q : SoftLimitUppers) {
 					if (q.compareTo(lowest) < 0) {
 						lowest = q;
@@ -572,17 +656,31 @@ public final class CombinedDOF extends DOF {
 		if (moveEnabled) {
 			super.doMove(mover, id);
 		} else {
-			// must do what super,doMove does wrt adding mover as an observer to
-			// ensure the unLock takes place
-			// and the DOFCommand completes properly
-			if (statusCode != MoveableStatus.READY) {
-				throw new MoveableException(new MoveableStatus(statusCode, getName(), getCurrentQuantity(), id),
-						"doMove - invalid status = " + statusCode);
-			}
-			logger.warn("doMove for " + getName() + " ignored as moveEnabled = False");
-			this.addIObserver((IObserver) mover);
-			notifyIObservers(this, new MoveableStatus(MoveableStatus.READY, getName(), getCurrentQuantity(), id));
+			ignoreMove(mover, id, "doMove");
 		}
 		lastMovedToPosition = lastPositionUsedToCalcMoveables;
 	}
+
+	@Override
+	public void doFly(Object mover, int id) throws MoveableException {
+		if (moveEnabled) {
+			super.doFly(mover, id);
+		} else {
+			ignoreMove(mover, id, "doFly");
+		}
+		lastMovedToPosition = lastPositionUsedToCalcMoveables;
+	}
+
+	private void ignoreMove(Object mover, int id, String method) throws MoveableException {
+		// must do what super,doMove does wrt adding mover as an observer to
+		// ensure the unLock takes place
+		// and the DOFCommand completes properly
+		if (statusCode != MoveableStatus.READY) {
+			throw new MoveableException(new MoveableStatus(statusCode, getName(), getCurrentQuantity(), id), method
+					+ " - invalid status = " + statusCode);
+		}
+		logger.warn(method + " for " + getName() + " ignored as moveEnabled = False");
+		this.addIObserver((IObserver) mover);
+		notifyIObservers(this, new MoveableStatus(MoveableStatus.READY, getName(), getCurrentQuantity(), id));
+	}
 }
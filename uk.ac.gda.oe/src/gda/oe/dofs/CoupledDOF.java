@@ -26,6 +26,7 @@ import gda.oe.MoveableException;
 import gda.oe.MoveableStatus;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.jscience.physics.quantities.Quantity;
 import org.jscience.physics.units.Unit;
@@ -42,6 +43,10 @@ public class CoupledDOF extends DOF {
 
 	private Function[] functions;
 
+	// true for the functions which return their argument, worked out at
+	// configure so that calculateMoveables need not call them
+	private boolean[] identities;
+
 	private ArrayList<Function> functionList = new ArrayList<Function>();
 
 	private ArrayList<String> functionNameList;
@@ -151,6 +156,11 @@ public class CoupledDOF extends DOF {
 
 		if (!(functions[0] instanceof IdentityFunction))
 			functions[0] = new IdentityFunction();
+
+		identities = new boolean[functions.length];
+		for (int i = 0; i < functions.length; i++) {
+			identities[i] = functions[i].getClass() == IdentityFunction.class;
+		}
 	}
 
 	/**
@@ -196,16 +206,21 @@ public class CoupledDOF extends DOF {
 	protected Quantity[] calculateMoveables(Quantity fromQuantity) {
 		Quantity rtrn[] = new Quantity[moveables.length];
 
-		logger.debug("CoupledDOF calculateMoveables returning ");
-
 		for (int i = 0; i < rtrn.length; i++) {
-			rtrn[i] = functions[i].evaluate(fromQuantity);
-			logger.debug("     " + rtrn[i]);
+			rtrn[i] = identities[i] ? fromQuantity : functions[i].evaluate(fromQuantity);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("CoupledDOF calculateMoveables returning " + Arrays.toString(rtrn));
 		}
 
 		return (rtrn);
 	}
 
+	@Override
+	protected boolean isPlanCacheable() {
+		return true;
+	}
+
 	/**
 	 * Returns the current position of the DOF
 	 * 
@@ -32,15 +32,21 @@ import gda.oe.MoveableStatus;
 import gda.oe.OEBase;
 import gda.oe.commands.AbsoluteMove;
 import gda.oe.commands.DOFCommand;
+import gda.oe.commands.FlyMove;
 import gda.oe.commands.HomeCommand;
 import gda.oe.commands.RelativeMove;
 import gda.oe.commands.SetPosition;
+import gda.oe.util.MotionLatency;
+import gda.oe.util.MovePlanCache;
 import gda.util.LoggingConstants;
 import gda.util.QuantityFactory;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.jscience.physics.quantities.Quantity;
 import org.jscience.physics.units.Unit;
@@ -110,6 +116,63 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 
 	protected ArrayList<Unit<? extends Quantity>> defaultAcceptableUnits;
 
+	private long notificationWindow = MoveableStatusDispatcher.DEFAULT_WINDOW;
+
+	private MoveableStatusDispatcher dispatcher;
+
+	private int settlingTime = 0;
+
+	private ScheduledFuture<?> settleTask;
+
+	private int settledId = -1;
+
+	// when the current settle stage began, see MotionLatency.start
+	private long settleStart;
+
+	private boolean coordinated = false;
+
+	private int trajectoryStepTime = 0;
+
+	// the target checked by the last checkMoveTo, used to plan a coordinated move
+	private Quantity moveTarget;
+
+	// the current or last coordinated move, kept until the next move or unlock so that the statuses of the
+	// Moveables are still counted against the ids of the last segments sent to them
+	private Trajectory trajectory;
+
+	private int planCacheSize = 0;
+
+	private MovePlanCache<Quantity[]> planCache;
+
+	// The statuses of the Moveables as last counted by updateStatus: how each one counts towards the DOF status and
+	// the totals. Valid only while countedId is the current id and no coordinated move is sending segments, otherwise
+	// updateStatus counts them all again.
+	private byte[] counted;
+
+	private int readyCount;
+
+	private int errorCount;
+
+	private int countedId = Integer.MIN_VALUE;
+
+	private static final byte NOT_COUNTED = 0;
+
+	private static final byte READY_COUNTED = 1;
+
+	private static final byte BUSY_COUNTED = 2;
+
+	private static final byte ERROR_COUNTED = 3;
+
+	// true when a Moveable has moved since currentQuantity was last worked out
+	private volatile boolean positionDirty = false;
+
+	private final MoveableStatusDispatcher.DeferredStatus positionUpdate = new MoveableStatusDispatcher.DeferredStatus() {
+		@Override
+		public MoveableStatus get() {
+			return deferredStatus();
+		}
+	};
+
 	/**
 	 * Constructor
 	 */
@@ -325,6 +388,7 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	 * @return quantity used
 	 */
 	public Quantity getCurrentQuantity() {
+		ensurePosition();
 		return currentQuantity;
 	}
 
@@ -375,6 +439,169 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 		this.protectionLevel = protectionLevel;
 	}
 
+	/**
+	 * Sets the window within which position updates of a moving DOF are coalesced before being sent to observers. Zero
+	 * sends every update and a negative value notifies observers synchronously on the calling thread as older versions
+	 * did.
+	 * 
+	 * @param notificationWindow
+	 *            the window in mS
+	 */
+	public void setNotificationWindow(long notificationWindow) {
+		this.notificationWindow = notificationWindow;
+		if (dispatcher != null) {
+			dispatcher.setWindow(notificationWindow);
+		}
+	}
+
+	/**
+	 * @return the window within which position updates are coalesced in mS
+	 */
+	public long getNotificationWindow() {
+		return notificationWindow;
+	}
+
+	/**
+	 * Notifies observers through this DOF's MoveableStatusDispatcher so that they are never called on the Positioner
+	 * polling threads and so that BUSY position updates are coalesced.
+	 * 
+	 * @param theObserver
+	 *            the observed component (this)
+	 * @param theArgument
+	 *            the change to communicate to the observing object
+	 */
+	@Override
+	public void notifyIObservers(Object theObserver, Object theArgument) {
+		if (notificationWindow < 0) {
+			long start = MotionLatency.start();
+			super.notifyIObservers(theObserver, theArgument);
+			if (theArgument instanceof MoveableStatus && ((MoveableStatus) theArgument).value() != MoveableStatus.BUSY)
+				getMotionLatency().record(MotionLatency.Phase.READY_PROPAGATION, start);
+		} else {
+			getDispatcher().dispatch(theObserver, theArgument);
+		}
+	}
+
+	/**
+	 * Sets the time to wait after the Moveables of this DOF report that a move has finished before the DOF itself
+	 * reports READY. The DOF reports BUSY while it settles. Zero (the default) means no settle stage.
+	 * 
+	 * @param settlingTime
+	 *            the settle time in mS
+	 */
+	public void setSettlingTime(int settlingTime) {
+		this.settlingTime = settlingTime;
+	}
+
+	/**
+	 * @return the settle time in mS
+	 */
+	public int getSettlingTime() {
+		return settlingTime;
+	}
+
+	/**
+	 * Sets whether moves are coordinated so that all the Moveables arrive at the same time. The speed of each Moveable
+	 * is set for the move (using setSpeed(start, end, time)) so that it takes as long as the slowest one and restored
+	 * afterwards. A move is done in the ordinary way if a Moveable cannot report its speed.
+	 * 
+	 * @param coordinated
+	 *            true to coordinate moves
+	 */
+	public void setCoordinated(boolean coordinated) {
+		this.coordinated = coordinated;
+	}
+
+	/**
+	 * @return true if moves are coordinated
+	 */
+	public boolean isCoordinated() {
+		return coordinated;
+	}
+
+	/**
+	 * Sets the time between the intermediate setpoints of a coordinated move. Each setpoint lies on the straight line
+	 * between the start and the target of the DOF so that, when the Moveables are not related linearly, they stay
+	 * close to the nominal geometry in between. Zero (the default) sends the target only.
+	 * 
+	 * @param trajectoryStepTime
+	 *            the time in mS
+	 */
+	public void setTrajectoryStepTime(int trajectoryStepTime) {
+		this.trajectoryStepTime = trajectoryStepTime;
+	}
+
+	/**
+	 * @return the time between the intermediate setpoints of a coordinated move in mS
+	 */
+	public int getTrajectoryStepTime() {
+		return trajectoryStepTime;
+	}
+
+	/**
+	 * Sets the number of targets for which the positions of the Moveables are remembered, so that a scan which visits
+	 * the same targets again does not work them out again. Zero (the default) remembers none. Ignored unless
+	 * isPlanCacheable is true.
+	 * 
+	 * @param planCacheSize
+	 *            the number of targets
+	 */
+	public synchronized void setPlanCacheSize(int planCacheSize) {
+		if (planCacheSize > 0 && !isPlanCacheable())
+			logger.warn("planCacheSize of " + getName()
+					+ " ignored as its Moveable positions depend on more than the target");
+		this.planCacheSize = planCacheSize;
+		planCache = null;
+	}
+
+	/**
+	 * Subclasses return true if calculateMoveables depends on nothing but the target (and the limits and offsets of
+	 * the Positioners) and changes no state, so that its results can be remembered. A DOF which uses the current
+	 * positions of its Moveables, such as one which keeps a gap width, must not.
+	 * 
+	 * @return false
+	 */
+	protected boolean isPlanCacheable() {
+		return false;
+	}
+
+	/**
+	 * @return the number of targets for which the positions of the Moveables are remembered
+	 */
+	public int getPlanCacheSize() {
+		return planCacheSize;
+	}
+
+	/**
+	 * @return the cache of Moveable positions, which reports its hit rate, or null if there is none
+	 */
+	public synchronized MovePlanCache<Quantity[]> getPlanCache() {
+		if (planCache == null && planCacheSize > 0 && isPlanCacheable())
+			planCache = new MovePlanCache<Quantity[]>(getName(), planCacheSize);
+		return planCache;
+	}
+
+	/**
+	 * @return true if the Moveables have finished a move and the DOF is waiting for the settle time to elapse
+	 */
+	public synchronized boolean isSettling() {
+		return settleTask != null;
+	}
+
+	private synchronized MoveableStatusDispatcher getDispatcher() {
+		if (dispatcher == null) {
+			dispatcher = new MoveableStatusDispatcher(new IObserver() {
+				@Override
+				public void update(Object theObserved, Object changeCode) {
+					DOF.super.notifyIObservers(theObserved, changeCode);
+				}
+			});
+			dispatcher.setWindow(notificationWindow);
+			dispatcher.setMotionLatency(getMotionLatency());
+		}
+		return dispatcher;
+	}
+
 	/**
 	 * Return password protection level of this DOF
 	 * 
@@ -458,6 +685,7 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	 */
 	@Override
 	public Quantity getPosition() {
+		ensurePosition();
 		return currentQuantity;
 	}
 
@@ -470,6 +698,7 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	 */
 	@Override
 	public Quantity getPosition(Unit<? extends Quantity> reportingUnits) {
+		ensurePosition();
 		Quantity q = Quantity.valueOf(1.0, reportingUnits);
 		Quantity position = null;
 		if (q.getUnit().getBaseUnits().equals(currentQuantity.getUnit().getBaseUnits()))
@@ -577,7 +806,9 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	protected int checkMoveMoveables(Quantity position, Object mover) {
 		int check = MoveableStatus.SUCCESS;
 
-		Quantity[] moveablePositions = calculateMoveables(position);
+		long start = MotionLatency.start();
+		Quantity[] moveablePositions = planMoveables(position);
+		getMotionLatency().record(MotionLatency.Phase.CALCULATE, start);
 		if (moveablePositions == null) {
 			check = MoveableStatus.ERROR;
 			unLockMoveables();
@@ -605,12 +836,67 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 		if (check == MoveableStatus.SUCCESS && !lock(mover)) {
 			check = MoveableStatus.ALREADY_LOCKED;
 		}
+		if (check == MoveableStatus.SUCCESS)
+			moveTarget = position;
 		return check;
 	}
 
+	/**
+	 * Checks the moves to a list of positions as checkMoveTo does, without leaving anything locked or changing the
+	 * target of the DOF. The DOF is locked for the whole check so that no move can be checked or started in between; if
+	 * it is already locked every position is reported as ALREADY_LOCKED and nothing is checked.
+	 * 
+	 * @param positions
+	 *            the positions to check
+	 * @return the MoveableStatus code of the check of each position
+	 */
+	public synchronized int[] checkMoves(Quantity[] positions) {
+		Object planner = new Object();
+		int[] statuses = new int[positions.length];
+		if (!lock(planner)) {
+			Arrays.fill(statuses, MoveableStatus.ALREADY_LOCKED);
+			return statuses;
+		}
+		Quantity target = moveTarget;
+		try {
+			for (int i = 0; i < positions.length; i++) {
+				statuses[i] = checkMoveTo(positions[i], planner);
+				unLockMoveables();
+			}
+		} finally {
+			moveTarget = target;
+			super.unLock(planner);
+		}
+		return statuses;
+	}
+
+	/**
+	 * calculateMoveables for an absolute move, using the plan cache if there is one.
+	 * 
+	 * @param position
+	 *            the requested position
+	 * @return the positions of the Moveables
+	 */
+	private Quantity[] planMoveables(Quantity position) {
+		MovePlanCache<Quantity[]> cache = getPlanCache();
+		if (cache == null || relativeMove)
+			return calculateMoveables(position);
+		Quantity[] plan = cache.get(position);
+		if (plan == null) {
+			long version = MovePlanCache.getConfigurationVersion();
+			plan = calculateMoveables(position);
+			if (plan == null)
+				return null;
+			cache.put(position, plan.clone(), version);
+			return plan;
+		}
+		return plan.clone();
+	}
+
 	@Override
 	public synchronized int checkMoveTo(Quantity position, Object mover) {
 		int check = MoveableStatus.SUCCESS;
+		long start = MotionLatency.start();
 
 		// get the DOF to convert targetQuantity to the correct subclass
 		Quantity newTargetQuantity = checkTarget(position);
@@ -624,6 +910,7 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 		if(check != MoveableStatus.SUCCESS){
 			logger.warn("move of " + getName() + " to " + position.toString() + " is not possible");
 		}
+		getMotionLatency().record(MotionLatency.Phase.CHECK, start);
 		return check;
 	}
 
@@ -745,15 +1032,47 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	public synchronized void doMove(Object mover, int id) throws MoveableException {
 		logger.debug("DOF doMove called mover is " + mover + " id is " + id);
 		if (lockedFor(mover)) {
+			cancelSettle();
+			dropTrajectory();
 			this.id = id;
 			this.addIObserver((IObserver) mover);
-			for (int i = 0; i < moveables.length; i++)
-				moveables[i].doMove(this, id);
+			if (coordinated && moveables.length > 1)
+				trajectory = Trajectory.plan(this, moveables, getPosition(), moveTarget, trajectoryStepTime);
+			if (trajectory != null) {
+				try {
+					trajectory.begin();
+				} catch (MoveableException e) {
+					endTrajectory();
+					throw e;
+				}
+			} else {
+				for (int i = 0; i < moveables.length; i++)
+					moveables[i].doMove(this, id);
+			}
 		} else
 			throw new MoveableException(new MoveableStatus(MoveableStatus.NOTLOCKED, getName()),
 					"DOF.doMove: lockedFor(mover) returned false");
 	}
 
+	/**
+	 * Starts the Moveables sweeping together to the checked target with no backlash or position correction. Unlike
+	 * doMove a coordinated move is not split into segments, the speeds set by the caller are used for the whole sweep.
+	 */
+	@Override
+	public synchronized void doFly(Object mover, int id) throws MoveableException {
+		logger.debug("DOF doFly called mover is {} id is {}", mover, id);
+		if (lockedFor(mover)) {
+			cancelSettle();
+			dropTrajectory();
+			this.id = id;
+			this.addIObserver((IObserver) mover);
+			for (int i = 0; i < moveables.length; i++)
+				moveables[i].doFly(this, id);
+		} else
+			throw new MoveableException(new MoveableStatus(MoveableStatus.NOTLOCKED, getName()),
+					"DOF.doFly: lockedFor(mover) returned false");
+	}
+
 	@Override
 	public synchronized void doSet(Object setter) throws MoveableException {
 		if (lockedFor(setter)) {
@@ -795,7 +1114,7 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 		for (int i = 0; i < moveables.length; i++)
 			rtrn = rtrn || moveables[i].isMoving();
 
-		if (lockedFor((Object) null) == false)
+		if (lockedFor((Object) null) == false || isSettling())
 			rtrn = true;
 
 		return (rtrn);
@@ -813,8 +1132,24 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 
 	@Override
 	public void stop() throws MoveableException {
+		synchronized (this) {
+			endTrajectory();
+		}
 		for (int i = 0; i < moveables.length; i++)
 			moveables[i].stop();
+
+		// A stopped move does not need to settle, report the real status now
+		MoveableStatus ms = null;
+		synchronized (this) {
+			settledId = id;
+			if (cancelSettle() && currentQuantity != null) {
+				updateStatus();
+				ms = new MoveableStatus(statusCode, getName(), currentQuantity, id, errorMessage);
+				errorMessage = null;
+			}
+		}
+		if (ms != null)
+			notifyIObservers(this, ms);
 	}
 
 	/**
@@ -835,6 +1170,8 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 			// id -1, this ensures that in updateStatus they take into
 			// account the status of all of their positioners, some of
 			// which may be moving independently.
+			cancelSettle();
+			dropTrajectory();
 			id = -1;
 			return (super.unLock(unLocker));
 		}
@@ -868,9 +1205,12 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 			return;
 		}
 
-		MoveableStatus ms = updateNoNotify(o, arg);
-		if (ms != null)
-			notifyIObservers(this, ms);
+		Object notification;
+		synchronized (this) {
+			notification = update(o, arg, notificationWindow > 0);
+		}
+		if (notification != null)
+			notifyIObservers(this, notification);
 	}
 
 	/**
@@ -879,54 +1219,98 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	 * @return MoveableStatus
 	 */
 	public synchronized MoveableStatus updateNoNotify(Object o, Object arg) {
-		MoveableStatus ds = null;
+		return (MoveableStatus) update(o, arg, false);
+	}
+
+	/**
+	 * Brings the status up to date after a notification from a Moveable and works out what to tell the observers.
+	 * While a move goes on (BUSY followed by BUSY) the observers only need the latest position and the dispatcher
+	 * coalesces these, so if allowed the position is not worked out here but when the notification is delivered.
+	 *
+	 * @param o
+	 *            Observable making the call
+	 * @param arg
+	 *            argument that observable passed to notifyObservers
+	 * @param deferPosition
+	 *            true if the position may be worked out later
+	 * @return the notification for the observers, a MoveableStatus, positionUpdate or null
+	 */
+	private Object update(Object o, Object arg, boolean deferPosition) {
+		int previousStatusCode = statusCode;
 
 		if (o instanceof Moveable) {
 			Moveable m = (Moveable) o;
-			logger.debug( "DOF " + getName() + " update called by moveable " + m.getName());
+			logger.debug("DOF {} update called by moveable {}", getName(), m.getName());
 
 			// Which Moveable are we dealing with
 			for (int i = 0; i < moveables.length; i++) {
 				if (m == moveables[i]) {
-					// recalculate the position from position of the Moveables
-					updatePosition();
-
 					// update the array of Moveable statuses
 					if (arg instanceof MoveableStatus) {
 						lastDOFStatus[i] = ((MoveableStatus) arg);
-						logger.debug( "     arg is " + arg);
-						logger.debug( "     ((MoveableStatus)arg).value " + ((MoveableStatus) arg).value());
-
+						logger.debug("     arg is {}", arg);
+						if (trajectory != null && !trajectory.isEnded())
+							followTrajectory(i);
 					}
 
 					// recalculate the overall status of the DOF from the
 					// statuses of the Moveables
-					updateStatus();
+					updateStatus(i);
 
+					if (deferPosition && previousStatusCode == MoveableStatus.BUSY
+							&& statusCode == MoveableStatus.BUSY && currentQuantity != null) {
+						positionDirty = true;
+						return positionUpdate;
+					}
+
+					// recalculate the position from position of the Moveables
+					positionDirty = false;
+					updatePosition();
 					break;
 				}
 			}
 		} else {
-			if (o == null) {
-				logger.debug( "DOF update called by empty object ");
-
-			} else {
-
-				logger.debug( "DOF update called by object " + o);
-
-			}
+			logger.debug("DOF update called by object {}", o);
+			positionDirty = false;
 			updatePosition();
 			updateStatus();
 		}
 
 		// notify observers with a MoveableStatus (containing a possible error
 		// message from one of the moveables).
+		MoveableStatus ds = null;
 		if (currentQuantity != null) {
 			ds = new MoveableStatus(statusCode, getName(), currentQuantity, id, errorMessage);
 			errorMessage = null;
 		}
 		return ds;
+	}
+
+	/**
+	 * Works out the position from the Moveables if they have moved since it was last worked out.
+	 */
+	private void ensurePosition() {
+		if (positionDirty) {
+			synchronized (this) {
+				if (positionDirty) {
+					positionDirty = false;
+					updatePosition();
+				}
+			}
+		}
+	}
 
+	/**
+	 * @return the status to deliver in place of positionUpdate, or null if the DOF is no longer BUSY since the status
+	 *         which ended the move is then sent to observers by itself
+	 */
+	private synchronized MoveableStatus deferredStatus() {
+		if (statusCode != MoveableStatus.BUSY)
+			return null;
+		ensurePosition();
+		if (currentQuantity == null)
+			return null;
+		return new MoveableStatus(MoveableStatus.BUSY, getName(), currentQuantity, id, null);
 	}
 
 	/**
@@ -936,50 +1320,223 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 	 * updated during the overall update.
 	 */
 	public synchronized void updateStatus() {
-		int thisStatusCode;
-		int readyCount = 0;
-		int errorCount = 0;
-		String message;
+		if (counted == null || counted.length != moveables.length)
+			counted = new byte[moveables.length];
+		readyCount = 0;
+		errorCount = 0;
+		for (int i = 0; i < moveables.length; i++) {
+			counted[i] = count(i, lastDOFStatus[i]);
+		}
+		countedId = id;
+		statusFromCounts();
+	}
 
-		message = "MoveableStatus update for " + getName() + "(ID " + id + "), stati ";
+	/**
+	 * Updates the DOF's overall status after the status of one Moveable has changed. Only that Moveable is counted
+	 * again unless the id of the move has changed since the last count or a coordinated move may have sent segments
+	 * to the others.
+	 *
+	 * @param index
+	 *            the index of the Moveable
+	 */
+	private void updateStatus(int index) {
+		if (countedId != id || counted == null || counted.length != moveables.length
+				|| (trajectory != null && !trajectory.isEnded())) {
+			updateStatus();
+			return;
+		}
+		if (counted[index] == READY_COUNTED)
+			readyCount--;
+		else if (counted[index] == ERROR_COUNTED)
+			errorCount--;
+		counted[index] = count(index, lastDOFStatus[index]);
+		statusFromCounts();
+	}
 
-		for (int i = 0; i < moveables.length; i++) {
-			message += "[" + lastDOFStatus[i].id() + "," + lastDOFStatus[i].value() + "] ";
-
-			// If id is -1 then this DOF is not actively taking part in a
-			// move and can take notice of any Moveable status it gets (one
-			// or more Moveable may be moving because some other DOF is
-			// moving). If id is not -1 then this DOF is actively involved
-			// in a move and should take notice only of Moveables which send
-			// the same id
-			if ((id < 0) || (lastDOFStatus[i].id() == id)) {
-				thisStatusCode = lastDOFStatus[i].value();
-				switch (thisStatusCode) {
-				case MoveableStatus.READY:
-				case MoveableStatus.SUCCESS:
-					readyCount++;
-					break;
-				case MoveableStatus.BUSY:
-					break;
-				default:
-					errorCount++;
-					statusCode = thisStatusCode;
+	/**
+	 * Works out how a Moveable's status counts towards the status of the DOF and adds it to the totals.
+	 *
+	 * @param index
+	 *            the index of the Moveable
+	 * @param status
+	 *            the status of the Moveable
+	 * @return how the status was counted
+	 */
+	private byte count(int index, MoveableStatus status) {
+		// If id is -1 then this DOF is not actively taking part in a
+		// move and can take notice of any Moveable status it gets (one
+		// or more Moveable may be moving because some other DOF is
+		// moving). If id is not -1 then this DOF is actively involved
+		// in a move and should take notice only of Moveables which send
+		// the same id
+		if ((id >= 0) && (status.id() != expectedId(index)))
+			return NOT_COUNTED;
+		switch (status.value()) {
+		case MoveableStatus.READY:
+		case MoveableStatus.SUCCESS:
+			readyCount++;
+			return READY_COUNTED;
+		case MoveableStatus.BUSY:
+			return BUSY_COUNTED;
+		default:
+			errorCount++;
+			return ERROR_COUNTED;
+		}
+	}
+
+	/**
+	 * @param index
+	 *            the index of a Moveable
+	 * @return the id which the Moveable reports for the current move, during a coordinated move that of the last
+	 *         segment sent to it
+	 */
+	private int expectedId(int index) {
+		return (trajectory != null && id >= 0) ? trajectory.getSentId(index) : id;
+	}
+
+	private void statusFromCounts() {
+		if (errorCount > 0) {
+			for (int i = counted.length - 1; i >= 0; i--) {
+				if (counted[i] == ERROR_COUNTED) {
+					statusCode = lastDOFStatus[i].value();
 					errorMessage = lastDOFStatus[i].getMessage();
 					break;
 				}
 			}
+		} else if (readyCount == moveables.length)
+			statusCode = MoveableStatus.READY;
+		else
+			statusCode = MoveableStatus.BUSY;
+
+		if (trajectory != null && !trajectory.isEnded())
+			followTrajectory();
+		if (settlingTime > 0 && id >= 0)
+			settle();
+
+		if (logger.isDebugEnabled()) {
+			StringBuilder message = new StringBuilder("MoveableStatus update for ").append(getName()).append("(ID ")
+					.append(id).append("), stati ");
+			for (MoveableStatus status : lastDOFStatus) {
+				message.append('[').append(status.id()).append(',').append(status.value()).append("] ");
+			}
+			logger.debug(LoggingConstants.FINEST, message.append("=> ").append(statusCode).toString());
+		}
+	}
+
+	/**
+	 * During a coordinated move the Moveables are READY at the end of each segment, this stays BUSY until the last
+	 * one has been sent to all of them and they have finished it. Any other status ends the move.
+	 */
+	private void followTrajectory() {
+		if (statusCode == MoveableStatus.READY && !trajectory.isComplete()) {
+			statusCode = MoveableStatus.BUSY;
+		} else if (statusCode != MoveableStatus.BUSY) {
+			endTrajectory();
+		}
+	}
+
+	/**
+	 * Passes a new status of a Moveable to the coordinated move, which sends it the current segment if it was behind.
+	 * If that fails the failure becomes the status of the Moveable so that it is counted as an error.
+	 * 
+	 * @param index
+	 *            the index of the Moveable
+	 */
+	private void followTrajectory(int index) {
+		MoveableStatus status = lastDOFStatus[index];
+		try {
+			trajectory.moveableUpdated(index, status);
+		} catch (MoveableException e) {
+			logger.error("DOF " + getName() + " coordinated move failed", e);
+			lastDOFStatus[index] = new MoveableStatus(e.getMoveableStatus().value(), status.id(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Sends the next segment of a coordinated move, called by its timer.
+	 * 
+	 * @param t
+	 *            the coordinated move
+	 */
+	void nextSegment(Trajectory t) {
+		MoveableStatus ms = null;
+		synchronized (this) {
+			if (trajectory != t || t.isEnded())
+				return;
+			try {
+				t.sendSegment();
+			} catch (MoveableException e) {
+				logger.error("DOF " + getName() + " coordinated move failed", e);
+				endTrajectory();
+				statusCode = e.getMoveableStatus().value();
+				ms = new MoveableStatus(statusCode, getName(), currentQuantity, id, e.getMessage());
+			}
 		}
+		if (ms != null)
+			notifyIObservers(this, ms);
+	}
+
+	private synchronized void endTrajectory() {
+		if (trajectory != null)
+			trajectory.end();
+	}
 
-		if (errorCount == 0) {
-			if (readyCount == moveables.length)
-				statusCode = MoveableStatus.READY;
-			else
-				statusCode = MoveableStatus.BUSY;
+	private synchronized void dropTrajectory() {
+		endTrajectory();
+		trajectory = null;
+	}
+
+	/**
+	 * Holds back the READY at the end of a move until the settle time has elapsed. The DOF stays BUSY meanwhile and a
+	 * timer reports READY to the observers, so neither the mover nor the thread which delivered the READY waits. Any
+	 * other status ends the settle stage. Called from updateStatus with the lock held.
+	 */
+	private void settle() {
+		if (statusCode != MoveableStatus.READY) {
+			cancelSettle();
+		} else if (settledId != id) {
+			statusCode = MoveableStatus.BUSY;
+			if (settleTask == null) {
+				final int moveId = id;
+				logger.debug("DOF {} settling for {} mS", getName(), settlingTime);
+				settleStart = MotionLatency.start();
+				settleTask = MoveableStatusDispatcher.getSharedExecutor().schedule(new Runnable() {
+					@Override
+					public void run() {
+						settled(moveId);
+					}
+				}, settlingTime, TimeUnit.MILLISECONDS);
+			}
 		}
-		message += "=> " + statusCode;
+	}
 
-		logger.debug(LoggingConstants.FINEST, message);
+	private void settled(int moveId) {
+		MoveableStatus ms = null;
+		synchronized (this) {
+			if (settleTask == null || id != moveId)
+				return;
+			settleTask = null;
+			settledId = moveId;
+			getMotionLatency().record(MotionLatency.Phase.SETTLE, settleStart);
+			updateStatus();
+			if (currentQuantity != null) {
+				ms = new MoveableStatus(statusCode, getName(), currentQuantity, id, errorMessage);
+				errorMessage = null;
+			}
+		}
+		if (ms != null)
+			notifyIObservers(this, ms);
+	}
 
+	/**
+	 * @return true if a settle stage was pending
+	 */
+	private synchronized boolean cancelSettle() {
+		if (settleTask == null)
+			return false;
+		settleTask.cancel(false);
+		settleTask = null;
+		return true;
 	}
 
 	/**
@@ -1097,6 +1654,23 @@ public abstract class DOF extends AbstractMoveable implements IObserver, Findabl
 		return new AbsoluteMove(this, position);
 	}
 
+	/**
+	 * Returns a DOFCommand which can be used to sweep to the specified position. Subclasses which do not move by
+	 * driving their Moveables together override this to refuse.
+	 * 
+	 * @param position
+	 *            the end of the sweep
+	 * @param speed
+	 *            the speed of the DOF during the sweep
+	 * @return A FlyMove to sweep the DOF to that position
+	 * @throws MoveableException
+	 *             if a sweep cannot be created (never true in base class).
+	 */
+	@Override
+	public DOFCommand createFlyMover(Quantity position, Quantity speed) throws MoveableException {
+		return new FlyMove(this, position, speed);
+	}
+
 	/**
 	 * Returns a DOFCommand which can be used to carry out a move by the specified increment. Subclasses override this
 	 * if a simple RelativMove is not enough.
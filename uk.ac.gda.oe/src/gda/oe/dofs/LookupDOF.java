@@ -37,7 +37,6 @@ import java.util.Vector;
 
 import org.jscience.physics.quantities.Quantity;
 import org.jscience.physics.units.Unit;
-import org.nfunk.jep.JEP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,6 +79,14 @@ public class LookupDOF extends DOF implements Serializable {
 
 	private HashMap<String, MoveableFunctions> moveableFunctions = new HashMap<String, MoveableFunctions>();
 
+	// for each moveable the compiled function which calculates its position
+	// (or null if it is interpolated from the lookup table) and the index of
+	// the moveable whose position is the function's variable (-1 means the
+	// position being moved to), worked out once in configure
+	private MoveableFunctions[] functions;
+
+	private int[] functionVariables;
+
 	/**
 	 * Constructor.
 	 */
@@ -91,6 +98,7 @@ public class LookupDOF extends DOF implements Serializable {
 	public void configure() throws FactoryException {
 
 		super.configure();
+		compileFunctions();
 		switch (getMode()) {
 		case LOOKUP:
 			loadLookupTable();
@@ -114,6 +122,39 @@ public class LookupDOF extends DOF implements Serializable {
 		// not used
 	}
 
+	/*
+	 * Parses each moveable's function once and finds which moveable supplies its variable so that calculateMoveables
+	 * does not have to build a new parser or search by name on every move.
+	 */
+	private void compileFunctions() {
+		functions = new MoveableFunctions[moveables.length];
+		functionVariables = new int[moveables.length];
+		MoveableFunctions main = moveableFunctions.get(moveables[0].getName());
+		String mainIndex = (main != null) ? main.getIndex() : null;
+
+		for (int i = 0; i < moveables.length; i++) {
+			MoveableFunctions mvf = moveableFunctions.get(moveables[i].getName());
+			if (mvf == null || mvf.getFunction() == null) {
+				continue;
+			}
+			String var = findVariable(mvf.getFunction());
+			mvf.compile(var);
+			functions[i] = mvf;
+			// if the variable name in the function description is the same
+			// as the main dof index then the move to position is used to
+			// calculate the function value rather than a current position
+			if (var.equals(mainIndex)) {
+				functionVariables[i] = -1;
+			} else {
+				functionVariables[i] = findMoveableFromIndex(var);
+				if (functionVariables[i] < 0) {
+					logger.error("LookupDOF " + getName() + " no moveable has function index " + var + " used by "
+							+ mvf.getFunction());
+				}
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	// method to load the lookup values from file to a HashMap, with the dof
 	// name
@@ -235,50 +276,22 @@ public class LookupDOF extends DOF implements Serializable {
 			// moveableposmin + alpha *(moveableposmax - moveableposmin)
 
 			logger.debug("the value is " + q + " " + pos);
-			// find the functionIndex of the main Moveable
-			String mainIndex = moveableFunctions.get(moveables[0].getName()).getIndex();
-
 			for (int i = 0; i < moveables.length; i++) {
 				if ((i + 1) == lookupMoveables[i]) {
-					String name = moveables[i].getName();
-					logger.debug("the name of moveable " + name);
-					String func = getFuntionDesc(name);
-					// System.out.println("the function description is " +
-					// func);
 					// for each of the dof first check if there is a
-					// function
-					// associated
-					// with it, if it is use the function to calculation the
-					// position
-					// instead of the lookup file
-					if (func != null) {
-						String var = findVariable(func);
-						int len = func.length();
-						JEP myParser = new JEP();
-						myParser.addStandardFunctions();
-						myParser.addStandardConstants();
+					// function associated with it, if it is use the
+					// function to calculation the position instead of the
+					// lookup file
+					MoveableFunctions function = functions[i];
+					if (function != null) {
+						int var = functionVariables[i];
 						double posi = Double.NaN;
-						// if the variable name in the function description is
-						// the
-						// same as the
-						// main dof index then use the moveto position to
-						// calculate
-						// function value, rather than
-						// the current position.
-						if (mainIndex.equals(var))
+						if (var == -1)
 							posi = pos;
-						else
-							posi = getPositionfromIndex(var).getAmount();
-						// logger.debug("after finding position of var "+
-						// posi);
-						myParser.addVariable(var, posi);
-						myParser.parseExpression(func.substring(1, len - 1));
-						// logger.debug("after parsing expression " +
-						// func.substring(1, len - 1) );
-						double result = myParser.getValue();
-						// logger.debug("the result is " + result);
+						else if (var >= 0)
+							posi = moveables[var].getPosition().getAmount();
+						double result = function.evaluate(posi);
 						rtn[i] = Quantity.valueOf(result, moveables[i].getAcceptableUnits().get(0));
-						// logger.debug("the ret value is " + rtn[i]);
 						continue;
 					}
 					// if there is no function associated with a dof then
@@ -324,15 +337,6 @@ public class LookupDOF extends DOF implements Serializable {
 		return null;
 	}
 
-	// return the function associated with a particular moveable name
-	private String getFuntionDesc(String name) {
-		if (moveableFunctions.containsKey(name)) {
-			String desc = (moveableFunctions.get(name)).getFunction();
-			return desc;
-		}
-		return null;
-	}
-
 	@Override
 	protected Quantity checkTarget(Quantity newQuantity) {// needs to
 		// change
@@ -508,19 +512,17 @@ public class LookupDOF extends DOF implements Serializable {
 		}
 	}
 
-	private Quantity getPositionfromIndex(String Index) {
-		if (moveableFunctions != null && !moveableFunctions.isEmpty()) {
-			// ArrayList<String> arr = new ArrayList<String>();
-			Object[] c = moveableFunctions.values().toArray();
-			for (int i = 0; i < c.length; i++)
-				if (((MoveableFunctions) c[i]).getIndex().equals(Index)) {
-					String name = ((MoveableFunctions) c[i]).getMoveableName();
-					for (int j = 0; j < moveables.length; j++)
-						if (moveables[j].getName().equals(name))
-							return moveables[j].getPosition();
-				}
+	// return the position in moveables of the moveable with the given function
+	// index or -1 if there is none
+	private int findMoveableFromIndex(String index) {
+		for (MoveableFunctions mvf : moveableFunctions.values()) {
+			if (index.equals(mvf.getIndex())) {
+				for (int j = 0; j < moveables.length; j++)
+					if (moveables[j].getName().equals(mvf.getMoveableName()))
+						return j;
+			}
 		}
-		return null;
+		return -1;
 	}
 
 }
@@ -19,64 +19,25 @@
 
 package gda.oe.dofs;
 
-import gda.observable.IObserver;
-import gda.oe.MoveableException;
-import gda.oe.MoveableStatus;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * This class extends the MonoDOF class. It waits after every move to allow a settle time for the mono. The value is in
- * seconds and is altered by accessor functions.
+ * seconds and is altered by accessor functions. The wait uses the settle stage of DOF so the move itself returns at
+ * once and the DOF reports BUSY until the settle time has elapsed.
  */
 public class MonoWithSettleTimeDOF extends MonoDOF {
-	private static final Logger logger = LoggerFactory.getLogger(MonoWithSettleTimeDOF.class);
-
-	// the settle time in seconds
-	private double settleTime = 0.0;
 
 	/**
 	 * @param settleTime
+	 *            the settle time in seconds
 	 */
 	public void setSettleTime(double settleTime) {
-		this.settleTime = settleTime;
+		setSettlingTime((int) Math.round(settleTime * 1000.0));
 	}
 
 	/**
-	 * @return settleTime
+	 * @return settleTime in seconds
 	 */
 	public double getSettleTime() {
-		return settleTime;
-	}
-
-	@Override
-	public synchronized void doMove(Object mover, int id) throws MoveableException {
-		logger.debug("DOF doMove called mover is " + mover + " id is " + id);
-		if (lockedFor(mover)) {
-			this.id = id;
-			this.addIObserver((IObserver) mover);
-			for (int i = 0; i < moveables.length; i++) {
-				moveables[i].doMove(this, id);
-			}
-
-			// extra code
-
-			try {
-				// wait until all moveables have finished
-				for (int i = 0; i < moveables.length; i++) {
-					while (moveables[i].isMoving()) {
-						Thread.sleep(250);
-					}
-				}
-
-				// wait for the settle time
-				Thread.sleep((int) settleTime * 1000);
-			} catch (InterruptedException ex) {
-			}
-		} else {
-			throw new MoveableException(new MoveableStatus(MoveableStatus.NOTLOCKED, getName()),
-					"MonoWithSettleTimeDOF.doMove: lockedFor(mover) returned false");
-		}
+		return getSettlingTime() / 1000.0;
 	}
 }
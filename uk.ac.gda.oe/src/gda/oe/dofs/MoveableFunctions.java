@@ -19,10 +19,16 @@
 
 package gda.oe.dofs;
 
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.Variable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * MoveableFunctions Class
  */
 public class MoveableFunctions {
+	private static final Logger logger = LoggerFactory.getLogger(MoveableFunctions.class);
 
 	private String moveableName;
 
@@ -32,6 +38,11 @@ public class MoveableFunctions {
 
 	private boolean functionAvailable = false;
 
+	// the function parsed once by compile() and reused by evaluate()
+	private JEP parser;
+
+	private Variable variable;
+
 	/**
 	 * @return function
 	 */
@@ -44,6 +55,8 @@ public class MoveableFunctions {
 	 */
 	public void setFunction(String function) {
 		this.function = function;
+		parser = null;
+		variable = null;
 	}
 
 	/**
@@ -80,4 +93,43 @@ public class MoveableFunctions {
 	public boolean isFunctionAvailable() {
 		return functionAvailable;
 	}
+
+	/**
+	 * Parses the function (which is enclosed in brackets) once so that evaluate only has to set the value of its
+	 * variable.
+	 * 
+	 * @param variableName
+	 *            the name of the variable used in the function
+	 */
+	public synchronized void compile(String variableName) {
+		JEP jep = new JEP();
+		jep.addStandardFunctions();
+		jep.addStandardConstants();
+		jep.addVariable(variableName, 0.0);
+		jep.parseExpression(function.substring(1, function.length() - 1));
+		if (jep.hasError()) {
+			logger.error("Error parsing function " + function + " for " + moveableName + ": " + jep.getErrorInfo());
+		}
+		parser = jep;
+		variable = jep.getVar(variableName);
+	}
+
+	/**
+	 * @return true if compile has been called since the function was last set
+	 */
+	public synchronized boolean isCompiled() {
+		return parser != null;
+	}
+
+	/**
+	 * Evaluates the compiled function.
+	 * 
+	 * @param value
+	 *            the value of the variable
+	 * @return the value of the function
+	 */
+	public synchronized double evaluate(double value) {
+		variable.setValue(value);
+		return parser.getValue();
+	}
 }
@@ -0,0 +1,280 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.dofs;
+
+import gda.configuration.properties.LocalProperties;
+import gda.observable.IObserver;
+import gda.oe.MoveableStatus;
+import gda.oe.util.MotionLatency;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notification stage between a DOF and its observers. Notifications are delivered in order on a shared executor so
+ * that observers (including the CORBA OeImpl which publishes to the event server) never block the Positioner polls
+ * which drive DOF.update.
+ * <p>
+ * A BUSY status which follows another BUSY status only carries a new position, so these are coalesced: at most one is
+ * delivered per window and it is always the latest. Any change of status value (e.g. BUSY to READY, or an error) and
+ * any other kind of notification is queued immediately, replacing a coalesced BUSY which has not yet been sent.
+ * <p>
+ * A DeferredStatus is a BUSY status which is only worked out when it is delivered, so one which is coalesced costs
+ * nothing.
+ * <p>
+ * The number of threads delivering notifications for all DOFs is set by the property
+ * {@value #DISPATCHER_THREADS_PROPERTY} and defaults to the number of available processors.
+ */
+public class MoveableStatusDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(MoveableStatusDispatcher.class);
+
+	/**
+	 * A BUSY status which is worked out when it is delivered.
+	 */
+	public interface DeferredStatus {
+		/**
+		 * @return the status to deliver or null to deliver nothing
+		 */
+		MoveableStatus get();
+	}
+
+	/**
+	 * Property which sets the number of threads used to deliver DOF notifications
+	 */
+	public static final String DISPATCHER_THREADS_PROPERTY = "gda.oe.dofs.dispatcherThreads";
+
+	/**
+	 * Default coalescing window in mS
+	 */
+	public static final long DEFAULT_WINDOW = 100;
+
+	private static ScheduledExecutorService sharedExecutor;
+
+	private final IObserver observers;
+
+	private final ScheduledExecutorService executor;
+
+	private volatile long window = DEFAULT_WINDOW;
+
+	private volatile MotionLatency motionLatency;
+
+	// all fields below are guarded by this
+	private final ArrayDeque<Object[]> queue = new ArrayDeque<Object[]>();
+
+	private boolean draining = false;
+
+	private int lastValue = -1;
+
+	private Object[] pending;
+
+	private boolean flushScheduled = false;
+
+	private long delivered;
+
+	private long coalesced;
+
+	private final Runnable drainTask = new Runnable() {
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushPending();
+		}
+	};
+
+	/**
+	 * @return the executor shared by all dispatchers, also used for short DOF timers
+	 */
+	static synchronized ScheduledExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			int threads = LocalProperties.getInt(DISPATCHER_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+			sharedExecutor = new ScheduledThreadPoolExecutor(Math.max(1, threads), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = uk.ac.gda.util.ThreadManager.getThread(r, "MoveableStatusDispatcher-"
+							+ count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return sharedExecutor;
+	}
+
+	/**
+	 * Creates a dispatcher which uses the shared executor.
+	 *
+	 * @param observers
+	 *            receives the notifications, normally by passing them on to the real observers
+	 */
+	public MoveableStatusDispatcher(IObserver observers) {
+		this(observers, getSharedExecutor());
+	}
+
+	/**
+	 * Creates a dispatcher which uses the given executor.
+	 *
+	 * @param observers
+	 *            receives the notifications, normally by passing them on to the real observers
+	 * @param executor
+	 *            the executor used to deliver notifications
+	 */
+	public MoveableStatusDispatcher(IObserver observers, ScheduledExecutorService executor) {
+		this.observers = observers;
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the window within which BUSY position updates are coalesced. Zero disables coalescing.
+	 *
+	 * @param window
+	 *            the window in mS
+	 */
+	public void setWindow(long window) {
+		this.window = window;
+	}
+
+	/**
+	 * Sets where to record how long it takes a status other than BUSY to reach the observers, from being queued until
+	 * the observers return.
+	 *
+	 * @param motionLatency
+	 *            the timings of the DOF, or null not to record
+	 */
+	public void setMotionLatency(MotionLatency motionLatency) {
+		this.motionLatency = motionLatency;
+	}
+
+	/**
+	 * @return the window within which BUSY position updates are coalesced in mS
+	 */
+	public long getWindow() {
+		return window;
+	}
+
+	/**
+	 * Queues a notification for delivery to the observers.
+	 *
+	 * @param source
+	 *            the object being observed
+	 * @param arg
+	 *            the notification
+	 */
+	public synchronized void dispatch(Object source, Object arg) {
+		Object[] notification = new Object[] { source, arg };
+		if (arg instanceof MoveableStatus || arg instanceof DeferredStatus) {
+			int value = (arg instanceof DeferredStatus) ? MoveableStatus.BUSY : ((MoveableStatus) arg).value();
+			if (window > 0 && value == MoveableStatus.BUSY && lastValue == MoveableStatus.BUSY) {
+				if (pending != null) {
+					coalesced++;
+				}
+				pending = notification;
+				if (!flushScheduled) {
+					flushScheduled = true;
+					executor.schedule(flushTask, window, TimeUnit.MILLISECONDS);
+				}
+				return;
+			}
+			lastValue = value;
+			if (value != MoveableStatus.BUSY && motionLatency != null && MotionLatency.isEnabled())
+				notification = new Object[] { source, arg, System.nanoTime() };
+		}
+		// anything which is not a position update supersedes an unsent one
+		if (pending != null) {
+			pending = null;
+			coalesced++;
+		}
+		enqueue(notification);
+	}
+
+	/**
+	 * @return the number of notifications delivered
+	 */
+	public synchronized long getDeliveredCount() {
+		return delivered;
+	}
+
+	/**
+	 * @return the number of BUSY position updates dropped because a later one replaced them
+	 */
+	public synchronized long getCoalescedCount() {
+		return coalesced;
+	}
+
+	private synchronized void flushPending() {
+		flushScheduled = false;
+		if (pending != null) {
+			enqueue(pending);
+			pending = null;
+		}
+	}
+
+	private void enqueue(Object[] notification) {
+		queue.add(notification);
+		if (!draining) {
+			draining = true;
+			executor.execute(drainTask);
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			Object[] notification;
+			synchronized (this) {
+				notification = queue.poll();
+				if (notification == null) {
+					draining = false;
+					return;
+				}
+				delivered++;
+			}
+			try {
+				Object arg = notification[1];
+				if (arg instanceof DeferredStatus) {
+					arg = ((DeferredStatus) arg).get();
+					if (arg == null) {
+						continue;
+					}
+				}
+				observers.update(notification[0], arg);
+				MotionLatency latency = motionLatency;
+				if (notification.length > 2 && latency != null)
+					latency.record(MotionLatency.Phase.READY_PROPAGATION, (Long) notification[2]);
+			} catch (RuntimeException e) {
+				logger.error("Exception notifying observers of " + notification[1], e);
+			}
+		}
+	}
+}
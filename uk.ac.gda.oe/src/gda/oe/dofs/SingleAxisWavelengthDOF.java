@@ -75,6 +75,11 @@ public class SingleAxisWavelengthDOF extends DOF {
 		return rtrn;
 	}
 
+	@Override
+	protected boolean isPlanCacheable() {
+		return true;
+	}
+
 	/**
 	 * given a Quantity checks whether its units are acceptable and if so constructs a new Quantity of the correct
 	 * subclass for this DOF and returns it
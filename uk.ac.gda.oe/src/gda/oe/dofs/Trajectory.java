@@ -0,0 +1,295 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.dofs;
+
+import gda.oe.Moveable;
+import gda.oe.MoveableException;
+import gda.oe.MoveableStatus;
+import gda.util.CommandId;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.SI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A coordinated move of the Moveables of a DOF. The move is split into segments along a straight line in DOF
+ * coordinates. For each segment the speed of every Moveable is set (using setSpeed(start, end, time)) so that they
+ * all take the same time, so they arrive together and the DOF stays close to the nominal geometry in between.
+ * <p>
+ * Segments are sent on a timer, one every segment time from the start of the move, not when every Moveable has
+ * stopped at the end of the previous one. Positioners do not accept a new target while they are moving, so a
+ * Moveable which has not finished its previous segment when the next one is due gets it as soon as it reports READY,
+ * without waiting for the others. If it is further behind it goes straight to the latest segment. Every segment but
+ * the last is sent with doFly so that there is no backlash or position correction at the boundaries; the last one is
+ * sent with doMove so that the target is reached in the usual way.
+ * <p>
+ * The total time is the longest time any Moveable would take at its current speed. The Moveables get their own speeds
+ * back at the end. Each segment is sent with its own id, and the id last sent to each Moveable is kept, so that
+ * statuses from an earlier segment are not mistaken for the end of the current one.
+ * <p>
+ * All methods must be called with the DOF's lock held.
+ */
+final class Trajectory {
+
+	private static final Logger logger = LoggerFactory.getLogger(Trajectory.class);
+
+	private final DOF dof;
+
+	private final Moveable[] moveables;
+
+	private final Quantity start;
+
+	private final Quantity end;
+
+	private final Quantity[] speeds;
+
+	private final int segments;
+
+	private final long segmentTime;
+
+	// the last target sent to each Moveable
+	private Quantity[] reached;
+
+	// the targets of the current segment
+	private Quantity[] targets;
+
+	// the id last sent to each Moveable
+	private final int[] sentIds;
+
+	// true if a Moveable has finished the last segment sent to it
+	private final boolean[] idle;
+
+	// true if a Moveable is still to be sent the current segment
+	private final boolean[] behind;
+
+	private long startTime;
+
+	private int segment = 0;
+
+	private int segmentId = -1;
+
+	private ScheduledFuture<?> next;
+
+	private boolean ended = false;
+
+	private Trajectory(DOF dof, Moveable[] moveables, Quantity start, Quantity end, Quantity[] speeds, int segments,
+			long segmentTime) {
+		this.dof = dof;
+		this.moveables = moveables;
+		this.start = start;
+		this.end = end;
+		this.speeds = speeds;
+		this.segments = segments;
+		this.segmentTime = segmentTime;
+		sentIds = new int[moveables.length];
+		idle = new boolean[moveables.length];
+		behind = new boolean[moveables.length];
+		Arrays.fill(sentIds, -1);
+		Arrays.fill(idle, true);
+	}
+	/**
+	 * Plans a coordinated move.
+	 * 
+	 * @param dof
+	 *            the DOF
+	 * @param moveables
+	 *            its Moveables
+	 * @param start
+	 *            the current position of the DOF
+	 * @param end
+	 *            the target position of the DOF
+	 * @param stepTime
+	 *            the time in mS between setpoints, zero for a single segment
+	 * @return the plan or null if the move cannot be coordinated (e.g. a Moveable does not know its speed), in which
+	 *         case it should be done in the ordinary way
+	 */
+	static Trajectory plan(DOF dof, Moveable[] moveables, Quantity start, Quantity end, int stepTime) {
+		if (start == null || end == null)
+			return null;
+		try {
+			Quantity[] starts = dof.calculateMoveables(start);
+			Quantity[] ends = dof.calculateMoveables(end);
+			Quantity[] speeds = new Quantity[moveables.length];
+			double time = 0.0;
+			for (int i = 0; i < moveables.length; i++) {
+				speeds[i] = moveables[i].getSpeed();
+				if (speeds[i] == null || speeds[i].getAmount() == 0.0) {
+					logger.debug("DOF {} cannot coordinate move, speed of {} is unknown", dof.getName(),
+							moveables[i].getName());
+					return null;
+				}
+				Quantity distance = ends[i].minus(starts[i]);
+				time = Math.max(time, Math.abs(distance.divide(speeds[i]).to(SI.SECOND).getAmount()));
+			}
+			long totalTime = Math.round(time * 1000.0);
+			if (totalTime == 0)
+				return null;
+			int segments = 1;
+			if (stepTime > 0)
+				segments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (totalTime + stepTime - 1) / stepTime));
+			Trajectory trajectory = new Trajectory(dof, moveables, start, end, speeds, segments, totalTime
+					/ segments);
+			trajectory.reached = starts;
+			logger.debug("DOF {} coordinated move from {} to {} in {} segments of {} mS", new Object[] {
+					dof.getName(), start, end, segments, trajectory.segmentTime });
+			return trajectory;
+		} catch (RuntimeException e) {
+			// e.g. a ConversionException if the units of the speed and position do not agree
+			logger.debug("DOF " + dof.getName() + " cannot coordinate move", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Starts the move by sending the first segment.
+	 * 
+	 * @throws MoveableException
+	 */
+	void begin() throws MoveableException {
+		startTime = System.nanoTime();
+		sendSegment();
+	}
+
+	/**
+	 * @param index
+	 *            the index of a Moveable
+	 * @return the id last sent to the Moveable, against which its statuses are counted
+	 */
+	int getSentId(int index) {
+		return sentIds[index];
+	}
+
+	/**
+	 * @return true if the last segment has been sent to every Moveable
+	 */
+	boolean isComplete() {
+		if (segment < segments)
+			return false;
+		for (boolean b : behind) {
+			if (b)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Starts the next segment, called by its timer. Moveables which have finished the previous segment are sent it
+	 * straight away, the others when they report READY.
+	 * 
+	 * @throws MoveableException
+	 */
+	void sendSegment() throws MoveableException {
+		next = null;
+		segment++;
+		Quantity target = (segment == segments) ? end : start.plus(end.minus(start).times(
+				(double) segment / segments));
+		targets = dof.calculateMoveables(target);
+		segmentId = CommandId.next();
+		Arrays.fill(behind, true);
+		for (int i = 0; i < moveables.length; i++) {
+			if (idle[i])
+				send(i);
+		}
+		if (segment < segments) {
+			long due = startTime + TimeUnit.MILLISECONDS.toNanos(segment * segmentTime);
+			next = MoveableStatusDispatcher.getSharedExecutor().schedule(new Runnable() {
+				@Override
+				public void run() {
+					dof.nextSegment(Trajectory.this);
+				}
+			}, Math.max(0, due - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Called with each status of a Moveable before the DOF counts it. A Moveable which has finished the segment last
+	 * sent to it is sent the current one if it is behind.
+	 * 
+	 * @param index
+	 *            the index of the Moveable
+	 * @param status
+	 *            its status
+	 * @throws MoveableException
+	 *             if the current segment could not be sent
+	 */
+	void moveableUpdated(int index, MoveableStatus status) throws MoveableException {
+		if (ended || status.id() != sentIds[index])
+			return;
+		int value = status.value();
+		idle[index] = (value == MoveableStatus.READY || value == MoveableStatus.SUCCESS);
+		if (idle[index] && behind[index])
+			send(index);
+	}
+
+	/**
+	 * Sends the current segment to one Moveable.
+	 */
+	private void send(int i) throws MoveableException {
+		// a Moveable which does not move in this segment keeps its speed but must still report the segment id
+		if (!targets[i].equals(reached[i]))
+			moveables[i].setSpeed(reached[i], targets[i], Quantity.valueOf(segmentTime, SI.MILLI(SI.SECOND)));
+		int check = moveables[i].checkMoveTo(targets[i], dof);
+		if (check != MoveableStatus.SUCCESS)
+			throw new MoveableException(new MoveableStatus(check, dof.getName()), "segment " + segment + " of "
+					+ segments + " not possible for " + moveables[i].getName());
+		if (segment == segments)
+			moveables[i].doMove(dof, segmentId);
+		else
+			moveables[i].doFly(dof, segmentId);
+		sentIds[i] = segmentId;
+		reached[i] = targets[i];
+		idle[i] = false;
+		behind[i] = false;
+	}
+
+	/**
+	 * @return true if the move has ended
+	 */
+	boolean isEnded() {
+		return ended;
+	}
+
+	/**
+	 * Ends the move, cancelling any segment not yet sent and giving the Moveables back their own speeds. The segment
+	 * id remains that of the last segment sent.
+	 */
+	void end() {
+		if (ended)
+			return;
+		ended = true;
+		if (next != null) {
+			next.cancel(false);
+			next = null;
+		}
+		Arrays.fill(behind, false);
+		for (int i = 0; i < moveables.length; i++) {
+			try {
+				moveables[i].setSpeed(speeds[i]);
+			} catch (MoveableException e) {
+				logger.error("DOF " + dof.getName() + " could not restore speed of " + moveables[i].getName(), e);
+			}
+		}
+	}
+}
@@ -198,6 +198,42 @@ public class UndulatorHarmonicDOF extends DOF implements MultipleMoveWatcher, Un
 		// Deliberately do nothing
 	}
 
+	/**
+	 * The moves are made by the MultipleMove from createAbsoluteMover so there is nothing which can sweep continuously.
+	 * 
+	 * @param position
+	 *            the end of the sweep
+	 * @param speed
+	 *            the speed during the sweep
+	 * @return never returns normally
+	 * @throws MoveableException
+	 *             always
+	 */
+	@Override
+	public DOFCommand createFlyMover(Quantity position, Quantity speed) throws MoveableException {
+		throw flyNotAllowed();
+	}
+
+	/**
+	 * Refuses as createFlyMover does, in case a sweep is started without it.
+	 * 
+	 * @param mover
+	 *            the DOFCommand object in control of the move
+	 * @param id
+	 *            the identifier of the move
+	 * @throws MoveableException
+	 *             always
+	 */
+	@Override
+	public synchronized void doFly(Object mover, int id) throws MoveableException {
+		throw flyNotAllowed();
+	}
+
+	private MoveableException flyNotAllowed() {
+		return new MoveableException(new MoveableStatus(MoveableStatus.MOVE_NOT_ALLOWED, getName()), getName()
+				+ " cannot fly, it moves the undulator gap and phase one after another");
+	}
+
 	/**
 	 * Implements the MultipleMoveWatcher interface - allows a MultipleMove to inform this about a move which has gone
 	 * wrong.
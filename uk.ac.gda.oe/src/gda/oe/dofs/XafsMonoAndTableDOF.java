@@ -97,4 +97,10 @@ public class XafsMonoAndTableDOF extends CoupledDOF {
 
 		return (rtrn);
 	}
+
+	@Override
+	protected boolean isPlanCacheable() {
+		// the table moves relative to where it is now
+		return false;
+	}
 }
@@ -86,7 +86,7 @@ public class AngularPositioner extends Positioner {
 	 */
 	@Override
 	protected void _updateLimitLow(double lowLimit) {
-		softLimitLow = this.positionOffset + (lowLimit / getStepsPerUnit());
+		setSoftLimitLowValue(this.positionOffset + (lowLimit / getStepsPerUnit()));
 	}
 
 	/**
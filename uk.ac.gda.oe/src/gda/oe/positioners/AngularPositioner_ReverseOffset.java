@@ -81,7 +81,7 @@ public class AngularPositioner_ReverseOffset extends Positioner {
 	 */
 	@Override
 	protected void _updateLimitLow(double lowLimit) {
-		softLimitLow = this.positionOffset - (lowLimit / getStepsPerUnit());
+		setSoftLimitLowValue(this.positionOffset - (lowLimit / getStepsPerUnit()));
 	}
 
 	/**
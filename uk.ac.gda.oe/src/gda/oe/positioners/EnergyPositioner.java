@@ -74,7 +74,7 @@ public class EnergyPositioner extends Positioner {
 	 */
 	@Override
 	protected void _updateLimitLow(double lowLimit) {
-		softLimitLow = this.positionOffset + (lowLimit / getStepsPerUnit());
+		setSoftLimitLowValue(this.positionOffset + (lowLimit / getStepsPerUnit()));
 	}
 
 	/**
@@ -79,7 +79,7 @@ public class LinearPositioner extends Positioner {
 	 */
 	@Override
 	protected void _updateLimitLow(double lowLimit) {
-		softLimitLow = this.positionOffset + (lowLimit / getStepsPerUnit());
+		setSoftLimitLowValue(this.positionOffset + (lowLimit / getStepsPerUnit()));
 	}
 
 	/**
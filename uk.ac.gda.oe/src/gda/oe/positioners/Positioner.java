@@ -53,6 +53,8 @@ import gda.oe.MoveableCommandExecutor;
 import gda.oe.MoveableException;
 import gda.oe.MoveableStatus;
 import gda.oe.commands.DOFCommand;
+import gda.oe.util.MotionLatency;
+import gda.oe.util.MovePlanCache;
 import gda.util.exceptionUtils;
 
 /**
@@ -74,12 +76,20 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	private static final Logger logger = LoggerFactory
 			.getLogger(Positioner.class);
 
-	// variables used in poll mode of operation
-	private volatile boolean waiting = false;
+	// variables used in poll mode of operation. waiting is true whenever no
+	// poll of the motor is scheduled, restartMonitoring is set if a move is
+	// started while the previous one is still being polled.
+	private volatile boolean waiting = true;
 
-	private volatile boolean startMonitoring = false;
+	private boolean restartMonitoring = false;
 
-	private Thread runner;
+	// the thread running a poll, so that a move made by the poll itself (a
+	// position correction) does not start another cycle
+	private volatile Thread pollThread;
+
+	private final Object pollLock = new Object();
+
+	private PositionerPoller poller;
 
 	private long pollTime = 100;
 
@@ -138,6 +148,12 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 
 	private double correctionTarget = 0.0;
 
+	// the phase of the move being timed by the polling and when it began,
+	// see MotionLatency
+	private volatile MotionLatency.Phase motionPhase;
+
+	private volatile long phaseStart;
+
 	private boolean positionCorrection = false;
 
 	protected boolean positionCorrectionRequired = false;
@@ -149,7 +165,9 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 
 	protected boolean softLimitsSaveable = false;
 
-	private PositionalValues positionalValues;
+	private PositionalValues positionalValues = new PositionalValues();
+
+	private PositionerStateStore stateStore;
 
 	private String separator = System.getProperty("file.separator");
 
@@ -352,9 +370,6 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 				}
 				configured = true;
 			} else {
-				runner = uk.ac.gda.util.ThreadManager.getThread(this, getClass().getName() + " "
-						+ getName());
-
 				MotorStatus status;
 
 				// The status is set to what is returned by
@@ -363,7 +378,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 				// with the
 				// message from the exception. Even if the status is
 				// fault we
-				// still go on to start the polling thread.
+				// still go on to allow polling.
 				try {
 					status = motor.getStatus();
 					dofStatus = MoveableStatusFactory
@@ -382,10 +397,17 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 				// found
 				softLimitsSaveable = LocalProperties
 						.check("gda.softlimits.save");
+				stateStore = PositionerStateStore.getInstance();
 				if (softLimitsSaveable) {
 					try {
-						setLimitsStore();
-						loadLimitsAndOffset();
+						if (!loadLimitsAndOffsetFromStateStore()) {
+							setLimitsStore();
+							loadLimitsAndOffset();
+							// move the values from the old file into the store
+							if (stateStore != null) {
+								saveLimitsAndOffset();
+							}
+						}
 					} catch (FileNotFoundException fnfe) {
 						// do nothing - the file not existing is possible
 					} catch (IOException e) {
@@ -400,30 +422,22 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 				// README. There used to be an if status != FAULT around
 				// the bit
 				// between here and _initialisation(). This is not
-				// needed. The
-				// thread should be started even if the motor is faulty
-				// otherwise motors which recover (e.g. switched on when
-				// previously off, allowed by external forces when
-				// previously
-				// disallowed) will not work with a Refresh but will
-				// require a
-				// restart.
-
-				runner.start();
-
-				/*
-				 * We have to be sure that the monitoring thread is ready
-				 * for duty. Problems have occured by things being notified
-				 * before they are waiting and thus they never come out of
-				 * their waits when they finally get there.
-				 */
-
-				while (!waiting) {
-					logger.debug("Positioner thread awake");
-					Thread.yield();
+				// needed. Polling must be possible even if the motor is
+				// faulty otherwise motors which recover (e.g. switched on
+				// when previously off, allowed by external forces when
+				// previously disallowed) will not work with a Refresh but
+				// will require a restart.
+
+				// No thread is started here. Polls are only scheduled with
+				// the (shared) PositionerPoller while a move is in progress,
+				// so the initial position and status are read and sent now.
+				try {
+					_updatePosition(motor.getPosition());
+				} catch (MotorException me) {
+					dofStatus = new MoveableStatus(MoveableStatus.ERROR, id, me
+							.getMessage());
 				}
-				logger.debug("Positioner thread now waiting");
-				Thread.yield();
+				notifyIObservers(this, dofStatus);
 				_initialisation();
 				configured = true;
 			}
@@ -469,6 +483,29 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		return pollTime;
 	}
 
+	/**
+	 * Sets the poller used to schedule polls of the motor. If none is set the
+	 * shared PositionerPoller instance is used.
+	 *
+	 * @param poller
+	 *            the poller
+	 */
+	public void setPoller(PositionerPoller poller) {
+		this.poller = poller;
+	}
+
+	/**
+	 * Gets the poller used to schedule polls of the motor.
+	 *
+	 * @return the poller
+	 */
+	public PositionerPoller getPoller() {
+		if (poller == null) {
+			poller = PositionerPoller.getInstance();
+		}
+		return poller;
+	}
+
 	/**
 	 * Gets the lower soft limit (used by Castor to interpret XML file)
 	 *
@@ -488,6 +525,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	private void setSoftLimitHigh(Quantity highLimit) throws MoveableException {
 		if (checkSoftLimitHigh(highLimit)) {
+			MovePlanCache.configurationChanged();
 			notifyIObservers(this, dofStatus);
 			if (softLimitsSaveable) {
 				saveLimitsAndOffset();
@@ -520,6 +558,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	private void setSoftLimitLow(Quantity limitLow) throws MoveableException {
 		if (checkSoftLimitLow(limitLow)) {
+			MovePlanCache.configurationChanged();
 			notifyIObservers(this, dofStatus);
 			if (softLimitsSaveable) {
 				saveLimitsAndOffset();
@@ -652,6 +691,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	public void setPositionOffsetValue(double position_Offset) {
 		this.positionOffset = position_Offset;
+		MovePlanCache.configurationChanged();
 	}
 
 	/**
@@ -672,6 +712,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	public void setHomeOffsetValue(double home_Offset) {
 		this.homeOffset = home_Offset;
+		MovePlanCache.configurationChanged();
 	}
 
 	/**
@@ -681,6 +722,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	public void setSoftLimitHighValue(double highLimit) {
 		this.softLimitHigh = highLimit;
+		MovePlanCache.configurationChanged();
 	}
 
 	/**
@@ -697,6 +739,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	public void setSoftLimitLowValue(double lowLimit) {
 		this.softLimitLow = lowLimit;
+		MovePlanCache.configurationChanged();
 	}
 
 	/**
@@ -806,6 +849,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	@Override
 	public int checkMoveTo(Quantity position, Object mover) {
 		int check = MoveableStatus.SUCCESS;
+		long start = MotionLatency.start();
 
 		if (!checkTarget(position)) {
 			check = MoveableStatus.INCORRECT_QUANTITY;
@@ -815,6 +859,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		if(check != MoveableStatus.SUCCESS){
 			logger.warn("move of " + getName() + " to " + position.toString() + " is not possible");
 		}
+		getMotionLatency().record(MotionLatency.Phase.CHECK, start);
 		return check;
 	}
 
@@ -923,10 +968,31 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 
 	@Override
 	public void doMove(Object mover, int _id) throws MoveableException {
+		doMove(mover, _id, true);
+	}
+
+	/**
+	 * Carries out a previously checked and locked move with no backlash or
+	 * position correction at the end.
+	 *
+	 * @param mover
+	 *            the object controlling the move
+	 * @param _id
+	 *            the id of the move
+	 * @throws MoveableException
+	 *             if not locked for mover or if the operation causes a
+	 *             MotorException
+	 */
+	@Override
+	public void doFly(Object mover, int _id) throws MoveableException {
+		doMove(mover, _id, false);
+	}
+
+	private void doMove(Object mover, int _id, boolean correct) throws MoveableException {
 		if (lockedFor(mover)) {
 			try {
 				this.id = _id;
-				moveTo(targetPosition);
+				moveTo(targetPosition, correct);
 			}
 
 			// If an exception is caught status should be set immediately rather
@@ -1029,7 +1095,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 	@Override
 	public boolean isMoving() throws MoveableException {
-		// If the poll loop is waiting then no move is in progress
+		// If no poll is scheduled then no move is in progress
 		if (poll) {
 			if (waiting && exceptionCaughtInPollingThread) {
 				logger.info("Positioner " + getName()
@@ -1074,6 +1140,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 				+ softLimitHigh);
 
 		_setSoftLimits(softLimitLow, softLimitHigh);
+		MovePlanCache.configurationChanged();
 
 		// record the change to the LimitsAndOffsets file if flag is true.
 		if (softLimitsSaveable) {
@@ -1108,11 +1175,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 							+ me.getMessage(), me);
 		}
 		if (poll) {
-			startMonitoring = true;
-			synchronized (this) {
-				notifyAll(); // Awaken the polling thread to update
-				// positions.
-			}
+			startMonitoring();
 		}
 	}
 
@@ -1170,6 +1233,28 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		}
 	}
 
+	/**
+	 * This method should only be used where the softLimitsSaveable flag is true
+	 *
+	 * @return true if the values were found in the PositionerStateStore
+	 */
+	private boolean loadLimitsAndOffsetFromStateStore() {
+		if (stateStore == null || motor == null) {
+			return false;
+		}
+		PositionalValues values = stateStore.getLimitsAndOffsets(motor.getName());
+		if (values == null) {
+			return false;
+		}
+		positionalValues = values;
+		softLimitLow = values.getLowerLimit();
+		softLimitHigh = values.getUpperLimit();
+		homeOffset = values.getHomeOffset();
+		positionOffset = values.getPositionOffset();
+		MovePlanCache.configurationChanged();
+		return true;
+	}
+
 	/**
 	 * This method should only be used where the softLimitsSaveable flag is true
 	 */
@@ -1186,6 +1271,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 			softLimitHigh = positionalValues.getUpperLimit();
 			homeOffset = positionalValues.getHomeOffset();
 			positionOffset = positionalValues.getPositionOffset();
+			MovePlanCache.configurationChanged();
 
 		} catch (FileNotFoundException fnfe) {
 			logger
@@ -1227,14 +1313,25 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	 */
 
 	private void moveTo(double position) throws MotorException {
+		moveTo(position, true);
+	}
+
+	/**
+	 * @param position
+	 *            the target
+	 * @param correct
+	 *            false to skip backlash and position correction
+	 * @throws MotorException
+	 */
+	private void moveTo(double position, boolean correct) throws MotorException {
 		logger.debug("Positioner " + getName()
-				+ " setting backlashRequired to true");
+				+ " setting backlashRequired to " + correct);
 		targetPosition = position;
-		backlashRequired = true;
+		backlashRequired = correct;
 		// if the position correction/maintanence is to be done
 		// increment the iteration count to keep the iterations
 		// to a maximum number decided by the user
-		if (positionCorrection) {
+		if (correct && positionCorrection) {
 			positionCorrectionRequired = true;
 			iterationCount++;
 			// if it is the start of iterations store
@@ -1245,16 +1342,31 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		}
 
 		lastDirection = calculateDirection(position);
+		motionPhase = null;
+		long start = MotionLatency.start();
 		_moveTo(position);
+		getMotionLatency().record(MotionLatency.Phase.MOTOR_START, start);
+		startPhase(MotionLatency.Phase.MOTION);
 
-		// startMonitoring is the flag used by the general (no time given)
-		// wait to determine whether to continue or go back to waiting
 		if (poll) {
-			startMonitoring = true;
-			synchronized (this) {
-				notifyAll();
-				logger.debug("notifyAll called by positioner " + this);
-			}
+			startMonitoring();
+		}
+	}
+
+	private void startPhase(MotionLatency.Phase phase) {
+		phaseStart = MotionLatency.start();
+		motionPhase = phase;
+	}
+
+	/**
+	 * Records the time of the phase of the move which the polling has just
+	 * seen finish.
+	 */
+	private void endPhase() {
+		MotionLatency.Phase phase = motionPhase;
+		if (phase != null) {
+			motionPhase = null;
+			getMotionLatency().record(phase, phaseStart);
 		}
 	}
 
@@ -1273,6 +1385,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 			// the required position is greater than the allowable deadband
 			if (Math.abs(diffPosition) > iterationDeadBand) {
 				moveTo(targetPosition + diffPosition);
+				motionPhase = MotionLatency.Phase.CORRECTION;
 
 			} else {
 				iterationCount = NONE;
@@ -1295,9 +1408,8 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		backlashRequired = false;
 		lastDirection = 0;
 		motor.home();
-		startMonitoring = true;
-		synchronized (this) {
-			notifyAll();
+		if (poll) {
+			startMonitoring();
 		}
 	}
 
@@ -1310,6 +1422,10 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		positionalValues.setUpperLimit(softLimitHigh);
 		positionalValues.setHomeOffset(homeOffset);
 		positionalValues.setPositionOffset(positionOffset);
+		if (stateStore != null) {
+			stateStore.putLimitsAndOffsets(motor.getName(), positionalValues);
+			return;
+		}
 		try {
 			out = new ObjectOutputStream(new BufferedOutputStream(
 					new FileOutputStream(limitsStore)));
@@ -1324,10 +1440,24 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 
 	}
 
+	/**
+	 * Updates the position and records it in the PositionerStateStore if there is one.
+	 *
+	 * @param motorPosition
+	 *            the position read from the motor
+	 */
+	private void savePositionInStateStore(double motorPosition) {
+		_updatePosition(motorPosition);
+		if (stateStore != null) {
+			stateStore.putPosition(motor.getName(), motorPosition);
+		}
+	}
+
 	@Override
 	public void setHomeOffset(Quantity offset) throws MoveableException {
 
 		if (_setHomeOffset(offset)) {
+			MovePlanCache.configurationChanged();
 			notifyIObservers(this, dofStatus);
 			if (softLimitsSaveable) {
 				saveLimitsAndOffset();
@@ -1343,6 +1473,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 	@Override
 	public void setPositionOffset(Quantity offset) throws MoveableException {
 		if (_setPositionOffset(offset)) {
+			MovePlanCache.configurationChanged();
 			notifyIObservers(this, dofStatus);
 			if (softLimitsSaveable) {
 				saveLimitsAndOffset();
@@ -1386,10 +1517,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 			positionChange = position - currentPosition;
 			_setPosition(position);
 			if (poll) {
-				startMonitoring = true;
-				synchronized (this) {
-					notifyAll();
-				}
+				startMonitoring();
 			}
 		} catch (MotorException me) {
 			throw me;
@@ -1609,6 +1737,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 			// move.
 			positionCorrectionRequired = false;
 			backlashRequired = false;
+			motionPhase = null;
 			motor.stop();
 		}
 		// If an exception is caught status should be set immediately rather
@@ -1660,193 +1789,191 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		}
 	}
 
+	/**
+	 * Starts polling the motor after a move, home or set has been started. If
+	 * a poll is already scheduled the current cycle is followed by another one
+	 * so that the end of the new move is not missed, unless the move was made
+	 * by the poll itself which goes on polling anyway.
+	 */
+	private void startMonitoring() {
+		synchronized (pollLock) {
+			if (waiting) {
+				waiting = false;
+				getPoller().schedule(this, pollTime);
+			} else if (Thread.currentThread() != pollThread) {
+				restartMonitoring = true;
+			}
+		}
+	}
+
 	/**
 	 * Implements the Runnable interface, used only when the motor is being
-	 * polled.
+	 * polled. Each run is one poll of the motor. It is scheduled with the
+	 * PositionerPoller by startMonitoring and reschedules itself every
+	 * pollTime until the motor has stopped and any backlash or position
+	 * correction has been done. This implies that setPosition takes at least
+	 * pollTime and moveTo takes at least 2 pollTime because the backlash check
+	 * also takes pollTime.
 	 */
 	@Override
 	public void run() {
-		boolean first = true;
-
 		MotorStatus motorStatus;
-		if (runner == null) {
-			logger.debug("runner null");
-
-		}
-		while (runner != null) {
-			synchronized (this) {
-				try {
-					_updatePosition(motor.getPosition());
-				} catch (MotorException me) {
-					dofStatus = new MoveableStatus(MoveableStatus.ERROR, id, me
-							.getMessage());
-				}
-				// NB DO NOT combine these two try - catch blocks. The wait must
-				// happen
-				// even if the getPosition() causes a MotorException.
-				try {
-					/*
-					 * This 'first' test added to overcome a problem with
-					 * program controlled multiple moves (e.g. by
-					 * UndulatorMoveMediator). Not having it can lead to
-					 * multiple notifications of the end of a move. This is
-					 * normally alright when moving from OEMove but under
-					 * program control another move may start immediately the
-					 * first notify is done and then this second notification
-					 * causes problems.
-					 */
-					if (first) {
-						notifyIObservers(this, dofStatus);
-						first = false;
-					}
-					/*
-					 * Setting the waiting flag to true must be the last thing
-					 * done before waiting The flag startMonitoring is set true
-					 * by moveTo or setPosition
-					 */
-					waiting = true;
-					while (!startMonitoring) {
-						wait();
-					}
-					/* Setting the waiting flag to false must be the first */
-					/* thing done before continuing. */
-					waiting = false;
-					startMonitoring = false;
-				} catch (InterruptedException ex) {
-					logger.error("Exception in Positioner infinite wait " + ex);
-				}
-			}
+		pollThread = Thread.currentThread();
+		try {
+			try {
 
-			/*
-			 * this thread should only be awakened by the notify() calls in the
-			 * moveTo and setPosition methods, it begins with the
-			 * wait(pollTime), this implies that setPosition takes at least
-			 * pollTime and moveTo takes at least 2 pollTime because the
-			 * backlash check also takes pollTime
-			 */
+				motorStatus = motor.getStatus();
+				logger.debug("Positioner " + this.getName()
+						+ " got status " + motorStatus.value()
+						+ " from motor " + motor);
+				// Only the in-memory store is written while moving, the
+				// motor saves its position when the move finishes.
+				savePositionInStateStore(motor.getPosition());
 
-			do {
-				synchronized (this) {
-					try {
-						wait(pollTime);
-					} catch (Exception e) {
-						logger.error("Exception in Positioner poll loop " + e);
+				/*
+				 * If the motor returns a READY and backlash/ position
+				 * correction has not been done then setStatus to BUSY and
+				 * do the backlash/position correction
+				 */
+				if (motorStatus.value() == MotorStatus.READY.value()) {
+					endPhase();
+					if (backlashRequired) {
+						logger.debug(getName() + " starting backlash bit");
+
+						backlashRequired = false;
+						// The direction changes temporarily.
+						lastDirection *= -1;
+						_updatePosition(motor.getPosition());
+						setStatus(MoveableStatus.BUSY);
+						startPhase(MotionLatency.Phase.BACKLASH);
+						motor.correctBacklash();
+						logger.debug(getName() + " ending backlash bit");
 					}
-				}
 
-				try {
-
-					motorStatus = motor.getStatus();
-					logger.debug("Positioner " + this.getName()
-							+ " got status " + motorStatus.value()
-							+ " from motor " + motor);
-					_updatePosition(motor.getPosition());
-					((MotorBase) motor).savePosition(motor.getName());
-
-					/*
-					 * If the motor returns a READY and backlash/ position
-					 * correction has not been done then setStatus to BUSY and
-					 * do the backlash/position correction
-					 */
-					if (motorStatus.value() == MotorStatus.READY.value()) {
-						if (backlashRequired) {
-							logger.debug(getName() + " starting backlash bit");
-
-							backlashRequired = false;
-							// The direction changes temporarily.
-							lastDirection *= -1;
-							_updatePosition(motor.getPosition());
+					else if (positionCorrectionRequired) {
+						positionCorrectionRequired = false;
+						_updatePosition(motor.getPosition());
+						try {
 							setStatus(MoveableStatus.BUSY);
-							motor.correctBacklash();
-							logger.debug(getName() + " ending backlash bit");
-						}
-
-						else if (positionCorrectionRequired) {
+							correctPosition();
+						} catch (MotorException me) {
+							// abandon the position correction
 							positionCorrectionRequired = false;
-							_updatePosition(motor.getPosition());
-							try {
-								setStatus(MoveableStatus.BUSY);
-								correctPosition();
-							} catch (MotorException me) {
-								// abandon the position correction
-								positionCorrectionRequired = false;
-								setStatus(me.status);
-							}
-						}
-
-						else {
-							/*
-							 * NB setStatus causes a notify and it is difficult
-							 * to see why this one here does not cause
-							 * additional READY notifies (see not at start of
-							 * loop) but it seems not too.
-							 */
-							// The _updatePosition was added at version 6554
-							// probably
-							// in error as the run method is not used by
-							// non-polling
-							// motors
-							// _updatePosition(motor.getPosition());
-							setStatus(motorStatus);
+							setStatus(me.status);
 						}
-					} else if (motorStatus.value() == MotorStatus.BUSY.value()) {
-						setStatus(motorStatus);
 					}
-					/*
-					 * If the motor returns any other status then abandon
-					 * backlash UNLESS the motor has returned a LIMIT but the
-					 * move is away from it. The easiest way to determine if the
-					 * latter has happened is to use setStatus to determine the
-					 * new status for the Positioner and check its value
-					 */
+
 					else {
+						/*
+						 * NB setStatus causes a notify and it is difficult
+						 * to see why this one here does not cause
+						 * additional READY notifies (see not at start of
+						 * loop) but it seems not too.
+						 */
+						// The _updatePosition was added at version 6554
+						// probably
+						// in error as the run method is not used by
+						// non-polling
+						// motors
+						// _updatePosition(motor.getPosition());
 						setStatus(motorStatus);
-						if (dofStatus.value() != MoveableStatus.AWAY_FROM_LIMIT) {
-							backlashRequired = false;
-						}
 					}
-
+				} else if (motorStatus.value() == MotorStatus.BUSY.value()) {
+					setStatus(motorStatus);
 				}
 				/*
-				 * if one of the motor methods generates an exception then
-				 * setStatus based on that instead of the value returned by
-				 * getStatus
+				 * If the motor returns any other status then abandon
+				 * backlash UNLESS the motor has returned a LIMIT but the
+				 * move is away from it. The easiest way to determine if the
+				 * latter has happened is to use setStatus to determine the
+				 * new status for the Positioner and check its value
 				 */
-				catch (MotorException me) {
-					logger.error("Positioner " + getName()
-							+ " caught MotorException in polling loop");
-					motorStatus = me.status;
-					exceptionCaughtInPollingThread = true;
-					toBeThrownAsSoonAsPossible = new MoveableException(
-							MoveableStatusFactory.createMoveableStatus(
-									me.status, getName()), me.getMessage());
-					break;
+				else {
+					motionPhase = null;
+					setStatus(motorStatus);
+					if (dofStatus.value() != MoveableStatus.AWAY_FROM_LIMIT) {
+						backlashRequired = false;
+					}
 				}
-			} while (stillMoving() || backlashRequired
-					|| positionCorrectionRequired);
 
-			if (!exceptionCaughtInPollingThread) {
-				try {
-					motorStatus = motor.getStatus();
-					_updatePosition(motor.getPosition());
-					((MotorBase) motor).savePosition(motor.getName());
+			}
+			/*
+			 * if one of the motor methods generates an exception then
+			 * setStatus based on that instead of the value returned by
+			 * getStatus
+			 */
+			catch (MotorException me) {
+				logger.error("Positioner " + getName()
+						+ " caught MotorException in polling loop");
+				motorStatus = me.status;
+				exceptionCaughtInPollingThread = true;
+				toBeThrownAsSoonAsPossible = new MoveableException(
+						MoveableStatusFactory.createMoveableStatus(
+								me.status, getName()), me.getMessage());
+				finishMonitoring(motorStatus);
+				return;
+			}
 
-				} catch (MotorException me) {
-					logger.debug("Positioner " + getName()
-							+ " caught MotorException after polling loop");
-					motorStatus = me.status;
-					exceptionCaughtInPollingThread = true;
-					toBeThrownAsSoonAsPossible = new MoveableException(
-							MoveableStatusFactory.createMoveableStatus(
-									me.status, getName()), me.getMessage());
-				}
+			if (stillMoving() || backlashRequired || positionCorrectionRequired) {
+				pollThread = null;
+				getPoller().schedule(this, pollTime);
+			} else {
+				finishMonitoring(motorStatus);
 			}
-			// The notify within this setStatus should normally be the
-			// one which tells observers that a move is over.
-			if (exceptionCaughtInPollingThread) {
-				setStatus(motorStatus, toBeThrownAsSoonAsPossible.getMessage());
+		} catch (RuntimeException e) {
+			// Without this the poll would silently stop being rescheduled and
+			// the Positioner would report that it is moving for ever.
+			logger.error("Positioner " + getName()
+					+ " caught unexpected exception in polling loop", e);
+			exceptionCaughtInPollingThread = true;
+			toBeThrownAsSoonAsPossible = new MoveableException(
+					MoveableStatusFactory.createMoveableStatus(
+							MotorStatus.FAULT, getName()), e.getMessage());
+			finishMonitoring(MotorStatus.FAULT);
+		}
+	}
+
+	/**
+	 * Ends a polling cycle by reading the final status and position of the
+	 * motor and notifying observers that the move is over. The next cycle is
+	 * started straight away if another move was started during this one.
+	 *
+	 * @param motorStatus
+	 *            the status from the last poll
+	 */
+	private void finishMonitoring(MotorStatus motorStatus) {
+		// observers told the move is over may start the next one straight away
+		pollThread = null;
+		if (!exceptionCaughtInPollingThread) {
+			try {
+				motorStatus = motor.getStatus();
+				savePositionInStateStore(motor.getPosition());
+				((MotorBase) motor).savePosition(motor.getName());
+
+			} catch (MotorException me) {
+				logger.debug("Positioner " + getName()
+						+ " caught MotorException after polling loop");
+				motorStatus = me.status;
+				exceptionCaughtInPollingThread = true;
+				toBeThrownAsSoonAsPossible = new MoveableException(
+						MoveableStatusFactory.createMoveableStatus(
+								me.status, getName()), me.getMessage());
+			}
+		}
+		// The notify within this setStatus should normally be the
+		// one which tells observers that a move is over.
+		if (exceptionCaughtInPollingThread) {
+			setStatus(motorStatus, toBeThrownAsSoonAsPossible.getMessage());
+		} else {
+			setStatus(motorStatus);
+		}
+
+		synchronized (pollLock) {
+			if (restartMonitoring) {
+				restartMonitoring = false;
+				getPoller().schedule(this, pollTime);
 			} else {
-				setStatus(motorStatus);
+				waiting = true;
 			}
 		}
 	}
@@ -1916,7 +2043,7 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 			try {
 				MotorStatus motorStatus = motor.getStatus();
 				double motorPosition = motor.getPosition();
-				_updatePosition(motorPosition);
+				savePositionInStateStore(motorPosition);
 				((MotorBase) motor)
 						.savePosition(motor.getName(), motorPosition);
 				setStatus(motorStatus);
@@ -1981,6 +2108,24 @@ public abstract class Positioner extends AbstractMoveable implements Runnable,
 		return null;
 	}
 
+	/**
+	 * Creates a MoveableCommandExecutor to sweep to the specified position.
+	 * Positioners can only be moved by DOFs but this method must exist for the
+	 * Moveable interface so it returns null.
+	 *
+	 * @param position
+	 *            the end of the sweep
+	 * @param speed
+	 *            the speed during the sweep
+	 * @return a moveable command executor
+	 * @throws MoveableException
+	 */
+	@Override
+	public MoveableCommandExecutor createFlyMover(Quantity position,
+			Quantity speed) throws MoveableException {
+		return null;
+	}
+
 	/**
 	 * Creates a MoveableCommandExecutor to carry out a relative move by the
 	 * specified increment. Positioners can only be moved by DOFs but this
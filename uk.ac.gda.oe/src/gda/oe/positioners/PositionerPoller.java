@@ -0,0 +1,143 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.positioners;
+
+import gda.configuration.properties.LocalProperties;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler shared by polling Positioners. Instead of each Positioner owning a thread which sits in a wait() until a
+ * move starts, a Positioner schedules a poll of its motor here only while a move is in progress. Idle Positioners
+ * therefore use no threads at all and a small pool serves however many motors are configured.
+ * <p>
+ * A poll spends most of its time waiting for the motor controller, so one timer thread only keeps the schedule and
+ * hands each poll which is due to a pool of worker threads. A slow controller then holds up one worker rather than the
+ * polls of every other motor. Workers are started as polls overlap, up to {@value #DEFAULT_THREADS} or the number set
+ * with the property {@value #POLLER_THREADS_PROPERTY}, and stop again after a minute with nothing to do.
+ */
+public class PositionerPoller {
+
+	private static final Logger logger = LoggerFactory.getLogger(PositionerPoller.class);
+
+	/**
+	 * Property which sets the number of threads in the shared poller
+	 */
+	public static final String POLLER_THREADS_PROPERTY = "gda.oe.positioners.pollerThreads";
+
+	/**
+	 * The number of worker threads in the shared poller if the property is not set
+	 */
+	public static final int DEFAULT_THREADS = 32;
+
+	private static PositionerPoller instance;
+
+	private final ScheduledThreadPoolExecutor timer;
+
+	private final ThreadPoolExecutor workers;
+
+	/**
+	 * Returns the poller shared by all Positioners which have not been given one of their own.
+	 *
+	 * @return the shared poller
+	 */
+	public static synchronized PositionerPoller getInstance() {
+		if (instance == null) {
+			int threads = LocalProperties.getInt(POLLER_THREADS_PROPERTY, DEFAULT_THREADS);
+			instance = new PositionerPoller("PositionerPoller", threads);
+		}
+		return instance;
+	}
+
+	/**
+	 * Creates a poller with its own timer and pool of daemon threads.
+	 *
+	 * @param name
+	 *            prefix for the names of the threads
+	 * @param threads
+	 *            the largest number of polls run at once, values less than one are treated as one
+	 */
+	public PositionerPoller(final String name, int threads) {
+		int size = Math.max(1, threads);
+		timer = new ScheduledThreadPoolExecutor(1, daemonThreads(name + "-timer"));
+		timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		workers = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				daemonThreads(name));
+		workers.allowCoreThreadTimeOut(true);
+		logger.debug("{} created with up to {} threads", name, size);
+	}
+
+	private static ThreadFactory daemonThreads(final String name) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = uk.ac.gda.util.ThreadManager.getThread(r, name + "-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * Runs a poll task once after the given delay.
+	 *
+	 * @param task
+	 *            the poll to run
+	 * @param delay
+	 *            the delay in mS
+	 * @return the future of the scheduled task
+	 */
+	public ScheduledFuture<?> schedule(final Runnable task, long delay) {
+		return timer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				workers.execute(task);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the largest number of polls which can run at once.
+	 *
+	 * @return the pool size
+	 */
+	public int getPoolSize() {
+		return workers.getMaximumPoolSize();
+	}
+
+	/**
+	 * Stops the pool. Polls which have been scheduled but not yet started are discarded.
+	 */
+	public void shutdown() {
+		timer.shutdown();
+		workers.shutdownNow();
+	}
+}
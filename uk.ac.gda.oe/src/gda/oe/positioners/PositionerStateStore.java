@@ -0,0 +1,484 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.positioners;
+
+import gda.configuration.properties.LocalProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single memory mapped file holding the soft limits, offsets and last position of every Positioner, keyed by motor
+ * name. Each motor has a fixed size record which is rewritten in place and carries a sequence number and a CRC32 so
+ * that a torn or corrupt record is detected on opening.
+ * <p>
+ * Writes only touch the mapped memory. A flush, scheduled at most once per flush interval on the PositionerPoller,
+ * first appends the images of the records changed since the last flush to a journal and forces it, then forces the
+ * map and empties the journal. On opening, any journalled record whose image is newer than (or replaces a corrupt)
+ * record in the map is copied back in. This means continuous motion costs a memory write per poll rather than a file
+ * per motor per poll.
+ */
+public class PositionerStateStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(PositionerStateStore.class);
+
+	/**
+	 * Property giving the file used by the shared store. If it is not set the store is the file positioners.map in
+	 * gda.limitsdir. If neither is set there is no shared store.
+	 */
+	public static final String STORE_FILE_PROPERTY = "gda.oe.positioners.stateStore";
+
+	/**
+	 * Property giving the maximum time in mS between a change and its flush to disk, default 1000.
+	 */
+	public static final String FLUSH_INTERVAL_PROPERTY = "gda.oe.positioners.stateStoreFlushInterval";
+
+	private static final int MAGIC = 0x47444150;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 32;
+
+	private static final int MAX_NAME_BYTES = 94;
+
+	private static final int NAME_OFFSET = 2;
+
+	private static final int VALUES_OFFSET = NAME_OFFSET + MAX_NAME_BYTES;
+
+	private static final int NUMBER_OF_VALUES = 5;
+
+	private static final int SEQUENCE_OFFSET = VALUES_OFFSET + 8 * NUMBER_OF_VALUES;
+
+	private static final int CRC_OFFSET = SEQUENCE_OFFSET + 8;
+
+	/** The size in bytes of one record in the map */
+	static final int RECORD_SIZE = 160;
+
+	private static final int JOURNAL_ENTRY_SIZE = 4 + RECORD_SIZE;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final int LOWER_LIMIT = 0;
+
+	private static final int UPPER_LIMIT = 1;
+
+	private static final int HOME_OFFSET = 2;
+
+	private static final int POSITION_OFFSET = 3;
+
+	private static final int POSITION = 4;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static PositionerStateStore instance;
+
+	private static boolean instanceOpened = false;
+
+	private final File file;
+
+	private final RandomAccessFile mapFile;
+
+	private final RandomAccessFile journalFile;
+
+	private MappedByteBuffer map;
+
+	private int capacity;
+
+	private int used;
+
+	private long sequence;
+
+	private final HashMap<String, Integer> slots = new HashMap<String, Integer>();
+
+	private final BitSet dirty = new BitSet();
+
+	private final Object flushLock = new Object();
+
+	private long flushInterval = 1000;
+
+	private ScheduledFuture<?> pendingFlush;
+
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (PositionerStateStore.this) {
+				pendingFlush = null;
+			}
+			try {
+				flush();
+			} catch (IOException e) {
+				logger.error("PositionerStateStore: could not flush " + file, e);
+			}
+		}
+	};
+
+	/**
+	 * Returns the store shared by all Positioners, opening it the first time it is asked for.
+	 * 
+	 * @return the shared store or null if none is configured or it could not be opened
+	 */
+	public static synchronized PositionerStateStore getInstance() {
+		if (!instanceOpened) {
+			instanceOpened = true;
+			String name = LocalProperties.get(STORE_FILE_PROPERTY);
+			if (name == null) {
+				String limitsDirectory = LocalProperties.get("gda.limitsdir");
+				if (limitsDirectory != null) {
+					name = limitsDirectory + File.separator + "positioners.map";
+				}
+			}
+			if (name != null) {
+				try {
+					File storeFile = new File(name);
+					if (storeFile.getParentFile() != null) {
+						storeFile.getParentFile().mkdirs();
+					}
+					instance = new PositionerStateStore(storeFile);
+					instance.setFlushInterval(LocalProperties.getInt(FLUSH_INTERVAL_PROPERTY, 1000));
+				} catch (IOException e) {
+					logger.error("PositionerStateStore: could not open " + name
+							+ ", limits and offsets will be kept in separate files", e);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Opens (creating if necessary) a store and recovers any records left in its journal, which is the same file
+	 * with .journal appended.
+	 * 
+	 * @param file
+	 *            the map file
+	 * @throws IOException
+	 */
+	public PositionerStateStore(File file) throws IOException {
+		this.file = file;
+		mapFile = new RandomAccessFile(file, "rw");
+		journalFile = new RandomAccessFile(new File(file.getPath() + ".journal"), "rw");
+
+		boolean created = mapFile.length() < HEADER_SIZE;
+		if (created) {
+			capacity = INITIAL_CAPACITY;
+		} else {
+			int magic = mapFile.readInt();
+			int version = mapFile.readInt();
+			int recordSize = mapFile.readInt();
+			capacity = mapFile.readInt();
+			if (magic != MAGIC || version != VERSION || recordSize != RECORD_SIZE || capacity <= 0
+					|| mapFile.length() < HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+				close();
+				throw new IOException(file + " is not a positioner state store");
+			}
+		}
+		map = mapFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+		if (created) {
+			writeHeader();
+		}
+		recover();
+		scan();
+	}
+
+	/**
+	 * @param flushInterval
+	 *            the maximum time in mS between a change and its flush to disk
+	 */
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * @return the maximum time in mS between a change and its flush to disk
+	 */
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * @return the number of motors with a record
+	 */
+	public synchronized int size() {
+		return slots.size();
+	}
+
+	/**
+	 * @param motorName
+	 *            the motor
+	 * @return the stored limits and offsets of the motor or null if there are none
+	 */
+	public synchronized PositionalValues getLimitsAndOffsets(String motorName) {
+		Integer slot = slots.get(motorName);
+		if (slot == null) {
+			return null;
+		}
+		int offset = recordOffset(slot);
+		PositionalValues values = new PositionalValues();
+		values.setLowerLimit(map.getDouble(offset + valueOffset(LOWER_LIMIT)));
+		values.setUpperLimit(map.getDouble(offset + valueOffset(UPPER_LIMIT)));
+		values.setHomeOffset(map.getDouble(offset + valueOffset(HOME_OFFSET)));
+		values.setPositionOffset(map.getDouble(offset + valueOffset(POSITION_OFFSET)));
+		return values;
+	}
+
+	/**
+	 * Stores the limits and offsets of a motor.
+	 * 
+	 * @param motorName
+	 *            the motor
+	 * @param values
+	 *            the limits and offsets
+	 */
+	public synchronized void putLimitsAndOffsets(String motorName, PositionalValues values) {
+		int offset = recordOffset(slotFor(motorName));
+		map.putDouble(offset + valueOffset(LOWER_LIMIT), values.getLowerLimit());
+		map.putDouble(offset + valueOffset(UPPER_LIMIT), values.getUpperLimit());
+		map.putDouble(offset + valueOffset(HOME_OFFSET), values.getHomeOffset());
+		map.putDouble(offset + valueOffset(POSITION_OFFSET), values.getPositionOffset());
+		changed(slots.get(motorName));
+	}
+
+	/**
+	 * @param motorName
+	 *            the motor
+	 * @return the last stored position of the motor or NaN if there is none
+	 */
+	public synchronized double getPosition(String motorName) {
+		Integer slot = slots.get(motorName);
+		return (slot == null) ? Double.NaN : map.getDouble(recordOffset(slot) + valueOffset(POSITION));
+	}
+
+	/**
+	 * Stores the position of a motor. This is cheap enough to call on every poll.
+	 * 
+	 * @param motorName
+	 *            the motor
+	 * @param position
+	 *            the position
+	 */
+	public synchronized void putPosition(String motorName, double position) {
+		int slot = slotFor(motorName);
+		int offset = recordOffset(slot) + valueOffset(POSITION);
+		if (Double.doubleToLongBits(map.getDouble(offset)) != Double.doubleToLongBits(position)) {
+			map.putDouble(offset, position);
+			changed(slot);
+		}
+	}
+
+	/**
+	 * Writes every changed record to disk now.
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		synchronized (flushLock) {
+			ByteBuffer entries;
+			MappedByteBuffer mapped;
+			synchronized (this) {
+				if (dirty.isEmpty()) {
+					return;
+				}
+				entries = ByteBuffer.allocate(dirty.cardinality() * JOURNAL_ENTRY_SIZE);
+				for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+					entries.putInt(slot);
+					ByteBuffer record = map.duplicate();
+					record.position(recordOffset(slot));
+					record.limit(recordOffset(slot) + RECORD_SIZE);
+					entries.put(record);
+				}
+				dirty.clear();
+				mapped = map;
+			}
+			entries.flip();
+			FileChannel journal = journalFile.getChannel();
+			journal.position(journal.size());
+			while (entries.hasRemaining()) {
+				journal.write(entries);
+			}
+			journal.force(false);
+			mapped.force();
+			journal.truncate(0);
+		}
+	}
+
+	/**
+	 * Flushes and closes the store.
+	 */
+	public void close() {
+		synchronized (this) {
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+		}
+		try {
+			if (map != null) {
+				flush();
+			}
+		} catch (IOException e) {
+			logger.error("PositionerStateStore: could not flush " + file, e);
+		}
+		try {
+			journalFile.close();
+			mapFile.close();
+		} catch (IOException e) {
+			logger.error("PositionerStateStore: could not close " + file, e);
+		}
+	}
+
+	private int slotFor(String motorName) {
+		Integer slot = slots.get(motorName);
+		if (slot != null) {
+			return slot;
+		}
+		byte[] name = motorName.getBytes(UTF8);
+		if (name.length == 0 || name.length > MAX_NAME_BYTES) {
+			throw new IllegalArgumentException("PositionerStateStore: cannot store a motor called \"" + motorName
+					+ "\"");
+		}
+		if (used == capacity) {
+			grow();
+		}
+		slot = used++;
+		int offset = recordOffset(slot);
+		map.putShort(offset, (short) name.length);
+		for (int i = 0; i < MAX_NAME_BYTES; i++) {
+			map.put(offset + NAME_OFFSET + i, i < name.length ? name[i] : 0);
+		}
+		for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+			map.putDouble(offset + valueOffset(i), Double.NaN);
+		}
+		slots.put(motorName, slot);
+		return slot;
+	}
+
+	private void changed(int slot) {
+		int offset = recordOffset(slot);
+		map.putLong(offset + SEQUENCE_OFFSET, ++sequence);
+		map.putInt(offset + CRC_OFFSET, crc(map, offset));
+		dirty.set(slot);
+		if (pendingFlush == null) {
+			pendingFlush = PositionerPoller.getInstance().schedule(flushTask, flushInterval);
+		}
+	}
+
+	private void grow() {
+		try {
+			capacity *= 2;
+			map = mapFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+					HEADER_SIZE + (long) capacity * RECORD_SIZE);
+			writeHeader();
+		} catch (IOException e) {
+			throw new IllegalStateException("PositionerStateStore: could not grow " + file, e);
+		}
+	}
+
+	private void writeHeader() {
+		map.putInt(0, MAGIC);
+		map.putInt(4, VERSION);
+		map.putInt(8, RECORD_SIZE);
+		map.putInt(12, capacity);
+	}
+
+	/**
+	 * Copies back journalled records which are newer than, or replace corrupt, records in the map.
+	 */
+	private void recover() throws IOException {
+		FileChannel journal = journalFile.getChannel();
+		long entries = journal.size() / JOURNAL_ENTRY_SIZE;
+		if (entries == 0) {
+			journal.truncate(0);
+			return;
+		}
+		ByteBuffer entry = ByteBuffer.allocate(JOURNAL_ENTRY_SIZE);
+		int recovered = 0;
+		for (long i = 0; i < entries; i++) {
+			entry.clear();
+			journal.read(entry, i * JOURNAL_ENTRY_SIZE);
+			int slot = entry.getInt(0);
+			if (slot < 0 || slot >= capacity || entry.getInt(4 + CRC_OFFSET) != crc(entry, 4)) {
+				continue;
+			}
+			int offset = recordOffset(slot);
+			boolean mapValid = map.getInt(offset + CRC_OFFSET) == crc(map, offset);
+			if (!mapValid || map.getLong(offset + SEQUENCE_OFFSET) < entry.getLong(4 + SEQUENCE_OFFSET)) {
+				for (int b = 0; b < RECORD_SIZE; b++) {
+					map.put(offset + b, entry.get(4 + b));
+				}
+				recovered++;
+			}
+		}
+		map.force();
+		journal.truncate(0);
+		logger.info("PositionerStateStore: recovered {} records from the journal of {}", recovered, file);
+	}
+
+	/**
+	 * Builds the name index from the map, dropping corrupt records.
+	 */
+	private void scan() {
+		for (int slot = 0; slot < capacity; slot++) {
+			int offset = recordOffset(slot);
+			int length = map.getShort(offset);
+			if (length == 0) {
+				break;
+			}
+			used = slot + 1;
+			if (length < 0 || length > MAX_NAME_BYTES || map.getInt(offset + CRC_OFFSET) != crc(map, offset)) {
+				logger.error("PositionerStateStore: record {} of {} is corrupt and has been ignored", slot, file);
+				continue;
+			}
+			byte[] name = new byte[length];
+			for (int i = 0; i < length; i++) {
+				name[i] = map.get(offset + NAME_OFFSET + i);
+			}
+			slots.put(new String(name, UTF8), slot);
+			sequence = Math.max(sequence, map.getLong(offset + SEQUENCE_OFFSET));
+		}
+	}
+
+	private static int recordOffset(int slot) {
+		return HEADER_SIZE + slot * RECORD_SIZE;
+	}
+
+	private static int valueOffset(int value) {
+		return VALUES_OFFSET + 8 * value;
+	}
+
+	private static int crc(ByteBuffer buffer, int offset) {
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < CRC_OFFSET; i++) {
+			crc.update(buffer.get(offset + i));
+		}
+		return (int) crc.getValue();
+	}
+}
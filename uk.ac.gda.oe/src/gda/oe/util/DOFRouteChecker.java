@@ -19,32 +19,54 @@
 
 package gda.oe.util;
 
+import gda.configuration.properties.LocalProperties;
 import gda.factory.Configurable;
 import gda.factory.Findable;
 import gda.oe.dofs.DOF;
-import gda.util.QuantityFactory;
 
+import java.awt.Shape;
 import java.awt.geom.Rectangle2D.Double;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
 
+import org.jscience.physics.quantities.Length;
+import org.jscience.physics.units.SI;
+import org.jscience.physics.units.Unit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class represents a map of the allowed and forbidden positions of a pair of DOFs. The information about areas to
- * avoid would probably eventually be specified in a file but this initial implementation gets a forbidden zone from the
- * XML file. It keeps a record of the current position on the map by observing the DOFs. This initial implementation
- * provides a method which approves or disapproves of a move by checking whether it intersects or ends in the forbidden
- * zone (which is just a rectangle at the moment). NB Currently there is only one forbiddenZone but it should be easy to
- * extend to a list of zones.
+ * This class represents a map of the allowed and forbidden positions of a pair of DOFs. The forbidden zones are a
+ * rectangle given in the XML file and/or any number of rectangles and polygons read from a power map file (see
+ * RoutePlanner.readZones). A move is refused if it ends in a forbidden zone, otherwise it is split into the quickest
+ * sequence of legs which keeps clear of the zones.
+ * 
+ * @see gda.oe.util.RoutePlanner
  */
 public class DOFRouteChecker implements Configurable, Findable {
 	private static final Logger logger = LoggerFactory.getLogger(DOFRouteChecker.class);
 
 	private String name;
 
+	private static final Unit<Length> MM = SI.MILLI(SI.METER);
+
 	private ForbiddenZone forbiddenZone;
 
+	private String powerMapFile;
+
+	private double clearance = 0.1;
+
+	private double xSpeed = 1.0;
+
+	private double ySpeed = 1.0;
+
+	private volatile RoutePlanner planner;
+
 	private DOF xMover;
 
 	private DOF yMover;
@@ -61,6 +83,39 @@ public class DOFRouteChecker implements Configurable, Findable {
 
 	@Override
 	public void configure() {
+		createPlanner();
+	}
+
+	private void createPlanner() {
+		List<Shape> zones = new ArrayList<Shape>();
+		if (forbiddenZone != null) {
+			zones.add(forbiddenZone);
+		}
+		if (powerMapFile != null) {
+			String fileName = powerMapFile;
+			if (!new File(fileName).isAbsolute()) {
+				fileName = LocalProperties.get("gda.oe.undulatorLookupDir", "${gda.config}") + "/" + fileName;
+			}
+			try {
+				Reader reader = new FileReader(fileName);
+				try {
+					zones.addAll(RoutePlanner.readZones(reader));
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				logger.error("DOFRouteChecker " + name + " unable to read power map " + fileName + ": "
+						+ e.getMessage());
+			}
+		}
+		planner = new RoutePlanner(zones, clearance, xSpeed, ySpeed);
+	}
+
+	private RoutePlanner getPlanner() {
+		if (planner == null) {
+			createPlanner();
+		}
+		return planner;
 	}
 
 	/**
@@ -71,7 +126,7 @@ public class DOFRouteChecker implements Configurable, Findable {
 	 */
 	public void setXMover(DOF xMover) {
 		this.xMover = xMover;
-		currentX = xMover.getPosition().to(QuantityFactory.createUnitFromString("mm")).getAmount();
+		currentX = xMover.getPosition().to(MM).getAmount();
 	}
 
 	/**
@@ -91,7 +146,7 @@ public class DOFRouteChecker implements Configurable, Findable {
 	 */
 	public void setYMover(DOF yMover) {
 		this.yMover = yMover;
-		currentY = yMover.getPosition().to(QuantityFactory.createUnitFromString("mm")).getAmount();
+		currentY = yMover.getPosition().to(MM).getAmount();
 	}
 
 	/**
@@ -111,6 +166,7 @@ public class DOFRouteChecker implements Configurable, Findable {
 	 */
 	public void setForbiddenZone(String forbiddenZone) {
 		this.forbiddenZone = new ForbiddenZone(forbiddenZone);
+		planner = null;
 	}
 
 	/**
@@ -125,6 +181,79 @@ public class DOFRouteChecker implements Configurable, Findable {
 		return null;
 	}
 
+	/**
+	 * Sets the power map file containing forbidden zones. A relative name is taken to be in the directory given by the
+	 * property gda.oe.undulatorLookupDir.
+	 * 
+	 * @param powerMapFile
+	 *            the file name
+	 */
+	public void setPowerMapFile(String powerMapFile) {
+		this.powerMapFile = powerMapFile;
+		planner = null;
+	}
+
+	/**
+	 * @return the power map file name
+	 */
+	public String getPowerMapFile() {
+		return powerMapFile;
+	}
+
+	/**
+	 * Sets how far (in mm) routes keep outside the bounding boxes of the forbidden zones.
+	 * 
+	 * @param clearance
+	 *            the clearance, greater than zero
+	 */
+	public void setClearance(double clearance) {
+		this.clearance = clearance;
+		planner = null;
+	}
+
+	/**
+	 * @return the clearance in mm
+	 */
+	public double getClearance() {
+		return clearance;
+	}
+
+	/**
+	 * Sets the speed of the x DOF used to find the quickest route. Only the ratio of the x and y speeds matters.
+	 * 
+	 * @param xSpeed
+	 *            the speed
+	 */
+	public void setXSpeed(double xSpeed) {
+		this.xSpeed = xSpeed;
+		planner = null;
+	}
+
+	/**
+	 * @return the speed of the x DOF
+	 */
+	public double getXSpeed() {
+		return xSpeed;
+	}
+
+	/**
+	 * Sets the speed of the y DOF used to find the quickest route.
+	 * 
+	 * @param ySpeed
+	 *            the speed
+	 */
+	public void setYSpeed(double ySpeed) {
+		this.ySpeed = ySpeed;
+		planner = null;
+	}
+
+	/**
+	 * @return the speed of the y DOF
+	 */
+	public double getYSpeed() {
+		return ySpeed;
+	}
+
 	/**
 	 * NB this inner class extends java.awt.Rectangle2D.Double so we can use the methods of Rectangle2D to determine
 	 * intersection and containment. The ForbiddenZone could be a more general close polygon and work in the same way.
@@ -178,89 +307,30 @@ public class DOFRouteChecker implements Configurable, Findable {
 	}
 
 	/**
-	 * Calculates allowed moves to get to the specified final position. If the final position is in the forbidden zone
-	 * returns null. If getting to the final position crosses the forbidden zone then returns a set of moves to go round
-	 * it. If neither of these problems then returns a single move direct to the final position.
+	 * Calculates allowed moves to get to the specified final position. If the final position is in a forbidden zone or
+	 * cannot be reached without crossing one returns null. If the direct move crosses a forbidden zone then returns the
+	 * quickest set of moves which go round. Otherwise returns a single move direct to the final position.
 	 * 
 	 * @param finalX
 	 * @param finalY
-	 * @return null if move ends in forbidden zone OR single move if move does not cross zone OR set of moves around the
-	 *         forbidden zone NB The last option is currently disabled, moves across the forbidden zone are also
-	 *         disallowed.
+	 * @return null if the move is not allowed OR a single move if move does not cross a zone OR a set of moves around
+	 *         the forbidden zones
 	 */
 	public double[][] isAllowedMove(double finalX, double finalY) {
-		double[][] moves = null;
-		double x;
-		double y;
-		double w;
-		double h;
-
-		logger.debug("DOFRouteChecker forbiddenZone is: " + forbiddenZone);
 		logger.debug("DOFRouteChecker isAllowedMove called for " + finalX + " " + finalY);
 
-		if (forbiddenZone.contains(finalX, finalY)) {
-			logger.debug("which is in the forbiddenZone");
-			// moves will be null
-		} else {
-			currentX = xMover.getPosition().to(QuantityFactory.createUnitFromString("mm")).getAmount();
-			currentY = yMover.getPosition().to(QuantityFactory.createUnitFromString("mm")).getAmount();
-			// Need to construct a rectangle which represents the area of
-			// the map
-			// the move might cross. Need a rectangle not just a line
-			// because we
-			// cannot guarantee the relative speeds of the movements.
-
-			logger.debug("DOFRouteChecker x,y final x,y" + currentX + " " + currentY + " " + finalX + " " + finalY + 3);
-			// Intersection seems not to work if the width or height of the
-			// moveRectangle is 0.0 so arbitrarily specifiy minimum of 0.1
-			// for
-			// these.
-			x = Math.min(currentX, finalX);
-			w = Math.abs(finalX - currentX);
-
-			if (w == 0.0)
-				w = 0.1;
-
-			y = Math.min(currentY, finalY);
-			h = Math.abs(finalY - currentY);
-			if (h == 0.0)
-				h = 0.1;
-
-			Double moveRectangle = new Double(x, y, w, h);
-			logger.debug("DOFRouteChecker moveRectangle is: " + moveRectangle);
-			if (forbiddenZone.intersects(moveRectangle)) {
-				logger.debug("which crosses the forbidden zone");
-				/*
-				 * Message.out("should make moves: to (" + currentX + "," + forbiddenZone.getMaxY() + ")");
-				 * Message.out(" to (" + finalX + "," + forbiddenZone.getMaxY() + ")"); Message.out(" to (" + finalX +
-				 * "," + finalY + ")"); Message.out("but temporarily the move is just forbidden");
-				 */
-
-				moves = new double[3][];
-				moves[0] = new double[2];
-				moves[1] = new double[2];
-				moves[2] = new double[2];
-				moves[0][0] = currentX;
-				moves[0][1] = forbiddenZone.getMaxY();
-				moves[1][0] = finalX;
-				moves[1][1] = forbiddenZone.getMaxY();
-				moves[2][0] = finalX;
-				moves[2][1] = finalY;
-			} else {
-				// Construct a single move using the final values
-				moves = new double[1][];
-				moves[0] = new double[2];
-				moves[0][0] = finalX;
-				moves[0][1] = finalY;
-			}
-		}
+		currentX = xMover.getPosition().to(MM).getAmount();
+		currentY = yMover.getPosition().to(MM).getAmount();
+		double[][] moves = getPlanner().planRoute(currentX, currentY, finalX, finalY);
 
-		logger.debug("DOFRouteChecker isAllowedMove returning:");
-		if (moves == null) {
-			logger.debug("      null");
-		} else {
-			for (int i = 0; i < moves.length; i++) {
-				logger.debug(" " + moves[i][0] + "," + moves[i][1]);
+		if (logger.isDebugEnabled()) {
+			logger.debug("DOFRouteChecker isAllowedMove from " + currentX + "," + currentY + " returning:");
+			if (moves == null) {
+				logger.debug("      null");
+			} else {
+				for (int i = 0; i < moves.length; i++) {
+					logger.debug(" " + moves[i][0] + "," + moves[i][1]);
+				}
 			}
 		}
 
@@ -0,0 +1,211 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A table of rows of doubles held as one sorted primitive array per column. Values are found by linear interpolation
+ * between the two rows which bracket the requested value of a key column (or extrapolation from the first or last two
+ * rows). The bracketing rows are found by binary search when the key column is monotonic, which column 0 always is
+ * because the rows are sorted by it, and by a linear scan otherwise.
+ * 
+ * @see gda.oe.util.LookUpTable
+ */
+public final class InterpolationTable {
+	private final double[][] columns;
+
+	private final int size;
+
+	// +1 increasing, -1 decreasing, 0 neither, for each column
+	private final int[] direction;
+
+	/**
+	 * Creates a table from a list of rows. The rows are sorted into increasing order of their first value.
+	 * 
+	 * @param rows
+	 *            the rows, all with at least the given number of columns
+	 * @param columnCount
+	 *            the number of columns
+	 * @throws IllegalArgumentException
+	 *             if there are fewer than two rows or a row is too short
+	 */
+	public InterpolationTable(List<double[]> rows, int columnCount) {
+		if (rows.size() < 2) {
+			throw new IllegalArgumentException("an InterpolationTable needs at least two rows, not " + rows.size());
+		}
+		size = rows.size();
+		double[][] sorted = rows.toArray(new double[size][]);
+		Arrays.sort(sorted, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] o1, double[] o2) {
+				return Double.compare(o1[0], o2[0]);
+			}
+		});
+
+		columns = new double[columnCount][size];
+		for (int row = 0; row < size; row++) {
+			if (sorted[row].length < columnCount) {
+				throw new IllegalArgumentException("row " + Arrays.toString(sorted[row]) + " has fewer than "
+						+ columnCount + " values");
+			}
+			for (int column = 0; column < columnCount; column++) {
+				columns[column][row] = sorted[row][column];
+			}
+		}
+
+		direction = new int[columnCount];
+		for (int column = 0; column < columnCount; column++) {
+			direction[column] = direction(columns[column]);
+		}
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of columns
+	 */
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @param column
+	 *            the column
+	 * @return true if the values in the column are strictly increasing or strictly decreasing
+	 */
+	public boolean isMonotonic(int column) {
+		return direction[column] != 0;
+	}
+
+	/**
+	 * Finds the two rows which bracket a value of a key column.
+	 * 
+	 * @param keyColumn
+	 *            the column to search
+	 * @param key
+	 *            the value to search for
+	 * @return the index of the first of the two rows, from 0 to size() - 2
+	 */
+	public int bracket(int keyColumn, double key) {
+		double[] values = columns[keyColumn];
+		int dir = direction[keyColumn];
+
+		if (dir == 0) {
+			// No order to exploit so take the first pair which brackets key,
+			// or the end pair nearest to it.
+			for (int i = 0; i < size - 1; i++) {
+				if ((key >= values[i] && key < values[i + 1]) || (key <= values[i] && key > values[i + 1])) {
+					return i;
+				}
+			}
+			return Math.abs(key - values[0]) <= Math.abs(key - values[size - 1]) ? 0 : size - 2;
+		}
+
+		return bracket(values, key, dir > 0);
+	}
+
+	/**
+	 * Finds the two values of a strictly increasing array which bracket a key, or the end pair nearest to it if it is
+	 * outside their range.
+	 * 
+	 * @param increasing
+	 *            the values, at least two of them
+	 * @param key
+	 *            the value to search for
+	 * @return the index of the first of the two values, from 0 to increasing.length - 2
+	 */
+	public static int bracket(double[] increasing, double key) {
+		return bracket(increasing, key, true);
+	}
+
+	private static int bracket(double[] values, double key, boolean increasing) {
+		// binary search for the last value which is on the near side of key,
+		// clamped so that keys off either end use the end pairs
+		int low = 0;
+		int high = values.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (increasing ? values[mid] <= key : values[mid] >= key) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return Math.min(low, values.length - 2);
+	}
+
+	/**
+	 * Interpolates the values of a number of columns at a value of a key column.
+	 * 
+	 * @param keyColumn
+	 *            the column which key is a value of
+	 * @param key
+	 *            the value
+	 * @param outputColumns
+	 *            the columns to interpolate
+	 * @param output
+	 *            an array of at least outputColumns.length which receives the interpolated values
+	 * @return output
+	 */
+	public double[] interpolate(int keyColumn, double key, int[] outputColumns, double[] output) {
+		int before = bracket(keyColumn, key);
+		double[] keys = columns[keyColumn];
+		double factor = (key - keys[before]) / (keys[before + 1] - keys[before]);
+
+		for (int k = 0; k < outputColumns.length; k++) {
+			double[] values = columns[outputColumns[k]];
+			output[k] = values[before] + (values[before + 1] - values[before]) * factor;
+		}
+		return output;
+	}
+
+	/**
+	 * Interpolates the values of a number of columns at a value of a key column.
+	 * 
+	 * @param keyColumn
+	 *            the column which key is a value of
+	 * @param key
+	 *            the value
+	 * @param outputColumns
+	 *            the columns to interpolate
+	 * @return a new array containing the interpolated values
+	 */
+	public double[] interpolate(int keyColumn, double key, int... outputColumns) {
+		return interpolate(keyColumn, key, outputColumns, new double[outputColumns.length]);
+	}
+
+	private static int direction(double[] values) {
+		boolean increasing = true;
+		boolean decreasing = true;
+		for (int i = 1; i < values.length; i++) {
+			increasing &= values[i] > values[i - 1];
+			decreasing &= values[i] < values[i - 1];
+		}
+		return increasing ? 1 : decreasing ? -1 : 0;
+	}
+}
@@ -0,0 +1,139 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of times which can be recorded from any thread without locking. The times are counted in buckets whose
+ * width is 1/32 of their lower bound (as in an HdrHistogram with a precision of about 3%), so the percentiles are
+ * within 3% of the true value. Times are kept in microseconds from 1 uS up to about 9 hours; longer times are counted
+ * as 9 hours.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int MAX_EXPONENT = 35;
+
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a time.
+	 * 
+	 * @param nanos
+	 *            the time in nS
+	 */
+	public void record(long nanos) {
+		long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+		counts.incrementAndGet(bucket(micros));
+		count.incrementAndGet();
+		total.addAndGet(micros);
+		long m;
+		while (micros > (m = max.get()) && !max.compareAndSet(m, micros)) {
+			// another thread recorded at the same time, try again
+		}
+	}
+
+	private static int bucket(long micros) {
+		if (micros < SUB_BUCKETS)
+			return (int) micros;
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int) (micros >>> shift);
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lower = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+
+	/**
+	 * @return the number of times recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the mean time in mS, 0 if none has been recorded
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0.0 : total.get() / 1000.0 / n;
+	}
+
+	/**
+	 * @return the longest time in mS
+	 */
+	public double getMax() {
+		return max.get() / 1000.0;
+	}
+
+	/**
+	 * @param percentile
+	 *            the percentile, from 0 to 100
+	 * @return the time in mS below which the given percentage of the times fall, 0 if none has been recorded
+	 */
+	public double getPercentile(double percentile) {
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++)
+			n += counts.get(i);
+		if (n == 0)
+			return 0.0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(upperBound(i), max.get()) / 1000.0;
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forgets all the times recorded.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0);
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+}
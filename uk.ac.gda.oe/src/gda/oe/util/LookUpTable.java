@@ -25,11 +25,8 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.StringTokenizer;
 
 import org.jscience.physics.quantities.Angle;
 import org.slf4j.Logger;
@@ -38,69 +35,92 @@ import org.slf4j.LoggerFactory;
 /**
  * This contains the information needed to calculate required positions of DOFs for a give energy and polarization. (It
  * is assumed that there is one lookup table per harmonic) Should be generalized to be useful for any list of DOFs.
+ * <p>
+ * The file is a sequence of sections, one per polarization type in order starting from type 2, followed by one for
+ * variable polarization (type 1). Each section is a line naming the polarization, a line whose second and third words
+ * are the DOF names and then lines of energy, first DOF and second DOF values. In the variable polarization section
+ * the rows for each angle follow a line starting with the angle. Blank lines, lines starting with # and other lines
+ * which are not numbers (e.g. units) are ignored, and a section ends when a line which does not start with a number
+ * follows some data.
  * 
  * @see gda.oe.util.UndulatorMoveCalculator
+ * @see gda.oe.util.InterpolationTable
  */
 public class LookUpTable {
 	private static final Logger logger = LoggerFactory.getLogger(LookUpTable.class);
 
-	// private static int ENERGY = 0;
-	// private static int GAP = 1;
-	// private static int LOWER = 2;
-	// private static int UPPER = 3;
+	private static final int ENERGY = 0;
+
+	private static final int DOFONE = 1;
+
+	private static final int DOFTWO = 2;
+
+	private static final int[] FORWARD = { DOFONE, DOFTWO };
+
+	private static final int[] REVERSE = { ENERGY, DOFTWO };
 
 	private ArrayList<PolarizationEntry> perPolarization = new ArrayList<PolarizationEntry>();
 
-	private VariablePolarizationList variablePolarization = new VariablePolarizationList();
+	private VariablePolarizationList variablePolarization = null;
 
 	/**
-	 * VariablePolarizationList is an ArrayList<VariablePolarizationEntry> of VariablePolarizationEntries arranged by
-	 * their AngleValue.
+	 * VariablePolarizationList holds a PolarizationEntry for each of a set of angles, arranged in increasing angle
+	 * order. Values for other angles are interpolated between the entries for the two angles which bracket them.
 	 */
-	private class VariablePolarizationList extends ArrayList<VariablePolarizationEntry> implements
-			Comparator<VariablePolarizationEntry> {
+	private class VariablePolarizationList {
+		private final double[] angles;
+
+		private final PolarizationEntry[] entries;
+
+		private VariablePolarizationList(ArrayList<Double> angleList, ArrayList<PolarizationEntry> entryList) {
+			int n = angleList.size();
+			angles = new double[n];
+			entries = new PolarizationEntry[n];
+			// insertion sort into increasing angle order, there are only a few
+			for (int i = 0; i < n; i++) {
+				double angle = angleList.get(i);
+				int j = i;
+				for (; j > 0 && angles[j - 1] > angle; j--) {
+					angles[j] = angles[j - 1];
+					entries[j] = entries[j - 1];
+				}
+				angles[j] = angle;
+				entries[j] = entryList.get(i);
+			}
+		}
+
 		private double[] calculate(Angle polarization, double energy) {
-			double[] rtrn = { 45.0, -10.0 };
 			double angle = polarization.to(NonSIext.DEG_ANGLE).getAmount();
+			if (entries.length == 1) {
+				return entries[0].calculate(energy);
+			}
 
-			// search the list of polarization entries for the two which
-			// bracket angle
-			Iterator<VariablePolarizationEntry> i = listIterator();
-			Iterator<VariablePolarizationEntry> j = listIterator(1);
-
-			VariablePolarizationEntry before = null;
-			VariablePolarizationEntry after = null;
-
-			if (angle <= get(0).getAngle()) {
-				// Use the first two entries
-				before = get(0);
-				after = get(1);
-			} else if (angle >= get(size() - 1).getAngle()) {
-				// Use the last two entries
-				before = get(size() - 2);
-				after = get(size() - 1);
-			} else {
-				for (; i.hasNext() && j.hasNext();) {
-					before = i.next();
-					after = j.next();
+			int before = InterpolationTable.bracket(angles, angle);
+			double[] beforeSet = entries[before].calculate(energy);
+			double[] afterSet = entries[before + 1].calculate(energy);
+			return interpolate(angle, before, beforeSet, afterSet);
+		}
 
-					if (angle > before.getAngle() && angle < after.getAngle())
-						break;
-				}
+		private double[] reverseCalculate(Angle polarization, double gap) {
+			double angle = polarization.to(NonSIext.DEG_ANGLE).getAmount();
+			if (entries.length == 1) {
+				return entries[0].reverseCalculate(gap);
 			}
 
-			if (before != null && after != null) {
-				double[] beforeSet = before.getPolarizationEntry().calculate(energy);
-				double[] afterSet = after.getPolarizationEntry().calculate(energy);
-
-				logger.debug("angle, before.getAngle(), after.getAngle() " + angle + " " + before.getAngle() + " "
-						+ after.getAngle());
+			int before = InterpolationTable.bracket(angles, angle);
+			double[] beforeSet = entries[before].reverseCalculate(gap);
+			double[] afterSet = entries[before + 1].reverseCalculate(gap);
+			return interpolate(angle, before, beforeSet, afterSet);
+		}
 
-				double factor = (angle - before.getAngle()) / (after.getAngle() - before.getAngle());
+		private double[] interpolate(double angle, int before, double[] beforeSet, double[] afterSet) {
+			logger.debug("angle, before angle, after angle {} {} {}", new Object[] { angle, angles[before],
+					angles[before + 1] });
 
-				for (int k = 0; k < 2; k++) {
-					rtrn[k] = beforeSet[k] + (afterSet[k] - beforeSet[k]) * factor;
-				}
+			double factor = (angle - angles[before]) / (angles[before + 1] - angles[before]);
+			double[] rtrn = new double[beforeSet.length];
+			for (int k = 0; k < rtrn.length; k++) {
+				rtrn[k] = beforeSet[k] + (afterSet[k] - beforeSet[k]) * factor;
 			}
 			return rtrn;
 		}
@@ -111,75 +131,26 @@ public class LookUpTable {
 		 * @return an array of DOFNames
 		 */
 		public String[] getDOFNames() {
-			return get(0).getPolarizationEntry().getDOFNames();
-		}
-
-		/**
-		 * Implements the Comparator interface, the return values are calculated so that the list gets sorted into
-		 * increasing angle order.
-		 * 
-		 * @param o1
-		 *            the first VariablePolarizationEntry
-		 * @param o2
-		 *            the second VariablePolarizationEntry to compare with the first
-		 * @return the result of the compare. Zero if equal.
-		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
-		 */
-		@Override
-		public int compare(VariablePolarizationEntry o1, VariablePolarizationEntry o2) {
-			int rtrn;
-			if (o1.getAngle() > o2.getAngle())
-				rtrn = 1;
-			else if (o1.getAngle() < o2.getAngle())
-				rtrn = -1;
-			else
-				rtrn = 0;
-			return rtrn;
-		}
-
-		/**
-		 * Sorts the list, VariablePolarizationEntry implements Comparator so appears both as the List and the
-		 * Comparator
-		 */
-		public void order() {
-			Collections.sort(this, this);
+			return entries[0].getDOFNames();
 		}
 	}
 
 	/**
-	 * A VariablePolarizationEntry is a PolarizationEntry with a specifying Angle
+	 * A PolarizationEntry is an InterpolationTable of energy and the positions of two DOFs
 	 */
-	private class VariablePolarizationEntry {
-		private double angle;
+	private class PolarizationEntry {
+		private final String[] dofNames;
 
-		private PolarizationEntry pe;
-
-		private VariablePolarizationEntry(double angle, PolarizationEntry pe) {
-			this.angle = angle;
-			this.pe = pe;
-		}
+		private final InterpolationTable table;
 
-		private double getAngle() {
-			return angle;
-		}
-
-		private PolarizationEntry getPolarizationEntry() {
-			return pe;
-		}
-	}
-
-	/**
-	 * A PolarizationEntry is an ArrayList<TableEntry> in which each item is a TableEntry
-	 */
-	private class PolarizationEntry extends ArrayList<TableEntry> implements Comparator<TableEntry> {
-		private String dofOne;
-
-		private String dofTwo;
-
-		private PolarizationEntry(String dofOne, String dofTwo) {
+		private PolarizationEntry(String dofOne, String dofTwo, InterpolationTable table) {
 			logger.debug("Creating a PolarizationEntry with dofs: " + dofOne + " and " + dofTwo);
-			this.dofOne = dofOne;
-			this.dofTwo = dofTwo;
+			this.dofNames = new String[] { dofOne, dofTwo };
+			this.table = table;
+			if (!table.isMonotonic(DOFONE)) {
+				logger.warn("LookUpTable " + dofOne + " values are not monotonic in energy, reverse lookups will"
+						+ " use the first matching pair of rows");
+			}
 		}
 
 		/**
@@ -190,151 +161,136 @@ public class LookUpTable {
 		 * @return double array containing the positions
 		 */
 		private double[] calculate(double energy) {
-			double[] rtrn = new double[2];
-
-			TableEntry before = null;
-			TableEntry after = null;
-
-			if (energy <= get(0).getValue(0)) {
-				// Use the first two entries
-				before = get(0);
-				after = get(1);
-			} else if (energy >= get(size() - 1).getValue(0)) {
-				// Use the last two entries
-				before = get(size() - 2);
-				after = get(size() - 1);
-			} else {
-				// Search the list of table entries for the two which
-				// bracket energy
-				Iterator<TableEntry> i = listIterator();
-				Iterator<TableEntry> j = listIterator(1);
-
-				for (; i.hasNext() && j.hasNext();) {
-					before = i.next();
-					after = j.next();
-
-					if (energy >= before.getValue(0) && energy < after.getValue(0))
-						break;
-				}
-			}
-
-			if (before != null && after != null) {
-
-				double factor = (energy - before.getValue(0)) / (after.getValue(0) - before.getValue(0));
-
-				for (int k = 0; k < 2; k++) {
-					rtrn[k] = before.getValue(k + 1) + (after.getValue(k + 1) - before.getValue(k + 1)) * factor;
-					logger.debug("rtrn[" + k + "] is " + rtrn[k]);
-				}
-			}
-			return rtrn;
-		}
-
-		private String[] getDOFNames() {
-			String[] rtrn = { dofOne, dofTwo };
-			return rtrn;
+			return table.interpolate(ENERGY, energy, FORWARD);
 		}
 
 		/**
-		 * Sorts the list, PolarizationEntry implements Comparator so appears both as the List and the Comparator
+		 * Calculates the energy and second DOF position for a given position of the first DOF
+		 * 
+		 * @param gap
+		 *            the position of the first DOF
+		 * @return double array containing the energy and the position of the second DOF
 		 */
-		public void order() {
-			Collections.sort(this, this);
+		private double[] reverseCalculate(double gap) {
+			return table.interpolate(DOFONE, gap, REVERSE);
 		}
 
-		/**
-		 * Implements the Comparator interface, the return values are calculated so that the list gets sorted into
-		 * increasing energy order.
-		 * 
-		 * @param o1
-		 *            the first TableEntry
-		 * @param o2
-		 *            the second TableEntry to compare with the first
-		 * @return the result of the compare. Zero if equal.
-		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
-		 */
-		@Override
-		public int compare(TableEntry o1, TableEntry o2) {
-			int rtrn;
-			if (o1.getValue(0) > o2.getValue(0))
-				rtrn = 1;
-			else if (o1.getValue(0) < o2.getValue(0))
-				rtrn = -1;
-			else
-				rtrn = 0;
-			return rtrn;
+		private String[] getDOFNames() {
+			return dofNames.clone();
 		}
+	}
 
-		/**
-		 * @param gap
-		 * @return double[]
-		 */
-		public double[] reverseCalculate(double gap) {
-			double[] rtrn = new double[2];
-
-			TableEntry before = null;
-			TableEntry after = null;
-
-			if (gap <= get(0).getValue(1)) {
-				// Use the first two entries
-				before = get(0);
-				after = get(1);
-			} else if (gap >= get(size() - 1).getValue(1)) {
-				// Use the last two entries
-				before = get(size() - 2);
-				after = get(size() - 1);
-			} else {
-				// Search the list of table entries for the two which
-				// bracket energy
-				Iterator<TableEntry> i = listIterator();
-				Iterator<TableEntry> j = listIterator(1);
+	/**
+	 * Reads the sections of a lookup table file one line at a time.
+	 */
+	private class Parser {
+		private int lineNumber = 0;
+
+		private String polarization = null;
 
-				for (; i.hasNext() && j.hasNext();) {
-					before = i.next();
-					after = j.next();
+		private String[] dofNames = null;
 
-					if (gap > before.getValue(1) && gap < after.getValue(1))
-						break;
+		private ArrayList<double[]> rows = new ArrayList<double[]>();
+
+		private double angle = Double.NaN;
+
+		private ArrayList<Double> angles = new ArrayList<Double>();
+
+		private ArrayList<PolarizationEntry> angleEntries = new ArrayList<PolarizationEntry>();
+
+		private void parse(BufferedReader in) throws IOException {
+			String line;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
 				}
-			}
-			if (before != null && after != null) {
-				double factor = (gap - before.getValue(1)) / (after.getValue(1) - before.getValue(1));
 
-				for (int k = 0; k <= 2; k += 2) {
-					int index = (k + 1) / 2;
-					rtrn[index] = before.getValue(k) + (after.getValue(k) - before.getValue(k)) * factor;
-					logger.debug("rtrn[" + index + "] is " + rtrn[index]);
+				String[] tokens = line.split("\\s+");
+				double[] numbers = leadingNumbers(tokens, 3);
+
+				if (polarization == null || (numbers.length == 0 && hasData())) {
+					endSection();
+					polarization = line;
+					logger.debug("Polarization type would be: " + polarization);
+				} else if (dofNames == null) {
+					if (tokens.length >= 3) {
+						dofNames = new String[] { tokens[1], tokens[2] };
+					} else {
+						logger.warn("LookUpTable ignoring line " + lineNumber + " which should name two DOFs: " + line);
+					}
+				} else if (numbers.length == 3) {
+					rows.add(numbers);
+				} else if (numbers.length > 0) {
+					endAngle();
+					angle = numbers[0];
+				} else {
+					logger.debug("LookUpTable ignoring line " + lineNumber + ": " + line);
 				}
 			}
-			return rtrn;
+			endSection();
 		}
-	}
-
-	/**
-	 * TableEntry is really just a way to create an array of 3 doubles from a String and so its existence as a class is
-	 * possibly a bit OTT.
-	 */
-	private class TableEntry {
-		private double[] values = new double[3];
 
-		private TableEntry(String readFromFile) {
-			logger.debug("creating TableEntry from:" + readFromFile);
+		private boolean hasData() {
+			return !rows.isEmpty() || !angles.isEmpty() || !Double.isNaN(angle);
+		}
 
-			StringTokenizer strtok = new StringTokenizer(readFromFile);
+		private PolarizationEntry makeEntry() {
+			PolarizationEntry pe = null;
+			try {
+				pe = new PolarizationEntry(dofNames[0], dofNames[1], new InterpolationTable(rows, 3));
+			} catch (IllegalArgumentException e) {
+				logger.error("LookUpTable polarization " + polarization + " ending at line " + lineNumber + ": "
+						+ e.getMessage());
+			}
+			rows = new ArrayList<double[]>();
+			return pe;
+		}
 
-			for (int i = 0; i < 3; i++)
-				values[i] = Double.valueOf(strtok.nextToken()).doubleValue();
+		private void endAngle() {
+			if (!Double.isNaN(angle)) {
+				PolarizationEntry pe = makeEntry();
+				if (pe != null) {
+					angles.add(angle);
+					angleEntries.add(pe);
+					logger.debug("added entry for " + angle);
+				}
+			} else if (!rows.isEmpty()) {
+				logger.error("LookUpTable ignoring " + rows.size() + " rows before line " + lineNumber
+						+ " which are not for an angle");
+				rows.clear();
+			}
 		}
 
-		/**
-		 * Returns one of the values
-		 * 
-		 * @param index
-		 *            the index
-		 * @return the value at that index
-		 */
-		private double getValue(int index) {
-			return values[index];
+		private void endSection() {
+			if (polarization == null) {
+				return;
+			}
+			if (dofNames == null) {
+				logger.error("LookUpTable polarization " + polarization + " does not name its DOFs");
+			} else if (Double.isNaN(angle) && angles.isEmpty()) {
+				PolarizationEntry pe = makeEntry();
+				if (pe != null) {
+					logger.debug("adding a polarization entry to the list " + perPolarization.size());
+					perPolarization.add(pe);
+				}
+			} else {
+				endAngle();
+				if (!angleEntries.isEmpty()) {
+					if (variablePolarization != null) {
+						logger.warn("LookUpTable replacing variable polarization with " + polarization);
+					}
+					variablePolarization = new VariablePolarizationList(angles, angleEntries);
+				}
+			}
+
+			polarization = null;
+			dofNames = null;
+			rows = new ArrayList<double[]>();
+			angle = Double.NaN;
+			angles = new ArrayList<Double>();
+			angleEntries = new ArrayList<PolarizationEntry>();
 		}
 	}
 
@@ -342,98 +298,50 @@ public class LookUpTable {
 	 * @param fileName
 	 */
 	public LookUpTable(String fileName) {
-		String inputString;
-		double angle;
-		StringTokenizer strtok;
-
 		try {
-
 			BufferedReader in = new BufferedReader(new FileReader(fileName));
-
-			int counter = 0;
-			PolarizationEntry pe;
-
-			do {
-				do {
-					inputString = in.readLine();
-				} while (inputString.startsWith("#"));
-
-				logger.debug("Polarization type would be: " + inputString);
-				inputString = in.readLine();
-				strtok = new StringTokenizer(inputString);
-				strtok.nextToken();
-
-				pe = new PolarizationEntry(strtok.nextToken(), strtok.nextToken());
-
-				inputString = in.readLine();
-				inputString = in.readLine();
-				do {
-					// The last line read in the previous loop should be the
-					// first
-					// line of data for this loop
-					pe.add(new TableEntry(inputString));
-					inputString = in.readLine();
-				} while (!inputString.startsWith("#"));
-
-				pe.order();
-				logger.debug("adding a polarization entry to the list " + counter);
-				perPolarization.add(pe);
-
-				counter++;
-
-			} while (counter < 7);
-
-			// Now should be the stuff for general angles
-			do {
-				inputString = in.readLine();
-			} while (inputString.startsWith("#"));
-
-			logger.debug("Polarization type would be: " + inputString);
-			inputString = in.readLine();
-			strtok = new StringTokenizer(inputString);
-			strtok.nextToken();
-			String dofOne = strtok.nextToken();
-			String dofTwo = strtok.nextToken();
-			pe = new PolarizationEntry(dofOne, dofTwo);
-
-			inputString = in.readLine();
-			inputString = in.readLine();
-			do {
-				strtok = new StringTokenizer(inputString);
-				angle = Double.valueOf(strtok.nextToken()).doubleValue();
-
-				do {
-					inputString = in.readLine();
-				} while (inputString.startsWith("#"));
-
-				pe = new PolarizationEntry(dofOne, dofTwo);
-				do {
-					// The last line read in the previous loop should be the
-					// first line of data for this loop
-					pe.add(new TableEntry(inputString));
-					inputString = in.readLine();
-				} while (!(inputString == null || inputString.startsWith("#")));
-				pe.order();
-				variablePolarization.add(new VariablePolarizationEntry(angle, pe));
-				if (inputString == null) {
-					logger.debug("added entry for " + angle + " with no inputString");
-				} else {
-					logger.debug("added entry for " + angle + " inputString is " + inputString);
-				}
-				if (inputString == null)
-					break;
-				do {
-					inputString = in.readLine();
-				} while (inputString.startsWith("#"));
-			} while (true);
-
-			variablePolarization.order();
+			try {
+				new Parser().parse(in);
+			} finally {
+				in.close();
+			}
 		} catch (FileNotFoundException fnfe) {
 			logger.error("LookupTable: FileNotFoundException " + fnfe.getMessage());
 		} catch (IOException ioe) {
 			logger.error("LookupTable: IOException " + ioe.getMessage());
 		}
+	}
+
+	/**
+	 * Creates a LookUpTable from a stream in the same format as the file.
+	 * 
+	 * @param reader
+	 *            the stream
+	 * @throws IOException
+	 */
+	public LookUpTable(Reader reader) throws IOException {
+		new Parser().parse(new BufferedReader(reader));
+	}
 
+	/**
+	 * Parses as many as max leading tokens which are numbers.
+	 */
+	private static double[] leadingNumbers(String[] tokens, int max) {
+		int n = 0;
+		double[] values = new double[Math.min(max, tokens.length)];
+		for (; n < values.length; n++) {
+			try {
+				values[n] = Double.parseDouble(tokens[n]);
+			} catch (NumberFormatException e) {
+				break;
+			}
+		}
+		if (n < values.length) {
+			double[] rtrn = new double[n];
+			System.arraycopy(values, 0, rtrn, 0, n);
+			return rtrn;
+		}
+		return values;
 	}
 
 	/**
@@ -457,15 +365,20 @@ public class LookUpTable {
 		logger.debug("LookUpTable calculateValues choosing polarization index " + index);
 
 		if (index == -1) {
-			return variablePolarization.calculate(polarization, energy);
+			return getVariablePolarization().calculate(polarization, energy);
 		}
-		return perPolarization.get(index).calculate(energy);
+		return getPolarizationEntry(index).calculate(energy);
 	}
 
 	/**
+	 * Calculates the energy and second DOF position which correspond to a given position of the first DOF (the gap)
+	 * and polarization
+	 * 
 	 * @param gap
+	 *            the position of the first DOF
 	 * @param polarization
-	 * @return double[]
+	 *            the polarization
+	 * @return double array containing the energy and the position of the second DOF
 	 */
 	public double[] reverseCalculateValues(double gap, Angle polarization) {
 		// find correct polarization entry
@@ -478,10 +391,9 @@ public class LookUpTable {
 		logger.debug("LookUpTable calculateValues choosing polarization index " + index);
 
 		if (index == -1) {
-			// FIXME: return something calculated by variablePolarization
-			return null;
+			return getVariablePolarization().reverseCalculate(polarization, gap);
 		}
-		return perPolarization.get(index).reverseCalculate(gap);
+		return getPolarizationEntry(index).reverseCalculate(gap);
 	}
 
 	/**
@@ -503,9 +415,23 @@ public class LookUpTable {
 		logger.debug("LookUpTable calculateValues choosing polarization index " + index);
 
 		if (index == -1) {
-			return variablePolarization.getDOFNames();
+			return getVariablePolarization().getDOFNames();
+		}
+		return getPolarizationEntry(index).getDOFNames();
+	}
+
+	private VariablePolarizationList getVariablePolarization() {
+		if (variablePolarization == null) {
+			throw new IllegalArgumentException("LookUpTable has no entries for variable polarization");
+		}
+		return variablePolarization;
+	}
+
+	private PolarizationEntry getPolarizationEntry(int index) {
+		if (index < 0 || index >= perPolarization.size()) {
+			throw new IllegalArgumentException("LookUpTable has no entry for polarization type " + (index + 2));
 		}
-		return perPolarization.get(index).getDOFNames();
+		return perPolarization.get(index);
 	}
 
 	/**
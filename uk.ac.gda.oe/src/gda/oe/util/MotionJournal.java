@@ -0,0 +1,836 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import gda.configuration.properties.LocalProperties;
+import gda.observable.IObserver;
+import gda.oe.MoveableStatus;
+import gda.oe.positioners.PositionerPoller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jscience.physics.quantities.Quantity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only record of the MoveableStatus events sent by the DOFs of the OEs in this JVM (see OEBase.update), so
+ * that what happened before an incident can be worked out afterwards. Each event is a fixed size record of the time
+ * in nS, the OE, the Moveable, the status value, the move id, the position and the message; names, units and messages
+ * are replaced by numbers from a dictionary. Messages are only kept for statuses other than BUSY, READY and SUCCESS
+ * and at most {@value #MAX_MESSAGES_PROPERTY} different ones are numbered, so that messages which contain positions
+ * or times do not make the dictionary grow without end.
+ * <p>
+ * Events go into a ring buffer outside the heap. Recording one claims a slot in the ring with an atomic increment and
+ * takes no lock, so the threads which notify the OEs do not wait for each other. It allocates nothing unless a name,
+ * unit or message is seen for the first time.
+ * <p>
+ * If the property {@value #DIRECTORY_PROPERTY} is set the events are copied from the ring every flush interval (on
+ * the PositionerPoller) to segment files in that directory, with the dictionary in the file motion.dictionary.
+ * Otherwise only the events still in the ring are kept. If the ring fills before it is flushed the oldest events are
+ * lost and counted.
+ * <p>
+ * The events of one Moveable of an OE (or all) between two times are read back with query, e.g. from Jython
+ * MotionJournal.getInstance().recent("oe", "dof", 60), and can be replayed to an IObserver such as the oemove GUI.
+ */
+public class MotionJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(MotionJournal.class);
+
+	/**
+	 * Property which switches the journal on or off (default on)
+	 */
+	public static final String ENABLED_PROPERTY = "gda.oe.journal";
+
+	/**
+	 * Property giving the directory of the segment files. If it is not set events are only kept in memory.
+	 */
+	public static final String DIRECTORY_PROPERTY = "gda.oe.journal.dir";
+
+	/**
+	 * Property giving the number of events the ring holds, default 65536
+	 */
+	public static final String CAPACITY_PROPERTY = "gda.oe.journal.capacity";
+
+	/**
+	 * Property giving the number of events in each segment file, default 1048576
+	 */
+	public static final String SEGMENT_EVENTS_PROPERTY = "gda.oe.journal.segmentEvents";
+
+	/**
+	 * Property giving the number of segment files kept, the oldest being deleted, default 0 meaning all are kept
+	 */
+	public static final String MAX_SEGMENTS_PROPERTY = "gda.oe.journal.maxSegments";
+
+	/**
+	 * Property giving the time in mS between flushes of the ring to the segment files, default 1000
+	 */
+	public static final String FLUSH_INTERVAL_PROPERTY = "gda.oe.journal.flushInterval";
+
+	/**
+	 * Property giving the number of different messages numbered, default 1024. Messages seen after that are not kept.
+	 */
+	public static final String MAX_MESSAGES_PROPERTY = "gda.oe.journal.maxMessages";
+
+	/** The size in bytes of one event */
+	static final int EVENT_SIZE = 40;
+
+	private static final int TIME_OFFSET = 0;
+
+	private static final int MOVEABLE_OFFSET = 8;
+
+	private static final int STATUS_OFFSET = 12;
+
+	private static final int ID_OFFSET = 16;
+
+	private static final int UNIT_OFFSET = 20;
+
+	private static final int AMOUNT_OFFSET = 24;
+
+	private static final int MESSAGE_OFFSET = 32;
+
+	private static final int OE_OFFSET = 36;
+
+	private static final int MAGIC = 0x47444d4a;
+
+	private static final int VERSION = 2;
+
+	private static final int HEADER_SIZE = 16;
+
+	private static final String SEGMENT_PREFIX = "motion-";
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	private static final String DICTIONARY_FILE = "motion.dictionary";
+
+	private static volatile MotionJournal instance;
+
+	private static volatile boolean instanceOpened = false;
+
+	/**
+	 * Numbers the OE and Moveable names, units or messages. Numbers are given out while the dictionary is locked, a
+	 * text which already has one is looked up without locking.
+	 */
+	private static final class Dictionary {
+		final byte kind;
+
+		final int limit;
+
+		final ConcurrentHashMap<Object, Integer> ids = new ConcurrentHashMap<Object, Integer>();
+
+		// guarded by this
+		final ArrayList<String> texts = new ArrayList<String>();
+
+		// the number of texts written to the dictionary file, used only while flushing
+		int saved;
+
+		Dictionary(int kind, int limit) {
+			this.kind = (byte) kind;
+			this.limit = limit;
+		}
+
+		/**
+		 * @return the number of the text of key, -1 if key is null or the dictionary is full
+		 */
+		int id(Object key) {
+			if (key == null) {
+				return -1;
+			}
+			Integer id = ids.get(key);
+			if (id == null) {
+				synchronized (this) {
+					id = ids.get(key);
+					if (id == null) {
+						if (texts.size() >= limit) {
+							return -1;
+						}
+						id = texts.size();
+						texts.add(key.toString());
+						ids.put(key, id);
+					}
+				}
+			}
+			return id;
+		}
+
+		synchronized String[] texts() {
+			return texts.toArray(new String[texts.size()]);
+		}
+
+		synchronized List<String> unsaved() {
+			return new ArrayList<String>(texts.subList(saved, texts.size()));
+		}
+
+		void load(int id, String text) {
+			while (texts.size() <= id) {
+				texts.add(null);
+			}
+			texts.set(id, text);
+			ids.putIfAbsent(text, id);
+		}
+	}
+
+	/**
+	 * A segment file and the range of times and the Moveables of its events.
+	 */
+	private static final class Segment {
+		final File file;
+
+		int count;
+
+		long first = Long.MAX_VALUE;
+
+		long last = Long.MIN_VALUE;
+
+		// null if not known (a segment from before this journal was opened)
+		BitSet moveables;
+
+		Segment(File file) {
+			this.file = file;
+		}
+
+		void add(long time, int moveable) {
+			count++;
+			first = Math.min(first, time);
+			last = Math.max(last, time);
+			if (moveables != null && moveable >= 0) {
+				moveables.set(moveable);
+			}
+		}
+	}
+
+	private final ByteBuffer ring;
+
+	private final int capacity;
+
+	private final File directory;
+
+	private final int segmentEvents;
+
+	private final int maxSegments;
+
+	// added to System.nanoTime to give nS since 1970
+	private final long epochOffset;
+
+	// the number of events claimed by record, the next one goes in slot claimed % capacity
+	private final AtomicLong claimed = new AtomicLong();
+
+	// for each slot of the ring the number of the event in it plus one, or 0 while an event is being written to it
+	private final AtomicLongArray published;
+
+	// the fields below are guarded by this
+	private long spilled = 0;
+
+	private long lost = 0;
+
+	// the number of events copied by copyRing
+	private int copied;
+
+	private final Dictionary moveables = new Dictionary(0, Integer.MAX_VALUE);
+
+	private final Dictionary units = new Dictionary(1, Integer.MAX_VALUE);
+
+	private final Dictionary messages;
+
+	private final Dictionary oes = new Dictionary(3, Integer.MAX_VALUE);
+
+	private final Dictionary[] dictionaries;
+
+	private final Object flushLock = new Object();
+
+	private final ArrayList<Segment> segments = new ArrayList<Segment>();
+
+	private int nextSegment = 0;
+
+	private Segment current;
+
+	private RandomAccessFile currentFile;
+
+	private DataOutputStream dictionaryOut;
+
+	private byte[] copy = new byte[0];
+
+	private long flushInterval = 1000;
+
+	private ScheduledFuture<?> pendingFlush;
+
+	private boolean closed = false;
+
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				flush();
+			} catch (IOException e) {
+				logger.error("MotionJournal: could not flush to " + directory, e);
+			} finally {
+				synchronized (MotionJournal.this) {
+					pendingFlush = closed ? null : PositionerPoller.getInstance().schedule(this, flushInterval);
+				}
+			}
+		}
+	};
+
+	/**
+	 * Returns the journal of the OEs in this JVM, opening it the first time it is asked for.
+	 * 
+	 * @return the journal or null if it is switched off or could not be opened
+	 */
+	public static MotionJournal getInstance() {
+		if (!instanceOpened) {
+			open();
+		}
+		return instance;
+	}
+
+	private static synchronized void open() {
+		if (!instanceOpened) {
+			if (LocalProperties.check(ENABLED_PROPERTY, true)) {
+				String name = LocalProperties.get(DIRECTORY_PROPERTY);
+				try {
+					MotionJournal journal = new MotionJournal(LocalProperties.getInt(CAPACITY_PROPERTY, 65536),
+							(name != null) ? new File(name) : null, LocalProperties.getInt(SEGMENT_EVENTS_PROPERTY,
+									1 << 20), LocalProperties.getInt(MAX_SEGMENTS_PROPERTY, 0), LocalProperties
+									.getInt(MAX_MESSAGES_PROPERTY, 1024));
+					journal.setFlushInterval(LocalProperties.getInt(FLUSH_INTERVAL_PROPERTY, 1000));
+					instance = journal;
+				} catch (IOException e) {
+					logger.error("MotionJournal: could not open " + name + ", moves will not be recorded", e);
+				}
+			}
+			instanceOpened = true;
+		}
+	}
+
+	/**
+	 * Records a notification of an OE if it is a MoveableStatus and the journal is on.
+	 * 
+	 * @param oeName
+	 *            the name of the OE
+	 * @param arg
+	 *            the argument of the notification
+	 */
+	public static void log(String oeName, Object arg) {
+		if (arg instanceof MoveableStatus) {
+			MotionJournal journal = getInstance();
+			if (journal != null) {
+				journal.record(oeName, (MoveableStatus) arg);
+			}
+		}
+	}
+
+	/**
+	 * Replays events to an observer as MoveableStatus notifications.
+	 * 
+	 * @param events
+	 *            the events, e.g. from query
+	 * @param source
+	 *            the object given to the observer as the source of the notifications
+	 * @param observer
+	 *            the observer
+	 * @param speed
+	 *            how many times faster than they happened to replay the events, 0 for as fast as possible
+	 * @throws InterruptedException
+	 */
+	public static void replay(List<MotionJournalEvent> events, Object source, IObserver observer, double speed)
+			throws InterruptedException {
+		long start = System.nanoTime();
+		long first = events.isEmpty() ? 0 : events.get(0).getTime();
+		for (MotionJournalEvent event : events) {
+			if (speed > 0.0) {
+				long wait = start + (long) ((event.getTime() - first) / speed) - System.nanoTime();
+				if (wait > 0) {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				}
+			}
+			observer.update(source, event.toMoveableStatus());
+		}
+	}
+
+	/**
+	 * Opens a journal, reading the dictionary and finding the segments already in the directory. New events go to a
+	 * new segment.
+	 * 
+	 * @param capacity
+	 *            the number of events the ring holds
+	 * @param directory
+	 *            the directory of the segment files or null to keep events only in the ring
+	 * @param segmentEvents
+	 *            the number of events in each segment file
+	 * @param maxSegments
+	 *            the number of segment files to keep, 0 for all
+	 * @param maxMessages
+	 *            the number of different messages to keep
+	 * @throws IOException
+	 */
+	public MotionJournal(int capacity, File directory, int segmentEvents, int maxSegments, int maxMessages)
+			throws IOException {
+		this.capacity = capacity;
+		this.directory = directory;
+		this.segmentEvents = segmentEvents;
+		this.maxSegments = maxSegments;
+		messages = new Dictionary(2, maxMessages);
+		dictionaries = new Dictionary[] { moveables, units, messages, oes };
+		ring = ByteBuffer.allocateDirect(capacity * EVENT_SIZE);
+		published = new AtomicLongArray(capacity);
+		epochOffset = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+		if (directory != null) {
+			directory.mkdirs();
+			openDictionary();
+			findSegments();
+			pendingFlush = PositionerPoller.getInstance().schedule(flushTask, flushInterval);
+		}
+	}
+
+	/**
+	 * @param flushInterval
+	 *            the time in mS between flushes to the segment files
+	 */
+	public synchronized void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Records a status. The slot is claimed before it is written and published afterwards, so that flush and query
+	 * only read whole events.
+	 * 
+	 * @param oeName
+	 *            the name of the OE which sent the status
+	 * @param status
+	 *            the status
+	 */
+	public void record(String oeName, MoveableStatus status) {
+		Quantity position = status.getPosition();
+		int value = status.value();
+		int oe = oes.id(oeName);
+		int moveable = moveables.id(status.getMoveableName());
+		int unit = (position != null) ? units.id(position.getUnit()) : -1;
+		int message = -1;
+		if (value != MoveableStatus.BUSY && value != MoveableStatus.READY && value != MoveableStatus.SUCCESS) {
+			message = messages.id(status.getMessage());
+		}
+
+		long event = claimed.getAndIncrement();
+		int slot = (int) (event % capacity);
+		int offset = slot * EVENT_SIZE;
+		published.set(slot, 0);
+		ring.putLong(offset + TIME_OFFSET, epochOffset + System.nanoTime());
+		ring.putInt(offset + MOVEABLE_OFFSET, moveable);
+		ring.putInt(offset + STATUS_OFFSET, value);
+		ring.putInt(offset + ID_OFFSET, status.id());
+		ring.putInt(offset + UNIT_OFFSET, unit);
+		ring.putDouble(offset + AMOUNT_OFFSET, (position != null) ? position.getAmount() : Double.NaN);
+		ring.putInt(offset + MESSAGE_OFFSET, message);
+		ring.putInt(offset + OE_OFFSET, oe);
+		published.set(slot, event + 1);
+	}
+
+	/**
+	 * @return the number of events recorded
+	 */
+	public long getRecorded() {
+		return claimed.get();
+	}
+
+	/**
+	 * @return the number of events lost because the ring filled before it was flushed
+	 */
+	public synchronized long getLost() {
+		return lost + ((directory != null) ? Math.max(0, claimed.get() - spilled - capacity) : 0);
+	}
+
+	/**
+	 * Returns the events of the last few seconds.
+	 * 
+	 * @param oeName
+	 *            the OE or null for all
+	 * @param moveableName
+	 *            the Moveable or null for all
+	 * @param seconds
+	 *            how far back to go
+	 * @return the events in the order they were recorded
+	 * @throws IOException
+	 */
+	public List<MotionJournalEvent> recent(String oeName, String moveableName, double seconds) throws IOException {
+		long now = System.currentTimeMillis();
+		return query(oeName, moveableName, now - (long) (seconds * 1000.0), now);
+	}
+
+	/**
+	 * Returns the events recorded between two times.
+	 * 
+	 * @param oeName
+	 *            the OE or null for all
+	 * @param moveableName
+	 *            the Moveable or null for all
+	 * @param from
+	 *            the start time in mS since 1970
+	 * @param to
+	 *            the end time (inclusive) in mS since 1970
+	 * @return the events in the order they were recorded
+	 * @throws IOException
+	 */
+	public List<MotionJournalEvent> query(String oeName, String moveableName, long from, long to) throws IOException {
+		long fromNanos = TimeUnit.MILLISECONDS.toNanos(from);
+		long toNanos = TimeUnit.MILLISECONDS.toNanos(to);
+		if (toNanos < Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(1)) {
+			toNanos += TimeUnit.MILLISECONDS.toNanos(1) - 1;
+		}
+		ArrayList<MotionJournalEvent> events = new ArrayList<MotionJournalEvent>();
+		synchronized (flushLock) {
+			String[][] texts = new String[dictionaries.length][];
+			int oe = -1;
+			int moveable = -1;
+			int count;
+			synchronized (this) {
+				copyRing((directory != null) ? spilled : 0, claimed.get());
+				count = copied;
+				// after the copy so that every event copied can be decoded
+				for (int i = 0; i < dictionaries.length; i++) {
+					texts[i] = dictionaries[i].texts();
+				}
+			}
+			if (oeName != null) {
+				Integer id = oes.ids.get(oeName);
+				if (id == null) {
+					return events;
+				}
+				oe = id;
+			}
+			if (moveableName != null) {
+				Integer id = moveables.ids.get(moveableName);
+				if (id == null) {
+					return events;
+				}
+				moveable = id;
+			}
+			for (Segment segment : segments) {
+				if (segment.count > 0 && segment.last >= fromNanos && segment.first <= toNanos
+						&& (moveable < 0 || segment.moveables == null || segment.moveables.get(moveable))) {
+					RandomAccessFile file = new RandomAccessFile(segment.file, "r");
+					try {
+						FileChannel channel = file.getChannel();
+						ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+						read(buffer, HEADER_SIZE, (int) ((channel.size() - HEADER_SIZE) / EVENT_SIZE), oe, moveable,
+								fromNanos, toNanos, texts, events);
+					} finally {
+						file.close();
+					}
+				}
+			}
+			read(ByteBuffer.wrap(copy), 0, count, oe, moveable, fromNanos, toNanos, texts, events);
+		}
+		return events;
+	}
+
+	/**
+	 * Copies the events still in the ring to the segment files.
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		if (directory == null) {
+			return;
+		}
+		synchronized (flushLock) {
+			long to;
+			int count;
+			synchronized (this) {
+				long from = spilled;
+				long end = claimed.get();
+				to = copyRing(from, end);
+				count = copied;
+				// the events between from and to which were overwritten before they were copied
+				lost += to - from - count;
+			}
+
+			// the dictionary is written first so that every event read back can be decoded, the texts are taken after
+			// the events were copied so they include every number which the events use
+			for (Dictionary dictionary : dictionaries) {
+				for (String text : dictionary.unsaved()) {
+					dictionaryOut.writeByte(dictionary.kind);
+					dictionaryOut.writeInt(dictionary.saved++);
+					dictionaryOut.writeUTF(text);
+				}
+			}
+			dictionaryOut.flush();
+
+			ByteBuffer events = ByteBuffer.wrap(copy);
+			int done = 0;
+			while (done < count) {
+				if (current == null || current.count >= segmentEvents) {
+					startSegment();
+				}
+				int n = Math.min(count - done, segmentEvents - current.count);
+				for (int i = done; i < done + n; i++) {
+					current.add(events.getLong(i * EVENT_SIZE + TIME_OFFSET), events.getInt(i * EVENT_SIZE
+							+ MOVEABLE_OFFSET));
+				}
+				ByteBuffer slice = ByteBuffer.wrap(copy, done * EVENT_SIZE, n * EVENT_SIZE);
+				FileChannel channel = currentFile.getChannel();
+				while (slice.hasRemaining()) {
+					channel.write(slice);
+				}
+				done += n;
+			}
+			if (currentFile != null) {
+				currentFile.getChannel().force(false);
+			}
+
+			synchronized (this) {
+				spilled = Math.max(spilled, to);
+			}
+		}
+	}
+
+	/**
+	 * Flushes the journal and closes its files. Events recorded afterwards are only kept in the ring.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+		}
+		if (directory != null) {
+			synchronized (flushLock) {
+				flush();
+				if (currentFile != null) {
+					currentFile.close();
+					currentFile = null;
+				}
+				current = null;
+				dictionaryOut.close();
+			}
+		}
+	}
+
+	/**
+	 * Copies the events numbered from up to to which are still in the ring into the copy buffer and sets copied to
+	 * their number. Copying stops at an event which is still being written. An event which was overwritten while it
+	 * was copied is left out. Must be called with the journal locked.
+	 * 
+	 * @return the number of the first event not copied
+	 */
+	private long copyRing(long from, long to) {
+		from = Math.max(from, to - capacity);
+		int count = (int) (to - from);
+		if (copy.length < count * EVENT_SIZE) {
+			copy = new byte[count * EVENT_SIZE];
+		}
+		ByteBuffer source = ring.duplicate();
+		copied = 0;
+		long event;
+		for (event = from; event < to; event++) {
+			int slot = (int) (event % capacity);
+			long before = published.get(slot);
+			if (before <= event) {
+				// still being written
+				break;
+			}
+			if (before == event + 1) {
+				source.limit((slot + 1) * EVENT_SIZE);
+				source.position(slot * EVENT_SIZE);
+				source.get(copy, copied * EVENT_SIZE, EVENT_SIZE);
+				if (published.get(slot) == event + 1) {
+					copied++;
+					continue;
+				}
+			}
+		}
+		return event;
+	}
+
+	/**
+	 * Adds to a list the events of a Moveable in a range of times from a buffer of events in time order.
+	 */
+	private static void read(ByteBuffer buffer, int start, int count, int oe, int moveable, long from, long to,
+			String[][] texts, List<MotionJournalEvent> events) {
+		// find the first event at or after from
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (buffer.getLong(start + middle * EVENT_SIZE + TIME_OFFSET) < from) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		for (int i = low; i < count; i++) {
+			int offset = start + i * EVENT_SIZE;
+			long time = buffer.getLong(offset + TIME_OFFSET);
+			if (time > to) {
+				break;
+			}
+			int id = buffer.getInt(offset + MOVEABLE_OFFSET);
+			int oeId = buffer.getInt(offset + OE_OFFSET);
+			if ((moveable < 0 || id == moveable) && (oe < 0 || oeId == oe)) {
+				String unit = text(texts[1], buffer.getInt(offset + UNIT_OFFSET));
+				events.add(new MotionJournalEvent(time, text(texts[3], oeId), text(texts[0], id), buffer
+						.getInt(offset + STATUS_OFFSET),
+						buffer.getInt(offset + ID_OFFSET), buffer.getDouble(offset + AMOUNT_OFFSET),
+						(unit != null) ? unit : "", text(texts[2], buffer.getInt(offset + MESSAGE_OFFSET))));
+			}
+		}
+	}
+
+	private static String text(String[] texts, int id) {
+		return (id >= 0 && id < texts.length) ? texts[id] : null;
+	}
+
+	/**
+	 * Reads the dictionary file, cutting off any entry left half written, and opens it for appending.
+	 */
+	private void openDictionary() throws IOException {
+		File file = new File(directory, DICTIONARY_FILE);
+		long good = 0;
+		if (file.exists()) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				while (true) {
+					int kind = in.readByte();
+					int id = in.readInt();
+					String text = in.readUTF();
+					if (kind < 0 || kind >= dictionaries.length || id < 0) {
+						break;
+					}
+					dictionaries[kind].load(id, text);
+					good += 1 + 4 + 2 + utfLength(text);
+				}
+			} catch (EOFException e) {
+				// the end of the file or of the last whole entry
+			} finally {
+				in.close();
+			}
+			RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+			try {
+				truncate.setLength(good);
+			} finally {
+				truncate.close();
+			}
+		}
+		for (Dictionary dictionary : dictionaries) {
+			dictionary.saved = dictionary.texts.size();
+		}
+		dictionaryOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+	}
+
+	/**
+	 * @return the number of bytes writeUTF writes for a string, not counting the length
+	 */
+	private static int utfLength(String text) {
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			length += (c >= 0x0001 && c <= 0x007f) ? 1 : (c <= 0x07ff) ? 2 : 3;
+		}
+		return length;
+	}
+
+	/**
+	 * Finds the segment files already in the directory and reads the times of their first and last events.
+	 */
+	private void findSegments() throws IOException {
+		String[] names = directory.list(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		Arrays.sort(names);
+		for (String name : names) {
+			try {
+				nextSegment = Math.max(nextSegment, Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name
+						.length()
+						- SEGMENT_SUFFIX.length())) + 1);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			Segment segment = new Segment(new File(directory, name));
+			RandomAccessFile file = new RandomAccessFile(segment.file, "r");
+			try {
+				if (file.length() < HEADER_SIZE || file.readInt() != MAGIC || file.readInt() != VERSION
+						|| file.readInt() != EVENT_SIZE) {
+					logger.warn("MotionJournal: ignoring " + segment.file + " which is not a journal segment");
+					continue;
+				}
+				int count = (int) ((file.length() - HEADER_SIZE) / EVENT_SIZE);
+				if (count > 0) {
+					file.seek(HEADER_SIZE + TIME_OFFSET);
+					segment.add(file.readLong(), -1);
+					file.seek(HEADER_SIZE + (long) (count - 1) * EVENT_SIZE + TIME_OFFSET);
+					segment.add(file.readLong(), -1);
+					segment.count = count;
+				}
+			} finally {
+				file.close();
+			}
+			segments.add(segment);
+		}
+	}
+
+	private void startSegment() throws IOException {
+		if (currentFile != null) {
+			currentFile.close();
+		}
+		current = new Segment(new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, nextSegment++,
+				SEGMENT_SUFFIX)));
+		current.moveables = new BitSet();
+		currentFile = new RandomAccessFile(current.file, "rw");
+		currentFile.setLength(0);
+		currentFile.writeInt(MAGIC);
+		currentFile.writeInt(VERSION);
+		currentFile.writeInt(EVENT_SIZE);
+		currentFile.writeInt(0);
+		segments.add(current);
+		while (maxSegments > 0 && segments.size() > maxSegments) {
+			Segment oldest = segments.remove(0);
+			if (!oldest.file.delete()) {
+				logger.warn("MotionJournal: could not delete " + oldest.file);
+			}
+		}
+	}
+}
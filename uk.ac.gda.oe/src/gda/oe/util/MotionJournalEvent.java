@@ -0,0 +1,170 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import gda.oe.MoveableStatus;
+import gda.util.QuantityFactory;
+
+import java.io.Serializable;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.jscience.physics.quantities.Quantity;
+import org.jscience.physics.units.Unit;
+
+/**
+ * One MoveableStatus read back from the MotionJournal.
+ */
+public class MotionJournalEvent implements Serializable {
+
+	private final long time;
+
+	private final String oeName;
+
+	private final String moveableName;
+
+	private final int status;
+
+	private final int id;
+
+	private final double amount;
+
+	private final String unit;
+
+	private final String message;
+
+	/**
+	 * @param time
+	 *            the time of the event in nS since 1970
+	 * @param oeName
+	 *            the name of the OE
+	 * @param moveableName
+	 *            the name of the Moveable (normally a DOF)
+	 * @param status
+	 *            the MoveableStatus value
+	 * @param id
+	 *            the id of the move
+	 * @param amount
+	 *            the position in unit, NaN if the status had no position
+	 * @param unit
+	 *            the unit of the position
+	 * @param message
+	 *            the message of the status, kept only for statuses other than BUSY, READY and SUCCESS
+	 */
+	public MotionJournalEvent(long time, String oeName, String moveableName, int status, int id, double amount,
+			String unit, String message) {
+		this.time = time;
+		this.oeName = oeName;
+		this.moveableName = moveableName;
+		this.status = status;
+		this.id = id;
+		this.amount = amount;
+		this.unit = unit;
+		this.message = message;
+	}
+
+	/**
+	 * @return the time of the event in nS since 1970
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the time of the event in mS since 1970
+	 */
+	public long getTimeMillis() {
+		return time / 1000000L;
+	}
+
+	/**
+	 * @return the name of the OE
+	 */
+	public String getOeName() {
+		return oeName;
+	}
+
+	/**
+	 * @return the name of the Moveable
+	 */
+	public String getMoveableName() {
+		return moveableName;
+	}
+
+	/**
+	 * @return the MoveableStatus value
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the id of the move
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return the position in the units of getUnit
+	 */
+	public double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return the unit of the position, empty if the position has no unit
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
+	/**
+	 * @return the message of the status
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the position or null if the status had none
+	 */
+	public Quantity getPosition() {
+		if (unit.length() == 0 && Double.isNaN(amount))
+			return null;
+		Unit<? extends Quantity> u = (unit.length() == 0) ? null : QuantityFactory.createUnitFromString(unit);
+		if (u == null)
+			return Quantity.valueOf(amount, Unit.ONE);
+		return Quantity.valueOf(amount, u);
+	}
+
+	/**
+	 * @return the MoveableStatus which was recorded
+	 */
+	public MoveableStatus toMoveableStatus() {
+		return new MoveableStatus(status, moveableName, getPosition(), id, message);
+	}
+
+	@Override
+	public String toString() {
+		return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(getTimeMillis())) + " " + oeName + "."
+				+ moveableName + " " + amount + " " + unit + " id " + id + " " + message;
+	}
+}
@@ -0,0 +1,246 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.util;
+
+import gda.configuration.properties.LocalProperties;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Times the phases of the moves of one Moveable, so that the reason for a slow move can be found without reading debug
+ * logs. Each phase has a LatencyHistogram, created when the phase is first timed. Recording a time costs a call to
+ * System.nanoTime and a few atomic increments, so the timing is normally left on. It can be switched off with the
+ * property {@value #ENABLED_PROPERTY}.
+ * <p>
+ * Each Moveable holds its own MotionLatency, since Moveables of different OEs may have the same name. When an OE is
+ * configured it registers those of its Moveables with the platform MBean server as
+ * gda.oe:type=MotionLatency,oe=&lt;OE name&gt;,name=&lt;name&gt; and a snapshot can be read through
+ * OE.getMotionLatency.
+ */
+public class MotionLatency implements MotionLatencyMBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(MotionLatency.class);
+
+	/**
+	 * Property which switches the timing of moves on or off (default on)
+	 */
+	public static final String ENABLED_PROPERTY = "gda.oe.motionLatency";
+
+	private static final boolean enabled = LocalProperties.check(ENABLED_PROPERTY, true);
+
+	/**
+	 * The phases of a move which are timed.
+	 */
+	public enum Phase {
+		/** checking the move and locking the Moveables, including those below */
+		CHECK,
+		/** working out the positions of the Moveables of a DOF */
+		CALCULATE,
+		/** telling the motor to move */
+		MOTOR_START,
+		/** from the motor starting until the Positioner sees it has stopped */
+		MOTION,
+		/** the backlash correction move */
+		BACKLASH,
+		/** each position correction move */
+		CORRECTION,
+		/** the settle time of a DOF */
+		SETTLE,
+		/** from a DOF becoming READY (or failing) until its observers, including OeImpl, have been told */
+		READY_PROPAGATION
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final String name;
+
+	private final AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<LatencyHistogram>(
+			PHASES.length);
+
+	/**
+	 * @param name
+	 *            the name of the Moveable
+	 */
+	public MotionLatency(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return true if moves are being timed
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the time to pass to record at the end of a phase, 0 if moves are not being timed
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Registers the timings with the platform MBean server, unless moves are not being timed. Timings already
+	 * registered for a Moveable of the same name in the same OE (e.g. before the OE was configured again) are replaced.
+	 * 
+	 * @param oeName
+	 *            the name of the OE which the Moveable belongs to
+	 */
+	public void register(String oeName) {
+		if (!enabled)
+			return;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName("gda.oe:type=MotionLatency,oe=" + ObjectName.quote(oeName)
+					+ ",name=" + ObjectName.quote(name));
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+			server.registerMBean(this, objectName);
+		} catch (JMException e) {
+			logger.warn("MotionLatency could not register the timings of {}.{} with JMX: {}", new Object[] { oeName,
+					name, e.getMessage() });
+		}
+	}
+
+	/**
+	 * Records the end of a phase.
+	 * 
+	 * @param phase
+	 *            the phase
+	 * @param start
+	 *            the value returned by start at the beginning of the phase
+	 */
+	public void record(Phase phase, long start) {
+		if (start != 0)
+			histogram(phase).record(System.nanoTime() - start);
+	}
+
+	/**
+	 * @param phase
+	 *            the phase
+	 * @return the histogram of the times of the phase
+	 */
+	public LatencyHistogram histogram(Phase phase) {
+		LatencyHistogram histogram = histograms.get(phase.ordinal());
+		if (histogram == null) {
+			histograms.compareAndSet(phase.ordinal(), null, new LatencyHistogram());
+			histogram = histograms.get(phase.ordinal());
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return the timings of all the phases as they are now
+	 */
+	public MotionLatencySnapshot snapshot() {
+		return new MotionLatencySnapshot(name, getPhases(), getCounts(), getMeans(), getMedians(),
+				getPercentiles90(), getPercentiles99(), getMaxima());
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String[] getPhases() {
+		String[] phases = new String[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++)
+			phases[i] = PHASES[i].name();
+		return phases;
+	}
+
+	@Override
+	public long[] getCounts() {
+		long[] counts = new long[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			counts[i] = histogram == null ? 0 : histogram.getCount();
+		}
+		return counts;
+	}
+
+	@Override
+	public double[] getMeans() {
+		double[] means = new double[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			means[i] = histogram == null ? 0.0 : histogram.getMean();
+		}
+		return means;
+	}
+
+	@Override
+	public double[] getMedians() {
+		return getPercentiles(50.0);
+	}
+
+	@Override
+	public double[] getPercentiles90() {
+		return getPercentiles(90.0);
+	}
+
+	@Override
+	public double[] getPercentiles99() {
+		return getPercentiles(99.0);
+	}
+
+	@Override
+	public double[] getMaxima() {
+		double[] maxima = new double[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			maxima[i] = histogram == null ? 0.0 : histogram.getMax();
+		}
+		return maxima;
+	}
+
+	private double[] getPercentiles(double percentile) {
+		double[] values = new double[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			values[i] = histogram == null ? 0.0 : histogram.getPercentile(percentile);
+		}
+		return values;
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < PHASES.length; i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			if (histogram != null)
+				histogram.reset();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
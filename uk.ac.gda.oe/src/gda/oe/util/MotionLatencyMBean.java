@@ -0,0 +1,73 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.util;
+
+/**
+ * The JMX view of the move timings of one Moveable, see MotionLatency. Each array has one element for each phase in
+ * the order of getPhases. Times are in mS.
+ */
+public interface MotionLatencyMBean {
+
+	/**
+	 * @return the name of the Moveable
+	 */
+	public String getName();
+
+	/**
+	 * @return the names of the phases
+	 */
+	public String[] getPhases();
+
+	/**
+	 * @return the number of times each phase has been timed
+	 */
+	public long[] getCounts();
+
+	/**
+	 * @return the mean time of each phase
+	 */
+	public double[] getMeans();
+
+	/**
+	 * @return the median time of each phase
+	 */
+	public double[] getMedians();
+
+	/**
+	 * @return the 90th percentile of the time of each phase
+	 */
+	public double[] getPercentiles90();
+
+	/**
+	 * @return the 99th percentile of the time of each phase
+	 */
+	public double[] getPercentiles99();
+
+	/**
+	 * @return the longest time of each phase
+	 */
+	public double[] getMaxima();
+
+	/**
+	 * Forgets all the times.
+	 */
+	public void reset();
+}
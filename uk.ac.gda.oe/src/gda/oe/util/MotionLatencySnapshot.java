@@ -0,0 +1,158 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package gda.oe.util;
+
+import java.io.Serializable;
+
+/**
+ * The move timings of one Moveable at one moment, see MotionLatency. Each array has one element for each phase in the
+ * order of getPhases. Times are in mS.
+ */
+final public class MotionLatencySnapshot implements Serializable {
+	private final String name;
+
+	private final String[] phases;
+
+	private final long[] counts;
+
+	private final double[] means;
+
+	private final double[] medians;
+
+	private final double[] percentiles90;
+
+	private final double[] percentiles99;
+
+	private final double[] maxima;
+
+	/**
+	 * @param name
+	 *            the name of the Moveable
+	 * @param phases
+	 *            the names of the phases
+	 * @param counts
+	 *            the number of times each phase has been timed
+	 * @param means
+	 *            the mean time of each phase
+	 * @param medians
+	 *            the median time of each phase
+	 * @param percentiles90
+	 *            the 90th percentile of the time of each phase
+	 * @param percentiles99
+	 *            the 99th percentile of the time of each phase
+	 * @param maxima
+	 *            the longest time of each phase
+	 */
+	public MotionLatencySnapshot(String name, String[] phases, long[] counts, double[] means, double[] medians,
+			double[] percentiles90, double[] percentiles99, double[] maxima) {
+		this.name = name;
+		this.phases = phases;
+		this.counts = counts;
+		this.means = means;
+		this.medians = medians;
+		this.percentiles90 = percentiles90;
+		this.percentiles99 = percentiles99;
+		this.maxima = maxima;
+	}
+
+	/**
+	 * @return the name of the Moveable
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the names of the phases
+	 */
+	public String[] getPhases() {
+		return phases.clone();
+	}
+
+	/**
+	 * @return the number of times each phase has been timed
+	 */
+	public long[] getCounts() {
+		return counts.clone();
+	}
+
+	/**
+	 * @return the mean time of each phase
+	 */
+	public double[] getMeans() {
+		return means.clone();
+	}
+
+	/**
+	 * @return the median time of each phase
+	 */
+	public double[] getMedians() {
+		return medians.clone();
+	}
+
+	/**
+	 * @return the 90th percentile of the time of each phase
+	 */
+	public double[] getPercentiles90() {
+		return percentiles90.clone();
+	}
+
+	/**
+	 * @return the 99th percentile of the time of each phase
+	 */
+	public double[] getPercentiles99() {
+		return percentiles99.clone();
+	}
+
+	/**
+	 * @return the longest time of each phase
+	 */
+	public double[] getMaxima() {
+		return maxima.clone();
+	}
+
+	/**
+	 * @param phase
+	 *            the name of a phase
+	 * @return the index of the phase in the arrays, -1 if there is no such phase
+	 */
+	public int indexOf(String phase) {
+		for (int i = 0; i < phases.length; i++)
+			if (phases[i].equals(phase))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @return a table of the phases which have been timed, one line for each
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(name).append(String.format("%n%-18s %8s %10s %10s %10s %10s %10s%n",
+				"phase (mS)", "count", "mean", "median", "90%", "99%", "max"));
+		for (int i = 0; i < phases.length; i++) {
+			if (counts[i] > 0)
+				sb.append(String.format("%-18s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", phases[i], counts[i],
+						means[i], medians[i], percentiles90[i], percentiles99[i], maxima[i]));
+		}
+		return sb.toString();
+	}
+}
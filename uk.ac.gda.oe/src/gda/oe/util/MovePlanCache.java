@@ -0,0 +1,189 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the plans worked out for move targets (e.g. the positions of the Moveables of a DOF) so that a scan which
+ * visits the same targets again does not work them out again. The least recently used plan is forgotten when the
+ * cache is full.
+ * <p>
+ * Each plan is stamped with the configuration version at the time it was worked out. The version goes up whenever
+ * something which plans may depend on changes (for example the limits or offsets of a Positioner, see
+ * {@link #configurationChanged()}) and a plan with an older stamp is never used. The version is shared by all caches
+ * because a plan may depend on any Moveable below the one being planned for.
+ * <p>
+ * Every cache is registered by name so that the hit rates can be reported, see {@link #getCaches()}.
+ * 
+ * @param <V>
+ *            the type of the plans
+ */
+public class MovePlanCache<V> {
+
+	private static final AtomicLong configurationVersion = new AtomicLong();
+
+	private static final Map<String, MovePlanCache<?>> caches = new ConcurrentHashMap<String, MovePlanCache<?>>();
+
+	private static final class CachedPlan<V> {
+		final V plan;
+
+		final long version;
+
+		CachedPlan(V plan, long version) {
+			this.plan = plan;
+			this.version = version;
+		}
+	}
+
+	private final String name;
+
+	private final Map<Object, CachedPlan<V>> plans;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Creates and registers a cache. A cache registered earlier with the same name is replaced.
+	 * 
+	 * @param name
+	 *            the name to report, normally that of the Moveable
+	 * @param maxSize
+	 *            the number of plans to keep
+	 */
+	public MovePlanCache(String name, final int maxSize) {
+		this.name = name;
+		plans = new LinkedHashMap<Object, CachedPlan<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, CachedPlan<V>> eldest) {
+				return size() > maxSize;
+			}
+		};
+		caches.put(name, this);
+	}
+
+	/**
+	 * Makes every plan worked out so far out of date. Called when something plans may depend on changes.
+	 */
+	public static void configurationChanged() {
+		configurationVersion.incrementAndGet();
+	}
+
+	/**
+	 * @return the current configuration version, to be read before working out a plan and passed to put
+	 */
+	public static long getConfigurationVersion() {
+		return configurationVersion.get();
+	}
+
+	/**
+	 * @return all the caches which have been created
+	 */
+	public static Collection<MovePlanCache<?>> getCaches() {
+		return Collections.unmodifiableCollection(caches.values());
+	}
+
+	/**
+	 * @param key
+	 *            the target, including anything else the plan depends on
+	 * @return the plan for the key or null if there is none or it is out of date
+	 */
+	public synchronized V get(Object key) {
+		CachedPlan<V> entry = plans.get(key);
+		if (entry != null && entry.version == configurationVersion.get()) {
+			hits++;
+			return entry.plan;
+		}
+		if (entry != null)
+			plans.remove(key);
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Remembers a plan. It is only used while the configuration version is the one read before it was worked out.
+	 * 
+	 * @param key
+	 *            the target, including anything else the plan depends on
+	 * @param plan
+	 *            the plan
+	 * @param version
+	 *            the configuration version read before the plan was worked out
+	 */
+	public synchronized void put(Object key, V plan, long version) {
+		if (version == configurationVersion.get())
+			plans.put(key, new CachedPlan<V>(plan, version));
+	}
+
+	/**
+	 * Forgets all the plans in this cache.
+	 */
+	public synchronized void clear() {
+		plans.clear();
+	}
+
+	/**
+	 * @return the name of the cache
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of plans held
+	 */
+	public synchronized int size() {
+		return plans.size();
+	}
+
+	/**
+	 * @return the number of plans found
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of plans which had to be worked out
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the fraction of lookups which found a plan, 0 if there have been none
+	 */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s: %d plans, %d hits, %d misses (%.1f%%)", name, plans.size(), hits, misses,
+				100.0 * getHitRate());
+	}
+}
@@ -0,0 +1,478 @@
+/*-
+ * Copyright © 2009 Diamond Light Source Ltd., Science and Technology
+ * Facilities Council Daresbury Laboratory
+ *
+ * This file is part of GDA.
+ *
+ * GDA is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License version 3 as published by the Free
+ * Software Foundation.
+ *
+ * GDA is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with GDA. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gda.oe.util;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plans moves of a pair of DOFs (x and y) around a set of forbidden zones, e.g. the regions of an undulator's phase
+ * and gap where the power load is too high. Both DOFs move at once during a leg and their relative speeds cannot be
+ * relied on, so a leg is only legal if the whole rectangle which it spans is clear of the zones.
+ * <p>
+ * The zones are indexed in a uniform grid of cells so that checking a leg only tests the zones near it. The corners of
+ * the zones' bounding boxes (moved out by the clearance) are the waypoints of routes and the legal legs between them
+ * are worked out once when the planner is created. Planning a route only adds the legs from the start and to the end
+ * and then finds the route with the shortest time, where the time of a leg is that of the slower DOF.
+ * <p>
+ * A RoutePlanner is immutable so it can be used by several threads.
+ */
+public final class RoutePlanner {
+	private static final Logger logger = LoggerFactory.getLogger(RoutePlanner.class);
+
+	/**
+	 * Smallest width or height of the rectangle spanned by a leg, so that legs along one axis are still tested
+	 */
+	private static final double MIN_SIZE = 1e-6;
+
+	/**
+	 * Added to the time of each leg so that, of routes which take the same time, the one with fewest legs is chosen
+	 */
+	private static final double LEG_COST = 1e-9;
+
+	private final Shape[] zones;
+
+	private final Rectangle2D[] bounds;
+
+	private final double xSpeed;
+
+	private final double ySpeed;
+
+	// the grid index, cell (i, j) lists the zones whose bounds overlap it
+	private final double gridMinX;
+
+	private final double gridMinY;
+
+	private final double cellWidth;
+
+	private final double cellHeight;
+
+	private final int columns;
+
+	private final int rows;
+
+	private final int[][] cells;
+
+	// waypoints and the legal legs between them
+	private final double[] wayX;
+
+	private final double[] wayY;
+
+	// the legal legs from each waypoint and their times
+	private final int[][] neighbours;
+
+	private final double[][] neighbourTimes;
+
+	/**
+	 * @param zones
+	 *            the forbidden zones
+	 * @param clearance
+	 *            how far outside the zones' bounding boxes the waypoints are placed, must be greater than zero
+	 * @param xSpeed
+	 *            the speed of the x DOF (only the ratio of the speeds matters)
+	 * @param ySpeed
+	 *            the speed of the y DOF
+	 */
+	public RoutePlanner(List<? extends Shape> zones, double clearance, double xSpeed, double ySpeed) {
+		if (clearance <= 0.0 || xSpeed <= 0.0 || ySpeed <= 0.0) {
+			throw new IllegalArgumentException("RoutePlanner clearance and speeds must be greater than zero");
+		}
+		this.zones = zones.toArray(new Shape[zones.size()]);
+		this.xSpeed = xSpeed;
+		this.ySpeed = ySpeed;
+
+		int n = this.zones.length;
+		bounds = new Rectangle2D[n];
+		Rectangle2D all = null;
+		for (int i = 0; i < n; i++) {
+			bounds[i] = this.zones[i].getBounds2D();
+			if (all == null) {
+				all = (Rectangle2D) bounds[i].clone();
+			} else {
+				all.add(bounds[i]);
+			}
+		}
+
+		// roughly one zone per cell
+		int side = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+		columns = side;
+		rows = side;
+		cells = new int[columns * rows][];
+		if (all == null) {
+			gridMinX = gridMinY = 0.0;
+			cellWidth = cellHeight = 1.0;
+		} else {
+			gridMinX = all.getMinX();
+			gridMinY = all.getMinY();
+			cellWidth = Math.max(all.getWidth() / columns, MIN_SIZE);
+			cellHeight = Math.max(all.getHeight() / rows, MIN_SIZE);
+		}
+		int[] counts = new int[cells.length];
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < n; i++) {
+				int[] range = cellRange(bounds[i].getMinX(), bounds[i].getMinY(), bounds[i].getMaxX(), bounds[i]
+						.getMaxY());
+				for (int c = range[0]; c <= range[2]; c++) {
+					for (int r = range[1]; r <= range[3]; r++) {
+						int cell = r * columns + c;
+						if (pass == 0) {
+							counts[cell]++;
+						} else {
+							cells[cell][--counts[cell]] = i;
+						}
+					}
+				}
+			}
+			if (pass == 0) {
+				for (int cell = 0; cell < cells.length; cell++) {
+					cells[cell] = new int[counts[cell]];
+				}
+			}
+		}
+
+		// waypoints at the corners of each zone, except those inside
+		// another zone
+		double[] xs = new double[4 * n];
+		double[] ys = new double[4 * n];
+		int w = 0;
+		for (int i = 0; i < n; i++) {
+			double[] cx = { bounds[i].getMinX() - clearance, bounds[i].getMaxX() + clearance };
+			double[] cy = { bounds[i].getMinY() - clearance, bounds[i].getMaxY() + clearance };
+			for (double x : cx) {
+				for (double y : cy) {
+					if (!isForbidden(x, y)) {
+						xs[w] = x;
+						ys[w] = y;
+						w++;
+					}
+				}
+			}
+		}
+		wayX = Arrays.copyOf(xs, w);
+		wayY = Arrays.copyOf(ys, w);
+		boolean[][] legal = new boolean[w][w];
+		int[] legalCount = new int[w];
+		for (int a = 0; a < w; a++) {
+			for (int b = a + 1; b < w; b++) {
+				if (isClear(wayX[a], wayY[a], wayX[b], wayY[b])) {
+					legal[a][b] = legal[b][a] = true;
+					legalCount[a]++;
+					legalCount[b]++;
+				}
+			}
+		}
+		neighbours = new int[w][];
+		neighbourTimes = new double[w][];
+		for (int a = 0; a < w; a++) {
+			neighbours[a] = new int[legalCount[a]];
+			neighbourTimes[a] = new double[legalCount[a]];
+			for (int b = 0, k = 0; b < w; b++) {
+				if (legal[a][b]) {
+					neighbours[a][k] = b;
+					neighbourTimes[a][k++] = legTime(wayX[a], wayY[a], wayX[b], wayY[b]);
+				}
+			}
+		}
+		logger.debug("RoutePlanner created with {} zones and {} waypoints", n, w);
+	}
+
+	/**
+	 * @return the number of forbidden zones
+	 */
+	public int getNumberOfZones() {
+		return zones.length;
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return true if the point is in a forbidden zone
+	 */
+	public boolean isForbidden(double x, double y) {
+		int[] range = cellRange(x, y, x, y);
+		if (range == null) {
+			return false;
+		}
+		for (int i : cells[range[1] * columns + range[0]]) {
+			if (zones[i].contains(x, y)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a single leg is legal, i.e. the rectangle it spans does not touch any forbidden zone.
+	 * 
+	 * @param x0
+	 *            start x
+	 * @param y0
+	 *            start y
+	 * @param x1
+	 *            end x
+	 * @param y1
+	 *            end y
+	 * @return true if the leg is legal
+	 */
+	public boolean isClear(double x0, double y0, double x1, double y1) {
+		double w = Math.max(Math.abs(x1 - x0), MIN_SIZE);
+		double h = Math.max(Math.abs(y1 - y0), MIN_SIZE);
+		double x = (x0 + x1 - w) / 2.0;
+		double y = (y0 + y1 - h) / 2.0;
+
+		int[] range = cellRange(x, y, x + w, y + h);
+		if (range == null) {
+			return true;
+		}
+		// a zone may be listed in several cells, only test it once
+		boolean[] tested = null;
+		for (int c = range[0]; c <= range[2]; c++) {
+			for (int r = range[1]; r <= range[3]; r++) {
+				for (int i : cells[r * columns + c]) {
+					if (tested == null) {
+						tested = new boolean[zones.length];
+					} else if (tested[i]) {
+						continue;
+					}
+					tested[i] = true;
+					if (bounds[i].intersects(x, y, w, h) && zones[i].intersects(x, y, w, h)) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the quickest legal route from one position to another.
+	 * 
+	 * @param x0
+	 *            start x
+	 * @param y0
+	 *            start y
+	 * @param x1
+	 *            end x
+	 * @param y1
+	 *            end y
+	 * @return the positions (x, y) at the end of each leg, the last being the end position, or null if the end
+	 *         position is forbidden or cannot be reached
+	 */
+	public double[][] planRoute(double x0, double y0, double x1, double y1) {
+		if (isForbidden(x1, y1)) {
+			return null;
+		}
+		if (isClear(x0, y0, x1, y1)) {
+			return new double[][] { { x1, y1 } };
+		}
+
+		// A* search from the start over the waypoints. The end is tried
+		// from each node as it is reached and the positions which reach the
+		// end by moving one DOF at a time are tried from the start.
+		int w = wayX.length;
+		final int start = w;
+		final int end = w + 1;
+		int n = w + 4;
+		double[] nx = new double[] { x0, x1, x0, x1 };
+		double[] ny = new double[] { y0, y1, y1, y0 };
+
+		final double[] time = new double[n];
+		final double[] estimate = new double[n];
+		int[] previous = new int[n];
+		boolean[] done = new boolean[n];
+		Arrays.fill(time, Double.POSITIVE_INFINITY);
+		Arrays.fill(previous, -1);
+		PriorityQueue<Integer> open = new PriorityQueue<Integer>(16, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(estimate[a], estimate[b]);
+			}
+		});
+		time[start] = 0.0;
+		open.add(start);
+
+		while (!open.isEmpty()) {
+			int u = open.poll();
+			if (done[u]) {
+				continue;
+			}
+			if (u == end) {
+				break;
+			}
+			done[u] = true;
+			double ux = (u < w) ? wayX[u] : nx[u - w];
+			double uy = (u < w) ? wayY[u] : ny[u - w];
+
+			if (u < w) {
+				for (int k = 0; k < neighbours[u].length; k++) {
+					relax(u, neighbours[u][k], time[u] + neighbourTimes[u][k], x1, y1, time, estimate, previous,
+							done, open);
+				}
+			} else if (u == start) {
+				for (int v = 0; v < w; v++) {
+					tryLeg(u, ux, uy, v, wayX[v], wayY[v], x1, y1, time, estimate, previous, done, open);
+				}
+				for (int v = w + 2; v < n; v++) {
+					if (!isForbidden(nx[v - w], ny[v - w])) {
+						tryLeg(u, ux, uy, v, nx[v - w], ny[v - w], x1, y1, time, estimate, previous, done, open);
+					}
+				}
+			}
+			tryLeg(u, ux, uy, end, x1, y1, x1, y1, time, estimate, previous, done, open);
+		}
+
+		if (previous[end] < 0) {
+			logger.debug("RoutePlanner found no route from {},{} to {},{}", new Object[] { x0, y0, x1, y1 });
+			return null;
+		}
+		ArrayList<double[]> route = new ArrayList<double[]>();
+		for (int v = end; v != start; v = previous[v]) {
+			route.add(0, (v < w) ? new double[] { wayX[v], wayY[v] } : new double[] { nx[v - w], ny[v - w] });
+		}
+		return route.toArray(new double[route.size()][]);
+	}
+
+	private void tryLeg(int u, double ux, double uy, int v, double vx, double vy, double x1, double y1, double[] time,
+			double[] estimate, int[] previous, boolean[] done, PriorityQueue<Integer> open) {
+		double t = time[u] + legTime(ux, uy, vx, vy);
+		if (!done[v] && t < time[v] && isClear(ux, uy, vx, vy)) {
+			time[v] = t;
+			estimate[v] = t + legTime(vx, vy, x1, y1) - LEG_COST;
+			previous[v] = u;
+			open.add(v);
+		}
+	}
+
+	private void relax(int u, int v, double t, double x1, double y1, double[] time, double[] estimate,
+			int[] previous, boolean[] done, PriorityQueue<Integer> open) {
+		if (!done[v] && t < time[v]) {
+			time[v] = t;
+			estimate[v] = t + legTime(wayX[v], wayY[v], x1, y1) - LEG_COST;
+			previous[v] = u;
+			open.add(v);
+		}
+	}
+
+	private double legTime(double x0, double y0, double x1, double y1) {
+		return Math.max(Math.abs(x1 - x0) / xSpeed, Math.abs(y1 - y0) / ySpeed) + LEG_COST;
+	}
+
+	/**
+	 * Returns the cells covered by a rectangle as {minColumn, minRow, maxColumn, maxRow} or null if it is outside the
+	 * grid.
+	 */
+	private int[] cellRange(double minX, double minY, double maxX, double maxY) {
+		int c0 = (int) Math.floor((minX - gridMinX) / cellWidth);
+		int r0 = (int) Math.floor((minY - gridMinY) / cellHeight);
+		int c1 = (int) Math.floor((maxX - gridMinX) / cellWidth);
+		int r1 = (int) Math.floor((maxY - gridMinY) / cellHeight);
+		if (c1 < 0 || r1 < 0 || c0 >= columns + 1 || r0 >= rows + 1 || zones.length == 0) {
+			return null;
+		}
+		// the maximum edge of the grid belongs to the last cell
+		return new int[] { clamp(c0, columns), clamp(r0, rows), clamp(c1, columns), clamp(r1, rows) };
+	}
+
+	private static int clamp(int i, int size) {
+		return Math.max(0, Math.min(i, size - 1));
+	}
+
+	/**
+	 * Reads forbidden zones from a power map file. Each line which is not blank or a comment (starting with #) is a
+	 * zone: either a rectangle given as minX,maxX,minY,maxY (the same as DOFRouteChecker.setForbiddenZone) or a polygon
+	 * given as three or more vertices x,y separated by spaces.
+	 * 
+	 * @param reader
+	 *            the file
+	 * @return the zones
+	 * @throws IOException
+	 *             if the file cannot be read or a line is not a zone
+	 */
+	public static List<Shape> readZones(Reader reader) throws IOException {
+		ArrayList<Shape> zones = new ArrayList<Shape>();
+		BufferedReader in = new BufferedReader(reader);
+		String line;
+		int lineNumber = 0;
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.length() == 0 || line.startsWith("#")) {
+				continue;
+			}
+			try {
+				zones.add(parseZone(line));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("power map line " + lineNumber + ": " + e.getMessage());
+			}
+		}
+		return zones;
+	}
+
+	/**
+	 * @param zone
+	 *            a zone in the power map file format
+	 * @return the zone
+	 */
+	public static Shape parseZone(String zone) {
+		String[] vertices = zone.trim().split("\\s+");
+		if (vertices.length == 1) {
+			String[] values = vertices[0].split(",");
+			if (values.length != 4) {
+				throw new IllegalArgumentException("a rectangle must be minX,maxX,minY,maxY not " + zone);
+			}
+			double minX = Double.parseDouble(values[0]);
+			double maxX = Double.parseDouble(values[1]);
+			double minY = Double.parseDouble(values[2]);
+			double maxY = Double.parseDouble(values[3]);
+			return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+		}
+		if (vertices.length < 3) {
+			throw new IllegalArgumentException("a polygon must have at least three vertices not " + zone);
+		}
+		Path2D.Double polygon = new Path2D.Double();
+		for (int i = 0; i < vertices.length; i++) {
+			String[] xy = vertices[i].split(",");
+			if (xy.length != 2) {
+				throw new IllegalArgumentException("a vertex must be x,y not " + vertices[i]);
+			}
+			double x = Double.parseDouble(xy[0]);
+			double y = Double.parseDouble(xy[1]);
+			if (i == 0) {
+				polygon.moveTo(x, y);
+			} else {
+				polygon.lineTo(x, y);
+			}
+		}
+		polygon.closePath();
+		return polygon;
+	}
+}
@@ -34,7 +34,10 @@ import gda.oe.dofs.DOF;
 import gda.oe.dofs.PolarizationValue;
 import gda.oe.positioners.UndulatorPhasePositioner;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jscience.physics.quantities.Angle;
 import org.jscience.physics.quantities.Energy;
@@ -79,6 +82,21 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 
 	}
 
+	// What checkMoveMoveables works out for a move which is allowed
+	private static final class Plan {
+		final Moveable[] toBeMoved;
+
+		final ArrayList<Move> moves;
+
+		Plan(Moveable[] toBeMoved, ArrayList<Move> moves) {
+			this.toBeMoved = toBeMoved;
+			this.moves = moves;
+		}
+	}
+
+	// Positions of the gap and phases in the key of a plan are rounded to this many mm
+	private static final double PLAN_POSITION_RESOLUTION = 0.001;
+
 	private Energy currentEnergy = null;
 
 	private int currentHarmonic = -1;
@@ -101,6 +119,9 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 
 	private Moveable[] moveables;
 
+	// lookup table DOF names to moveables, see findTableMoveable
+	private final ConcurrentHashMap<String, Moveable> tableMoveables = new ConcurrentHashMap<String, Moveable>();
+
 	private String name;
 
 	private boolean local = false;
@@ -127,6 +148,15 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 
 	private Quantity[] positionsAfterLastMove = null;
 
+	private int planCacheSize = 0;
+
+	private MovePlanCache<Plan> planCache;
+
+	// the lookup table files and when they were last modified when they were read
+	private File[] lookupFiles;
+
+	private long[] lookupFilesModified;
+
 	/**
 	 * Constructor
 	 */
@@ -140,14 +170,8 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 			int nosOfMoveables = moveableNameList.size();
 			moveables = new Moveable[nosOfMoveables];
 
-			ArrayList<Moveable> dofList = ((OEBase) oe).getMoveableList();
 			for (int i = 0; i < nosOfMoveables; i++) {
-				for (int j = 0; j < dofList.size(); j++) {
-					if ((dofList.get(j)).getName().equals(moveableNameList.get(i))) {
-						moveables[i] = dofList.get(j);
-						break;
-					}
-				}
+				moveables[i] = ((OEBase) oe).findMoveable(moveableNameList.get(i));
 			}
 
 			// Find out properties folder
@@ -155,10 +179,11 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 			// Fill array of lookuptables (lookupTableList will have been
 			// set
 			// automatically from being in the XML)
-			lookuptable = new LookUpTable[lookupTableList.size()];
+			lookupFiles = new File[lookupTableList.size()];
 			for (int i = 0; i < lookupTableList.size(); i++) {
-				lookuptable[i] = new LookUpTable(propertiesFolder + "/" + lookupTableList.get(i));
+				lookupFiles[i] = new File(propertiesFolder + "/" + lookupTableList.get(i));
 			}
+			readLookupTables();
 
 			// FIXME: the DOFRouteCheckers are created in the XML file but
 			// only their forbiddenZones are set there. They should
@@ -190,24 +215,49 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 		}
 	}
 
+	private void readLookupTables() {
+		LookUpTable[] tables = new LookUpTable[lookupFiles.length];
+		long[] modified = new long[lookupFiles.length];
+		for (int i = 0; i < lookupFiles.length; i++) {
+			modified[i] = lookupFiles[i].lastModified();
+			tables[i] = new LookUpTable(lookupFiles[i].getPath());
+		}
+		lookuptable = tables;
+		lookupFilesModified = modified;
+	}
+
+	/**
+	 * Reads the lookup tables again if any of the files has changed since they were read and forgets the plans worked
+	 * out from the old ones.
+	 */
+	private void checkLookupTables() {
+		for (int i = 0; i < lookupFiles.length; i++) {
+			if (lookupFiles[i].lastModified() != lookupFilesModified[i]) {
+				logger.info("UndulatorMoveCalculator {} lookup table {} has changed, reading lookup tables again",
+						getName(), lookupFiles[i]);
+				readLookupTables();
+				planCache.clear();
+				return;
+			}
+		}
+	}
+
 	/**
 	 * This calculateMoveables calculates the positions for a new energy, harmonic and polarization.
 	 * 
 	 * @return an array of Quantities, one for each Moveable
 	 */
 	private Quantity[] calculateMoveables() {
-		int requestedHarmonicIndex = requestedHarmonic.intValue();
-		double[] values = lookuptable[requestedHarmonicIndex - 1].calculateValues(requestedEnergy.to(
-				NonSI.ELECTRON_VOLT).getAmount(), requestedPolarization);
+		LookUpTable table = lookuptable[requestedHarmonic.intValue() - 1];
+		double[] values = table.calculateValues(requestedEnergy.to(NonSI.ELECTRON_VOLT).getAmount(),
+				requestedPolarization);
 
 		// The toBeMoved array is set to contain whichever of the two DOFs are
 		// needed for this move.
+		String[] dofNames = table.getDofNames(requestedPolarization);
 		toBeMoved = new Moveable[2];
 		for (int k = 0; k < 2; k++)
-			for (int j = 0; j < moveables.length; j++)
-				if (moveables[j].getName().endsWith(
-						lookuptable[requestedHarmonicIndex - 1].getDofNames(requestedPolarization)[k]))
-					toBeMoved[k] = moveables[j];
+			toBeMoved[k] = findTableMoveable(dofNames[k]);
 
 		Quantity[] rtrn = new Quantity[values.length];
 
@@ -221,6 +271,26 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 		return rtrn;
 	}
 
+	/**
+	 * Finds the Moveable for a DOF name used in the lookup tables, which is the last one whose name ends with it. The
+	 * result is remembered so the names are only searched once for each lookup table name.
+	 * 
+	 * @param dofName
+	 *            the name used in the lookup table
+	 * @return the Moveable or null if there is none
+	 */
+	private Moveable findTableMoveable(String dofName) {
+		Moveable moveable = tableMoveables.get(dofName);
+		if (moveable == null) {
+			for (int j = 0; j < moveables.length; j++)
+				if (moveables[j].getName().endsWith(dofName))
+					moveable = moveables[j];
+			if (moveable != null)
+				tableMoveables.put(dofName, moveable);
+		}
+		return moveable;
+	}
+
 	/**
 	 * This is called by a DOFCommand object during the setting up and locking phase of the move.
 	 * 
@@ -231,6 +301,23 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 		// route checker may want to split the move into parts
 		int check = MoveableStatus.MOVE_NOT_ALLOWED;
 
+		// The plan depends on the request, on the lookup tables, on where the
+		// gap and phases are now (the route checkers start from there) and
+		// on the limits checked below (the configuration version).
+		Object key = null;
+		long version = MovePlanCache.getConfigurationVersion();
+		MovePlanCache<Plan> cache = getPlanCache();
+		if (cache != null) {
+			checkLookupTables();
+			key = planKey();
+			Plan plan = cache.get(key);
+			if (plan != null) {
+				toBeMoved = plan.toBeMoved.clone();
+				moves = new ArrayList<Move>(plan.moves);
+				return MoveableStatus.SUCCESS;
+			}
+		}
+
 		// This method is called from the createAbsoluteMover method of one
 		// of UndulatorEnergyDOF, UndulatorHarmonicDOF or
 		// UndulatorPolarizationDOF.
@@ -282,11 +369,57 @@ public class UndulatorMoveCalculator implements Configurable, Findable, Localiza
 			check = moveCheck;
 			if (check != MoveableStatus.SUCCESS)
 				check = MoveableStatus.ERROR;
+			else if (cache != null)
+				cache.put(key, new Plan(toBeMoved.clone(), new ArrayList<Move>(moves)), version);
 		}
 		return check;
 
 	}
 
+	private Object planKey() {
+		return Arrays.<Object> asList(requestedEnergy.to(NonSI.ELECTRON_VOLT).getAmount(), requestedHarmonic.intValue(),
+				requestedPolarization.to(NonSIext.DEG_ANGLE).getAmount(), roundedPosition(GAP),
+				roundedPosition(MUTUALPHASE), roundedPosition(OPPOSINGPHASE));
+	}
+
+	private long roundedPosition(int index) {
+		return Math.round(moveables[index].getPosition().to(SI.MILLI(SI.METER)).getAmount()
+				/ PLAN_POSITION_RESOLUTION);
+	}
+
+	/**
+	 * Sets the number of moves for which the plan (which Moveables to move and the route to take) is remembered, so
+	 * that a scan which visits the same energies again does not work it out again. Zero (the default) remembers none.
+	 * 
+	 * @param planCacheSize
+	 *            the number of moves
+	 */
+	public synchronized void setPlanCacheSize(int planCacheSize) {
+		this.planCacheSize = planCacheSize;
+		planCache = null;
+	}
+
+	/**
+	 * @return the number of moves for which the plan is remembered
+	 */
+	public int getPlanCacheSize() {
+		return planCacheSize;
+	}
+
+	/**
+	 * @return the fraction of moves whose plan was remembered, 0 if there is no cache
+	 */
+	public double getPlanCacheHitRate() {
+		MovePlanCache<Plan> cache = planCache;
+		return cache == null ? 0.0 : cache.getHitRate();
+	}
+
+	private synchronized MovePlanCache<Plan> getPlanCache() {
+		if (planCache == null && planCacheSize > 0)
+			planCache = new MovePlanCache<Plan>(getName(), planCacheSize);
+		return planCache;
+	}
+
 	/**
 	 * Returns the current position
 	 * 
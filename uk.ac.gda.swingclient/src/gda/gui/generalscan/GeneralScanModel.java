@@ -18,6 +18,7 @@
 
 package gda.gui.generalscan;
 
+import gda.oe.MovePlan;
 import gda.oe.MoveableException;
 import gda.oe.MoveableStatus;
 import gda.oe.OE;
@@ -474,25 +475,37 @@ public class GeneralScanModel extends ScanModel implements Serializable {
 	}
 
 	/**
+	 * @return the positions of all the points of all the regions in the order they are visited
+	 */
+	public Quantity[] getPositions() {
+		ArrayList<Quantity> positions = new ArrayList<Quantity>(totalPoints);
+		for (Region region : regionList) {
+			Quantity position = Quantity.valueOf(region.getStart(), region.getDisplayUnits());
+			positions.add(position);
+			for (int j = 0; j < region.getSteps(); j++) {
+				position = position.plus(Quantity.valueOf(region.getIncrement(), region.getDisplayUnits()));
+				positions.add(position);
+			}
+		}
+		return positions.toArray(new Quantity[positions.size()]);
+	}
+
+	/**
+	 * Checks that every position of the scan can be moved to. All the positions are checked by the OE in one call.
+	 * 
 	 * @param oe
 	 * @return int
 	 */
 	public int check(OE oe) {
 		int scanOK = MoveableStatus.ERROR;
 		try {
-			for (Region region : regionList) {
-				Quantity position = Quantity.valueOf(region.getStart(), region.getDisplayUnits());
-
-				if ((scanOK = oe.moveCheck(dofName, position)) != MoveableStatus.SUCCESS)
-					break;
-				for (int j = 0; j < region.getSteps(); j++) {
-					position = position.plus(Quantity.valueOf(region.getIncrement(), region.getDisplayUnits()));
-
-					if ((scanOK = oe.moveCheck(dofName, position)) != MoveableStatus.SUCCESS)
-						break;
-				}
-				if (scanOK != MoveableStatus.SUCCESS)
-					break;
+			MovePlan plan = oe.planMoves(dofName, getPositions());
+			int invalid = plan.getFirstInvalid();
+			if (invalid < 0) {
+				scanOK = MoveableStatus.SUCCESS;
+			} else {
+				scanOK = plan.getStatus(invalid);
+				logger.debug("GeneralScanModel check() cannot move to " + plan.getPosition(invalid));
 			}
 		} catch (MoveableException e) {
 			logger.error("GeneralScanModel check() exception " + e.getMessage());